@@ -0,0 +1,78 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.cli.commands.projection.search.elastic.canonical;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * Waits for background tasks in ElasticSearch, e.g. force merges and reindexes, to complete
+ * <p>
+ * The status of a task can be temporarily unknown, e.g. because ElasticSearch is briefly unreachable, so an unknown
+ * status is tolerated, but only for a limited number of consecutive checks, otherwise a command could wait forever for
+ * a task whose status it can never determine.
+ * </p>
+ */
+final class BackgroundTasks {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackgroundTasks.class);
+
+    private BackgroundTasks() {
+    }
+
+    /**
+     * Waits for a background task to complete
+     *
+     * @param isComplete       Checks whether the task is complete, returning {@code null} if its status is unknown
+     * @param maxUnknown       Maximum number of consecutive times the status may be unknown before giving up
+     * @param waitBetweenPolls Waits between checks of the task status
+     * @return True if the task completed, false if its status was unknown for {@code maxUnknown} consecutive checks
+     * @throws InterruptedException Thrown if interrupted while waiting
+     */
+    static boolean await(Supplier<Boolean> isComplete, int maxUnknown, Waiter waitBetweenPolls)
+            throws InterruptedException {
+        int unknown = 0;
+        while (true) {
+            Boolean complete = isComplete.get();
+            if (Boolean.TRUE.equals(complete)) {
+                return true;
+            } else if (complete == null) {
+                if (++unknown >= maxUnknown) {
+                    LOGGER.error("Status of task was unknown {} consecutive times, giving up waiting for it", unknown);
+                    return false;
+                }
+            } else {
+                unknown = 0;
+            }
+            waitBetweenPolls.await();
+        }
+    }
+
+    /**
+     * Waits between checks of a task's status
+     */
+    @FunctionalInterface
+    interface Waiter {
+        /**
+         * Waits
+         *
+         * @throws InterruptedException Thrown if interrupted while waiting
+         */
+        void await() throws InterruptedException;
+    }
+}
@@ -0,0 +1,393 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.cli.commands.projection.search.elastic.canonical;
+
+import com.github.rvesse.airline.annotations.AirlineModule;
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.restrictions.Required;
+import com.github.rvesse.airline.annotations.restrictions.ranges.IntegerRange;
+import com.github.rvesse.airline.annotations.restrictions.ranges.LongRange;
+import io.telicent.smart.cache.canonical.configuration.CanonicalSearchConfiguration;
+import io.telicent.smart.cache.cli.commands.SmartCacheCommand;
+import io.telicent.smart.cache.cli.options.search.elastic.ElasticSearchOptions;
+import io.telicent.smart.cache.cli.options.search.elastic.IndexingOptions;
+import io.telicent.smart.cache.search.SearchIndexer;
+import io.telicent.smart.cache.search.elastic.ElasticIndexManager;
+import io.telicent.smart.cache.search.elastic.ElasticSearchIndexer;
+import io.telicent.smart.cache.search.elastic.RawJsonDocument;
+import io.telicent.smart.cache.search.model.SearchIndexBulkResults;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A command for loading canonical records from JSON Lines dump files directly into ElasticSearch, bypassing Kafka
+ * <p>
+ * Uncompressed files are memory mapped and split into line aligned chunks which are parsed and indexed in parallel.
+ * Gzip compressed files, detected by a {@code .gz} extension, cannot be split so are decompressed sequentially into
+ * chunks, which are then parsed and indexed in parallel.  While loading the index is switched to settings that favour
+ * ingestion throughput, see {@link ElasticIndexManager#BULK_INGESTION_SETTINGS}, and its original settings are restored
+ * once loading completes.  The original settings are durably recorded in the index metadata, see
+ * {@link ElasticIndexManager#applyBulkIngestionSettings(String)}, so they are still restored by the next bulk ingestion
+ * if this command terminates before restoring them.
+ * </p>
+ */
+@Command(name = "elastic-can-load.sh", description = "Bulk loads canonical records from JSON Lines files, optionally gzip compressed, into a similarity index in ElasticSearch")
+public class CanonicalBulkLoadCommand extends SmartCacheCommand {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CanonicalBulkLoadCommand.class);
+    private static final long MEBIBYTE = 1024L * 1024L;
+    private static final int MAX_LOGGED_ERRORS = 10;
+    /**
+     * Maximum number of consecutive times the status of the force merge may be unknown, e.g. because ElasticSearch is
+     * unreachable, before we give up waiting for it to complete
+     */
+    private static final int MAX_UNKNOWN_TASK_STATUSES = 10;
+
+    /**
+     * ElasticSearch related options
+     */
+    @AirlineModule
+    protected final ElasticSearchOptions elastic = new ElasticSearchOptions();
+
+    /**
+     * Indexing related options
+     */
+    @AirlineModule
+    protected final IndexingOptions indexing =
+            new IndexingOptions(CanonicalSearchConfiguration.CONFIG_NAME_V1,
+                                CanonicalSearchConfiguration.DOCUMENT_FORMAT_IES4_V3);
+
+    @Option(name = "--chunk-size", title = "ChunkSizeMiB", description = "Specifies the size (in MiB) of the chunks that input files are split into for parallel processing.  Default is 64 MiB.")
+    @LongRange(min = 1, max = 1024)
+    long chunkSize = 64;
+
+    @Option(name = "--keep-index-settings", arity = 0, description = "Specifies that the index settings should not be changed while loading.  By default refreshes are disabled and replicas are dropped while loading, and the original settings restored once loading completes.")
+    boolean keepIndexSettings = false;
+
+    @Option(name = "--report-interval", title = "ReportIntervalSeconds", description = "Specifies how often (in seconds) loading progress is reported.  Default is 10 seconds.")
+    @IntegerRange(min = 1)
+    int reportInterval = 10;
+
+    /**
+     * Dynamic Rule mapping configuration
+     */
+    @Option(name = "--canonical-config", title = "CanonicalTypeConfiguration", description = "Path of configuration file for setting up dynamic rules for processing canonical types")
+    protected String canonicalConfig;
+
+    @Arguments(title = "File", description = "Specifies the JSON Lines files containing canonical records to load, files with a .gz extension are treated as gzip compressed.")
+    @Required
+    List<String> files = new ArrayList<>();
+
+    private SearchIndexer<RawJsonDocument> indexer;
+    private ExecutorService workers;
+    private Semaphore outstanding;
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile Throwable failure;
+
+    @Override
+    public int run() {
+        CanonicalSearchConfiguration.loadDynamicMappingRules(this.canonicalConfig);
+
+        int result = 1;
+        try (ElasticSearchIndexer<RawJsonDocument> indexer =
+                     this.elastic.prepareElasticIndexer(this.indexing.getConfigName(), null, null);
+             ElasticIndexManager manager = this.elastic.prepareElasticManager()) {
+            this.indexer = indexer;
+            result = this.load(manager, this.elastic.getIndex());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // Only closing the connections throws checked exceptions, by which point loading has finished
+            LOGGER.warn("Failed to close ElasticSearch connections: {}", e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Loads the input files into the index
+     *
+     * @param manager Index manager
+     * @param index   Index
+     * @return Exit status
+     */
+    private int load(ElasticIndexManager manager, String index) {
+        Map<String, String> originalSettings = null;
+        if (!this.keepIndexSettings) {
+            originalSettings = manager.applyBulkIngestionSettings(index);
+            if (originalSettings == null) {
+                LOGGER.warn("Unable to apply bulk ingestion settings to index {}, loading with existing settings",
+                            index);
+            }
+        }
+
+        int workerCount = this.indexing.indexingWorkers;
+        this.workers = Executors.newFixedThreadPool(workerCount);
+        this.outstanding = new Semaphore(workerCount * 2);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bulk-load-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startTime = System.currentTimeMillis();
+        reporter.scheduleAtFixedRate(() -> this.reportProgress(startTime), this.reportInterval, this.reportInterval,
+                                     TimeUnit.SECONDS);
+        try {
+            for (String file : this.files) {
+                if (this.failure != null) {
+                    break;
+                }
+                LOGGER.info("Loading canonical records from {}", file);
+                if (file.endsWith(".gz")) {
+                    this.loadCompressed(Path.of(file));
+                } else {
+                    this.loadMapped(Path.of(file));
+                }
+            }
+            this.workers.shutdown();
+            while (!this.workers.awaitTermination(this.reportInterval, TimeUnit.SECONDS)) {
+                LOGGER.debug("Waiting for outstanding chunks to be loaded");
+            }
+
+            this.indexer.flush(false);
+            // Merge before restoring the original settings so any replicas are built from the merged segments
+            if (this.failure == null && !this.forceMerge(manager, index)) {
+                this.failure = new IllegalStateException("Unable to determine whether force merge of index " + index
+                                                         + " completed");
+            }
+        } catch (IOException e) {
+            LOGGER.error("Failed to read input files: {}", e.getMessage());
+            this.failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while loading");
+            this.failure = e;
+        } finally {
+            this.workers.shutdownNow();
+            reporter.shutdownNow();
+            try {
+                // Don't let a progress report still in progress interleave with the final report
+                reporter.awaitTermination(this.reportInterval, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (originalSettings != null) {
+                manager.restoreBulkIngestionSettings(index, originalSettings);
+            }
+        }
+
+        this.reportProgress(startTime);
+        if (this.failure != null) {
+            LOGGER.error("Bulk loading aborted due to failure: {}", this.failure.getMessage());
+            return 1;
+        } else if (this.failures.get() > 0) {
+            LOGGER.warn("{} records failed to load", this.failures.get());
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Force merges the index, waiting for the merge to complete
+     *
+     * @param manager Index manager
+     * @param index   Index
+     * @return True if the merge completed, or could not be started, false if its status was unknown for
+     * {@link #MAX_UNKNOWN_TASK_STATUSES} consecutive checks
+     * @throws InterruptedException Thrown if interrupted while waiting for the merge to complete
+     */
+    private boolean forceMerge(ElasticIndexManager manager, String index) throws InterruptedException {
+        String task = manager.startForceMerge(index, 1L);
+        if (task == null) {
+            return true;
+        }
+        return BackgroundTasks.await(() -> manager.isTaskComplete(task), MAX_UNKNOWN_TASK_STATUSES, () -> {
+            LOGGER.info("Waiting for force merge of index {} to complete", index);
+            TimeUnit.SECONDS.sleep(this.reportInterval);
+        });
+    }
+
+    /**
+     * Loads an uncompressed file by memory mapping line aligned chunks of it
+     *
+     * @param file File
+     * @throws IOException          Thrown if the file cannot be read
+     * @throws InterruptedException Thrown if interrupted while waiting to submit a chunk
+     */
+    private void loadMapped(Path file) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (JsonLinesChunker.Chunk chunk : JsonLinesChunker.split(channel, this.chunkSize * MEBIBYTE)) {
+                if (this.failure != null) {
+                    return;
+                }
+                // NB - The mapping remains valid after the channel is closed
+                this.submit(channel.map(FileChannel.MapMode.READ_ONLY, chunk.offset(), chunk.length()));
+            }
+        }
+    }
+
+    /**
+     * Loads a gzip compressed file by decompressing it into line aligned chunks
+     *
+     * @param file File
+     * @throws IOException          Thrown if the file cannot be read
+     * @throws InterruptedException Thrown if interrupted while waiting to submit a chunk
+     */
+    private void loadCompressed(Path file) throws IOException, InterruptedException {
+        int size = (int) (this.chunkSize * MEBIBYTE);
+        try (InputStream input = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file.toFile())))) {
+            byte[] buffer = new byte[size];
+            int length = 0;
+            int read;
+            while ((read = input.readNBytes(buffer, length, buffer.length - length)) > 0 || length > 0) {
+                if (this.failure != null) {
+                    return;
+                }
+                length += read;
+                int end = length;
+                if (read > 0 && length == buffer.length) {
+                    // Chunk is full, submit up to the last complete line carrying the remainder over to the next chunk
+                    int lastNewline = JsonLinesChunker.lastNewline(buffer, length);
+                    if (lastNewline < 0) {
+                        // Single line larger than the chunk size, grow the buffer
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                        continue;
+                    }
+                    end = lastNewline + 1;
+                }
+                this.submit(ByteBuffer.wrap(Arrays.copyOf(buffer, end)));
+                System.arraycopy(buffer, end, buffer, 0, length - end);
+                length -= end;
+            }
+        }
+    }
+
+    /**
+     * Submits a chunk for loading, blocking if too many chunks are already waiting to be loaded
+     *
+     * @param chunk Chunk
+     * @throws InterruptedException Thrown if interrupted while waiting
+     */
+    private void submit(ByteBuffer chunk) throws InterruptedException {
+        this.outstanding.acquire();
+        this.workers.submit(() -> {
+            try {
+                this.loadChunk(chunk);
+            } catch (Throwable e) {
+                LOGGER.error("Failed to load chunk:", e);
+                this.failure = e;
+            } finally {
+                this.outstanding.release();
+            }
+        });
+    }
+
+    /**
+     * Parses and indexes the records in a chunk
+     *
+     * @param chunk Chunk
+     */
+    private void loadChunk(ByteBuffer chunk) {
+        int batchSize = this.indexing.indexBatchSize;
+        List<RawJsonDocument> batch = new ArrayList<>(batchSize);
+        int start = chunk.position();
+        int limit = chunk.limit();
+        for (int i = start; i <= limit; i++) {
+            if (i == limit || chunk.get(i) == '\n') {
+                int end = i;
+                if (end > start && chunk.get(end - 1) == '\r') {
+                    end--;
+                }
+                if (end > start) {
+                    byte[] line = new byte[end - start];
+                    chunk.get(start, line);
+                    try {
+                        batch.add(RawJsonDocument.parse(line, CanonicalDocumentDeserializer.ID_FIELD));
+                    } catch (IOException e) {
+                        this.recordFailure("Malformed record encountered: {}", e.getMessage());
+                    }
+                    if (batch.size() == batchSize) {
+                        this.index(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                start = i + 1;
+            }
+        }
+        if (!batch.isEmpty()) {
+            this.index(batch);
+        }
+        this.bytes.addAndGet(limit - chunk.position());
+    }
+
+    private void index(List<RawJsonDocument> batch) {
+        if (this.failure != null) {
+            return;
+        }
+        SearchIndexBulkResults<RawJsonDocument> results =
+                this.indexer.bulkIndex(CanonicalIndexCommand::obtainID, batch);
+        this.documents.addAndGet(results.getSuccessfulCount());
+        results.getFailureStream()
+               .forEach(r -> this.recordFailure("Record {} failed to load: {}", r.getItem(), r.getReason()));
+    }
+
+    private void recordFailure(String message, Object... args) {
+        if (this.failures.incrementAndGet() <= MAX_LOGGED_ERRORS) {
+            LOGGER.warn(message, args);
+        }
+    }
+
+    private void reportProgress(long startTime) {
+        double elapsed = Math.max(1, System.currentTimeMillis() - startTime) / 1000.0;
+        long loaded = this.documents.get();
+        long read = this.bytes.get();
+        LOGGER.info("Loaded {} records ({} records/second), read {} MiB ({} MiB/second), {} failures", loaded,
+                    String.format("%,.2f", loaded / elapsed), String.format("%,.2f", read / (double) MEBIBYTE),
+                    String.format("%,.2f", read / (double) MEBIBYTE / elapsed), this.failures.get());
+    }
+
+    /**
+     * Entry point for running the bulk loader as a single command
+     *
+     * @param args Command options and arguments
+     */
+    public static void main(String[] args) {
+        SmartCacheCommand.runAsSingleCommand(CanonicalBulkLoadCommand.class, args);
+    }
+}
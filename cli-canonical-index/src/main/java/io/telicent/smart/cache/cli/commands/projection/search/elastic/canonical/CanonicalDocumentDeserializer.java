@@ -15,26 +15,36 @@
  */
 package io.telicent.smart.cache.cli.commands.projection.search.elastic.canonical;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import io.telicent.smart.cache.search.elastic.RawJsonDocument;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 
-import static io.telicent.smart.cache.canonical.utility.Mapper.getJsonMapper;
-
 /**
  * A class for deserializing Canonical Forms
+ * <p>
+ * Canonical forms are indexed exactly as they appear on the topic, so rather than parsing the whole record only the
+ * {@code id} field is read and the record bytes are retained as-is for indexing.
+ * </p>
  */
-public class CanonicalFormMapDeserializer implements Deserializer<CanonicalFormMap> {
+public class CanonicalDocumentDeserializer implements Deserializer<RawJsonDocument> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CanonicalDocumentDeserializer.class);
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(CanonicalFormMapDeserializer.class);
+    /**
+     * The field of a canonical form that holds its ID
+     */
+    public static final String ID_FIELD = "id";
 
     @Override
-    public CanonicalFormMap deserialize(String topic, byte[] data) {
+    public RawJsonDocument deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
         try {
-            return new CanonicalFormMap(getJsonMapper().readValue(data, new TypeReference<>() {}));
+            return RawJsonDocument.parse(data, ID_FIELD);
         } catch (IOException e) {
             LOGGER.warn("Malformed record encountered: {}", e.getMessage());
             return null;
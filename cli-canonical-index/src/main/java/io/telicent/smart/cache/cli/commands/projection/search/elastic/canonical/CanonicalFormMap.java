@@ -1,47 +0,0 @@
-/**
- *   Copyright (c) Telicent Ltd.
- *
- *   Licensed under the Apache License, Version 2.0 (the "License");
- *   you may not use this file except in compliance with the License.
- *   You may obtain a copy of the License at
- *
- *       http://www.apache.org/licenses/LICENSE-2.0
- *
- *   Unless required by applicable law or agreed to in writing, software
- *   distributed under the License is distributed on an "AS IS" BASIS,
- *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *   See the License for the specific language governing permissions and
- *   limitations under the License.
- */
-package io.telicent.smart.cache.cli.commands.projection.search.elastic.canonical;
-
-
-import com.fasterxml.jackson.annotation.JsonValue;
-
-import java.util.Map;
-
-/**
- * A representation of canonical forms
- *
- * @param entityMapping map of underlying entities
- */
-public record CanonicalFormMap(Map<String, Object> entityMapping) {
-    /**
-     * Constructs a representation of the canonical record (using a map)
-     *
-     * @param entityMapping mapping of entity data
-     */
-    public CanonicalFormMap {
-    }
-
-    /**
-     * Gets the Entity Mapping to which this record refers
-     *
-     * @return Entity
-     */
-    @Override
-    @JsonValue
-    public Map<String, Object> entityMapping() {
-        return entityMapping;
-    }
-}
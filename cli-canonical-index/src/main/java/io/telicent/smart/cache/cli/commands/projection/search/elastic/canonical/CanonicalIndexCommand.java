@@ -26,10 +26,15 @@ import io.telicent.smart.cache.cli.options.search.elastic.IndexingOptions;
 import io.telicent.smart.cache.live.model.IODescriptor;
 import io.telicent.smart.cache.projectors.Projector;
 import io.telicent.smart.cache.projectors.Sink;
+import io.telicent.smart.cache.search.SearchIndexer;
+import io.telicent.smart.cache.search.elastic.RawJsonDocument;
 import io.telicent.smart.cache.search.sinks.BulkSearchIndexerSink;
+import io.telicent.smart.cache.search.sinks.PartitionedSink;
+import io.telicent.smart.cache.search.sinks.ProcessedEvents;
 import io.telicent.smart.cache.server.jaxrs.model.HealthStatus;
 import io.telicent.smart.cache.sources.Event;
 import io.telicent.smart.cache.sources.EventSource;
+import io.telicent.smart.cache.sources.kafka.KafkaEvent;
 import io.telicent.smart.cache.sources.kafka.KafkaEventSource;
 import org.apache.kafka.common.serialization.BytesDeserializer;
 import org.apache.kafka.common.serialization.BytesSerializer;
@@ -37,6 +42,8 @@ import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
 
+import java.time.Duration;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.function.Supplier;
 
@@ -45,7 +52,7 @@ import java.util.function.Supplier;
  */
 @Command(name = "elastic-can-index.sh", description = "Indexes records from the canonical topic and builds a similarity index in ElasticSearch")
 public class CanonicalIndexCommand extends
-        AbstractKafkaProjectorCommand<Bytes, CanonicalFormMap, Event<Bytes, CanonicalFormMap>> {
+        AbstractKafkaProjectorCommand<Bytes, RawJsonDocument, Event<Bytes, RawJsonDocument>> {
 
     /**
      * ElasticSearch related options
@@ -81,13 +88,13 @@ public class CanonicalIndexCommand extends
     }
 
     @Override
-    protected Serializer<CanonicalFormMap> valueSerializer() {
+    protected Serializer<RawJsonDocument> valueSerializer() {
         return null;
     }
 
     @Override
-    protected Deserializer<CanonicalFormMap> valueDeserializer() {
-        return new CanonicalFormMapDeserializer();
+    protected Deserializer<RawJsonDocument> valueDeserializer() {
+        return new CanonicalDocumentDeserializer();
     }
 
     @Override
@@ -106,41 +113,89 @@ public class CanonicalIndexCommand extends
 
 
     @Override
-    protected EventSource<Bytes, CanonicalFormMap> getSource() {
+    protected EventSource<Bytes, RawJsonDocument> getSource() {
         // TODO - slotting in here. Not ideal though
         CanonicalSearchConfiguration.loadDynamicMappingRules(this.canonicalConfig);
 
-        return KafkaEventSource.<Bytes, CanonicalFormMap>create()
+        return KafkaEventSource.<Bytes, RawJsonDocument>create()
                                .bootstrapServers(this.kafka.bootstrapServers)
                                .topics(this.kafka.topics)
                                .consumerGroup(this.kafka.getConsumerGroup())
                                .keyDeserializer(BytesDeserializer.class)
-                               .valueDeserializer(CanonicalFormMapDeserializer.class)
-                               .maxPollRecords(100)
+                               .valueDeserializer(CanonicalDocumentDeserializer.class)
+                               .maxPollRecords(this.indexing.maxPollRecords)
                                .readPolicy(this.kafka.readPolicy.toReadPolicy())
                                .autoCommit(this.useAutoCommit())
                                .build();
     }
 
     @Override
-    protected Projector<Event<Bytes, CanonicalFormMap>, Event<Bytes, CanonicalFormMap>> getProjector() {
+    protected Projector<Event<Bytes, RawJsonDocument>, Event<Bytes, RawJsonDocument>> getProjector() {
         return (event, sink) -> sink.send(event);
     }
 
-    private String obtainID(CanonicalFormMap map) {
-        return map.entityMapping().getOrDefault("id", UUID.randomUUID().toString()).toString();
+    /**
+     * Obtains the ID of a canonical document, generating a random ID if the document does not have one
+     *
+     * @param document Document
+     * @return Document ID
+     */
+    static String obtainID(RawJsonDocument document) {
+        return document.id() != null ? document.id() : UUID.randomUUID().toString();
+    }
+
+    /**
+     * Calculates the partition of an event, events from the same Kafka topic partition always have the same partition
+     *
+     * @param event Event
+     * @return Partition
+     */
+    static int partitionOf(Event<Bytes, RawJsonDocument> event) {
+        if (event instanceof KafkaEvent<Bytes, RawJsonDocument> kafkaEvent) {
+            return Objects.hash(kafkaEvent.getConsumerRecord().topic(), kafkaEvent.getConsumerRecord().partition());
+        }
+        return 0;
     }
 
     @Override
-    protected Sink<Event<Bytes, CanonicalFormMap>> prepareWorkSink() {
-        return BulkSearchIndexerSink.<Bytes, CanonicalFormMap>createBulk()
-                                    .indexer(this.elastic.prepareElasticIndexer(this.indexing.getConfigName(), null,
-                                                                                null))
-                                    .idProvider(this::obtainID)
-                                    .batchSize(this.indexing.indexBatchSize)
-                                    .flushPerBatches(this.indexing.flushPerBatches)
-                                    .maxIdleTime(this.indexing.selectMaxIdleTime())
-                                    .build();
+    protected Sink<Event<Bytes, RawJsonDocument>> prepareWorkSink() {
+        SearchIndexer<RawJsonDocument> indexer =
+                this.elastic.prepareElasticIndexer(this.indexing.getConfigName(), null, null);
+        if (this.indexing.indexingWorkers == 1) {
+            return prepareBulkSink(indexer, null);
+        }
+        // The workers' sinks run on their own threads, so they must leave reporting processed events, i.e. committing
+        // Kafka offsets, to the partitioned sink which does so from the thread polling Kafka
+        ProcessedEvents processedEvents = new ProcessedEvents();
+        return PartitionedSink.<Bytes, RawJsonDocument>createPartitioned()
+                              .workers(this.indexing.indexingWorkers)
+                              .queueDepth(this.indexing.workerQueueDepth)
+                              .sinkPerWorker(worker -> prepareBulkSink(indexer, processedEvents))
+                              .partitionBy(CanonicalIndexCommand::partitionOf)
+                              .processedEvents(processedEvents)
+                              .build();
+    }
+
+    private Sink<Event<Bytes, RawJsonDocument>> prepareBulkSink(SearchIndexer<RawJsonDocument> indexer,
+                                                                ProcessedEvents processedEvents) {
+        BulkSearchIndexerSink.Builder<Bytes, RawJsonDocument> builder =
+                BulkSearchIndexerSink.<Bytes, RawJsonDocument>createBulk()
+                                     .indexer(indexer)
+                                     .idProvider(CanonicalIndexCommand::obtainID)
+                                     .batchSize(this.indexing.indexBatchSize)
+                                     .flushPerBatches(this.indexing.flushPerBatches)
+                                     .maxOutstandingBatches(this.indexing.maxOutstandingBatches)
+                                     .maxConcurrentRequests(this.indexing.maxConcurrentRequests)
+                                     .sizeEstimator(document -> (long) document.size())
+                                     .maxBatchBytes(this.indexing.maxBatchBytes)
+                                     .bulkIngestionThreshold(this.indexing.bulkIngestionThreshold)
+                                     .processedEvents(processedEvents)
+                                     .maxIdleTime(this.indexing.selectMaxIdleTime());
+        if (this.indexing.adaptiveBatching) {
+            builder.adaptiveBatchSizing(this.indexing.minIndexBatchSize, this.indexing.maxIndexBatchSize,
+                                        Duration.ofMillis(this.indexing.targetBulkLatency));
+        }
+        return builder.build();
     }
 
     /**
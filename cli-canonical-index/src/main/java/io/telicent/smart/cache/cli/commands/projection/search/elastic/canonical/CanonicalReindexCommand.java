@@ -0,0 +1,270 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.cli.commands.projection.search.elastic.canonical;
+
+import com.github.rvesse.airline.annotations.AirlineModule;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.restrictions.Required;
+import com.github.rvesse.airline.annotations.restrictions.ranges.IntegerRange;
+import io.telicent.smart.cache.canonical.configuration.CanonicalSearchConfiguration;
+import io.telicent.smart.cache.cli.commands.SmartCacheCommand;
+import io.telicent.smart.cache.cli.options.search.elastic.ElasticSearchOptions;
+import io.telicent.smart.cache.cli.options.search.elastic.IndexingOptions;
+import io.telicent.smart.cache.search.configuration.IndexConfigurations;
+import io.telicent.smart.cache.search.configuration.rules.SimpleMappingRule;
+import io.telicent.smart.cache.search.elastic.ElasticIndexManager;
+import io.telicent.smart.cache.search.elastic.RawJsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A command for rebuilding a similarity index, e.g. after the canonical type configuration has changed field types,
+ * without any outage for searches
+ * <p>
+ * Searches, and the live canonical indexer, are expected to use an alias as their index name.  This command creates a
+ * new versioned index, named {@code <alias>-v<version>}, using the current index configuration and canonical type
+ * configuration, copies all the documents from the index the alias currently points to via a sliced, and optionally
+ * throttled, ElasticSearch reindex, and then replays any canonical records the live indexer has indexed in the meantime
+ * from Kafka.  Once the new index has caught up the alias is atomically switched to point to it, and after a grace
+ * period a final catch up is made to cover any records the live indexer indexed into the old index while the alias
+ * was being switched.
+ * </p>
+ */
+@Command(name = "elastic-can-reindex.sh", description = "Rebuilds a similarity index in ElasticSearch into a new versioned index and then atomically switches an alias to it, without interrupting searches")
+public class CanonicalReindexCommand extends SmartCacheCommand {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CanonicalReindexCommand.class);
+    /**
+     * Maximum number of consecutive times the status of the reindex may be unknown, e.g. because ElasticSearch is
+     * unreachable, before we give up waiting for it to complete
+     */
+    private static final int MAX_UNKNOWN_TASK_STATUSES = 10;
+
+    /**
+     * ElasticSearch related options
+     */
+    @AirlineModule
+    protected final ElasticSearchOptions elastic = new ElasticSearchOptions();
+
+    /**
+     * Indexing related options
+     */
+    @AirlineModule
+    protected final IndexingOptions indexing =
+            new IndexingOptions(CanonicalSearchConfiguration.CONFIG_NAME_V1,
+                                CanonicalSearchConfiguration.DOCUMENT_FORMAT_IES4_V3);
+
+    /**
+     * Dynamic Rule mapping configuration
+     */
+    @Option(name = "--canonical-config", title = "CanonicalTypeConfiguration", description = "Path of configuration file for setting up dynamic rules for processing canonical types")
+    protected String canonicalConfig;
+
+    @Option(name = {
+            "--bootstrap-server", "--bootstrap-servers"
+    }, title = "BootstrapServers", description = "Specifies the Kafka bootstrap servers that the live canonical indexer consumes from.")
+    @Required
+    String bootstrapServers;
+
+    @Option(name = "--topic", title = "Topic", description = "Specifies the Kafka topic(s) that the live canonical indexer consumes from.")
+    @Required
+    List<String> topics = new ArrayList<>();
+
+    @Option(name = "--group", title = "ConsumerGroup", description = "Specifies the Kafka consumer group of the live canonical indexer, its committed offsets determine which records need replaying into the new index.  These offsets are only ever read.")
+    @Required
+    String group;
+
+    @Option(name = "--slices", title = "Slices", description = "Specifies the number of slices the ElasticSearch reindex is split into so it can run in parallel, or auto to let ElasticSearch decide.  Default is auto.")
+    String slices = "auto";
+
+    @Option(name = "--requests-per-second", title = "RequestsPerSecond", description = "Specifies the maximum number of documents per second the ElasticSearch reindex copies, to limit its impact on live searches and indexing.  Default is unthrottled.")
+    float requestsPerSecond = -1;
+
+    @Option(name = "--reindex-batch-size", title = "ReindexBatchSize", description = "Specifies the number of documents the ElasticSearch reindex copies in each batch.  Default is 1000.")
+    @IntegerRange(min = 1, max = 10_000)
+    int reindexBatchSize = 1_000;
+
+    @Option(name = "--report-interval", title = "ReportIntervalSeconds", description = "Specifies how often (in seconds) reindexing progress is reported.  Default is 10 seconds.")
+    @IntegerRange(min = 1)
+    int reportInterval = 10;
+
+    @Option(name = "--catch-up-threshold", title = "CatchUpThreshold", description = "Specifies the number of records below which a catch up from Kafka is considered to have caught up with the live indexer, at which point the alias is switched.  Default is 1000.")
+    @IntegerRange(min = 0)
+    int catchUpThreshold = 1_000;
+
+    @Option(name = "--max-catch-ups", title = "MaxCatchUps", description = "Specifies the maximum number of catch ups from Kafka to make before switching the alias regardless.  Default is 10.")
+    @IntegerRange(min = 1)
+    int maxCatchUps = 10;
+
+    @Option(name = "--swap-grace-period", title = "SwapGracePeriodSeconds", description = "Specifies how long (in seconds) to wait after switching the alias before making a final catch up from Kafka, this should exceed the time the live indexer takes to commit its offsets.  Default is 30 seconds.")
+    @IntegerRange(min = 0)
+    int swapGracePeriod = 30;
+
+    @Option(name = "--delete-old-index", arity = 0, description = "Specifies that the indices the alias previously pointed to are deleted once the alias has been switched.  This is required if the alias is currently the name of a concrete index, as ElasticSearch cannot create an alias with the same name as an existing index.")
+    boolean deleteOldIndex = false;
+
+    @Override
+    public int run() {
+        String alias = this.elastic.getIndex();
+        ElasticIndexManager manager = this.elastic.prepareElasticManager();
+
+        List<String> oldIndices = manager.getAliasedIndices(alias);
+        if (oldIndices == null) {
+            LOGGER.error("Unable to determine what index alias {} currently points to", alias);
+            return 1;
+        } else if (oldIndices.isEmpty()) {
+            if (!Boolean.TRUE.equals(manager.hasIndex(alias))) {
+                LOGGER.error("No index or alias named {} exists to rebuild", alias);
+                return 1;
+            } else if (!this.deleteOldIndex) {
+                LOGGER.error(
+                        "{} is currently an index rather than an alias, switching it to an alias requires that it is deleted, specify --delete-old-index to allow this",
+                        alias);
+                return 1;
+            }
+            oldIndices = List.of(alias);
+        }
+
+        CanonicalSearchConfiguration.loadDynamicMappingRules(this.canonicalConfig);
+        String newIndex = manager.nextVersionedIndexName(alias);
+        LOGGER.info("Rebuilding {} (currently {}) into new index {} using Index Configuration '{}'", alias, oldIndices,
+                    newIndex, this.indexing.getConfigName());
+        if (!Boolean.TRUE.equals(
+                manager.createIndex(newIndex, IndexConfigurations.load(this.indexing.getConfigName(),
+                                                                       SimpleMappingRule.class)))) {
+            LOGGER.error("Failed to create new index {}", newIndex);
+            return 1;
+        }
+
+        try (KafkaCatchUp catchUp = new KafkaCatchUp(this.bootstrapServers, this.topics, this.group,
+                                                     this.elastic.prepareElasticIndexerFor(newIndex, null, null),
+                                                     this.indexing.indexBatchSize)) {
+            // Record where the live indexer is before copying anything so anything it indexes after this point, which
+            // the copy may or may not see, is replayed later
+            catchUp.markStart();
+
+            if (!this.copy(manager, alias, newIndex)) {
+                return 1;
+            }
+
+            for (int i = 1; i <= this.maxCatchUps; i++) {
+                long replayed = catchUp.catchUp();
+                LOGGER.info("Catch up {} replayed {} records into new index {}", i, replayed, newIndex);
+                if (replayed < this.catchUpThreshold) {
+                    break;
+                }
+            }
+            manager.refreshIndex(newIndex);
+
+            if (!Boolean.TRUE.equals(manager.switchAlias(alias, newIndex))) {
+                LOGGER.error("Failed to switch alias {} to new index {}, old indices are unchanged", alias, newIndex);
+                return 1;
+            }
+
+            // The live indexer may have indexed records into the old index right up until the alias was switched so
+            // wait for it to commit its offsets and then catch up one final time
+            TimeUnit.SECONDS.sleep(this.swapGracePeriod);
+            LOGGER.info("Final catch up replayed {} records into new index {}", catchUp.catchUp(), newIndex);
+            manager.refreshIndex(newIndex);
+        } catch (IOException e) {
+            LOGGER.error("Failed to catch up with the live indexer: {}", e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while rebuilding {}", alias);
+            return 1;
+        }
+
+        if (this.deleteOldIndex) {
+            for (String oldIndex : oldIndices) {
+                if (!oldIndex.equals(alias)) {
+                    LOGGER.info("Deleting old index {}", oldIndex);
+                    manager.deleteIndex(oldIndex);
+                }
+            }
+        }
+        LOGGER.info("Alias {} now points to rebuilt index {}", alias, newIndex);
+        return 0;
+    }
+
+    /**
+     * Copies all documents into the new index, with the index temporarily switched to settings that favour ingestion
+     * throughput
+     *
+     * @param manager  Index manager
+     * @param source   Source index, or alias
+     * @param newIndex New index
+     * @return True if the copy succeeded, false otherwise
+     * @throws InterruptedException Thrown if interrupted while waiting for the copy to complete
+     */
+    private boolean copy(ElasticIndexManager manager, String source, String newIndex) throws InterruptedException {
+        // Original settings are durably recorded so are still restored by the next bulk ingestion into the new index if
+        // we terminate before restoring them
+        Map<String, String> originalSettings = manager.applyBulkIngestionSettings(newIndex);
+        try {
+            String task = manager.startReindex(source, newIndex, this.slices, this.requestsPerSecond,
+                                               this.reindexBatchSize);
+            if (task == null) {
+                return false;
+            }
+            long startTime = System.currentTimeMillis();
+            AtomicReference<ElasticIndexManager.ReindexStatus> finalStatus = new AtomicReference<>();
+            boolean completed = BackgroundTasks.await(() -> {
+                ElasticIndexManager.ReindexStatus status = manager.getReindexStatus(task);
+                if (status == null) {
+                    return null;
+                }
+                double elapsed = Math.max(1, System.currentTimeMillis() - startTime) / 1000.0;
+                LOGGER.info("Copied {} of {} documents ({} documents/second), {} version conflicts", status.copied(),
+                            status.total(), String.format("%,.2f", status.copied() / elapsed),
+                            status.versionConflicts());
+                finalStatus.set(status);
+                return status.completed();
+            }, MAX_UNKNOWN_TASK_STATUSES, () -> TimeUnit.SECONDS.sleep(this.reportInterval));
+            if (!completed) {
+                LOGGER.error("Unable to determine whether copying documents into new index {} completed, reindex "
+                             + "task {} may still be running", newIndex, task);
+                return false;
+            } else if (!finalStatus.get().failures().isEmpty()) {
+                LOGGER.error("Copying documents into new index {} failed: {}", newIndex,
+                             finalStatus.get().failures());
+                return false;
+            }
+            return true;
+        } finally {
+            if (originalSettings != null) {
+                manager.restoreBulkIngestionSettings(newIndex, originalSettings);
+            }
+        }
+    }
+
+    /**
+     * Entry point for running the reindexer as a single command
+     *
+     * @param args Command options and arguments
+     */
+    public static void main(String[] args) {
+        SmartCacheCommand.runAsSingleCommand(CanonicalReindexCommand.class, args);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.cli.commands.projection.search.elastic.canonical;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits JSON Lines files into chunks that can be processed independently
+ * <p>
+ * Chunks are approximately the requested size but are always aligned to line boundaries, i.e. every chunk except the
+ * last ends immediately after a newline, so no line is ever split across chunks.
+ * </p>
+ */
+final class JsonLinesChunker {
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private JsonLinesChunker() {
+    }
+
+    /**
+     * A chunk of a file
+     *
+     * @param offset Offset of the chunk within the file
+     * @param length Length of the chunk in bytes
+     */
+    record Chunk(long offset, long length) {
+    }
+
+    /**
+     * Splits a file into line aligned chunks
+     *
+     * @param channel   File channel
+     * @param chunkSize Target chunk size in bytes, chunks may be larger than this if a line crosses the chunk boundary
+     * @return Chunks
+     * @throws IOException Thrown if the file cannot be read
+     */
+    static List<Chunk> split(FileChannel channel, long chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be >= 1");
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        long size = channel.size();
+        long offset = 0;
+        while (offset < size) {
+            long end = Math.min(offset + chunkSize, size);
+            if (end < size) {
+                end = endOfLine(channel, end - 1, size);
+            }
+            chunks.add(new Chunk(offset, end - offset));
+            offset = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Finds the end of the line containing the given position
+     *
+     * @param channel  File channel
+     * @param position Position
+     * @param size     File size
+     * @return Position immediately after the next newline at or after the given position, or the file size if there
+     * are no further newlines
+     * @throws IOException Thrown if the file cannot be read
+     */
+    private static long endOfLine(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Finds the position of the last newline in a buffer
+     *
+     * @param buffer Buffer
+     * @param length Number of bytes of the buffer that are populated
+     * @return Position of the last newline, or {@code -1} if none
+     */
+    static int lastNewline(byte[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
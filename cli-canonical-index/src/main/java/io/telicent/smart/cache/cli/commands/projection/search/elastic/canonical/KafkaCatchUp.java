@@ -0,0 +1,209 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.cli.commands.projection.search.elastic.canonical;
+
+import io.telicent.smart.cache.search.SearchIndexer;
+import io.telicent.smart.cache.search.elastic.RawJsonDocument;
+import io.telicent.smart.cache.search.model.SearchIndexBulkResults;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Replays canonical records from Kafka into an index so that it catches up with the offsets that a live canonical
+ * indexer has reached
+ * <p>
+ * The live indexer's progress is determined from the committed offsets of its consumer group, which are only ever read,
+ * records are read via a separate consumer that manually assigns partitions and never commits offsets, so the live
+ * indexer is unaffected.  Since canonical records are indexed by ID replaying a record that has already been indexed is
+ * harmless.
+ * </p>
+ */
+class KafkaCatchUp implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaCatchUp.class);
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(5);
+
+    private final List<String> topics;
+    private final String group;
+    private final SearchIndexer<RawJsonDocument> indexer;
+    private final int batchSize;
+    private final AdminClient admin;
+    private final KafkaConsumer<byte[], byte[]> consumer;
+    private final Map<TopicPartition, Long> positions = new HashMap<>();
+
+    /**
+     * Creates a new catch up
+     *
+     * @param bootstrapServers Kafka bootstrap servers
+     * @param topics           Topics the live indexer consumes
+     * @param group            Consumer group of the live indexer
+     * @param indexer          Indexer for the index that is catching up
+     * @param batchSize        Number of records to index in each bulk operation
+     */
+    KafkaCatchUp(String bootstrapServers, List<String> topics, String group, SearchIndexer<RawJsonDocument> indexer,
+                 int batchSize) {
+        this.topics = Objects.requireNonNull(topics, "Topics cannot be null");
+        this.group = Objects.requireNonNull(group, "Consumer group cannot be null");
+        this.indexer = Objects.requireNonNull(indexer, "Indexer cannot be null");
+        this.batchSize = batchSize;
+
+        Properties adminProperties = new Properties();
+        adminProperties.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        this.admin = AdminClient.create(adminProperties);
+
+        Properties consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Integer.toString(batchSize));
+        this.consumer = new KafkaConsumer<>(consumerProperties, new ByteArrayDeserializer(),
+                                            new ByteArrayDeserializer());
+    }
+
+    /**
+     * Records the offsets the live indexer has currently reached as the point from which catching up will start
+     * <p>
+     * This should be called before the index that is catching up starts being populated by other means, e.g. a reindex,
+     * so that any records the live indexer indexes after that point are replayed.
+     * </p>
+     *
+     * @throws IOException Thrown if the live indexer's offsets cannot be determined
+     */
+    void markStart() throws IOException {
+        this.positions.clear();
+        this.positions.putAll(this.liveOffsets());
+        LOGGER.info("Catch up will start from consumer group {} offsets {}", this.group, this.positions);
+    }
+
+    /**
+     * Replays records from the current catch up position up to the offsets the live indexer has currently reached
+     *
+     * @return Number of records indexed
+     * @throws IOException Thrown if the live indexer's offsets cannot be determined
+     */
+    long catchUp() throws IOException {
+        Map<TopicPartition, Long> targets = this.liveOffsets();
+        Map<TopicPartition, Long> remaining = new HashMap<>();
+        targets.forEach((partition, target) -> {
+            if (target > this.positions.getOrDefault(partition, 0L)) {
+                remaining.put(partition, target);
+            }
+        });
+        if (remaining.isEmpty()) {
+            return 0;
+        }
+
+        this.consumer.assign(remaining.keySet());
+        remaining.keySet().forEach(p -> this.consumer.seek(p, this.positions.getOrDefault(p, 0L)));
+        long indexed = 0;
+        List<RawJsonDocument> batch = new ArrayList<>(this.batchSize);
+        while (!remaining.isEmpty()) {
+            for (ConsumerRecord<byte[], byte[]> record : this.consumer.poll(POLL_TIMEOUT)) {
+                TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                Long target = remaining.get(partition);
+                if (target == null || record.offset() >= target) {
+                    continue;
+                }
+                if (record.value() != null) {
+                    try {
+                        batch.add(RawJsonDocument.parse(record.value(), CanonicalDocumentDeserializer.ID_FIELD));
+                    } catch (IOException e) {
+                        LOGGER.warn("Skipping malformed record at {} offset {}: {}", partition, record.offset(),
+                                    e.getMessage());
+                    }
+                }
+                if (batch.size() >= this.batchSize) {
+                    indexed += this.index(batch);
+                    batch.clear();
+                }
+            }
+            // Positions may advance past the last record we saw, e.g. due to transaction markers, so use the consumer
+            // position to decide when we've reached the target
+            for (TopicPartition partition : new ArrayList<>(remaining.keySet())) {
+                long position = this.consumer.position(partition);
+                if (position >= remaining.get(partition)) {
+                    remaining.remove(partition);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            indexed += this.index(batch);
+        }
+        this.consumer.unsubscribe();
+        this.positions.putAll(targets);
+        return indexed;
+    }
+
+    private long index(List<RawJsonDocument> batch) {
+        SearchIndexBulkResults<RawJsonDocument> results =
+                this.indexer.bulkIndex(CanonicalIndexCommand::obtainID, batch);
+        results.getFailureStream()
+               .forEach(r -> LOGGER.warn("Record {} failed to index: {}", r.getItem(), r.getReason()));
+        return results.getSuccessfulCount();
+    }
+
+    /**
+     * Gets the offsets the live indexer has currently reached, partitions for which the live indexer has not yet
+     * committed an offset are considered to be at offset zero
+     *
+     * @return Offsets
+     * @throws IOException Thrown if the offsets cannot be determined
+     */
+    private Map<TopicPartition, Long> liveOffsets() throws IOException {
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committed =
+                    this.admin.listConsumerGroupOffsets(this.group).partitionsToOffsetAndMetadata().get();
+            Map<TopicPartition, Long> offsets = new HashMap<>();
+            for (String topic : this.topics) {
+                for (PartitionInfo info : this.consumer.partitionsFor(topic)) {
+                    TopicPartition partition = new TopicPartition(topic, info.partition());
+                    OffsetAndMetadata offset = committed.get(partition);
+                    offsets.put(partition, offset != null ? offset.offset() : 0L);
+                }
+            }
+            return offsets;
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to retrieve offsets for consumer group " + this.group, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while retrieving offsets for consumer group " + this.group, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.consumer.close();
+        this.admin.close();
+    }
+}
@@ -127,6 +127,10 @@ public class ElasticSearchOptions {
     }, description = "Specifies whether documents are indexed into ElasticSearch via upserts i.e. modifying existing documents rather than each generated document completely overwriting any previous document.  Default mode is upsert.")
     boolean upsert = true;
 
+    @Option(name = "--elastic-min-force-merge-interval", title = "MinForceMergeInterval", description = "Specifies the minimum amount of time between force merges of the ElasticSearch index in minutes.  Force merges are started, and run in the background, when indexing finishes, but are skipped if a previous force merge is still running or one was started less than this long ago.  Default is 60 minutes.")
+    @IntegerRange(min = 0)
+    int minForceMergeInterval = 60;
+
     /**
      * Default options constructor, assumes that this options instance will be populated by Airline's CLI injection
      */
@@ -165,8 +169,9 @@ public class ElasticSearchOptions {
      * @param <T>                 Item type
      * @return ElasticSearch Indexer
      */
-    public <T> SearchIndexer<T> prepareElasticIndexer(String indexConfigName, Function<T, Script> updateScriptBuilder,
-                                                      Function<T, Script> deleteScriptBuilder) {
+    public <T> ElasticSearchIndexer<T> prepareElasticIndexer(String indexConfigName,
+                                                             Function<T, Script> updateScriptBuilder,
+                                                             Function<T, Script> deleteScriptBuilder) {
         if (!IndexConfigurations.supported(indexConfigName, SimpleMappingRule.class)) {
             throw new SearchException("Specified index configuration " + indexConfigName + " is not supported");
         }
@@ -226,14 +231,31 @@ public class ElasticSearchOptions {
             LOGGER.debug("ElasticSearch index {} already exists", this.index);
         }
 
+        return this.prepareElasticIndexerFor(this.index, updateScriptBuilder, deleteScriptBuilder);
+    }
+
+    /**
+     * Prepares an ElasticSearch backed {@link SearchIndexer} for a specific index, unlike
+     * {@link #prepareElasticIndexer(String, Function, Function)} this neither waits for ElasticSearch to be ready nor
+     * creates the index
+     *
+     * @param index               Index, or alias, to index into
+     * @param updateScriptBuilder A function that can build ElasticSearch update scripts for update operations
+     * @param deleteScriptBuilder A function that can build ElasticSearch delete scripts for delete operations
+     * @param <T>                 Item type
+     * @return ElasticSearch Indexer
+     */
+    public <T> ElasticSearchIndexer<T> prepareElasticIndexerFor(String index, Function<T, Script> updateScriptBuilder,
+                                                                Function<T, Script> deleteScriptBuilder) {
         return ElasticSearchIndexer.<T>create()
-                                   .index(this.index)
+                                   .index(index)
                                    .onIndexBehaviour(this.upsert)
                                    .updatingContentsWith(updateScriptBuilder)
                                    .deletingContentsWith(deleteScriptBuilder)
                                    .withCredentials(this.user, this.password, null)
                                    .maxRetries(this.maxRetries)
                                    .withOpenSearchCompatibility(makeOpenSearchCompatible)
+                                   .minForceMergeInterval(Duration.ofMinutes(this.minForceMergeInterval))
                                    .host(this.host)
                                    .port(this.port)
                                    .build();
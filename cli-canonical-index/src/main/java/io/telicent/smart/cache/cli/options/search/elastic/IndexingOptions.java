@@ -59,6 +59,93 @@ public class IndexingOptions {
     @IntegerRange(min = 1)
     public int flushPerBatches = 10;
 
+    /**
+     * How many full batches may be waiting for, or undergoing, indexing at once
+     */
+    @Option(name = "--max-outstanding-batches", title = "MaxOutstandingBatches",
+            description = "Specifies how many full index batches may be waiting for, or undergoing, indexing at once.  Indexing happens in the background so the pipeline can continue consuming documents while earlier batches are indexed, once this many batches are outstanding the pipeline waits for an earlier batch to complete before continuing.")
+    @IntegerRange(min = 1)
+    public int maxOutstandingBatches = 2;
+
+    /**
+     * How many bulk indexing requests may be in-flight concurrently
+     */
+    @Option(name = "--max-concurrent-requests", title = "MaxConcurrentRequests",
+            description = "Specifies how many bulk indexing requests may be in-flight concurrently.  Documents are still reported as processed strictly in order, and batches containing the same document are never indexed concurrently.  Defaults to 1 i.e. batches are indexed one at a time.")
+    @IntegerRange(min = 1)
+    public int maxConcurrentRequests = 1;
+
+    /**
+     * Whether adaptive batch sizing is enabled
+     */
+    @Option(name = "--adaptive-batching", title = "AdaptiveBatching",
+            description = "Specifies that the index batch size should be adapted to the observed performance of ElasticSearch.  The --index-batch-size is used as the initial batch size, and this is then increased while bulk indexing requests complete within the --target-bulk-latency, and halved whenever a request is slower than that, ElasticSearch rejects documents because it is overloaded, or documents fail to index.")
+    public boolean adaptiveBatching = false;
+
+    /**
+     * Minimum batch size when adaptive batch sizing is enabled
+     */
+    @Option(name = "--min-index-batch-size", title = "MinIndexBatchSize",
+            description = "Specifies the minimum batch size when --adaptive-batching is enabled, this is also the amount by which the batch size is increased each time.")
+    @IntegerRange(min = 1)
+    public int minIndexBatchSize = 100;
+
+    /**
+     * Maximum batch size when adaptive batch sizing is enabled
+     */
+    @Option(name = "--max-index-batch-size", title = "MaxIndexBatchSize",
+            description = "Specifies the maximum batch size when --adaptive-batching is enabled.")
+    @IntegerRange(min = 1)
+    public int maxIndexBatchSize = 10_000;
+
+    /**
+     * Target latency for bulk indexing requests when adaptive batch sizing is enabled
+     */
+    @Option(name = "--target-bulk-latency", title = "TargetBulkLatencyMilliseconds",
+            description = "Specifies the target latency (in milliseconds) for bulk indexing requests when --adaptive-batching is enabled, if a request takes longer than this then the batch size is decreased.")
+    @LongRange(min = 1)
+    public long targetBulkLatency = 1_000;
+
+    /**
+     * Maximum estimated size of a batch in bytes
+     */
+    @Option(name = "--max-batch-bytes", title = "MaxBatchBytes",
+            description = "Specifies the maximum estimated size (in bytes) of a bulk indexing request, once a batch reaches this size it is indexed regardless of how many documents it contains.  This helps avoid ElasticSearch rejecting overly large requests when documents are large.  Defaults to 0 i.e. no limit.")
+    @LongRange(min = 0)
+    public long maxBatchBytes = 0;
+
+    /**
+     * How many indexing workers to use
+     */
+    @Option(name = "--indexing-workers", title = "IndexingWorkers",
+            description = "Specifies how many indexing workers to use.  Each worker indexes the documents from a subset of the Kafka partitions being consumed, using its own independent batching, and reports its documents as processed, thus committing offsets, for its own partitions.  Using more workers than there are partitions has no benefit.  Defaults to 1 i.e. all documents are indexed by a single worker.")
+    @IntegerRange(min = 1)
+    public int indexingWorkers = 1;
+
+    /**
+     * Maximum number of documents queued for each indexing worker
+     */
+    @Option(name = "--worker-queue-depth", title = "WorkerQueueDepth",
+            description = "Specifies the maximum number of documents that may be queued for each indexing worker when --indexing-workers is greater than 1, once a worker's queue is full consuming further documents waits until that worker catches up.")
+    @IntegerRange(min = 1)
+    public int workerQueueDepth = 1_000;
+
+    /**
+     * Maximum records returned by each Kafka poll
+     */
+    @Option(name = "--max-poll-records", title = "MaxPollRecords",
+            description = "Specifies the maximum number of records returned by each poll of Kafka.")
+    @IntegerRange(min = 1)
+    public int maxPollRecords = 100;
+
+    /**
+     * How many consecutive batches must wait to be indexed before bulk ingestion mode is entered
+     */
+    @Option(name = "--bulk-ingestion-threshold", title = "BulkIngestionThresholdBatches",
+            description = "Specifies how many consecutive batches must wait for earlier batches to be indexed before the pipeline considers itself to have a backlog, and switches the ElasticSearch index to settings that favour ingestion throughput (no refreshes, no replicas and asynchronous translog durability).  The original index settings are restored once the backlog drains.  Defaults to 0 i.e. index settings are never changed.")
+    @IntegerRange(min = 0)
+    public int bulkIngestionThreshold = 0;
+
     /**
      * The duplicate suppression cache size
      */
@@ -38,7 +38,7 @@ public class DockerTestCanonicalIndexCommandBadOptions extends AbstractElasticIn
 
     @Override
     protected void setupLogging() {
-        enableSpecificLogging(CanonicalFormMapDeserializer.class, Level.WARN);
+        enableSpecificLogging(CanonicalDocumentDeserializer.class, Level.WARN);
         enableSpecificLogging(AbstractProjectorCommand.class, Level.ERROR);
     }
 
@@ -0,0 +1,81 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.cli.commands.projection.search.elastic.canonical;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestBackgroundTasks {
+
+    private static boolean await(AtomicInteger waits, Boolean... statuses) throws InterruptedException {
+        AtomicInteger polls = new AtomicInteger();
+        return BackgroundTasks.await(() -> {
+            int poll = polls.getAndIncrement();
+            Assert.assertTrue(poll < statuses.length, "Polled more times than expected");
+            return statuses[poll];
+        }, 3, waits::incrementAndGet);
+    }
+
+    @Test
+    public void givenCompleteTask_whenAwaiting_thenNoWait() throws InterruptedException {
+        // Given
+        AtomicInteger waits = new AtomicInteger();
+
+        // When and Then
+        Assert.assertTrue(await(waits, true));
+        Assert.assertEquals(waits.get(), 0);
+    }
+
+    @Test
+    public void givenRunningTask_whenAwaiting_thenWaitsUntilComplete() throws InterruptedException {
+        // Given
+        AtomicInteger waits = new AtomicInteger();
+
+        // When and Then
+        Assert.assertTrue(await(waits, false, false, false, false, false, true));
+        Assert.assertEquals(waits.get(), 5);
+    }
+
+    @Test
+    public void givenTaskStatusNeverKnown_whenAwaiting_thenGivesUp() throws InterruptedException {
+        // Given
+        AtomicInteger waits = new AtomicInteger();
+
+        // When and Then
+        Assert.assertFalse(await(waits, null, null, null));
+        Assert.assertEquals(waits.get(), 2);
+    }
+
+    @Test
+    public void givenIntermittentlyUnknownStatus_whenAwaiting_thenUnknownCountResets() throws InterruptedException {
+        // Given
+        AtomicInteger waits = new AtomicInteger();
+
+        // When and Then
+        Assert.assertTrue(await(waits, null, null, false, null, null, false, null, null, true));
+    }
+
+    @Test
+    public void givenUnknownThenCompleteStatus_whenAwaiting_thenCompletes() throws InterruptedException {
+        // Given
+        AtomicInteger waits = new AtomicInteger();
+
+        // When and Then
+        Assert.assertTrue(await(waits, null, null, true));
+    }
+}
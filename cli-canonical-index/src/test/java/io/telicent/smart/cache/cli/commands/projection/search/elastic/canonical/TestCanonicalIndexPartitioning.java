@@ -0,0 +1,107 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.cli.commands.projection.search.elastic.canonical;
+
+import io.telicent.smart.cache.projectors.Sink;
+import io.telicent.smart.cache.search.elastic.RawJsonDocument;
+import io.telicent.smart.cache.search.sinks.PartitionedSink;
+import io.telicent.smart.cache.sources.Event;
+import io.telicent.smart.cache.sources.kafka.KafkaEvent;
+import io.telicent.smart.cache.sources.memory.SimpleEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.utils.Bytes;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class TestCanonicalIndexPartitioning {
+
+    private static Event<Bytes, RawJsonDocument> kafkaEvent(String topic, int partition, long offset) {
+        RawJsonDocument document =
+                new RawJsonDocument(("{\"id\":\"" + offset + "\"}").getBytes(StandardCharsets.UTF_8), "" + offset);
+        return new KafkaEvent<>(new ConsumerRecord<>(topic, partition, offset, null, document), null);
+    }
+
+    @Test
+    public void givenSameTopicPartition_whenPartitioning_thenSamePartitionRegardlessOfOffset() {
+        // Given, When and Then
+        int expected = CanonicalIndexCommand.partitionOf(kafkaEvent("knowledge", 3, 0));
+        for (long offset = 1; offset < 100; offset++) {
+            Assert.assertEquals(CanonicalIndexCommand.partitionOf(kafkaEvent("knowledge", 3, offset)), expected);
+        }
+    }
+
+    @Test
+    public void givenNonKafkaEvent_whenPartitioning_thenFirstPartition() {
+        // Given
+        Event<Bytes, RawJsonDocument> event = new SimpleEvent<>(null, null, null);
+
+        // When and Then
+        Assert.assertEquals(CanonicalIndexCommand.partitionOf(event), 0);
+    }
+
+    @Test
+    public void givenManyTopicPartitions_whenSentToPartitionedSink_thenEachPartitionHandledByOneWorkerInOrder() {
+        // Given
+        Map<String, Integer> partitionToWorker = new ConcurrentHashMap<>();
+        Map<String, Long> lastOffsets = new ConcurrentHashMap<>();
+        List<String> violations = new CopyOnWriteArrayList<>();
+        PartitionedSink<Bytes, RawJsonDocument> sink =
+                PartitionedSink.<Bytes, RawJsonDocument>createPartitioned()
+                               .workers(4)
+                               .sinkPerWorker(worker -> new Sink<>() {
+                                   @Override
+                                   public void send(Event<Bytes, RawJsonDocument> event) {
+                                       ConsumerRecord<Bytes, RawJsonDocument> record =
+                                               ((KafkaEvent<Bytes, RawJsonDocument>) event).getConsumerRecord();
+                                       String key = record.topic() + "-" + record.partition();
+                                       if (partitionToWorker.computeIfAbsent(key, k -> worker) != worker) {
+                                           violations.add(key + " sent to several workers");
+                                       }
+                                       Long last = lastOffsets.put(key, record.offset());
+                                       if (last != null && last >= record.offset()) {
+                                           violations.add(key + " received out of order");
+                                       }
+                                   }
+
+                                   @Override
+                                   public void close() {
+                                   }
+                               })
+                               .partitionBy(CanonicalIndexCommand::partitionOf)
+                               .build();
+
+        // When
+        for (long offset = 0; offset < 50; offset++) {
+            for (String topic : List.of("knowledge", "ontology")) {
+                for (int partition = 0; partition < 12; partition++) {
+                    sink.send(kafkaEvent(topic, partition, offset));
+                }
+            }
+        }
+        sink.close();
+
+        // Then
+        Assert.assertEquals(violations, List.of());
+        Assert.assertEquals(partitionToWorker.size(), 24);
+        Assert.assertEquals(lastOffsets.values().stream().distinct().toList(), List.of(49L));
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.cli.commands.projection.search.elastic.canonical;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class TestJsonLinesChunker {
+
+    private static List<JsonLinesChunker.Chunk> split(String content, long chunkSize) throws IOException {
+        File file = Files.createTempFile("chunks", ".jsonl").toFile();
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return JsonLinesChunker.split(channel, chunkSize);
+        }
+    }
+
+    private static void verifyChunks(String content, List<JsonLinesChunker.Chunk> chunks) {
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        long expectedOffset = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            JsonLinesChunker.Chunk chunk = chunks.get(i);
+            Assert.assertEquals(chunk.offset(), expectedOffset);
+            Assert.assertTrue(chunk.length() > 0);
+            expectedOffset += chunk.length();
+            if (i < chunks.size() - 1) {
+                Assert.assertEquals(data[(int) expectedOffset - 1], (byte) '\n');
+            }
+        }
+        Assert.assertEquals(expectedOffset, data.length);
+    }
+
+    @Test
+    public void givenEmptyFile_whenSplitting_thenNoChunks() throws IOException {
+        // Given, When and Then
+        Assert.assertTrue(split("", 10).isEmpty());
+    }
+
+    @Test
+    public void givenManyLines_whenSplitting_thenChunksAreLineAligned() throws IOException {
+        // Given
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            builder.append("{\"id\":\"").append(i).append("\"}\n");
+        }
+        String content = builder.toString();
+
+        // When
+        List<JsonLinesChunker.Chunk> chunks = split(content, 100);
+
+        // Then
+        Assert.assertTrue(chunks.size() > 1);
+        verifyChunks(content, chunks);
+    }
+
+    @Test
+    public void givenLineLongerThanChunkSize_whenSplitting_thenLineIsNotSplit() throws IOException {
+        // Given
+        String content = "{\"id\":\"a\"}\n{\"id\":\"" + "b".repeat(20_000) + "\"}\n{\"id\":\"c\"}\n";
+
+        // When
+        List<JsonLinesChunker.Chunk> chunks = split(content, 16);
+
+        // Then
+        // First chunk boundary falls within the long line so the chunk extends to the end of that line
+        Assert.assertEquals(chunks.size(), 2);
+        Assert.assertEquals(chunks.get(1).length(), "{\"id\":\"c\"}\n".length());
+        verifyChunks(content, chunks);
+    }
+
+    @Test
+    public void givenNoTrailingNewline_whenSplitting_thenLastChunkIncludesFinalLine() throws IOException {
+        // Given
+        String content = "{\"id\":\"a\"}\n{\"id\":\"b\"}\n{\"id\":\"c\"}";
+
+        // When
+        List<JsonLinesChunker.Chunk> chunks = split(content, 5);
+
+        // Then
+        Assert.assertEquals(chunks.size(), 3);
+        verifyChunks(content, chunks);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenBadChunkSize_whenSplitting_thenError() throws IOException {
+        // Given, When and Then
+        split("{}\n", 0);
+    }
+
+    @Test
+    public void givenBuffer_whenFindingLastNewline_thenOnlyPopulatedBytesAreConsidered() {
+        // Given
+        byte[] buffer = "ab\ncd\nef\n".getBytes(StandardCharsets.UTF_8);
+
+        // When and Then
+        Assert.assertEquals(JsonLinesChunker.lastNewline(buffer, buffer.length), 8);
+        Assert.assertEquals(JsonLinesChunker.lastNewline(buffer, 8), 5);
+        Assert.assertEquals(JsonLinesChunker.lastNewline(buffer, 2), -1);
+        Assert.assertEquals(JsonLinesChunker.lastNewline(buffer, 0), -1);
+    }
+}
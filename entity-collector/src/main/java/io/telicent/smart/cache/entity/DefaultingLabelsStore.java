@@ -34,6 +34,7 @@ import java.util.stream.Collectors;
 public class DefaultingLabelsStore implements LabelsStore {
     private final @Delegate LabelsStore store;
     private final List<Label> defaultLabels;
+    private final String joinedDefaultLabels;
 
     /**
      * Creates a new labels store with fallback default labels
@@ -53,6 +54,7 @@ public class DefaultingLabelsStore implements LabelsStore {
                                    .filter(s -> !s.isEmpty())
                                    .map(Label::fromText)
                                            .collect(Collectors.toList());
+        this.joinedDefaultLabels = StringUtils.join(this.defaultLabels, ",");
     }
 
     @Override
@@ -60,4 +62,37 @@ public class DefaultingLabelsStore implements LabelsStore {
         List<Label> ls = this.store.labelsForTriples(triple);
         return ls.isEmpty() ? this.defaultLabels : ls;
     }
+
+    /**
+     * Gets the security labels for a triple joined into a single comma separated string
+     * <p>
+     * When the fallback default labels apply this returns a precomputed string rather than allocating a new one.
+     * </p>
+     *
+     * @param triple Triple
+     * @return Joined security labels
+     */
+    public String joinedLabelsForTriple(Triple triple) {
+        List<Label> ls = labelsForTriples(triple);
+        return isDefaultLabels(ls) ? this.joinedDefaultLabels : StringUtils.join(ls, ",");
+    }
+
+    /**
+     * Gets the fallback default labels joined into a single comma separated string
+     *
+     * @return Joined default labels
+     */
+    public String getJoinedDefaultLabels() {
+        return this.joinedDefaultLabels;
+    }
+
+    /**
+     * Gets whether some labels, as returned from {@link #labelsForTriples(Triple)}, are the fallback default labels
+     *
+     * @param labels Labels
+     * @return True if the fallback default labels, false otherwise
+     */
+    public boolean isDefaultLabels(List<Label> labels) {
+        return labels == this.defaultLabels;
+    }
 }
@@ -22,9 +22,12 @@ import io.opentelemetry.api.metrics.LongHistogram;
 import io.opentelemetry.api.metrics.Meter;
 import io.telicent.jena.abac.labels.Labels;
 import io.telicent.jena.abac.labels.LabelsStore;
+import io.telicent.smart.cache.entity.collectors.TriplesBySubject;
 import io.telicent.smart.cache.entity.config.EntityProjectionConfig;
 import io.telicent.smart.cache.entity.patches.PatchOperation;
 import io.telicent.smart.cache.entity.patches.RDFChangesAsDatasets;
+import io.telicent.smart.cache.entity.selectors.EntitySelector;
+import io.telicent.smart.cache.entity.sinks.EntityToMapSink;
 import io.telicent.smart.cache.entity.vocabulary.Telicent;
 import io.telicent.smart.cache.observability.AttributeNames;
 import io.telicent.smart.cache.observability.LibraryVersion;
@@ -45,22 +48,42 @@ import org.apache.jena.sparql.core.Quad;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 /**
  * A Projector that creates Entity-centric representations of the incoming RDF data and passes that onto a sink for
  * further processing.
+ * <p>
+ * Optionally the projector may be created with a parallelism greater than 1, in which case the data collection for the
+ * entities selected from each graph is done in parallel on a bounded thread pool.  Where the sink given to
+ * {@link #project(Event, Sink)} is itself an {@link EntityToMapSink} the conversion of entities into maps is also done
+ * in parallel via {@link EntityToMapSink#prepare(Entity)}.  Sinks are not inspected any further than this, so if the
+ * {@link EntityToMapSink} is wrapped by some other sink, e.g. one that filters or reports throughput, the conversion is
+ * done by the {@link EntityToMapSink} on the calling thread as usual.  Regardless of parallelism entities are always
+ * sent to the sink in the same order, from the calling thread, and only once all entities for an event have been sent
+ * to the sink does {@link #project(Event, Sink)} return, thus the semantics of any offset commits made by the calling
+ * pipeline are unchanged.
+ * </p>
+ * <p>
+ * A projector created with a parallelism greater than 1 owns its thread pool, so should be {@link #close()}'d once it
+ * is no longer needed.
+ * </p>
  */
-public class EntityCentricProjector<TKey> implements Projector<Event<TKey, RdfPayload>, Event<TKey, Entity>> {
+public class EntityCentricProjector<TKey>
+        implements Projector<Event<TKey, RdfPayload>, Event<TKey, Entity>>, AutoCloseable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EntityCentricProjector.class);
 
     private final EntityProjectionConfig config;
+    private final int parallelism;
+    private final ForkJoinPool pool;
     private final Attributes metricAttributes;
     private final LongCounter totalEntities;
     private final LongCounter totalErrors;
@@ -73,9 +96,26 @@ public class EntityCentricProjector<TKey> implements Projector<Event<TKey, RdfPa
      * @param config Configuration that controls how the entity-centric representations are created
      */
     public EntityCentricProjector(EntityProjectionConfig config) {
+        this(config, 1);
+    }
+
+    /**
+     * Creates a new projector
+     *
+     * @param config      Configuration that controls how the entity-centric representations are created
+     * @param parallelism Parallelism, the maximum number of threads used to collect entity data in parallel.  A value
+     *                    of 1 means entities are projected sequentially on the calling thread.  If greater than 1 the
+     *                    projector should be {@link #close()}'d when no longer needed to release its thread pool.
+     */
+    public EntityCentricProjector(EntityProjectionConfig config, int parallelism) {
         Objects.requireNonNull(config, "Configuration cannot be null");
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be >= 1");
+        }
 
         this.config = config;
+        this.parallelism = parallelism;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
         this.metricAttributes =
                 Attributes.of(AttributeKey.stringKey(AttributeNames.INSTANCE_ID), UUID.randomUUID().toString());
         Meter meter = TelicentMetrics.getMeter(Library.NAME, LibraryVersion.get(Library.NAME));
@@ -100,6 +140,20 @@ public class EntityCentricProjector<TKey> implements Projector<Event<TKey, RdfPa
 
     }
 
+    /**
+     * Closes the projector, releasing the thread pool (if any) used for parallel projection
+     * <p>
+     * Any projection already in progress is allowed to complete, but a projector with a parallelism greater than 1
+     * cannot project further events once closed.
+     * </p>
+     */
+    @Override
+    public void close() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
     @Override
     public void project(Event<TKey, RdfPayload> event, Sink<Event<TKey, Entity>> sink) {
         // Prepare Security Labels
@@ -139,7 +193,9 @@ public class EntityCentricProjector<TKey> implements Projector<Event<TKey, RdfPa
             // successfully parse the label patterns if they've been defined using prefixed name form
             copyPrefixes(dataset, securityLabels);
         }
-        LabelsStore labelsStore = prepareLabelsStore(defaultSecurityLabels, securityLabels);
+        // Memoize label lookups for the duration of this projection since many triples share the same labels, and
+        // many triples are looked up more than once
+        LabelsStore labelsStore = MemoizingLabelsStore.wrap(prepareLabelsStore(defaultSecurityLabels, securityLabels));
 
         // Select out of the default graph (if any)
         Graph defaultGraph = dataset.getDefaultGraph();
@@ -218,40 +274,143 @@ public class EntityCentricProjector<TKey> implements Projector<Event<TKey, RdfPa
         }
 
 
-        Stream<Entity> entities = this.config.getSelector().select(graph, defaultSecurityLabels, securityLabels);
-        AtomicLong count = new AtomicLong(0L);
-        entities.forEach(e -> {
-            LOGGER.trace("Processing discovered entity {}", e.getUri());
-
-            // Convert to a deletion if necessary
-            final Entity output;
-            if (isDeletion) {
-                output = e.asDeletion();
-            } else {
-                output = e;
-            }
-
-            // Apply entity data collectors
-            this.config.getCollectors()
-                       .forEach(x -> x.collect(graph, output.getUri(), labelsStore)
-                                      .forEach(d -> output.addData(x.getGroup(), d)));
-
-            // Output to sink
-            try {
-                sink.send(event.replaceValue(output));
-            } catch (SinkException ex) {
-                LOGGER.warn("Sink failed to accept entity {} - {}", output.getUri(), ex.getMessage());
-                this.totalErrors.add(1, this.metricAttributes);
-            }
-            count.getAndIncrement();
-        });
+        // In single pass mode group the triples by subject up front so the selector and collectors don't each have to
+        // look up the same triples in the graph for every entity
+        EntitySelector selector = this.config.getSelector();
+        TriplesBySubject triples = this.config.isSinglePassCollection() ? TriplesBySubject.of(graph) : null;
+        Stream<Entity> entities = triples != null ?
+                                  selector.selectGrouped(triples, defaultSecurityLabels, securityLabels) :
+                                  selector.select(graph, defaultSecurityLabels, securityLabels);
+        long entityCount;
+        if (this.pool != null) {
+            entityCount = projectInParallel(event, sink, entities, e -> collect(e, isDeletion, triples, graph,
+                                                                                labelsStore));
+        } else {
+            AtomicLong count = new AtomicLong(0L);
+            entities.forEach(e -> {
+                send(event, sink, collect(e, isDeletion, triples, graph, labelsStore));
+                count.getAndIncrement();
+            });
+            entityCount = count.get();
+        }
 
         int graphSize = graph.size();
-        long entityCount = count.get();
         LOGGER.debug("Graph {} with {} triples produced {} entities",
                      graphName != null ? graphName.getURI() : Quad.defaultGraphIRI, graphSize, entityCount);
         this.totalEntities.add(entityCount, this.metricAttributes);
         this.graphSizes.record(graphSize, this.metricAttributes);
         this.entitiesPerGraph.record(entityCount, this.metricAttributes);
     }
+
+    /**
+     * Collects the data for a selected entity
+     *
+     * @param e           Selected entity
+     * @param isDeletion  Whether the entity is for deletion
+     * @param triples     Triples grouped by subject, if single pass collection is in-use, otherwise {@code null}
+     * @param graph       Graph being projected from
+     * @param labelsStore Labels store for the event
+     * @return Entity with its data collected
+     */
+    private Entity collect(Entity e, boolean isDeletion, TriplesBySubject triples, Graph graph,
+                           LabelsStore labelsStore) {
+        LOGGER.trace("Processing discovered entity {}", e.getUri());
+
+        // Convert to a deletion if necessary
+        final Entity output;
+        if (isDeletion) {
+            output = e.asDeletion();
+        } else {
+            output = e;
+        }
+
+        // Apply entity data collectors
+        this.config.getCollectors()
+                   .forEach(x -> (triples != null ?
+                                  x.collectGrouped(triples, output.getUri(), labelsStore) :
+                                  x.collect(graph, output.getUri(), labelsStore))
+                           .forEach(d -> output.addData(x.getGroup(), d)));
+        return output;
+    }
+
+    /**
+     * Sends an entity to the sink
+     *
+     * @param event  Event the entity was projected from
+     * @param sink   Sink
+     * @param output Entity
+     */
+    private void send(Event<TKey, RdfPayload> event, Sink<Event<TKey, Entity>> sink, Entity output) {
+        try {
+            sink.send(event.replaceValue(output));
+        } catch (SinkException ex) {
+            LOGGER.warn("Sink failed to accept entity {} - {}", output.getUri(), ex.getMessage());
+            this.totalErrors.add(1, this.metricAttributes);
+        }
+    }
+
+    /**
+     * Projects entities in parallel, collecting (and where possible converting) entities on the thread pool while
+     * sending them to the sink from the calling thread in the order they were selected
+     * <p>
+     * At most a small multiple of the parallelism is ever in-flight, so memory usage is bounded regardless of how many
+     * entities are selected.
+     * </p>
+     *
+     * @param event    Event
+     * @param sink     Sink
+     * @param entities Selected entities
+     * @param collect  Function that collects the data for an entity
+     * @return Number of entities projected
+     */
+    private long projectInParallel(Event<TKey, RdfPayload> event, Sink<Event<TKey, Entity>> sink,
+                                   Stream<Entity> entities, Function<Entity, Entity> collect) {
+        Consumer<Entity> prepare = sink instanceof EntityToMapSink<?> mapSink ? mapSink::prepare : e -> {};
+        int maxInFlight = this.parallelism * 4;
+        Deque<CompletableFuture<Entity>> inFlight = new ArrayDeque<>(maxInFlight);
+        long count = 0;
+        try {
+            Iterator<Entity> iter = entities.iterator();
+            while (iter.hasNext()) {
+                Entity e = iter.next();
+                inFlight.addLast(CompletableFuture.supplyAsync(() -> {
+                    Entity output = collect.apply(e);
+                    prepare.accept(output);
+                    return output;
+                }, this.pool));
+
+                if (inFlight.size() >= maxInFlight) {
+                    send(event, sink, await(inFlight.removeFirst()));
+                    count++;
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                send(event, sink, await(inFlight.removeFirst()));
+                count++;
+            }
+        } finally {
+            // If anything went wrong don't bother completing any remaining work
+            inFlight.forEach(f -> f.cancel(false));
+        }
+        return count;
+    }
+
+    /**
+     * Waits for an entity to be collected, rethrowing any error that occurred as-is
+     *
+     * @param future Future
+     * @return Collected entity
+     */
+    private static Entity await(CompletableFuture<Entity> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            } else if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
 }
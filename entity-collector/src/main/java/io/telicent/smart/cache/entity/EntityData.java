@@ -15,6 +15,7 @@
  */
 package io.telicent.smart.cache.entity;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.graph.Node;
 
 import java.util.*;
@@ -25,17 +26,100 @@ import java.util.stream.Stream;
  * <p>
  * This is in the form of a map of predicates to object(s).
  * </p>
+ * <p>
+ * Internally the data is held compactly as parallel arrays of keys, values and indices into a deduplicated table of
+ * security labels, rather than as a map of lists of {@link SecurityLabelledNode}'s, since an entity may have many
+ * pieces of data, most of which have only a single value.  {@link SecurityLabelledNode} instances are created on demand
+ * when the data is accessed.
+ * </p>
  */
 public final class EntityData {
-    private final Map<Node, List<SecurityLabelledNode>> items;
+    private static final Node[] NO_NODES = new Node[0];
+    private static final int[] SINGLE_LABEL = new int[] { 0 };
+    private static final int INDEX_THRESHOLD = 8;
+    private static final EntityData EMPTY = new EntityData(NO_NODES, null, NO_NODES, null, null);
+
+    /**
+     * Distinct keys in insertion order
+     */
+    private final Node[] keys;
+    /**
+     * Offsets into the values at which the values for each key start, with a final entry marking the end of the values,
+     * or {@code null} if every key has exactly one value in which case the offset of each key is its index
+     */
+    private final int[] offsets;
+    private final Node[] values;
+    /**
+     * Index into the labels for each value, {@code -1} if a value has no label, or {@code null} if no value has a label
+     */
+    private final int[] labelIndices;
+    private final String[] labels;
+    private volatile Map<Node, Integer> keyIndex;
 
     /**
      * Creates new entity data
      *
-     * @param data Data
+     * @param keys         Distinct keys
+     * @param offsets      Value offsets for each key
+     * @param values       Values
+     * @param labelIndices Label indices for each value
+     * @param labels       Deduplicated labels
      */
-    private EntityData(Map<Node, List<SecurityLabelledNode>> data) {
-        this.items = Collections.unmodifiableMap(data);
+    private EntityData(Node[] keys, int[] offsets, Node[] values, int[] labelIndices, String[] labels) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.values = values;
+        this.labelIndices = labelIndices;
+        this.labels = labels;
+    }
+
+    /**
+     * Creates new entity data with a single key and value
+     *
+     * @param key   Key
+     * @param value Value
+     * @param label Security labels for the value, may be {@code null}
+     */
+    private EntityData(Node key, Node value, String label) {
+        this(new Node[] { key }, null, new Node[] { value }, label != null ? SINGLE_LABEL : null,
+             label != null ? new String[] { label } : null);
+    }
+
+    private int start(int keyIndex) {
+        return this.offsets != null ? this.offsets[keyIndex] : keyIndex;
+    }
+
+    private int end(int keyIndex) {
+        return this.offsets != null ? this.offsets[keyIndex + 1] : keyIndex + 1;
+    }
+
+    private SecurityLabelledNode value(int valueIndex) {
+        int label = this.labelIndices != null ? this.labelIndices[valueIndex] : -1;
+        return new SecurityLabelledNode(this.values[valueIndex], label >= 0 ? this.labels[label] : null);
+    }
+
+    private int indexOf(Node key) {
+        if (this.keys.length <= INDEX_THRESHOLD) {
+            for (int i = 0; i < this.keys.length; i++) {
+                if (this.keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // For data with many keys build an index on first lookup, this is idempotent so no harm if multiple threads
+        // happen to build it concurrently
+        Map<Node, Integer> index = this.keyIndex;
+        if (index == null) {
+            index = new HashMap<>();
+            for (int i = 0; i < this.keys.length; i++) {
+                index.put(this.keys[i], i);
+            }
+            this.keyIndex = index;
+        }
+        Integer i = index.get(key);
+        return i != null ? i : -1;
     }
 
     /**
@@ -44,7 +128,7 @@ public final class EntityData {
      * @return True if empty, false otherwise
      */
     public boolean isEmpty() {
-        return this.items.isEmpty();
+        return this.keys.length == 0;
     }
 
     /**
@@ -57,12 +141,7 @@ public final class EntityData {
      * @return True if simple, false otherwise
      */
     public boolean isSimple() {
-        if (this.items.size() > 1) {
-            return false;
-        }
-
-        List<SecurityLabelledNode> nodes = this.items.values().stream().findFirst().orElse(null);
-        return nodes != null && nodes.size() == 1;
+        return this.keys.length == 1 && this.values.length == 1;
     }
 
     /**
@@ -77,12 +156,11 @@ public final class EntityData {
      *                               values
      */
     public SecurityLabelledNode get() {
-        if (this.items.isEmpty()) {
+        if (this.keys.length == 0) {
             return null;
-        } else if (this.items.size() == 1) {
-            List<SecurityLabelledNode> nodes = this.items.values().stream().findFirst().orElse(Collections.emptyList());
-            if (nodes.size() == 1) {
-                return nodes.get(0);
+        } else if (this.keys.length == 1) {
+            if (this.values.length == 1) {
+                return value(0);
             }
             throw new IllegalStateException(
                     "This EntityData contains multiple values for the given key, use get(Node key) to retrieve values");
@@ -96,10 +174,23 @@ public final class EntityData {
      * Gets all the data associated with a given key in this data
      *
      * @param key Key
-     * @return Associated data
+     * @return Associated data, or {@code null} if no data for the key
      */
     public List<SecurityLabelledNode> get(Node key) {
-        return this.items.get(key);
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        int start = start(i);
+        int end = end(i);
+        if (end - start == 1) {
+            return List.of(value(start));
+        }
+        SecurityLabelledNode[] nodes = new SecurityLabelledNode[end - start];
+        for (int j = start; j < end; j++) {
+            nodes[j - start] = value(j);
+        }
+        return List.of(nodes);
     }
 
     /**
@@ -112,10 +203,10 @@ public final class EntityData {
      * @throws IllegalStateException Thrown if the entity data has multiple keys defined
      */
     public Node key() {
-        if (this.items.isEmpty()) {
+        if (this.keys.length == 0) {
             return null;
-        } else if (this.items.size() == 1) {
-            return this.items.keySet().stream().findFirst().orElse(null);
+        } else if (this.keys.length == 1) {
+            return this.keys[0];
         } else {
             throw new IllegalStateException(
                     "This EntityData contains multiple keys, use keys() instead to obtain keys");
@@ -128,7 +219,7 @@ public final class EntityData {
      * @return Keys
      */
     public Stream<Node> keys() {
-        return this.items.keySet().stream();
+        return Arrays.stream(this.keys);
     }
 
     /**
@@ -137,11 +228,15 @@ public final class EntityData {
      * @return Security Labels
      */
     public boolean hasSecurityLabels() {
-        return this.items.values()
-                         .stream()
-                         .anyMatch(l -> l.stream()
-                                         .filter(Objects::nonNull)
-                                         .anyMatch(SecurityLabelledNode::hasSecurityLabel));
+        if (this.labels == null) {
+            return false;
+        }
+        for (String label : this.labels) {
+            if (StringUtils.isNotBlank(label)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -167,7 +262,7 @@ public final class EntityData {
      * @return Entity Data
      */
     public static EntityData of(Node key, Node value) {
-        return new Builder().add(key, value).build();
+        return of(key, value, null);
     }
 
     /**
@@ -182,7 +277,10 @@ public final class EntityData {
      * @return Entity Data
      */
     public static EntityData of(Node key, Node value, String securityLabels) {
-        return new Builder().add(key, value, securityLabels).build();
+        if (key == null || value == null) {
+            return EMPTY;
+        }
+        return new EntityData(key, value, securityLabels);
     }
 
     /**
@@ -294,7 +392,46 @@ public final class EntityData {
          */
         public EntityData build() {
             items.entrySet().removeIf(e -> e.getValue().isEmpty());
-            return new EntityData(this.items);
+            if (items.isEmpty()) {
+                return EMPTY;
+            }
+
+            Node[] keys = new Node[items.size()];
+            int[] offsets = new int[items.size() + 1];
+            boolean singleValued = true;
+            int size = 0;
+            int k = 0;
+            for (Map.Entry<Node, List<SecurityLabelledNode>> entry : items.entrySet()) {
+                keys[k] = entry.getKey();
+                offsets[k++] = size;
+                size += entry.getValue().size();
+                singleValued = singleValued && entry.getValue().size() == 1;
+            }
+            offsets[k] = size;
+
+            // Flatten the values, deduplicating the labels as we go
+            Node[] values = new Node[size];
+            int[] labelIndices = null;
+            Map<String, Integer> labels = null;
+            int v = 0;
+            for (List<SecurityLabelledNode> nodes : items.values()) {
+                for (SecurityLabelledNode node : nodes) {
+                    values[v] = node.getNode();
+                    if (node.getSecurityLabel() != null) {
+                        if (labelIndices == null) {
+                            labelIndices = new int[size];
+                            Arrays.fill(labelIndices, -1);
+                            labels = new LinkedHashMap<>();
+                        }
+                        Map<String, Integer> table = labels;
+                        labelIndices[v] = labels.computeIfAbsent(node.getSecurityLabel(), l -> table.size());
+                    }
+                    v++;
+                }
+            }
+
+            return new EntityData(keys, singleValued ? null : offsets, values, labelIndices,
+                                  labels != null ? labels.keySet().toArray(new String[0]) : null);
         }
     }
 }
@@ -0,0 +1,146 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity;
+
+import io.telicent.jena.abac.labels.Label;
+import io.telicent.jena.abac.labels.LabelsStore;
+import lombok.Generated;
+import lombok.experimental.Delegate;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.graph.Triple;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A decorator for {@link LabelsStore} that memoizes the joined security labels string for each triple looked up, and
+ * interns those strings so that all triples with the same labels share a single string instance
+ * <p>
+ * In labelled datasets nearly every triple shares one of a handful of label sets, so without this every triple looked
+ * up allocates its own identical copy of the joined labels string.  The same triple is also frequently looked up more
+ * than once during a projection e.g. a relationship is collected both as an outgoing relationship of its subject and an
+ * incoming relationship of its object.
+ * </p>
+ * <p>
+ * This is intended to be used for the lifetime of a single projection, during which the underlying store is not
+ * modified, since memoized labels are not invalidated if the underlying store changes.  It is safe for concurrent use.
+ * </p>
+ */
+@Generated
+public class MemoizingLabelsStore implements LabelsStore {
+
+    /**
+     * Maximum number of triples whose joined labels are memoized, beyond this joined labels are still interned but no
+     * longer memoized
+     */
+    public static final int MAX_MEMOIZED_TRIPLES = 100_000;
+    /**
+     * Maximum number of distinct label sets whose joined labels are interned
+     */
+    public static final int MAX_INTERNED_LABELS = 10_000;
+
+    private final @Delegate LabelsStore store;
+    private final Map<Triple, String> memoized = new ConcurrentHashMap<>();
+    private final Map<List<Label>, String> interned = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new memoizing labels store
+     *
+     * @param labels Actual labels store
+     */
+    public MemoizingLabelsStore(LabelsStore labels) {
+        Objects.requireNonNull(labels);
+        this.store = labels;
+    }
+
+    /**
+     * Wraps a labels store with memoization, if it isn't already memoizing
+     *
+     * @param labels Labels store, may be {@code null}
+     * @return Memoizing labels store, or {@code null} if the given store was {@code null}
+     */
+    public static LabelsStore wrap(LabelsStore labels) {
+        if (labels == null || labels instanceof MemoizingLabelsStore) {
+            return labels;
+        }
+        return new MemoizingLabelsStore(labels);
+    }
+
+    /**
+     * Gets the security labels for a triple joined into a single comma separated string
+     * <p>
+     * Where the labels store is a {@link MemoizingLabelsStore} or a {@link DefaultingLabelsStore} this avoids
+     * allocating a new string for every triple.
+     * </p>
+     *
+     * @param labels Labels store, may be {@code null}
+     * @param t      Triple
+     * @return Joined security labels, or {@code null} if no labels store
+     */
+    public static String joinedLabels(LabelsStore labels, Triple t) {
+        if (labels == null) {
+            return null;
+        } else if (labels instanceof MemoizingLabelsStore memoizing) {
+            return memoizing.joinedLabelsForTriple(t);
+        } else if (labels instanceof DefaultingLabelsStore defaulting) {
+            return defaulting.joinedLabelsForTriple(t);
+        }
+        return StringUtils.join(labels.labelsForTriples(t), ",");
+    }
+
+    /**
+     * Gets the security labels for a triple joined into a single comma separated string
+     *
+     * @param t Triple
+     * @return Joined security labels
+     */
+    public String joinedLabelsForTriple(Triple t) {
+        String labels = this.memoized.get(t);
+        if (labels != null) {
+            return labels;
+        }
+
+        labels = intern(this.store.labelsForTriples(t));
+        if (labels != null && this.memoized.size() < MAX_MEMOIZED_TRIPLES) {
+            this.memoized.put(t, labels);
+        }
+        return labels;
+    }
+
+    private String intern(List<Label> labels) {
+        if (labels == null) {
+            return null;
+        } else if (labels.isEmpty()) {
+            return "";
+        } else if (this.store instanceof DefaultingLabelsStore defaulting && defaulting.isDefaultLabels(labels)) {
+            return defaulting.getJoinedDefaultLabels();
+        }
+
+        String joined = this.interned.get(labels);
+        if (joined == null) {
+            joined = StringUtils.join(labels, ",");
+            if (this.interned.size() < MAX_INTERNED_LABELS) {
+                String existing = this.interned.putIfAbsent(List.copyOf(labels), joined);
+                if (existing != null) {
+                    joined = existing;
+                }
+            }
+        }
+        return joined;
+    }
+}
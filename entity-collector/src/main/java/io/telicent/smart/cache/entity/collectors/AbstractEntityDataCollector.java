@@ -16,7 +16,7 @@
 package io.telicent.smart.cache.entity.collectors;
 
 import io.telicent.jena.abac.labels.LabelsStore;
-import org.apache.commons.lang3.StringUtils;
+import io.telicent.smart.cache.entity.MemoizingLabelsStore;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 
@@ -35,8 +35,7 @@ public class AbstractEntityDataCollector {
      * @return Security labels, or {@code null} if none
      */
     protected String getSecurityLabels(LabelsStore labelsStore, Triple t) {
-        return labelsStore != null ? StringUtils.join(labelsStore.labelsForTriples(
-                t), ",") : null;
+        return MemoizingLabelsStore.joinedLabels(labelsStore, t);
     }
 
     /**
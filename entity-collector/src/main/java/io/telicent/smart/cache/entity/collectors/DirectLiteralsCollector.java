@@ -21,6 +21,7 @@ import io.telicent.smart.cache.entity.sinks.converters.DefaultOutputFields;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
 
+import java.util.Objects;
 import java.util.stream.Stream;
 
 /**
@@ -37,6 +38,16 @@ public class DirectLiteralsCollector extends AbstractEntityDataCollector impleme
                     .map(t -> EntityData.of(t.getPredicate(), t.getObject(), getSecurityLabels(labelsStore, t)));
     }
 
+    @Override
+    public Stream<EntityData> collectGrouped(TriplesBySubject triples, Node subject, LabelsStore labelsStore) {
+        Objects.requireNonNull(triples, "Triples cannot be null");
+        EntityDataCollector.verifyArguments(triples.getGraph(), subject);
+
+        return triples.literals(subject)
+                      .stream()
+                      .map(t -> EntityData.of(t.getPredicate(), t.getObject(), getSecurityLabels(labelsStore, t)));
+    }
+
     @Override
     public String getGroup() {
         return DefaultOutputFields.LITERALS;
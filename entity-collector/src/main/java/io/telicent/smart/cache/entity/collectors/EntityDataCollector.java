@@ -59,6 +59,28 @@ public interface EntityDataCollector {
      */
     Stream<EntityData> collect(Graph graph, Node subject, LabelsStore securityLabels);
 
+    /**
+     * Collects the entity data from triples that have already been grouped by subject
+     * <p>
+     * This is used when an {@link io.telicent.smart.cache.entity.EntityCentricProjector} is configured for single pass
+     * collection.  The default implementation simply calls {@link #collect(Graph, Node, LabelsStore)} on the
+     * underlying graph, implementations should override this to collect from the grouped triples where possible.
+     * </p>
+     *
+     * @param triples        Triples grouped by subject
+     * @param subject        Subject to collect entity data for, this <strong>MUST</strong> be a concrete node otherwise
+     *                       an {@link IllegalArgumentException} is raised
+     * @param securityLabels Security Labels store that the collector can use to determine the fine-grained labels that
+     *                       apply to the collected data
+     * @return Stream of collected entity data
+     * @throws NullPointerException     No triples or subject is provided
+     * @throws IllegalArgumentException The provided subject is not concrete
+     */
+    default Stream<EntityData> collectGrouped(TriplesBySubject triples, Node subject, LabelsStore securityLabels) {
+        Objects.requireNonNull(triples, "Triples cannot be null");
+        return collect(triples.getGraph(), subject, securityLabels);
+    }
+
     /**
      * Gets the data group to which the entity data belongs.  This will be used elsewhere to add data to an
      * {@link Entity} via the {@link Entity#addData(String, EntityData)} method.
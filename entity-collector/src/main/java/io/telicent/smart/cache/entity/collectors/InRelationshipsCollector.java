@@ -20,6 +20,7 @@ import io.telicent.smart.cache.entity.EntityData;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
 
+import java.util.Objects;
 import java.util.stream.Stream;
 
 /**
@@ -39,6 +40,17 @@ public class InRelationshipsCollector extends AbstractEntityDataCollector implem
                     .map(t -> EntityData.of(t.getPredicate(), t.getSubject(), getSecurityLabels(labelsStore, t)));
     }
 
+    @Override
+    public Stream<EntityData> collectGrouped(TriplesBySubject triples, Node subject, LabelsStore labelsStore) {
+        Objects.requireNonNull(triples, "Triples cannot be null");
+        EntityDataCollector.verifyArguments(triples.getGraph(), subject);
+
+        return triples.incoming(subject)
+                      .stream()
+                      .filter(t -> t.getSubject().isURI())
+                      .map(t -> EntityData.of(t.getPredicate(), t.getSubject(), getSecurityLabels(labelsStore, t)));
+    }
+
     @Override
     public String getGroup() {
         return "inRels";
@@ -20,6 +20,7 @@ import io.telicent.smart.cache.entity.EntityData;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
 
+import java.util.Objects;
 import java.util.stream.Stream;
 
 /**
@@ -39,6 +40,17 @@ public class OutRelationshipsCollector extends AbstractEntityDataCollector imple
                     .map(t -> EntityData.of(t.getPredicate(), t.getObject(), getSecurityLabels(labelsStore, t)));
     }
 
+    @Override
+    public Stream<EntityData> collectGrouped(TriplesBySubject triples, Node subject, LabelsStore labelsStore) {
+        Objects.requireNonNull(triples, "Triples cannot be null");
+        EntityDataCollector.verifyArguments(triples.getGraph(), subject);
+
+        return triples.outgoing(subject)
+                      .stream()
+                      .filter(t -> t.getObject().isURI())
+                      .map(t -> EntityData.of(t.getPredicate(), t.getObject(), getSecurityLabels(labelsStore, t)));
+    }
+
     @Override
     public String getGroup() {
         return "outRels";
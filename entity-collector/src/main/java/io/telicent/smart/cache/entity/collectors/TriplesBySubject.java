@@ -0,0 +1,161 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.collectors;
+
+import io.telicent.smart.cache.entity.selectors.EntitySelector;
+import io.telicent.smart.cache.entity.vocabulary.Rdf;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+import java.util.*;
+
+/**
+ * The triples of a graph grouped by the nodes they pertain to, built via a single sweep over the graph
+ * <p>
+ * For each node this holds buckets of the literals asserted directly on it, its outgoing relationships, i.e. triples
+ * where it is the subject and the object is not a literal, and its incoming relationships, i.e. triples where it is the
+ * object.  It also holds all the {@link Rdf#TYPE} triples in the graph.
+ * </p>
+ * <p>
+ * This allows an {@link EntitySelector} and many {@link EntityDataCollector}'s to be fed from the buckets, rather than
+ * each of them separately looking up the same triples in the graph for every selected entity.  Thus, projecting a
+ * graph becomes linear in the number of triples, rather than in the number of entities multiplied by the number of
+ * lookups.
+ * </p>
+ */
+public final class TriplesBySubject {
+
+    private final Graph graph;
+    private final Map<Node, Bucket> buckets = new HashMap<>();
+    private final List<Triple> types = new ArrayList<>();
+
+    private TriplesBySubject(Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Groups the triples of the given graph in a single sweep over the graph
+     *
+     * @param graph Graph
+     * @return Triples grouped by subject
+     * @throws NullPointerException Thrown if the graph is null
+     */
+    public static TriplesBySubject of(Graph graph) {
+        Objects.requireNonNull(graph, "Graph cannot be null");
+        TriplesBySubject triples = new TriplesBySubject(graph);
+        ExtendedIterator<Triple> iter = graph.find();
+        try {
+            while (iter.hasNext()) {
+                triples.add(iter.next());
+            }
+        } finally {
+            iter.close();
+        }
+        return triples;
+    }
+
+    private void add(Triple t) {
+        Bucket subject = this.buckets.computeIfAbsent(t.getSubject(), k -> new Bucket());
+        if (t.getObject().isLiteral()) {
+            subject.literals.add(t);
+        } else {
+            subject.outgoing.add(t);
+            this.buckets.computeIfAbsent(t.getObject(), k -> new Bucket()).incoming.add(t);
+        }
+        if (Rdf.TYPE.equals(t.getPredicate())) {
+            this.types.add(t);
+        }
+    }
+
+    /**
+     * Gets the graph whose triples have been grouped
+     *
+     * @return Graph
+     */
+    public Graph getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Gets the triples that assert literals directly on a subject i.e. {@code <subject> ?predicate "literal"}
+     *
+     * @param subject Subject
+     * @return Literal triples
+     */
+    public List<Triple> literals(Node subject) {
+        Bucket bucket = this.buckets.get(subject);
+        return bucket != null ? Collections.unmodifiableList(bucket.literals) : List.of();
+    }
+
+    /**
+     * Gets the outgoing relationships of a subject i.e. {@code <subject> ?predicate ?object} where the object is not a
+     * literal
+     *
+     * @param subject Subject
+     * @return Outgoing relationship triples
+     */
+    public List<Triple> outgoing(Node subject) {
+        Bucket bucket = this.buckets.get(subject);
+        return bucket != null ? Collections.unmodifiableList(bucket.outgoing) : List.of();
+    }
+
+    /**
+     * Gets the incoming relationships of a node i.e. {@code ?other ?predicate <node>}
+     *
+     * @param node Node
+     * @return Incoming relationship triples
+     */
+    public List<Triple> incoming(Node node) {
+        Bucket bucket = this.buckets.get(node);
+        return bucket != null ? Collections.unmodifiableList(bucket.incoming) : List.of();
+    }
+
+    /**
+     * Gets all the {@link Rdf#TYPE} triples in the graph
+     *
+     * @return Type triples
+     */
+    public List<Triple> types() {
+        return Collections.unmodifiableList(this.types);
+    }
+
+    /**
+     * Gets whether the graph declares a subject to have the given type
+     *
+     * @param subject Subject
+     * @param type    Type
+     * @return True if the subject has the type, false otherwise
+     */
+    public boolean hasType(Node subject, Node type) {
+        for (Triple t : type.isLiteral() ? literals(subject) : outgoing(subject)) {
+            if (Rdf.TYPE.equals(t.getPredicate()) && type.equals(t.getObject())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The triples pertaining to a single node
+     */
+    private static final class Bucket {
+        private final List<Triple> literals = new ArrayList<>();
+        private final List<Triple> outgoing = new ArrayList<>();
+        private final List<Triple> incoming = new ArrayList<>();
+    }
+}
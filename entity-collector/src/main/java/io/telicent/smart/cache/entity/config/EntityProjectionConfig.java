@@ -37,6 +37,7 @@ public class EntityProjectionConfig {
 
     private final EntitySelector selector;
     private final List<EntityDataCollector> collectors = new ArrayList<>();
+    private final boolean singlePassCollection;
 
     /**
      * Creates a new projection configuration
@@ -45,11 +46,28 @@ public class EntityProjectionConfig {
      * @param collectors Entity Data Collectors
      */
     public EntityProjectionConfig(EntitySelector selector, Collection<EntityDataCollector> collectors) {
+        this(selector, collectors, false);
+    }
+
+    /**
+     * Creates a new projection configuration
+     *
+     * @param selector             Entity Selector
+     * @param collectors           Entity Data Collectors
+     * @param singlePassCollection Whether to use single pass collection, when enabled the triples of each graph are
+     *                             grouped by subject in a single sweep over the graph and the selector and collectors
+     *                             are fed from those groups, rather than each looking up triples in the graph for
+     *                             every selected entity.  This is generally faster for large graphs, e.g. large RDF
+     *                             patches, at the cost of holding the grouped triples in memory.
+     */
+    public EntityProjectionConfig(EntitySelector selector, Collection<EntityDataCollector> collectors,
+                                  boolean singlePassCollection) {
         Objects.requireNonNull(selector, "Entity Selector cannot be null");
         Objects.requireNonNull(collectors, "Entity Data Collectors cannot be null");
 
         this.selector = selector;
         this.collectors.addAll(collectors);
+        this.singlePassCollection = singlePassCollection;
     }
 
     /**
@@ -69,4 +87,13 @@ public class EntityProjectionConfig {
     public EntitySelector getSelector() {
         return this.selector;
     }
+
+    /**
+     * Gets whether single pass collection is in-use
+     *
+     * @return True if single pass collection is used, false otherwise
+     */
+    public boolean isSinglePassCollection() {
+        return this.singlePassCollection;
+    }
 }
@@ -24,18 +24,30 @@ import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.DatasetGraphFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
 
 /**
  * Transforms an RDF Patch into a sequence of adjacent Add/Delete operations
+ * <p>
+ * The quads for each operation are only held in a compact flat form while the patch is processed, the
+ * {@link DatasetGraph} for each operation is only materialized as the stream returned by {@link #getOperations()} is
+ * consumed.  Thus, a consumer that processes each operation in turn only ever has a single operations dataset, with
+ * all the associated indexing overhead, in memory at once, rather than an indexed copy of the entire patch.
+ * </p>
+ * <p>
+ * Note that operations are still not made available until the entire patch has been processed because the security
+ * labels graph, see {@link #getSecurityLabels()}, reflects the labels from across the entire patch and applies to every
+ * operation, and an aborted transaction discards any operations it produced.
+ * </p>
  */
 public class RDFChangesAsDatasets implements RDFChanges {
 
-    private final List<Pair<PatchOperation, DatasetGraph>> datasets = new ArrayList<>();
+    private final List<Pair<PatchOperation, CompactQuads>> datasets = new ArrayList<>();
     private final Graph labelsGraph = DatasetGraphFactory.createTxnMem().getDefaultGraph();
     private PatchOperation currentOperation = PatchOperation.NONE;
-    private DatasetGraph current;
+    private CompactQuads current;
     private boolean inTransaction;
     private int lastTransactionStart;
 
@@ -48,11 +60,14 @@ public class RDFChangesAsDatasets implements RDFChanges {
 
     /**
      * Gets the stream of operations and their datasets
+     * <p>
+     * Each dataset is freshly materialized as the stream is consumed.
+     * </p>
      *
      * @return Operations and datasets
      */
     public Stream<Pair<PatchOperation, DatasetGraph>> getOperations() {
-        return this.datasets.stream();
+        return this.datasets.stream().map(op -> Pair.of(op.getKey(), op.getValue().toDataset()));
     }
 
     /**
@@ -92,7 +107,7 @@ public class RDFChangesAsDatasets implements RDFChanges {
 
     private void switchOperation(PatchOperation operation) {
         this.collect();
-        this.current = DatasetGraphFactory.create();
+        this.current = new CompactQuads();
         this.currentOperation = operation;
     }
 
@@ -119,12 +134,12 @@ public class RDFChangesAsDatasets implements RDFChanges {
 
     @Override
     public void addPrefix(Node gn, String prefix, String uriStr) {
-        this.current.getGraph(gn).getPrefixMapping().setNsPrefix(prefix, uriStr);
+        this.current.prefix(gn, prefix, uriStr);
     }
 
     @Override
     public void deletePrefix(Node gn, String prefix) {
-        this.current.getGraph(gn).getPrefixMapping().removeNsPrefix(prefix);
+        this.current.prefix(gn, prefix, null);
     }
 
     @Override
@@ -169,7 +184,7 @@ public class RDFChangesAsDatasets implements RDFChanges {
 
     private void resetTransactionState() {
         this.inTransaction = false;
-        this.current = DatasetGraphFactory.create();
+        this.current = new CompactQuads();
         this.currentOperation = PatchOperation.NONE;
         this.lastTransactionStart = this.datasets.size();
     }
@@ -194,4 +209,71 @@ public class RDFChangesAsDatasets implements RDFChanges {
         }
         this.resetTransactionState();
     }
+
+    /**
+     * The quads, and any prefix changes, for a single operation held in a compact flat form from which a dataset can be
+     * materialized on demand
+     */
+    private static final class CompactQuads {
+        private Node[] nodes = new Node[64];
+        private int size = 0;
+        private List<PrefixChange> prefixes;
+
+        private void add(Node g, Node s, Node p, Node o) {
+            if (this.size + 4 > this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, this.nodes.length * 2);
+            }
+            this.nodes[this.size++] = g;
+            this.nodes[this.size++] = s;
+            this.nodes[this.size++] = p;
+            this.nodes[this.size++] = o;
+        }
+
+        private void prefix(Node g, String prefix, String uri) {
+            if (this.prefixes == null) {
+                this.prefixes = new ArrayList<>();
+            }
+            this.prefixes.add(new PrefixChange(this.size, g, prefix, uri));
+        }
+
+        /**
+         * Materializes the dataset, replaying the quads and prefix changes in the order they were originally made
+         *
+         * @return Dataset
+         */
+        private DatasetGraph toDataset() {
+            DatasetGraph dataset = DatasetGraphFactory.create();
+            int i = 0;
+            if (this.prefixes != null) {
+                for (PrefixChange change : this.prefixes) {
+                    i = addQuads(dataset, i, change.position());
+                    if (change.uri() != null) {
+                        dataset.getGraph(change.graph()).getPrefixMapping().setNsPrefix(change.prefix(), change.uri());
+                    } else {
+                        dataset.getGraph(change.graph()).getPrefixMapping().removeNsPrefix(change.prefix());
+                    }
+                }
+            }
+            addQuads(dataset, i, this.size);
+            return dataset;
+        }
+
+        private int addQuads(DatasetGraph dataset, int from, int to) {
+            for (int i = from; i < to; i += 4) {
+                dataset.add(this.nodes[i], this.nodes[i + 1], this.nodes[i + 2], this.nodes[i + 3]);
+            }
+            return to;
+        }
+    }
+
+    /**
+     * A prefix change, a {@code null} URI indicates the prefix is deleted
+     *
+     * @param position Position in the flat quads at which the change was made
+     * @param graph    Graph
+     * @param prefix   Prefix
+     * @param uri      Namespace URI, or {@code null} for deletion
+     */
+    private record PrefixChange(int position, Node graph, String prefix, String uri) {
+    }
 }
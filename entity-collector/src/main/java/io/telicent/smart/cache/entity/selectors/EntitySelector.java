@@ -16,6 +16,7 @@
 package io.telicent.smart.cache.entity.selectors;
 
 import io.telicent.smart.cache.entity.Entity;
+import io.telicent.smart.cache.entity.collectors.TriplesBySubject;
 import org.apache.jena.graph.Graph;
 
 import java.util.stream.Stream;
@@ -35,4 +36,22 @@ public interface EntitySelector {
      * @return Stream of selected entities
      */
     Stream<Entity> select(Graph graph, String defaultSecurityLabels, Graph securityLabels);
+
+    /**
+     * Selects the entities of interest from triples that have already been grouped by subject
+     * <p>
+     * This is used when an {@link io.telicent.smart.cache.entity.EntityCentricProjector} is configured for single pass
+     * collection.  The default implementation simply calls {@link #select(Graph, String, Graph)} on the underlying
+     * graph.
+     * </p>
+     *
+     * @param triples               Triples grouped by subject
+     * @param defaultSecurityLabels Default security labels for the entity, these apply to any data not covered by a
+     *                              more specific rule in the security labels graph
+     * @param securityLabels        Security Labels graph to associated with each selected entity
+     * @return Stream of selected entities
+     */
+    default Stream<Entity> selectGrouped(TriplesBySubject triples, String defaultSecurityLabels, Graph securityLabels) {
+        return select(triples.getGraph(), defaultSecurityLabels, securityLabels);
+    }
 }
@@ -19,13 +19,15 @@ import io.telicent.jena.abac.labels.LabelsStore;
 import io.telicent.smart.cache.entity.Entity;
 import io.telicent.smart.cache.entity.EntityCentricProjector;
 import io.telicent.smart.cache.entity.EntityData;
+import io.telicent.smart.cache.entity.MemoizingLabelsStore;
+import io.telicent.smart.cache.entity.collectors.TriplesBySubject;
 import io.telicent.smart.cache.entity.vocabulary.Rdf;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 
 import java.util.*;
+import java.util.function.BiPredicate;
 import java.util.stream.Stream;
 
 /**
@@ -99,7 +101,35 @@ public class SimpleTypeSelector implements EntitySelector {
             }
         }
 
-        LabelsStore labelsStore = EntityCentricProjector.prepareLabelsStore(defaultSecurityLabels, securityLabels);
+        return select(graph, ts, (subject, type) -> graph.contains(subject, Rdf.TYPE, type), defaultSecurityLabels,
+                      securityLabels);
+    }
+
+    @Override
+    public Stream<Entity> selectGrouped(TriplesBySubject triples, String defaultSecurityLabels, Graph securityLabels) {
+        // Find all the entities by type, using the type triples gathered when the triples were grouped
+        Stream<Triple> ts = triples.types().stream();
+        if (!this.includeAllTypes) {
+            ts = ts.filter(t -> this.includedTypes.contains(t.getObject()));
+        }
+
+        return select(triples.getGraph(), ts, triples::hasType, defaultSecurityLabels, securityLabels);
+    }
+
+    /**
+     * Selects the entities based on their type triples
+     *
+     * @param graph                 Graph
+     * @param ts                    Type triples for the entities that may be selected
+     * @param hasType               Function that determines whether the graph declares an entity to have a type
+     * @param defaultSecurityLabels Default security labels
+     * @param securityLabels        Security labels graph
+     * @return Selected entities
+     */
+    private Stream<Entity> select(Graph graph, Stream<Triple> ts, BiPredicate<Node, Node> hasType,
+                                  String defaultSecurityLabels, Graph securityLabels) {
+        LabelsStore labelsStore = MemoizingLabelsStore.wrap(
+                EntityCentricProjector.prepareLabelsStore(defaultSecurityLabels, securityLabels));
 
         // Group by subject
         Map<Node, Entity> entities = new HashMap<>();
@@ -107,9 +137,8 @@ public class SimpleTypeSelector implements EntitySelector {
                                                  key -> new Entity(key, graph.getPrefixMapping(), defaultSecurityLabels,
                                                                    securityLabels))
                                 .addData(Rdf.TYPE_GROUP, EntityData.of(t.getPredicate(), t.getObject(),
-                                                                       labelsStore != null
-                                                                       ? StringUtils.join(labelsStore.labelsForTriples(t),
-                                                                                        ",") : null)));
+                                                                       MemoizingLabelsStore.joinedLabels(labelsStore,
+                                                                                                         t))));
 
         // Filter out any ignored types, have to do this after grouping by subject as if an entity has multiple types
         // declared we might include it based on one type but ignore it based on another.  If we apply this prior to
@@ -118,10 +147,8 @@ public class SimpleTypeSelector implements EntitySelector {
         // types we may not have actually collected the types to be ignored.  Thus, we need to see whether the graph
         // itself declares an entity to have an ignored type.
         if (!this.ignoredTypes.isEmpty()) {
-            entities.entrySet().removeIf(kvp -> this.ignoredTypes.stream().anyMatch(t ->
-                                                                                            graph.contains(kvp.getKey(),
-                                                                                                           Rdf.TYPE, t)
-            ));
+            entities.entrySet()
+                    .removeIf(kvp -> this.ignoredTypes.stream().anyMatch(t -> hasType.test(kvp.getKey(), t)));
         }
 
         entities.values().forEach(e -> e.getPrefixes().setNsPrefixes(this.defaultPrefixes));
@@ -41,6 +41,7 @@ public class EntityToMapSink<TKey>
         extends AbstractTransformingSink<Event<TKey, Entity>, Event<Entity, Map<String, Object>>> {
 
     private final List<EntityToMapOutputConverter> converters = new ArrayList<>();
+    private final Map<Entity, Map<String, Object>> prepared = Collections.synchronizedMap(new WeakHashMap<>());
 
     /**
      * Creates a new sink with custom mapping options
@@ -58,14 +59,38 @@ public class EntityToMapSink<TKey>
         this.converters.addAll(converters);
     }
 
+    /**
+     * Prepares the map for an entity ahead of the entity being sent to this sink
+     * <p>
+     * This may be called concurrently from many threads, allowing the conversion of entities to be done in parallel
+     * while the entities themselves are still sent to this sink in order.  When a prepared entity is subsequently sent
+     * its prepared map is used rather than converting it again.  Preparations are only weakly held, so an entity that
+     * is prepared but never sent does not leak memory.
+     * </p>
+     *
+     * @param entity Entity
+     */
+    public void prepare(Entity entity) {
+        Objects.requireNonNull(entity, "Entity cannot be null");
+        this.prepared.put(entity, convert(entity));
+    }
+
     @Override
     protected Event<Entity, Map<String, Object>> transform(Event<TKey, Entity> item) {
         Objects.requireNonNull(item, "Entity cannot be null");
-        Map<String, Object> map = new LinkedHashMap<>();
-        this.converters.forEach(c -> c.output(item.value(), map));
+        Map<String, Object> map = item.value() != null ? this.prepared.remove(item.value()) : null;
+        if (map == null) {
+            map = convert(item.value());
+        }
         return item.replace(item.value(), map);
     }
 
+    private Map<String, Object> convert(Entity entity) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        this.converters.forEach(c -> c.output(entity, map));
+        return map;
+    }
+
     /**
      * Creates a new entity to map sink builder
      *
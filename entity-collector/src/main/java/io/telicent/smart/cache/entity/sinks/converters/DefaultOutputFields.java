@@ -65,6 +65,12 @@ public final class DefaultOutputFields {
      */
     public static final String SECURITY_LABELS_SUB_FIELD_DEFAULTS = "defaults";
 
+    /**
+     * Default output field for the normalized security requirements, i.e. the individual default security label
+     * expressions, of a document which are used to pre-filter searches
+     */
+    public static final String SECURITY_REQUIREMENTS = "securityRequirements";
+
     /**
      * Default output field for metadata
      */
@@ -15,7 +15,9 @@
  */
 package io.telicent.smart.cache.entity;
 
+import io.telicent.jena.abac.labels.LabelsStore;
 import io.telicent.smart.cache.entity.collectors.DirectLiteralsCollector;
+import io.telicent.smart.cache.entity.collectors.InRelationshipsCollector;
 import io.telicent.smart.cache.entity.collectors.OutRelationshipsCollector;
 import io.telicent.smart.cache.entity.config.EntityProjectionConfig;
 import io.telicent.smart.cache.entity.selectors.SimpleTypeSelector;
@@ -31,6 +33,7 @@ import io.telicent.smart.cache.sources.Event;
 import io.telicent.smart.cache.sources.Header;
 import io.telicent.smart.cache.sources.TelicentHeaders;
 import io.telicent.smart.cache.sources.memory.SimpleEvent;
+import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.GraphUtil;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
@@ -50,6 +53,8 @@ import org.testng.annotations.Test;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
 
 public class TestEntityCentricProjector extends AbstractEntityCollectorTests {
 
@@ -70,6 +75,11 @@ public class TestEntityCentricProjector extends AbstractEntityCollectorTests {
         new EntityCentricProjector<>(null);
     }
 
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Parallelism.*")
+    public void entity_centric_projector_bad_02() {
+        new EntityCentricProjector<>(new EntityProjectionConfig(new SimpleTypeSelector(), Collections.emptyList()), 0);
+    }
+
     private void verifyMetrics(long expected) {
         verifyMetrics(expected, 0);
     }
@@ -469,4 +479,221 @@ public class TestEntityCentricProjector extends AbstractEntityCollectorTests {
         Assert.assertFalse(deletion.value().hasAnyLiterals());
     }
 
+    private static Map<Node, Set<String>> summarise(List<Event<String, Entity>> events) {
+        Map<Node, Set<String>> summary = new HashMap<>();
+        for (Event<String, Entity> event : events) {
+            Entity entity = event.value();
+            Set<String> data = summary.computeIfAbsent(entity.getUri(), k -> new HashSet<>());
+            entity.getDataGroups()
+                  .forEach(group -> entity.getData(group)
+                                          .forEach(d -> d.keys()
+                                                         .forEach(k -> d.get(k)
+                                                                        .forEach(n -> data.add(
+                                                                                group + " " + k + " " + n.getNode() +
+                                                                                " " + n.getSecurityLabel())))));
+        }
+        return summary;
+    }
+
+    private Map<Node, Set<String>> projectAndSummarise(boolean singlePass, DatasetGraph dataset,
+                                                       List<Node> ignoredTypes) {
+        EntityCentricProjector<String> projector = new EntityCentricProjector<>(
+                new EntityProjectionConfig(new SimpleTypeSelector(true, List.of(), ignoredTypes, Map.of()),
+                                           List.of(new DirectLiteralsCollector(), new OutRelationshipsCollector(),
+                                                   new InRelationshipsCollector()), singlePass));
+        CollectorSink<Event<String, Entity>> collector = CollectorSink.of();
+        projector.project(new SimpleEvent<>(List.of(new Header(TelicentHeaders.SECURITY_LABEL, "default")), "test",
+                                            RdfPayload.of(dataset)), collector);
+        return summarise(collector.get());
+    }
+
+    @Test
+    public void entity_centric_projector_single_pass_01() {
+        DatasetGraph dataset = DatasetGraphFactory.create();
+        GraphUtil.addInto(dataset.getDefaultGraph(), testData);
+        dataset.addGraph(Telicent.SECURITY_LABELS_GRAPH_URI, testLabels);
+
+        Map<Node, Set<String>> expected = projectAndSummarise(false, dataset, List.of());
+        Map<Node, Set<String>> actual = projectAndSummarise(true, dataset, List.of());
+
+        Assert.assertEquals(actual.size(), 23);
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test
+    public void entity_centric_projector_single_pass_02() {
+        DatasetGraph dataset = DatasetGraphFactory.create();
+        GraphUtil.addInto(dataset.getDefaultGraph(), testData);
+
+        Map<Node, Set<String>> expected = projectAndSummarise(false, dataset, List.of(PERSON_TYPE));
+        Map<Node, Set<String>> actual = projectAndSummarise(true, dataset, List.of(PERSON_TYPE));
+
+        Assert.assertFalse(actual.containsKey(FRED));
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test
+    public void entity_centric_projector_single_pass_patches_01() {
+        Node graphName = NodeFactory.createURI("https://graphs/1");
+        RDFChangesCollector changes = new RDFChangesCollector();
+        changes.start();
+        changes.add(graphName, FRED, Rdf.TYPE, PERSON_TYPE);
+        changes.add(graphName, FRED, FOAF.name.asNode(), FRED_FULL_NAME);
+        changes.add(graphName, FRED, FOAF.mbox.asNode(), FRED_WORK_EMAIL);
+        changes.delete(graphName, FRED, Rdf.TYPE, PERSON_TYPE);
+        changes.finish();
+
+        EntityCentricProjector<String> projector = new EntityCentricProjector<>(
+                new EntityProjectionConfig(new SimpleTypeSelector(),
+                                           List.of(new DirectLiteralsCollector(), new OutRelationshipsCollector()),
+                                           true));
+        CollectorSink<Event<String, Entity>> collector = CollectorSink.of();
+        projector.project(new SimpleEvent<>(null, "test", RdfPayload.of(changes.getRDFPatch())), collector);
+        Assert.assertEquals(collector.get().size(), 2);
+        verifyMetrics(2);
+
+        Entity addition = collector.get().get(0).value();
+        Assert.assertFalse(addition.isDeletion());
+        Assert.assertTrue(addition.hasAnyLiterals());
+        Assert.assertEquals(addition.getData("outRels").count(), 2L);
+
+        Entity deletion = collector.get().get(1).value();
+        Assert.assertTrue(deletion.isDeletion());
+        Assert.assertFalse(deletion.hasAnyLiterals());
+        Assert.assertEquals(deletion.getData("outRels").count(), 1L);
+    }
+
+    private List<Event<String, Entity>> projectWithParallelism(int parallelism, boolean singlePass,
+                                                              RdfPayload payload) {
+        try (EntityCentricProjector<String> projector = new EntityCentricProjector<>(
+                new EntityProjectionConfig(new SimpleTypeSelector(),
+                                           List.of(new DirectLiteralsCollector(), new OutRelationshipsCollector(),
+                                                   new InRelationshipsCollector()), singlePass), parallelism)) {
+            CollectorSink<Event<String, Entity>> collector = CollectorSink.of();
+            projector.project(new SimpleEvent<>(List.of(new Header(TelicentHeaders.SECURITY_LABEL, "default")), "test",
+                                                payload), collector);
+            return collector.get();
+        }
+    }
+
+    private static void verifySameOrder(List<Event<String, Entity>> actual, List<Event<String, Entity>> expected) {
+        Assert.assertEquals(actual.stream().map(e -> e.value().getUri()).toList(),
+                            expected.stream().map(e -> e.value().getUri()).toList());
+        Assert.assertEquals(actual.stream().map(e -> e.value().isDeletion()).toList(),
+                            expected.stream().map(e -> e.value().isDeletion()).toList());
+        Assert.assertEquals(summarise(actual), summarise(expected));
+    }
+
+    @Test
+    public void entity_centric_projector_parallel_01() {
+        DatasetGraph dataset = DatasetGraphFactory.create();
+        GraphUtil.addInto(dataset.getDefaultGraph(), testData);
+        dataset.addGraph(Telicent.SECURITY_LABELS_GRAPH_URI, testLabels);
+
+        List<Event<String, Entity>> expected = projectWithParallelism(1, false, RdfPayload.of(dataset));
+        List<Event<String, Entity>> actual = projectWithParallelism(4, false, RdfPayload.of(dataset));
+
+        Assert.assertEquals(actual.size(), 23);
+        verifySameOrder(actual, expected);
+    }
+
+    @Test
+    public void entity_centric_projector_parallel_02() {
+        DatasetGraph dataset = DatasetGraphFactory.create();
+        GraphUtil.addInto(dataset.getDefaultGraph(), testData);
+
+        List<Event<String, Entity>> expected = projectWithParallelism(1, false, RdfPayload.of(dataset));
+        List<Event<String, Entity>> actual = projectWithParallelism(2, true, RdfPayload.of(dataset));
+
+        verifySameOrder(actual, expected);
+    }
+
+    @Test
+    public void entity_centric_projector_parallel_patches_01() {
+        Node graphName = NodeFactory.createURI("https://graphs/1");
+        RDFChangesCollector changes = new RDFChangesCollector();
+        changes.start();
+        changes.add(graphName, FRED, Rdf.TYPE, PERSON_TYPE);
+        changes.add(graphName, FRED, FOAF.name.asNode(), FRED_FULL_NAME);
+        changes.delete(graphName, FRED, Rdf.TYPE, PERSON_TYPE);
+        changes.finish();
+
+        List<Event<String, Entity>> expected = projectWithParallelism(1, false, RdfPayload.of(changes.getRDFPatch()));
+        List<Event<String, Entity>> actual = projectWithParallelism(3, false, RdfPayload.of(changes.getRDFPatch()));
+
+        Assert.assertEquals(actual.size(), 2);
+        Assert.assertTrue(actual.get(1).value().isDeletion());
+        verifySameOrder(actual, expected);
+    }
+
+    @Test
+    public void entity_centric_projector_parallel_to_map_01() {
+        // Given
+        EntityProjectionConfig config = new EntityProjectionConfig(new SimpleTypeSelector(),
+                                                                   List.of(new DirectLiteralsCollector(),
+                                                                           new OutRelationshipsCollector()));
+        List<EntityToMapOutputConverter> converters =
+                List.of(new UriConverter(), new DataToSimpleList(DefaultOutputFields.TYPES, Rdf.TYPE_GROUP, false),
+                        new DataToSimpleMap(DefaultOutputFields.LITERALS, true, false, DefaultOutputFields.LITERALS));
+        CollectorSink<Event<Entity, Map<String, Object>>> expected = CollectorSink.of();
+        CollectorSink<Event<Entity, Map<String, Object>>> actual = CollectorSink.of();
+
+        // When
+        new EntityCentricProjector<String>(config).project(
+                new SimpleEvent<>(null, "test", RdfPayload.of(DatasetGraphFactory.wrap(testData))),
+                new EntityToMapSink<>(expected, converters));
+        try (EntityCentricProjector<String> projector = new EntityCentricProjector<>(config, 4)) {
+            projector.project(new SimpleEvent<>(null, "test", RdfPayload.of(DatasetGraphFactory.wrap(testData))),
+                              new EntityToMapSink<>(actual, converters));
+        }
+
+        // Then
+        Assert.assertEquals(actual.get().size(), 23);
+        Assert.assertEquals(actual.get().stream().map(Event::value).toList(),
+                            expected.get().stream().map(Event::value).toList());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "Failed")
+    public void entity_centric_projector_parallel_bad_01() {
+        try (EntityCentricProjector<String> projector = new EntityCentricProjector<>(
+                new EntityProjectionConfig(new SimpleTypeSelector(), List.of(new DirectLiteralsCollector() {
+                    @Override
+                    public Stream<EntityData> collect(Graph graph, Node entity, LabelsStore labels) {
+                        throw new IllegalStateException("Failed");
+                    }
+                })), 2)) {
+            projector.project(new SimpleEvent<>(null, "test", RdfPayload.of(DatasetGraphFactory.wrap(testData))),
+                              CollectorSink.of());
+        }
+    }
+
+    @Test(expectedExceptions = RejectedExecutionException.class)
+    public void entity_centric_projector_parallel_closed_01() {
+        // Given
+        EntityCentricProjector<String> projector = new EntityCentricProjector<>(
+                new EntityProjectionConfig(new SimpleTypeSelector(), List.of(new DirectLiteralsCollector())), 2);
+
+        // When
+        projector.close();
+
+        // Then
+        projector.project(new SimpleEvent<>(null, "test", RdfPayload.of(DatasetGraphFactory.wrap(testData))),
+                          CollectorSink.of());
+    }
+
+    @Test
+    public void entity_centric_projector_sequential_closed_01() {
+        // Given
+        EntityCentricProjector<String> projector = new EntityCentricProjector<>(
+                new EntityProjectionConfig(new SimpleTypeSelector(), List.of(new DirectLiteralsCollector())));
+        CollectorSink<Event<String, Entity>> collector = CollectorSink.of();
+
+        // When
+        projector.close();
+        projector.project(new SimpleEvent<>(null, "test", RdfPayload.of(DatasetGraphFactory.wrap(testData))),
+                          collector);
+
+        // Then
+        Assert.assertEquals(collector.get().size(), 23);
+    }
 }
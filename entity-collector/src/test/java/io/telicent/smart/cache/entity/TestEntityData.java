@@ -134,4 +134,74 @@ public class TestEntityData extends AbstractEntityCollectorTests {
         Assert.assertFalse(data.isEmpty());
         Assert.assertNotNull(data.get(Rdf.TYPE));
     }
+
+    @Test
+    public void entity_data_simple_02() {
+        EntityData data = EntityData.of(FOAF.age.asNode(), FRED_AGE, "gdpr");
+        Assert.assertTrue(data.isSimple());
+        Assert.assertTrue(data.hasSecurityLabels());
+        Assert.assertEquals(data.get().getNode(), FRED_AGE);
+        Assert.assertEquals(data.get().getSecurityLabel(), "gdpr");
+        Assert.assertEquals(data.get(FOAF.age.asNode()).size(), 1);
+        Assert.assertNull(data.get(FOAF.name.asNode()));
+    }
+
+    @Test
+    public void entity_data_simple_03() {
+        Assert.assertTrue(EntityData.of(null, FRED_AGE).isEmpty());
+        Assert.assertTrue(EntityData.of(FOAF.age.asNode(), null, "gdpr").isEmpty());
+        Assert.assertFalse(EntityData.of(Rdf.TYPE, PERSON_TYPE).hasSecurityLabels());
+        Assert.assertFalse(EntityData.of(Rdf.TYPE, PERSON_TYPE, " ").hasSecurityLabels());
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void entity_data_immutable_01() {
+        EntityData data = createMultiTyped();
+        data.get(Rdf.TYPE).add(new SecurityLabelledNode(PERSON_TYPE));
+    }
+
+    @Test
+    public void entity_data_builder_03() {
+        // Values for the same key should be grouped together regardless of the order they were added in, with their
+        // labels preserved
+        EntityData data = EntityData.create()
+                                    .add(Rdf.TYPE, PERSON_TYPE, "public")
+                                    .add(FOAF.name.asNode(), FRED_FULL_NAME)
+                                    .add(Rdf.TYPE, EVENT_PARTICIPANT_TYPE, "secret")
+                                    .add(FOAF.name.asNode(), FRED_SHORT_NAME, "public")
+                                    .build();
+        Assert.assertEquals(data.keys().toList(), List.of(Rdf.TYPE, FOAF.name.asNode()));
+        Assert.assertTrue(data.hasSecurityLabels());
+
+        List<SecurityLabelledNode> types = data.get(Rdf.TYPE);
+        Assert.assertEquals(types.stream().map(SecurityLabelledNode::getNode).toList(),
+                            List.of(PERSON_TYPE, EVENT_PARTICIPANT_TYPE));
+        Assert.assertEquals(types.stream().map(SecurityLabelledNode::getSecurityLabel).toList(),
+                            List.of("public", "secret"));
+
+        List<SecurityLabelledNode> names = data.get(FOAF.name.asNode());
+        Assert.assertEquals(names.stream().map(SecurityLabelledNode::getNode).toList(),
+                            List.of(FRED_FULL_NAME, FRED_SHORT_NAME));
+        Assert.assertNull(names.get(0).getSecurityLabel());
+        Assert.assertEquals(names.get(1).getSecurityLabel(), "public");
+    }
+
+    @Test
+    public void entity_data_builder_04() {
+        // Enough keys that lookups go via an index
+        EntityData.Builder builder = EntityData.create();
+        for (int i = 0; i < 100; i++) {
+            builder.add(NodeFactory.createURI("http://keys/" + i), NodeFactory.createLiteralString(Integer.toString(i)));
+        }
+        EntityData data = builder.build();
+
+        Assert.assertEquals(data.keys().count(), 100L);
+        Assert.assertFalse(data.hasSecurityLabels());
+        for (int i = 0; i < 100; i++) {
+            List<SecurityLabelledNode> values = data.get(NodeFactory.createURI("http://keys/" + i));
+            Assert.assertEquals(values.size(), 1);
+            Assert.assertEquals(values.get(0).getNode().getLiteralLexicalForm(), Integer.toString(i));
+        }
+        Assert.assertNull(data.get(NodeFactory.createURI("http://keys/100")));
+    }
 }
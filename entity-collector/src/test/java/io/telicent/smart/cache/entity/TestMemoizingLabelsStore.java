@@ -0,0 +1,104 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity;
+
+import io.telicent.jena.abac.labels.Label;
+import io.telicent.jena.abac.labels.Labels;
+import io.telicent.jena.abac.labels.LabelsStore;
+import io.telicent.smart.cache.entity.vocabulary.Rdf;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.vocabulary.FOAF;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestMemoizingLabelsStore extends AbstractEntityCollectorTests {
+
+    private static final Triple FRED_TYPE = Triple.create(NodeFactory.createURI(FRED_URI), Rdf.TYPE, PERSON_TYPE);
+    private static final Triple FRED_NAME =
+            Triple.create(NodeFactory.createURI(FRED_URI), FOAF.name.asNode(), FRED_FULL_NAME);
+    private static final Triple FRED_AGE_TRIPLE =
+            Triple.create(NodeFactory.createURI(FRED_URI), FOAF.age.asNode(), FRED_AGE);
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void memoizing_bad_01() {
+        new MemoizingLabelsStore(null);
+    }
+
+    @Test
+    public void memoizing_wrap_01() {
+        Assert.assertNull(MemoizingLabelsStore.wrap(null));
+        Assert.assertNull(MemoizingLabelsStore.joinedLabels(null, FRED_TYPE));
+    }
+
+    @Test
+    public void memoizing_wrap_02() {
+        LabelsStore store = MemoizingLabelsStore.wrap(Labels.createLabelsStoreMem(Graph.emptyGraph));
+        Assert.assertTrue(store instanceof MemoizingLabelsStore);
+        Assert.assertSame(MemoizingLabelsStore.wrap(store), store);
+    }
+
+    @Test
+    public void memoizing_01() {
+        // Given
+        LabelsStore labels = Labels.createLabelsStoreMem(GraphFactory.createDefaultGraph());
+        labels.add(FRED_TYPE, Label.fromText("secret"));
+        labels.add(FRED_NAME, Label.fromText("secret"));
+        labels.add(FRED_AGE_TRIPLE, Label.fromText("gdpr"));
+        LabelsStore store = MemoizingLabelsStore.wrap(labels);
+
+        // When
+        String type = MemoizingLabelsStore.joinedLabels(store, FRED_TYPE);
+        String name = MemoizingLabelsStore.joinedLabels(store, FRED_NAME);
+        String age = MemoizingLabelsStore.joinedLabels(store, FRED_AGE_TRIPLE);
+
+        // Then
+        Assert.assertEquals(type, "secret");
+        Assert.assertEquals(age, "gdpr");
+        Assert.assertSame(MemoizingLabelsStore.joinedLabels(store, FRED_TYPE), type);
+        Assert.assertSame(name, type);
+    }
+
+    @Test
+    public void memoizing_02() {
+        // Given
+        LabelsStore store = MemoizingLabelsStore.wrap(Labels.createLabelsStoreMem(Graph.emptyGraph));
+
+        // When and Then
+        Assert.assertEquals(MemoizingLabelsStore.joinedLabels(store, FRED_TYPE), "");
+    }
+
+    @Test
+    public void memoizing_defaults_01() {
+        // Given
+        DefaultingLabelsStore defaulting =
+                (DefaultingLabelsStore) EntityCentricProjector.prepareLabelsStore("default, other", null);
+        LabelsStore store = MemoizingLabelsStore.wrap(defaulting);
+
+        // When
+        String type = MemoizingLabelsStore.joinedLabels(store, FRED_TYPE);
+        String name = MemoizingLabelsStore.joinedLabels(store, FRED_NAME);
+
+        // Then
+        Assert.assertEquals(defaulting.getJoinedDefaultLabels(), "default,other");
+        Assert.assertSame(type, defaulting.getJoinedDefaultLabels());
+        Assert.assertSame(name, defaulting.getJoinedDefaultLabels());
+        Assert.assertSame(MemoizingLabelsStore.joinedLabels(defaulting, FRED_AGE_TRIPLE),
+                          defaulting.getJoinedDefaultLabels());
+    }
+}
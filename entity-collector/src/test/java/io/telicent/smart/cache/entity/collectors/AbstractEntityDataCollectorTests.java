@@ -16,15 +16,19 @@
 package io.telicent.smart.cache.entity.collectors;
 
 import io.telicent.jena.abac.labels.Labels;
+import io.telicent.jena.abac.labels.LabelsStore;
 import io.telicent.smart.cache.entity.AbstractEntityCollectorTests;
 import io.telicent.smart.cache.entity.Entity;
 import io.telicent.smart.cache.entity.EntityData;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public abstract class AbstractEntityDataCollectorTests extends AbstractEntityCollectorTests {
 
@@ -81,6 +85,41 @@ public abstract class AbstractEntityDataCollectorTests extends AbstractEntityCol
         Assert.assertEquals(data.size(), 0);
     }
 
+    @Test
+    public void entity_data_collector_grouped_triples() {
+        EntityDataCollector collector = createCollector();
+        TriplesBySubject triples = TriplesBySubject.of(this.testData);
+        LabelsStore labelsStore = Labels.createLabelsStoreMem(this.testLabels);
+
+        // Collecting from grouped triples should produce the same data as collecting from the graph for every subject
+        this.testData.find().mapWith(Triple::getSubject).toSet().forEach(subject -> {
+            Assert.assertEquals(summarise(collector.collectGrouped(triples, subject, labelsStore).toList()),
+                                summarise(collector.collect(this.testData, subject, labelsStore).toList()),
+                                "Different data collected for " + subject);
+        });
+    }
+
+    private static Set<String> summarise(List<EntityData> data) {
+        Set<String> summary = new HashSet<>();
+        data.forEach(d -> d.keys()
+                           .forEach(k -> d.get(k)
+                                          .forEach(n -> summary.add(k + " " + n.getNode() + " " +
+                                                                    n.getSecurityLabel()))));
+        return summary;
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void entity_data_collector_grouped_triples_bad_01() {
+        EntityDataCollector collector = createCollector();
+        collector.collectGrouped(null, NodeFactory.createURI(FRED_URI), null).toList();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void entity_data_collector_grouped_triples_bad_02() {
+        EntityDataCollector collector = createCollector();
+        collector.collectGrouped(TriplesBySubject.of(this.testData), NodeFactory.createVariable("var"), null).toList();
+    }
+
     @Test
     public void entity_data_collector_group() {
         EntityDataCollector collector = createCollector();
@@ -289,4 +289,58 @@ public class TestRDFChangesAsDatasets {
         Graph g = operations.get(0).getValue().getGraph(graphNode);
         Assert.assertTrue(g.getPrefixMapping().getNsPrefixMap().containsKey("telicent"));
     }
+
+    @Test
+    public void prefixes_05() {
+        RDFChangesAsDatasets changes = new RDFChangesAsDatasets();
+        changes.start();
+        changes.addPrefix(Quad.defaultGraphIRI, "telicent", Telicent.NAMESPACE);
+        changes.add(Quad.defaultGraphIRI, NodeFactory.createBlankNode(), Rdf.TYPE, TEST_NODE);
+        changes.deletePrefix(Quad.defaultGraphIRI, "telicent");
+        changes.addPrefix(Quad.defaultGraphIRI, "test", "http://test#");
+        changes.finish();
+
+        List<Pair<PatchOperation, DatasetGraph>> operations = changes.getOperations().toList();
+        verifyOperation(operations, 0, PatchOperation.ADD, 1);
+
+        Graph g = operations.get(0).getValue().getDefaultGraph();
+        Assert.assertFalse(g.getPrefixMapping().getNsPrefixMap().containsKey("telicent"));
+        Assert.assertTrue(g.getPrefixMapping().getNsPrefixMap().containsKey("test"));
+    }
+
+    @Test
+    public void large_patch_01() {
+        RDFChangesAsDatasets changes = new RDFChangesAsDatasets();
+        changes.start();
+        for (int i = 0; i < 10_000; i++) {
+            Node subject = NodeFactory.createURI("http://subjects/" + i);
+            changes.add(Quad.defaultGraphIRI, subject, Rdf.TYPE, TEST_NODE);
+            changes.add(NodeFactory.createURI("http://graphs/" + (i % 10)), subject, Rdf.TYPE, TEST_NODE);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            changes.delete(Quad.defaultGraphIRI, NodeFactory.createURI("http://subjects/" + i), Rdf.TYPE, TEST_NODE);
+        }
+        changes.finish();
+
+        List<Pair<PatchOperation, DatasetGraph>> operations = changes.getOperations().toList();
+        Assert.assertEquals(operations.size(), 2);
+        verifyOperation(operations, 0, PatchOperation.ADD, 20_000);
+        verifyOperation(operations, 1, PatchOperation.DELETE, 5_000);
+        Assert.assertEquals(Iter.count(operations.get(0).getValue().listGraphNodes()), 10);
+    }
+
+    @Test
+    public void operations_materialized_on_demand_01() {
+        RDFChangesAsDatasets changes = new RDFChangesAsDatasets();
+        changes.start();
+        changes.add(Quad.defaultGraphIRI, NodeFactory.createBlankNode(), Rdf.TYPE, TEST_NODE);
+        changes.finish();
+
+        // Each consumption of the operations gets fresh datasets so modifying one doesn't affect later consumers
+        DatasetGraph first = changes.getOperations().toList().get(0).getValue();
+        first.add(Quad.defaultGraphIRI, NodeFactory.createBlankNode(), Rdf.TYPE, TEST_NODE);
+        List<Pair<PatchOperation, DatasetGraph>> operations = changes.getOperations().toList();
+        Assert.assertNotSame(operations.get(0).getValue(), first);
+        verifyOperation(operations, 0, PatchOperation.ADD, 1);
+    }
 }
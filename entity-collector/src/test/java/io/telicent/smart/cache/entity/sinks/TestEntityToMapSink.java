@@ -27,6 +27,7 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TestEntityToMapSink extends AbstractEntityCollectorTests {
 
@@ -131,4 +132,33 @@ public class TestEntityToMapSink extends AbstractEntityCollectorTests {
     public void entity_to_map_sink_builder_03() {
         EntityToMapSink.create().withConverter(new UriConverter()).toValues(AbstractForwardingSinkBuilder::collect).build();
     }
+
+    @Test(expectedExceptions = NullPointerException.class, expectedExceptionsMessageRegExp = ".*cannot be null")
+    public void entity_to_map_sink_prepare_bad_01() {
+        EntityToMapSink<Integer> sink = new EntityToMapSink<>(null, Collections.singletonList(new UriConverter()));
+        sink.prepare(null);
+    }
+
+    @Test
+    public void entity_to_map_sink_prepare_01() {
+        // Given
+        AtomicInteger conversions = new AtomicInteger(0);
+        CollectorSink<Event<Entity, Map<String, Object>>> collector = CollectorSink.of();
+        EntityToMapOutputConverter counter = (e, m) -> conversions.incrementAndGet();
+        EntityToMapSink<Integer> sink = new EntityToMapSink<>(collector, Arrays.asList(new UriConverter(), counter));
+        Entity entity = createFredWithTypes();
+
+        // When
+        sink.prepare(entity);
+        sink.send(new SimpleEvent<>(null, 1, entity));
+
+        // Then
+        Assert.assertEquals(conversions.get(), 1);
+        verifyOutputUri(entity, verifyOutput(collector));
+
+        // And
+        sink.send(new SimpleEvent<>(null, 2, entity));
+        Assert.assertEquals(conversions.get(), 2);
+        Assert.assertEquals(collector.get().get(1).value(), collector.get().get(0).value());
+    }
 }
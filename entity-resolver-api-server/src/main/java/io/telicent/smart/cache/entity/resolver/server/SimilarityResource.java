@@ -22,13 +22,18 @@ import io.telicent.smart.cache.entity.resolver.model.SimilarityResult;
 import io.telicent.smart.cache.entity.resolver.model.SimilarityResults;
 import io.telicent.smart.cache.search.model.Document;
 import io.telicent.smart.cache.search.options.SecurityOptions;
+import io.telicent.smart.cache.server.jaxrs.model.Problem;
 import jakarta.servlet.ServletContext;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +47,9 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 /**
  * Endpoint to return entities found to be similar to those passed in the input
@@ -53,11 +61,17 @@ public class SimilarityResource extends AbstractEntityResolutionResource {
     private static final TypeReference<Map<String, Object>> JSON_MAP_TYPE = new TypeReference<>() {
     };
 
+    /**
+     * Media type for newline delimited JSON
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     /**
      * Returns the most similar entities to the ones passed as input in the JSON file. The file is in ndjson format with
      * one line per entity, the content of the JSON is similar to what is returned by the search endpoint and mimics the
      * structure of the documents in the search backend.
      *
+     * @param asyncResponse       asynchronous response, resumed once the similarities have been resolved
      * @param uploadedInputStream file containing a JSON representation of one of more entities
      * @param servletContext      servlet context
      * @param securityContext     security context
@@ -65,22 +79,23 @@ public class SimilarityResource extends AbstractEntityResolutionResource {
      * @param minScore            minimal score that hits must have in order to be returned (default 0)
      * @param withinInput         look for similarities within the input entities (default false)
      * @param overrides           mapping overrides for query (default empty)
-     * @return response containing the list of similarities
      **/
     @PUT
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getSimilar(@FormDataParam("file") InputStream uploadedInputStream,
-                               @QueryParam("maxResults") @Min(1) @DefaultValue("1") final Integer maxResults,
-                               @QueryParam("minScore") @Min(0) @DefaultValue("0") final Float minScore,
-                               @QueryParam("withinInput") @DefaultValue("false") final Boolean withinInput,
-                               @FormDataParam("overrides") @DefaultValue("") final String overrides,
-                               @Context ServletContext servletContext, @Context SecurityContext securityContext) throws
+    public void getSimilar(@Suspended final AsyncResponse asyncResponse,
+                           @FormDataParam("file") InputStream uploadedInputStream,
+                           @QueryParam("maxResults") @Min(1) @DefaultValue("1") final Integer maxResults,
+                           @QueryParam("minScore") @Min(0) @DefaultValue("0") final Float minScore,
+                           @QueryParam("withinInput") @DefaultValue("false") final Boolean withinInput,
+                           @FormDataParam("overrides") @DefaultValue("") final String overrides,
+                           @Context ServletContext servletContext, @Context SecurityContext securityContext) throws
             NotFoundException {
 
         final EntityResolver client = getEntityResolver(servletContext);
         if (client == null) {
-            return serviceUnavailable();
+            asyncResponse.resume(serviceUnavailable());
+            return;
         }
 
         // TODO As and when we decide to enforce security in this API replace this with appropriate configuration
@@ -100,10 +115,11 @@ public class SimilarityResource extends AbstractEntityResolutionResource {
             }
         } catch (IOException e) {
             LOGGER.error("Exception while generating documents from input", e);
-            return Response.serverError().build();
+            asyncResponse.resume(Response.serverError().build());
+            return;
         }
 
-        SimilarityResults result;
+        CompletableFuture<SimilarityResults> result;
 
         // single doc
         if (docs.size() == 1) {
@@ -111,19 +127,14 @@ public class SimilarityResource extends AbstractEntityResolutionResource {
             // based on the score
             // of the top result
             // (which should be the score of a doc against itself)
-
-            final List<SimilarityResult> results = new ArrayList<>();
-
-            final SimilarityResult res = client.findSimilar(docs.get(0), maxResults, minScore, securityOptions, overrides);
-            results.add(res);
-
-            result = new SimilarityResults(results);
+            result = client.findSimilarAsync(docs.get(0), maxResults, minScore, securityOptions, overrides)
+                           .thenApply(res -> new SimilarityResults(List.of(res)));
         } else {
-            result = client.findSimilar(docs, maxResults, minScore, withinInput, securityOptions, overrides);
+            result = client.findSimilarAsync(docs, maxResults, minScore, withinInput, securityOptions, overrides);
         }
 
-        // return the results
-        return Response.ok().entity(result).build();
+        // return the results once available
+        resumeWith(asyncResponse, result);
     }
 
     /**
@@ -133,24 +144,27 @@ public class SimilarityResource extends AbstractEntityResolutionResource {
     @Path("/v2")
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getSimilarV2(@FormDataParam("file") InputStream uploadedInputStream,
-                                 @QueryParam("maxResults") @Min(1) @DefaultValue("1") final Integer maxResults,
-                                 @QueryParam("minScore") @Min(0) @DefaultValue("0") final Float minScore,
-                                 @QueryParam("withinInput") @DefaultValue("false") final Boolean withinInput,
-                                 @QueryParam("modelId") final String modelId,
-                                 @FormDataParam("overrides") @DefaultValue("") final String overrides, // probably unused in v2
-                                 @Context ServletContext servletContext,
-                                 @Context SecurityContext securityContext) {
+    public void getSimilarV2(@Suspended final AsyncResponse asyncResponse,
+                             @FormDataParam("file") InputStream uploadedInputStream,
+                             @QueryParam("maxResults") @Min(1) @DefaultValue("1") final Integer maxResults,
+                             @QueryParam("minScore") @Min(0) @DefaultValue("0") final Float minScore,
+                             @QueryParam("withinInput") @DefaultValue("false") final Boolean withinInput,
+                             @QueryParam("modelId") final String modelId,
+                             @FormDataParam("overrides") @DefaultValue("") final String overrides, // probably unused in v2
+                             @Context ServletContext servletContext,
+                             @Context SecurityContext securityContext) {
 
         if (modelId == null || modelId.isBlank()) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                           .entity("modelId query parameter is required")
-                           .build();
+            asyncResponse.resume(Response.status(Response.Status.BAD_REQUEST)
+                                         .entity("modelId query parameter is required")
+                                         .build());
+            return;
         }
 
         final EntityResolver client = getEntityResolver(servletContext);
         if (client == null) {
-            return serviceUnavailable();
+            asyncResponse.resume(serviceUnavailable());
+            return;
         }
 
         SecurityOptions securityOptions = SecurityOptions.DISABLED;
@@ -166,22 +180,322 @@ public class SimilarityResource extends AbstractEntityResolutionResource {
             }
         } catch (IOException e) {
             LOGGER.error("Exception while generating documents from input", e);
-            return Response.serverError().build();
+            asyncResponse.resume(Response.serverError().build());
+            return;
         }
 
-        SimilarityResults result;
+        CompletableFuture<SimilarityResults> result;
         if (docs.size() == 1) {
-            SimilarityResult single = client.findSimilarV2(
-                    docs.getFirst(), maxResults, minScore,
-                    securityOptions, modelId);
-            result = new SimilarityResults(List.of(single));
+            result = client.findSimilarV2Async(
+                                   docs.getFirst(), maxResults, minScore,
+                                   securityOptions, modelId)
+                           .thenApply(single -> new SimilarityResults(List.of(single)));
         } else {
-            result = client.findSimilarV2(
+            result = client.findSimilarV2Async(
                     docs, maxResults, minScore,
                     withinInput, securityOptions, modelId);
         }
 
-        return Response.ok().entity(result).build();
+        resumeWith(asyncResponse, result);
+    }
+
+    /**
+     * Streaming variant of {@link #getSimilar(AsyncResponse, InputStream, Integer, Float, Boolean, String,
+     * ServletContext, SecurityContext)}, input entities are read incrementally and resolved in micro-batches, with each
+     * result written as a line of NDJSON as soon as it is available.
+     * <p>
+     * This keeps memory usage flat regardless of the size of the input, and allows clients to start processing results
+     * before the entire input has been resolved.  Since results are written before later input has been read it is not
+     * possible to look for similarities within the input.
+     * </p>
+     *
+     * @param uploadedInputStream file containing a JSON representation of one of more entities
+     * @param maxResults          max number of hits per entity (default 1)
+     * @param minScore            minimal score that hits must have in order to be returned (default 0)
+     * @param batchSize           number of input entities resolved at a time (default 100)
+     * @param overrides           mapping overrides for query (default empty)
+     * @param servletContext      servlet context
+     * @return Streaming NDJSON response
+     */
+    @PUT
+    @Path("/stream")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    @Produces(APPLICATION_NDJSON)
+    public Response getSimilarStreaming(@FormDataParam("file") InputStream uploadedInputStream,
+                                        @QueryParam("maxResults") @Min(1) @DefaultValue("1") final Integer maxResults,
+                                        @QueryParam("minScore") @Min(0) @DefaultValue("0") final Float minScore,
+                                        @QueryParam("batchSize") @Min(1) @Max(1000) @DefaultValue("100")
+                                        final Integer batchSize,
+                                        @FormDataParam("overrides") @DefaultValue("") final String overrides,
+                                        @Context ServletContext servletContext) {
+        final EntityResolver client = getEntityResolver(servletContext);
+        if (client == null) {
+            return serviceUnavailable();
+        }
+
+        return streamSimilar(uploadedInputStream, batchSize, similarBatches(client, maxResults, minScore, overrides));
+    }
+
+    /**
+     * Variant of {@link #getSimilarStreaming(InputStream, Integer, Float, Integer, String, ServletContext)} that
+     * accepts the input entities directly as an NDJSON request body, rather than as a multipart upload.
+     * <p>
+     * Unlike a multipart upload the request body is not buffered before this method is invoked, so input is only read
+     * from the client as each batch is resolved, and the first results are written while the client is still sending
+     * later input.  Memory usage is therefore bounded by the batch size for both input and output.
+     * </p>
+     *
+     * @param input          NDJSON input with one entity per line
+     * @param maxResults     max number of hits per entity (default 1)
+     * @param minScore       minimal score that hits must have in order to be returned (default 0)
+     * @param batchSize      number of input entities resolved at a time (default 100)
+     * @param overrides      mapping overrides for query (default empty)
+     * @param servletContext servlet context
+     * @return Streaming NDJSON response
+     */
+    @PUT
+    @Path("/stream")
+    @Consumes(APPLICATION_NDJSON)
+    @Produces(APPLICATION_NDJSON)
+    public Response getSimilarStreamingNdjson(InputStream input,
+                                              @QueryParam("maxResults") @Min(1) @DefaultValue("1")
+                                              final Integer maxResults,
+                                              @QueryParam("minScore") @Min(0) @DefaultValue("0") final Float minScore,
+                                              @QueryParam("batchSize") @Min(1) @Max(1000) @DefaultValue("100")
+                                              final Integer batchSize,
+                                              @QueryParam("overrides") @DefaultValue("") final String overrides,
+                                              @Context ServletContext servletContext) {
+        final EntityResolver client = getEntityResolver(servletContext);
+        if (client == null) {
+            return serviceUnavailable();
+        }
+
+        return streamSimilar(input, batchSize, similarBatches(client, maxResults, minScore, overrides));
+    }
+
+    /**
+     * Streaming variant of v2 similarity, see {@link #getSimilarStreaming(InputStream, Integer, Float, Integer, String,
+     * ServletContext)} for details of the streaming behaviour.
+     *
+     * @param uploadedInputStream file containing a JSON representation of one of more entities
+     * @param maxResults          max number of hits per entity (default 1)
+     * @param minScore            minimal score that hits must have in order to be returned (default 0)
+     * @param batchSize           number of input entities resolved at a time (default 100)
+     * @param modelId             model to use for scoring
+     * @param servletContext      servlet context
+     * @return Streaming NDJSON response
+     */
+    @PUT
+    @Path("/v2/stream")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    @Produces(APPLICATION_NDJSON)
+    public Response getSimilarV2Streaming(@FormDataParam("file") InputStream uploadedInputStream,
+                                          @QueryParam("maxResults") @Min(1) @DefaultValue("1") final Integer maxResults,
+                                          @QueryParam("minScore") @Min(0) @DefaultValue("0") final Float minScore,
+                                          @QueryParam("batchSize") @Min(1) @Max(1000) @DefaultValue("100")
+                                          final Integer batchSize,
+                                          @QueryParam("modelId") final String modelId,
+                                          @Context ServletContext servletContext) {
+        if (modelId == null || modelId.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("modelId query parameter is required").build();
+        }
+
+        final EntityResolver client = getEntityResolver(servletContext);
+        if (client == null) {
+            return serviceUnavailable();
+        }
+
+        return streamSimilar(uploadedInputStream, batchSize, similarV2Batches(client, maxResults, minScore, modelId));
+    }
+
+    /**
+     * Variant of {@link #getSimilarV2Streaming(InputStream, Integer, Float, Integer, String, ServletContext)} that
+     * accepts the input entities directly as an NDJSON request body, see
+     * {@link #getSimilarStreamingNdjson(InputStream, Integer, Float, Integer, String, ServletContext)} for details.
+     *
+     * @param input          NDJSON input with one entity per line
+     * @param maxResults     max number of hits per entity (default 1)
+     * @param minScore       minimal score that hits must have in order to be returned (default 0)
+     * @param batchSize      number of input entities resolved at a time (default 100)
+     * @param modelId        model to use for scoring
+     * @param servletContext servlet context
+     * @return Streaming NDJSON response
+     */
+    @PUT
+    @Path("/v2/stream")
+    @Consumes(APPLICATION_NDJSON)
+    @Produces(APPLICATION_NDJSON)
+    public Response getSimilarV2StreamingNdjson(InputStream input,
+                                                @QueryParam("maxResults") @Min(1) @DefaultValue("1")
+                                                final Integer maxResults,
+                                                @QueryParam("minScore") @Min(0) @DefaultValue("0")
+                                                final Float minScore,
+                                                @QueryParam("batchSize") @Min(1) @Max(1000) @DefaultValue("100")
+                                                final Integer batchSize,
+                                                @QueryParam("modelId") final String modelId,
+                                                @Context ServletContext servletContext) {
+        if (modelId == null || modelId.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("modelId query parameter is required").build();
+        }
+
+        final EntityResolver client = getEntityResolver(servletContext);
+        if (client == null) {
+            return serviceUnavailable();
+        }
+
+        return streamSimilar(input, batchSize, similarV2Batches(client, maxResults, minScore, modelId));
+    }
+
+    private static Function<List<Document>, SimilarityResults> similarBatches(EntityResolver client, int maxResults,
+                                                                              float minScore, String overrides) {
+        SecurityOptions securityOptions = SecurityOptions.DISABLED;
+        return batch -> {
+            if (batch.size() == 1) {
+                return new SimilarityResults(List.of(
+                        client.findSimilar(batch.getFirst(), maxResults, minScore, securityOptions, overrides)));
+            }
+            return client.findSimilar(batch, maxResults, minScore, false, securityOptions, overrides);
+        };
+    }
+
+    private static Function<List<Document>, SimilarityResults> similarV2Batches(EntityResolver client, int maxResults,
+                                                                                float minScore, String modelId) {
+        SecurityOptions securityOptions = SecurityOptions.DISABLED;
+        return batch -> {
+            if (batch.size() == 1) {
+                return new SimilarityResults(List.of(
+                        client.findSimilarV2(batch.getFirst(), maxResults, minScore, securityOptions, modelId)));
+            }
+            return client.findSimilarV2(batch, maxResults, minScore, false, securityOptions, modelId);
+        };
+    }
+
+    /**
+     * Prepares a streaming response that reads the input in batches, resolving each batch in turn and writing its
+     * results as NDJSON
+     * <p>
+     * The first batch is read and resolved before the response is returned, so that problems with the input, or with
+     * resolution, that are apparent from the first batch are reported with an appropriate HTTP status via the usual
+     * exception mappers.  Once streaming has begun the HTTP status can no longer be changed, so any subsequent error is
+     * instead reported by writing a final line containing an {@code error} object, see {@link #errorLine(Exception)},
+     * and ending the response.
+     * </p>
+     * <p>
+     * Each batch is resolved on the thread writing the response, so reading further input, and thus the client
+     * sending it, is paced by resolution.  Note that Jersey's multipart support reads the entire upload, buffering
+     * large uploads to a temporary file, before the resource method is invoked.  So for multipart uploads, while the
+     * input is read incrementally from that buffer and memory usage remains flat, the first results are only written
+     * once the client has finished uploading its input.  Raw NDJSON request bodies are not buffered so do not have
+     * this limitation.
+     * </p>
+     *
+     * @param input     Input stream
+     * @param batchSize Batch size
+     * @param resolver  Function that resolves a batch of documents
+     * @return Streaming response
+     */
+    private Response streamSimilar(InputStream input, int batchSize,
+                                   Function<List<Document>, SimilarityResults> resolver) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        SimilarityResults first;
+        try {
+            List<Document> batch = readBatch(reader, batchSize);
+            first = batch.isEmpty() ? new SimilarityResults(List.of()) : resolver.apply(batch);
+        } catch (IOException e) {
+            LOGGER.error("Exception while generating documents from input", e);
+            closeQuietly(reader);
+            return Response.serverError().build();
+        } catch (RuntimeException e) {
+            closeQuietly(reader);
+            throw e;
+        }
+
+        StreamingOutput output = out -> {
+            try (reader) {
+                SimilarityResults results = first;
+                while (results != null) {
+                    for (SimilarityResult result : results.getResults()) {
+                        out.write(Mapper.getJsonMapper().writeValueAsBytes(result));
+                        out.write('\n');
+                    }
+                    out.flush();
+
+                    try {
+                        List<Document> batch = readBatch(reader, batchSize);
+                        results = batch.isEmpty() ? null : resolver.apply(batch);
+                    } catch (IOException | RuntimeException e) {
+                        LOGGER.error("Exception while streaming similarity results, terminating response", e);
+                        out.write(errorLine(e));
+                        out.write('\n');
+                        out.flush();
+                        results = null;
+                    }
+                }
+            }
+        };
+        return Response.ok(output, APPLICATION_NDJSON).build();
+    }
+
+    /**
+     * Produces the final line of a streaming response that failed after streaming had begun
+     * <p>
+     * This is an object with a single {@code error} field whose value is the same {@link Problem} that would have been
+     * returned had the error occurred before streaming began, thus clients can distinguish it from a result line.
+     * </p>
+     *
+     * @param e Error
+     * @return Error line
+     * @throws IOException Thrown if the error cannot be serialized
+     */
+    static byte[] errorLine(Exception e) throws IOException {
+        Problem problem = new Problem("InternalError", null, Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(),
+                                      e.getMessage(), null);
+        return Mapper.getJsonMapper().writeValueAsBytes(Map.of("error", problem));
+    }
+
+    /**
+     * Reads the next batch of documents from the input, ignoring any blank lines
+     *
+     * @param reader    Reader
+     * @param batchSize Maximum batch size
+     * @return Batch of documents, empty if the input is exhausted
+     * @throws IOException Thrown if the input cannot be read
+     */
+    private List<Document> readBatch(BufferedReader reader, int batchSize) throws IOException {
+        List<Document> batch = new ArrayList<>(batchSize);
+        String line;
+        while (batch.size() < batchSize && (line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                batch.add(generateDocumentFromString(line));
+            }
+        }
+        return batch;
+    }
+
+    private static void closeQuietly(BufferedReader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close input", e);
+        }
+    }
+
+    /**
+     * Resumes the asynchronous response once the similarity results are available, any failure is resumed as the
+     * underlying exception so that it is handled by the usual exception mappers
+     *
+     * @param asyncResponse Asynchronous response
+     * @param result        Future similarity results
+     */
+    private static void resumeWith(AsyncResponse asyncResponse, CompletableFuture<SimilarityResults> result) {
+        result.whenComplete((results, error) -> {
+            if (error != null) {
+                asyncResponse.resume(error instanceof CompletionException && error.getCause() != null ?
+                                     error.getCause() : error);
+            } else {
+                asyncResponse.resume(Response.ok().entity(results).build());
+            }
+        });
     }
 
 
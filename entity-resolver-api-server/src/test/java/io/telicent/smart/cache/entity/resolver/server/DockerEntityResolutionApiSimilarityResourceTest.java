@@ -15,6 +15,8 @@
  */
 package io.telicent.smart.cache.entity.resolver.server;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.telicent.smart.cache.entity.resolver.model.SimilarityResult;
 import io.telicent.smart.cache.entity.resolver.model.SimilarityResults;
 import io.telicent.smart.cache.search.clusters.test.SearchTestClusters;
@@ -31,6 +33,8 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DockerEntityResolutionApiSimilarityResourceTest extends AbstractEntityResolutionApiDockerTests {
 
@@ -223,6 +227,123 @@ public class DockerEntityResolutionApiSimilarityResourceTest extends AbstractEnt
     }
 
 
+    @Test
+    public void similarityStreaming() throws IOException {
+        String json = """
+                        { "first_name": "Triphon", "last_name": "Tournesol", "id": "firstEntry"}
+
+                        { "first_name": "Triphon", "last_name": "Tournesol", "id": "secondEntry"}
+                        { "first_name": "Triphon", "last_name": "Tournesol", "id": "thirdEntry"}
+                """;
+
+        FormDataBodyPart bodyPart = new FormDataBodyPart("file", json, MediaType.TEXT_PLAIN_TYPE);
+        bodyPart.setFormDataContentDisposition(FormDataContentDisposition.name("file").fileName("data.ndjson").build());
+        try (FormDataMultiPart formDataMultiPart = new FormDataMultiPart()) {
+            try (MultiPart multiPart = formDataMultiPart.bodyPart(bodyPart)) {
+
+                // Use a batch size smaller than the input so results span several batches
+                WebTarget target = forApiServer("/similarity/stream").queryParam("batchSize", "2");
+
+                try (Response response = target.request().put(Entity.entity(multiPart, multiPart.getMediaType()))) {
+
+                    Assert.assertEquals(response.getStatus(), 200);
+                    Assert.assertEquals(response.getMediaType().toString(), SimilarityResource.APPLICATION_NDJSON);
+
+                    // one line per input entity, blank lines being ignored
+                    List<String> lines = response.readEntity(String.class).lines().toList();
+                    Assert.assertEquals(lines.size(), 3);
+
+                    ObjectMapper mapper = new ObjectMapper();
+                    List<String> ids = new ArrayList<>();
+                    for (String line : lines) {
+                        SimilarityResult result = mapper.readValue(line, SimilarityResult.class);
+                        ids.add(result.getIDSourceEntity());
+                        Assert.assertEquals(result.getHits().length, 1);
+                        Assert.assertEquals(result.getHits()[0].getId(), "6");
+                    }
+                    Assert.assertEquals(ids, List.of("firstEntry", "secondEntry", "thirdEntry"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void similarityStreaming_rawNdjson() throws IOException {
+        String json = """
+                        { "first_name": "Triphon", "last_name": "Tournesol", "id": "firstEntry"}
+
+                        { "first_name": "Triphon", "last_name": "Tournesol", "id": "secondEntry"}
+                        { "first_name": "Triphon", "last_name": "Tournesol", "id": "thirdEntry"}
+                """;
+
+        // Use a batch size smaller than the input so the request body is read across several batches
+        WebTarget target = forApiServer("/similarity/stream").queryParam("batchSize", "2");
+
+        try (Response response = target.request().put(Entity.entity(json, SimilarityResource.APPLICATION_NDJSON))) {
+
+            Assert.assertEquals(response.getStatus(), 200);
+            Assert.assertEquals(response.getMediaType().toString(), SimilarityResource.APPLICATION_NDJSON);
+
+            List<String> lines = response.readEntity(String.class).lines().toList();
+            Assert.assertEquals(lines.size(), 3);
+
+            ObjectMapper mapper = new ObjectMapper();
+            List<String> ids = new ArrayList<>();
+            for (String line : lines) {
+                SimilarityResult result = mapper.readValue(line, SimilarityResult.class);
+                ids.add(result.getIDSourceEntity());
+                Assert.assertEquals(result.getHits().length, 1);
+                Assert.assertEquals(result.getHits()[0].getId(), "6");
+            }
+            Assert.assertEquals(ids, List.of("firstEntry", "secondEntry", "thirdEntry"));
+        }
+    }
+
+    @Test
+    public void similarityStreaming_error_invalidDocument() throws IOException {
+        FormDataBodyPart bodyPart = new FormDataBodyPart("file", "{", MediaType.TEXT_PLAIN_TYPE);
+        bodyPart.setFormDataContentDisposition(FormDataContentDisposition.name("file").fileName("data.ndjson").build());
+        try (FormDataMultiPart formDataMultiPart = new FormDataMultiPart()) {
+            try (MultiPart multiPart = formDataMultiPart.bodyPart(bodyPart)) {
+                WebTarget target = forApiServer("/similarity/stream");
+                try (Response response = target.request().put(Entity.entity(multiPart, multiPart.getMediaType()))) {
+                    // Invalid input in the first batch is detected before streaming starts
+                    Assert.assertEquals(response.getStatus(), 500);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void similarityStreaming_error_invalidDocumentInLaterBatch() throws IOException {
+        String json = """
+                        { "first_name": "Triphon", "last_name": "Tournesol", "id": "firstEntry"}
+                        {
+                """;
+
+        FormDataBodyPart bodyPart = new FormDataBodyPart("file", json, MediaType.TEXT_PLAIN_TYPE);
+        bodyPart.setFormDataContentDisposition(FormDataContentDisposition.name("file").fileName("data.ndjson").build());
+        try (FormDataMultiPart formDataMultiPart = new FormDataMultiPart()) {
+            try (MultiPart multiPart = formDataMultiPart.bodyPart(bodyPart)) {
+                WebTarget target = forApiServer("/similarity/stream").queryParam("batchSize", "1");
+                try (Response response = target.request().put(Entity.entity(multiPart, multiPart.getMediaType()))) {
+                    // Streaming has already begun when the invalid input is read so the status is unaffected, instead
+                    // the error is reported as the final line
+                    Assert.assertEquals(response.getStatus(), 200);
+                    List<String> lines = response.readEntity(String.class).lines().toList();
+                    Assert.assertEquals(lines.size(), 2);
+
+                    ObjectMapper mapper = new ObjectMapper();
+                    SimilarityResult result = mapper.readValue(lines.get(0), SimilarityResult.class);
+                    Assert.assertEquals(result.getIDSourceEntity(), "firstEntry");
+                    JsonNode error = mapper.readTree(lines.get(1)).path("error");
+                    Assert.assertTrue(error.isObject());
+                    Assert.assertEquals(error.path("status").asInt(), 500);
+                }
+            }
+        }
+    }
+
     @Test
     public void similarity_error_invalidDocument() {
         ClientConfig clientConfig = new ClientConfig();
@@ -23,6 +23,7 @@ import io.telicent.smart.cache.search.model.Document;
 import io.telicent.smart.cache.search.options.SecurityOptions;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An entity resolver allows matching input documents representing entities against previously indexed entities in order
@@ -62,6 +63,90 @@ public interface EntityResolver extends SearchBackend {
     SimilarityResults findSimilarV2(List<Document> docs, int maxResults, float minScore,
                                     boolean withinInput, SecurityOptions securityOptions, String modelId);
 
+    /**
+     * Asynchronously find documents similar to the input one
+     * <p>
+     * The default implementation simply runs {@link #findSimilar(Document, int, float, SecurityOptions, String)} on
+     * the common pool, implementations backed by a non-blocking client <strong>SHOULD</strong> override this.
+     * </p>
+     *
+     * @param doc             input document
+     * @param maxResults      max number of results per input
+     * @param minScore        minimum score for a match
+     * @param securityOptions security options
+     * @param overrides       string representation of config override
+     * @return Future SimilarityResult
+     **/
+    default CompletableFuture<SimilarityResult> findSimilarAsync(Document doc, int maxResults, float minScore,
+                                                                 SecurityOptions securityOptions, String overrides) {
+        return CompletableFuture.supplyAsync(() -> findSimilar(doc, maxResults, minScore, securityOptions, overrides));
+    }
+
+    /**
+     * Asynchronously find documents similar to the ones passed as input
+     * <p>
+     * The default implementation simply runs
+     * {@link #findSimilar(List, int, float, boolean, SecurityOptions, String)} on the common pool, implementations
+     * backed by a non-blocking client <strong>SHOULD</strong> override this.
+     * </p>
+     *
+     * @param docs            input documents
+     * @param maxResults      max number of results per input
+     * @param minScore        minimum score for a match
+     * @param withinInput     whether to return similarities between input documents
+     * @param securityOptions security options
+     * @param overrides       string representation of config override
+     * @return Future SimilarityResults
+     **/
+    default CompletableFuture<SimilarityResults> findSimilarAsync(List<Document> docs, int maxResults,
+                                                                  float minScore, boolean withinInput,
+                                                                  SecurityOptions securityOptions, String overrides) {
+        return CompletableFuture.supplyAsync(
+                () -> findSimilar(docs, maxResults, minScore, withinInput, securityOptions, overrides));
+    }
+
+    /**
+     * Asynchronously find documents similar to the input one, scoring with the given model
+     * <p>
+     * The default implementation simply runs {@link #findSimilarV2(Document, int, float, SecurityOptions, String)}
+     * on the common pool, implementations backed by a non-blocking client <strong>SHOULD</strong> override this.
+     * </p>
+     *
+     * @param doc             input document
+     * @param maxResults      max number of results per input
+     * @param minScore        minimum score for a match
+     * @param securityOptions security options
+     * @param modelId         ID of the model used for scoring
+     * @return Future SimilarityResult
+     **/
+    default CompletableFuture<SimilarityResult> findSimilarV2Async(Document doc, int maxResults, float minScore,
+                                                                   SecurityOptions securityOptions, String modelId) {
+        return CompletableFuture.supplyAsync(() -> findSimilarV2(doc, maxResults, minScore, securityOptions, modelId));
+    }
+
+    /**
+     * Asynchronously find documents similar to the ones passed as input, scoring with the given model
+     * <p>
+     * The default implementation simply runs
+     * {@link #findSimilarV2(List, int, float, boolean, SecurityOptions, String)} on the common pool, implementations
+     * backed by a non-blocking client <strong>SHOULD</strong> override this.
+     * </p>
+     *
+     * @param docs            input documents
+     * @param maxResults      max number of results per input
+     * @param minScore        minimum score for a match
+     * @param withinInput     whether to return similarities between input documents
+     * @param securityOptions security options
+     * @param modelId         ID of the model used for scoring
+     * @return Future SimilarityResults
+     **/
+    default CompletableFuture<SimilarityResults> findSimilarV2Async(List<Document> docs, int maxResults,
+                                                                    float minScore, boolean withinInput,
+                                                                    SecurityOptions securityOptions, String modelId) {
+        return CompletableFuture.supplyAsync(
+                () -> findSimilarV2(docs, maxResults, minScore, withinInput, securityOptions, modelId));
+    }
+
 
     /**
      * Add config entry
@@ -18,6 +18,8 @@ package io.telicent.smart.cache.search;
 import io.telicent.smart.cache.search.model.SearchIndexBulkResults;
 
 import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 /**
@@ -96,6 +98,55 @@ public interface SearchIndexer<T> extends SearchBackend {
      */
     SearchIndexBulkResults<T> bulkDeleteContents(Function<T, String> idProvider, Collection<T> items);
 
+    /**
+     * Indexes multiple documents in bulk asynchronously
+     * <p>
+     * The default implementation calls {@link #bulkIndex(Function, Collection)} on the calling thread, implementations
+     * that can issue several bulk operations concurrently should override this.
+     * </p>
+     *
+     * @param idProvider A function that calculates an ID for an item
+     * @param items      Items
+     * @return Future for the results of the bulk operation, completes exceptionally with a {@link SearchException} if
+     * there is an indexing failure
+     */
+    default CompletableFuture<SearchIndexBulkResults<T>> bulkIndexAsync(Function<T, String> idProvider,
+                                                                       Collection<T> items) {
+        return completeNow(() -> bulkIndex(idProvider, items));
+    }
+
+    /**
+     * Deletes multiple documents in bulk asynchronously
+     * <p>
+     * The default implementation calls {@link #bulkDeleteDocuments(Function, Collection)} on the calling thread,
+     * implementations that can issue several bulk operations concurrently should override this.
+     * </p>
+     *
+     * @param idProvider A function that calculates an ID for an item
+     * @param items      Items to delete
+     * @return Future for the results of the bulk operation
+     */
+    default CompletableFuture<SearchIndexBulkResults<T>> bulkDeleteDocumentsAsync(Function<T, String> idProvider,
+                                                                                 Collection<T> items) {
+        return completeNow(() -> bulkDeleteDocuments(idProvider, items));
+    }
+
+    /**
+     * Deletes some contents from multiple documents in bulk asynchronously
+     * <p>
+     * The default implementation calls {@link #bulkDeleteContents(Function, Collection)} on the calling thread,
+     * implementations that can issue several bulk operations concurrently should override this.
+     * </p>
+     *
+     * @param idProvider A function that calculates an ID for an item
+     * @param items      Items to delete
+     * @return Future for the results of the bulk operation
+     */
+    default CompletableFuture<SearchIndexBulkResults<T>> bulkDeleteContentsAsync(Function<T, String> idProvider,
+                                                                                Collection<T> items) {
+        return completeNow(() -> bulkDeleteContents(idProvider, items));
+    }
+
     /**
      * Requests that the indexer flush the index
      * <p>
@@ -108,4 +159,42 @@ public interface SearchIndexer<T> extends SearchBackend {
      * @throws SearchException Thrown if there is a flush failure
      */
     void flush(boolean finished);
+
+    /**
+     * Signals that a backlog of items is being indexed, so the indexer may reconfigure the index to favour indexing
+     * throughput over search freshness and durability until {@link #endBulkIngestion()} is called
+     * <p>
+     * Calls to this method, and to {@link #endBulkIngestion()}, are paired, an indexer that is shared by several
+     * callers only leaves bulk ingestion mode once every caller that began bulk ingestion has ended it.  The default
+     * implementation does nothing.
+     * </p>
+     */
+    default void beginBulkIngestion() {
+    }
+
+    /**
+     * Signals that a backlog of items, previously signalled via {@link #beginBulkIngestion()}, has been indexed so the
+     * indexer should restore the index to its normal configuration
+     * <p>
+     * The default implementation does nothing.
+     * </p>
+     */
+    default void endBulkIngestion() {
+    }
+
+    /**
+     * Runs a bulk operation on the calling thread, capturing its outcome as a completed future
+     *
+     * @param operation Bulk operation
+     * @param <T>       Item type
+     * @return Completed future
+     */
+    private static <T> CompletableFuture<SearchIndexBulkResults<T>> completeNow(
+            Callable<SearchIndexBulkResults<T>> operation) {
+        try {
+            return CompletableFuture.completedFuture(operation.call());
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
@@ -24,6 +24,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -259,6 +261,46 @@ public final class SearchUtils {
         }
     }
 
+    /**
+     * Cheaply estimates the size, in bytes, of the JSON serialization of a document
+     * <p>
+     * This walks the structure of the document, i.e. nested maps, collections and simple values, without actually
+     * serializing it.  String lengths are counted in characters so the estimate may be lower than the actual size for
+     * documents containing many non-ASCII characters, it is intended only for limiting the size of bulk requests.
+     * </p>
+     *
+     * @param document Document
+     * @return Estimated size in bytes
+     */
+    public static long estimateJsonSize(Object document) {
+        if (document == null) {
+            return 4;
+        } else if (document instanceof CharSequence chars) {
+            return chars.length() + 2;
+        } else if (document instanceof Map<?, ?> map) {
+            long size = 2;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                // Key, value plus the colon and comma separators
+                size += estimateJsonSize(String.valueOf(entry.getKey())) + estimateJsonSize(entry.getValue()) + 2;
+            }
+            return size;
+        } else if (document instanceof Collection<?> collection) {
+            long size = 2;
+            for (Object item : collection) {
+                size += estimateJsonSize(item) + 1;
+            }
+            return size;
+        } else if (document instanceof Object[] array) {
+            long size = 2;
+            for (Object item : array) {
+                size += estimateJsonSize(item) + 1;
+            }
+            return size;
+        } else {
+            return String.valueOf(document).length();
+        }
+    }
+
     private static SearchException unexpectedError(SearchBackend backend, String index, String operation, Exception e) {
         LOGGER.error("Unexpected error ({}) attempting to {} {} index {}: {}", e.getClass().getSimpleName(), operation,
                      backend.name(), index,
@@ -314,7 +314,8 @@ public class Document {
 
     private static boolean isSecurityLabelsField(Map.Entry<String, Object> field) {
         return StringUtils.equals(field.getKey(), DefaultOutputFields.SECURITY_LABELS) || StringUtils.endsWith(
-                field.getKey(), DefaultOutputFields.SECURITY_LABELS);
+                field.getKey(), DefaultOutputFields.SECURITY_LABELS) || StringUtils.equals(field.getKey(),
+                DefaultOutputFields.SECURITY_REQUIREMENTS);
     }
 
     @Override
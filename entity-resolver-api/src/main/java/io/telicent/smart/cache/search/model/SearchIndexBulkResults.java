@@ -34,6 +34,26 @@ public class SearchIndexBulkResults<T> {
      */
     private List<SearchIndexBulkResult<T>> results;
 
+    /**
+     * How long, in milliseconds, the search backend reported spending on the bulk operation, or {@code -1} if unknown.
+     */
+    private long took;
+
+    /**
+     * How many times the search backend rejected some, or all, of the bulk operation because it was overloaded,
+     * including rejections that were subsequently retried successfully.
+     */
+    private int rejections;
+
+    /**
+     * Creates new results where the time taken and rejections are unknown
+     *
+     * @param results the search index results
+     */
+    public SearchIndexBulkResults(List<SearchIndexBulkResult<T>> results) {
+        this(results, -1, 0);
+    }
+
     /**
      * Gets a stream of the successful operations in this results set.
      *
@@ -18,6 +18,7 @@ package io.telicent.smart.cache.search.model;
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 import java.util.*;
@@ -25,7 +26,7 @@ import java.util.*;
 /**
  * Represents a slice of search results
  */
-@JsonPropertyOrder({"maybeMore", "limit", "offset", "query", "type", "results"})
+@JsonPropertyOrder({"maybeMore", "limit", "offset", "query", "type", "continuation", "results"})
 public class SearchResults {
 
     /**
@@ -44,6 +45,7 @@ public class SearchResults {
     private long limit;
     private long offset;
     private QueryType type;
+    private String continuation;
     private final Map<String, Object> extensions = new HashMap<>();
 
     /**
@@ -229,6 +231,33 @@ public class SearchResults {
         this.query = query;
     }
 
+    /**
+     * Gets the continuation token for retrieving the next page of results
+     * <p>
+     * When present this is an opaque value that may be supplied, via
+     * {@link io.telicent.smart.cache.search.options.SearchOptions.Builder#continueFrom(String)}, when asking for the
+     * next page of results for the same query, i.e. with an offset of this offset plus the number of results returned.
+     * This allows the search client to resume from where these results ended, rather than recalculating all the
+     * preceding results.  Continuation tokens are short-lived, and a search client may ignore a continuation token that
+     * has expired or does not apply to the query it is given, in which case the results are calculated from scratch.
+     * </p>
+     *
+     * @return Continuation token, or {@code null} if none
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getContinuation() {
+        return this.continuation;
+    }
+
+    /**
+     * Sets the continuation token for retrieving the next page of results
+     *
+     * @param continuation Continuation token
+     */
+    public void setContinuation(String continuation) {
+        this.continuation = continuation;
+    }
+
     /**
      * Gets any extensions
      *
@@ -30,6 +30,7 @@ public final class SearchOptions {
     private final SecurityOptions securityOptions;
     private final SortOptions sortOptions;
     private final FieldOptions fieldOptions;
+    private final String continuation;
 
     /**
      * Creates search options
@@ -42,9 +43,10 @@ public final class SearchOptions {
      * @param security     Security options (null for disabled)
      * @param sort         Sort options (null for disabled)
      * @param boosts       Field boosts (null for disabled)
+     * @param continuation Continuation token from a previous page of results for the same query (null for none)
      */
     private SearchOptions(long limit, long offset, HighlightingOptions highlighting, TypeFilterOptions typeFilter,
-                          SecurityOptions security, SortOptions sort, FieldOptions boosts) {
+                          SecurityOptions security, SortOptions sort, FieldOptions boosts, String continuation) {
         // NB - The Builder class enforces the necessary constraints on all the parameters and as the constructor is
         // private we can guarantee all parameters are valid at this point!
         this.limit = limit;
@@ -54,6 +56,7 @@ public final class SearchOptions {
         this.securityOptions = security;
         this.sortOptions = sort;
         this.fieldOptions = boosts;
+        this.continuation = continuation;
     }
 
     /**
@@ -119,6 +122,20 @@ public final class SearchOptions {
         return this.fieldOptions;
     }
 
+    /**
+     * Gets the continuation token, if any
+     * <p>
+     * A continuation token is an opaque value, see {@link SearchResults#getContinuation()}, that a search client may
+     * have returned with a previous page of results for the same query.  Supplying it allows the search client to
+     * resume from where that page ended rather than recalculating all the preceding results.
+     * </p>
+     *
+     * @return Continuation token, or {@code null} if none
+     */
+    public String getContinuation() {
+        return this.continuation;
+    }
+
     /**
      * Gets a builder for creating new search options
      *
@@ -169,7 +186,8 @@ public final class SearchOptions {
                        .withTypeFiltering(options.getTypeFilterOpts())
                        .withSecurity(options.getSecurity())
                        .withSorting(options.getSortOptions())
-                       .withFields(options.getFieldOptions());
+                       .withFields(options.getFieldOptions())
+                       .continueFrom(options.getContinuation());
     }
 
     /**
@@ -185,6 +203,7 @@ public final class SearchOptions {
         private SortOptions
                 sortOptions = SortOptions.NONE;
         private FieldOptions fieldOptions = FieldOptions.DEFAULT;
+        private String continuation;
 
         /**
          * Sets the limit on search results
@@ -347,6 +366,18 @@ public final class SearchOptions {
             return withFields(FieldOptions.DEFAULT);
         }
 
+        /**
+         * Sets the continuation token returned with a previous page of results for the same query, see
+         * {@link SearchOptions#getContinuation()}
+         *
+         * @param continuation Continuation token, may be {@code null} for none
+         * @return Builder
+         */
+        public Builder continueFrom(String continuation) {
+            this.continuation = continuation;
+            return this;
+        }
+
         /**
          * Builds new search options
          *
@@ -354,7 +385,7 @@ public final class SearchOptions {
          */
         public SearchOptions build() {
             return new SearchOptions(this.limit, this.offset, this.highlighting, this.typeFilterOptions,
-                                     this.securityOptions, this.sortOptions, this.fieldOptions);
+                                     this.securityOptions, this.sortOptions, this.fieldOptions, this.continuation);
         }
     }
 }
@@ -28,13 +28,19 @@ import java.util.Objects;
  * This is in fact a cache of cache's.  A top level cache is created keyed by users, the value for each user is another
  * cache keyed by document identifiers (using
  * {@link RedactedDocumentsCache#keyForDocument(SecureSearchContext, String, String)}), this contains the actual
- * document visibility values for documents as visible to that user.  If a users security attributes change then their
- * cache is automatically invalidated.
+ * document visibility values for documents as visible to that user.  The top level cache is keyed by the username and a
+ * hash of the users security attributes, so if a users security attributes change they automatically start using a
+ * fresh cache, while the cache for their previous attributes is left to expire.
+ * </p>
+ * <p>
+ * Looking up the cache for a user is lock free in the common case where the cache already exists, only creating a cache
+ * for a user, or replacing one in the unlikely event of an attribute hash collision, is done atomically via the
+ * underlying {@link Cache}, and then only blocks concurrent lookups for the same user.
  * </p>
  */
 public class CaffeineRedactedDocumentsCache implements RedactedDocumentsCache {
 
-    private final Cache<String, PerUserCache> documentsByUser;
+    private final Cache<UserKey, PerUserCache> documentsByUser;
     private final int maxUsers;
     private final int maxDocumentsPerUser;
     private final Duration expiryAfterAccess;
@@ -94,28 +100,33 @@ public class CaffeineRedactedDocumentsCache implements RedactedDocumentsCache {
     /**
      * Gets/creates a cache for the user identified by this context
      * <p>
-     * If the cache exists, but the users attributes have changed since they were last cached then this also invalidates
-     * the existing cache and creates a fresh one for the user.
+     * Since caches are keyed on a hash of the users attributes a change in their attributes means a fresh cache is
+     * created.  If the cache exists, but was created for different attributes with the same hash, then this
+     * invalidates the existing cache and replaces it with a fresh one for the user.
      * </p>
      *
      * @param context Context
      * @return Per-user cache
      */
-    private synchronized PerUserCache cacheForUser(SecureSearchContext context) {
-        PerUserCache cache = this.documentsByUser.get(context.getUsername(),
-                                                      k -> new PerUserCache(k, context.getUserAttributes(),
-                                                                            this.maxDocumentsPerUser,
-                                                                            this.expiryAfterAccess));
-        // If the users attributes have changed since they last were used with this cache then invalidate it
-        if (!cache.isValid(context.getUserAttributes())) {
-            cache.invalidate();
-            this.documentsByUser.invalidate(context.getUsername());
-
-            // Then recurse to generate a fresh cache based on the users current attributes
-            return cacheForUser(context);
-        } else {
+    private PerUserCache cacheForUser(SecureSearchContext context) {
+        AttributeValueSet attributes = context.getUserAttributes();
+        UserKey key = new UserKey(context.getUsername(), attributes.hashCode());
+        PerUserCache cache = this.documentsByUser.getIfPresent(key);
+        if (cache != null && cache.isValid(attributes)) {
             return cache;
         }
+
+        // Either no cache exists yet, or the existing cache was created for different attributes with the same hash, so
+        // atomically create a fresh cache unless another thread has already done so
+        return this.documentsByUser.asMap().compute(key, (k, existing) -> {
+            if (existing != null && existing.isValid(attributes)) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.invalidate();
+            }
+            return new PerUserCache(k.user(), attributes, this.maxDocumentsPerUser, this.expiryAfterAccess);
+        });
     }
 
     @Override
@@ -123,12 +134,21 @@ public class CaffeineRedactedDocumentsCache implements RedactedDocumentsCache {
         return "CaffeineRedactedDocumentsCache(maxUsers=" + this.maxUsers + ", maxDocumentsPerUser=" + this.maxDocumentsPerUser + ", expiresAfter=" + this.expiryAfterAccess + ")";
     }
 
+    /**
+     * Key for the top level cache
+     *
+     * @param user           Username
+     * @param attributesHash Hash of the users security attributes
+     */
+    private record UserKey(String user, int attributesHash) {
+    }
+
     /**
      * A per-user cache, a basic wrapper around a Caffeine {@link Cache} exposing simplified methods for our use case
      */
     private static final class PerUserCache {
         private final String user;
-        private final AttributeValueSet attributes;
+        private volatile AttributeValueSet attributes;
 
         private final Cache<String, Boolean> documents;
 
@@ -149,12 +169,23 @@ public class CaffeineRedactedDocumentsCache implements RedactedDocumentsCache {
          * Compares the users current attributes against their previously known attributes with which this cache was
          * created, if their attributes have changed then this cache is no longer considered valid.
          * </p>
+         * <p>
+         * Since a search context holds the same attributes instance throughout a search we remember the most recently
+         * validated instance, so that subsequent checks during that search are merely an identity check.
+         * </p>
          *
          * @param current Users current attributes
          * @return True if still valid, false otherwise
          */
         private boolean isValid(AttributeValueSet current) {
-            return this.attributes.equals(current);
+            AttributeValueSet known = this.attributes;
+            if (known == current) {
+                return true;
+            } else if (known.equals(current)) {
+                this.attributes = current;
+                return true;
+            }
+            return false;
         }
 
         /**
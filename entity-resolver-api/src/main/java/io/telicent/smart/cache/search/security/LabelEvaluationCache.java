@@ -0,0 +1,185 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.telicent.jena.abac.AttributeValueSet;
+import io.telicent.jena.abac.Hierarchy;
+import io.telicent.jena.abac.attributes.Attribute;
+import io.telicent.jena.abac.attributes.AttributeExpr;
+import io.telicent.smart.cache.configuration.Configurator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of label expression evaluation results, keyed by the user attributes and the expression evaluated,
+ * that is shared across many {@link SecureSearchContext} instances
+ * <p>
+ * Each {@link SecureSearchContext} already caches evaluation results for the lifetime of a single search, this cache
+ * allows repeated searches by users with the same attributes to skip evaluation entirely.  Since users with identical
+ * attributes always get the same evaluation results the attributes themselves form part of the cache key, so there is
+ * no need to key on usernames and if a users attributes change they simply start using different entries.
+ * </p>
+ * <p>
+ * Evaluating an expression may depend upon attribute hierarchies from the attributes store, so each cached result
+ * records the hierarchies that were consulted when it was calculated.  A cached result is only used if those
+ * hierarchies are unchanged, thus changes to hierarchies in the attributes store invalidate any affected entries.
+ * </p>
+ */
+public class LabelEvaluationCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LabelEvaluationCache.class);
+
+    /**
+     * Default maximum number of cached evaluation results
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    /**
+     * Default cache entry expiry time in minutes
+     */
+    public static final int DEFAULT_EXPIRES_AFTER_MINUTES = 5;
+
+    /**
+     * Environment variable used to configure the maximum number of evaluation results cached
+     */
+    public static final String ENV_MAX_ENTRIES = "LABEL_EVALUATION_CACHE_SIZE";
+    /**
+     * Environment variable used to configure the number of minutes after which cached evaluation results expire
+     */
+    public static final String ENV_EXPIRES_AFTER_MINUTES = "LABEL_EVALUATION_CACHE_EXPIRES_AFTER";
+
+    private final Cache<Key, Evaluation> evaluations;
+    private final int maxEntries;
+    private final Duration expiryAfterAccess;
+
+    /**
+     * Creates a new cache
+     *
+     * @param maxEntries        Maximum number of evaluation results to cache
+     * @param expiryAfterAccess Specifies how long after access an evaluation result will expire
+     */
+    public LabelEvaluationCache(int maxEntries, Duration expiryAfterAccess) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be >= 1");
+        }
+        Objects.requireNonNull(expiryAfterAccess, "expiryAfterAccess cannot be null");
+        if (Duration.ZERO.compareTo(expiryAfterAccess) >= 0) {
+            throw new IllegalArgumentException("expiryAfterAccess must be a duration greater than zero");
+        }
+
+        this.evaluations = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterAccess(expiryAfterAccess).build();
+        this.maxEntries = maxEntries;
+        this.expiryAfterAccess = expiryAfterAccess;
+    }
+
+    /**
+     * Creates a cache based upon the configuration variables obtained via {@link Configurator}
+     *
+     * @return Label evaluation cache
+     * @throws IllegalArgumentException If any of the available configuration is invalid
+     */
+    public static LabelEvaluationCache createFromConfiguration() {
+        return new LabelEvaluationCache(Configurator.get(ENV_MAX_ENTRIES, Integer::parseInt, DEFAULT_MAX_ENTRIES),
+                                        Duration.ofMinutes(Configurator.get(ENV_EXPIRES_AFTER_MINUTES,
+                                                                            Integer::parseInt,
+                                                                            DEFAULT_EXPIRES_AFTER_MINUTES)));
+    }
+
+    /**
+     * Tries to create a cache using {@link #createFromConfiguration()}, returning {@code null} if the configuration is
+     * invalid
+     * <p>
+     * A deployment environment can thus force the cache to be disabled by explicitly setting one of the variables to an
+     * invalid value e.g. {@value ENV_MAX_ENTRIES} set to {@code 0} would effectively disable the cache.
+     * </p>
+     *
+     * @return Label evaluation cache, or {@code null} if the configuration is invalid
+     */
+    public static LabelEvaluationCache tryCreateFromConfiguration() {
+        try {
+            return createFromConfiguration();
+        } catch (Throwable e) {
+            LOGGER.warn("Failed to create label evaluation cache from configuration:", e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the cached result of evaluating an expression
+     *
+     * @param attributes  User attributes
+     * @param expression  Label expression
+     * @param hierarchies Function that supplies the current hierarchy (if any) for an attribute, used to check that a
+     *                    cached result is still valid
+     * @return Cached result, or {@code null} if no valid result is cached
+     */
+    public Boolean get(AttributeValueSet attributes, AttributeExpr expression,
+                       Function<Attribute, Hierarchy> hierarchies) {
+        Key key = new Key(attributes, expression);
+        Evaluation evaluation = this.evaluations.getIfPresent(key);
+        if (evaluation == null) {
+            return null;
+        }
+        for (Map.Entry<Attribute, Hierarchy> consulted : evaluation.hierarchies().entrySet()) {
+            if (!Objects.equals(consulted.getValue(), hierarchies.apply(consulted.getKey()))) {
+                // A hierarchy has changed since this result was calculated so it is no longer valid
+                this.evaluations.invalidate(key);
+                return null;
+            }
+        }
+        return evaluation.result();
+    }
+
+    /**
+     * Caches the result of evaluating an expression
+     *
+     * @param attributes  User attributes
+     * @param expression  Label expression
+     * @param result      Result
+     * @param hierarchies The hierarchies, or lack thereof, that were consulted in calculating the result
+     */
+    public void put(AttributeValueSet attributes, AttributeExpr expression, boolean result,
+                    Map<Attribute, Hierarchy> hierarchies) {
+        this.evaluations.put(new Key(attributes, expression),
+                             new Evaluation(result, Collections.unmodifiableMap(new HashMap<>(hierarchies))));
+    }
+
+    /**
+     * Invalidates all cached results
+     */
+    public void invalidate() {
+        this.evaluations.invalidateAll();
+    }
+
+    @Override
+    public String toString() {
+        return "LabelEvaluationCache(maxEntries=" + this.maxEntries + ", expiresAfter=" + this.expiryAfterAccess + ")";
+    }
+
+    private record Key(AttributeValueSet attributes, AttributeExpr expression) {
+    }
+
+    private record Evaluation(boolean result, Map<Attribute, Hierarchy> hierarchies) {
+    }
+}
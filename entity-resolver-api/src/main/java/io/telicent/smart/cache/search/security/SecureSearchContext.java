@@ -51,6 +51,10 @@ import java.util.function.BiConsumer;
  * into expressions, and repeatedly evaluating those expressions.  This takes advantage of the fact that often the same
  * label expressions are used across much of the data.
  * </p>
+ * <p>
+ * Optionally a {@link LabelEvaluationCache} may be supplied which allows evaluation results to be reused across many
+ * search requests for users with the same attributes.
+ * </p>
  */
 public final class SecureSearchContext {
 
@@ -65,7 +69,10 @@ public final class SecureSearchContext {
     private final Cache<String, List<AttributeExpr>> labelsToExpressions;
 
     private final RedactedDocumentsCache redactedDocumentsCache;
+    private final LabelEvaluationCache evaluationCache;
     private final Map<AttributeExpr, Boolean> evaluations = new HashMap<>();
+    private final Map<Attribute, Hierarchy> hierarchies = new HashMap<>();
+    private Map<Attribute, Hierarchy> consultedHierarchies;
     @Getter(AccessLevel.PACKAGE)
     private final List<FieldNameExpression> typeFilterFields = new ArrayList<>();
 
@@ -76,14 +83,18 @@ public final class SecureSearchContext {
      * @param userAttributes      User attributes
      * @param store               Attributes store, used to lookup attribute hierarchies
      * @param labelsToExpressions Label expressions
+     * @param documentsCache      Redacted documents cache
+     * @param evaluationCache     Label evaluation cache shared across contexts
      * @param typeFilterFields    Type filtering field expressions
      */
     private SecureSearchContext(SearchOptions searchOptions, AttributeValueSet userAttributes, AttributesStore store,
                                 Cache<String, List<AttributeExpr>> labelsToExpressions,
-                                RedactedDocumentsCache documentsCache, List<FieldNameExpression> typeFilterFields) {
+                                RedactedDocumentsCache documentsCache, LabelEvaluationCache evaluationCache,
+                                List<FieldNameExpression> typeFilterFields) {
         this.searchOptions = searchOptions != null ? searchOptions : SearchOptions.defaults();
         this.userAttributes = userAttributes != null ? userAttributes : AttributeValueSet.EMPTY;
         this.redactedDocumentsCache = documentsCache;
+        this.evaluationCache = evaluationCache;
         this.abacContext = CxtABAC.context(this.userAttributes, this::lookupHierarchy, DatasetGraphZero.create());
         this.store = store;
         this.labelsToExpressions = labelsToExpressions;
@@ -147,21 +158,92 @@ public final class SecureSearchContext {
      * @return True if all expressions are satisfied by the users attributes for this context, false otherwise
      */
     public boolean evaluate(List<AttributeExpr> labels) {
-        return labels.stream()
-                     .allMatch(e -> evaluations.computeIfAbsent(e, x -> x.eval(this.abacContext).getBoolean()));
+        return labels.stream().allMatch(this::evaluateExpression);
+    }
+
+    /**
+     * Evaluates a single label expression
+     * <p>
+     * Results are cached for the lifetime of this context and, if configured, in the shared
+     * {@link LabelEvaluationCache} so that other contexts for users with the same attributes can reuse them.
+     * </p>
+     *
+     * @param expression Label expression
+     * @return True if the expression is satisfied by the users attributes, false otherwise
+     */
+    private boolean evaluateExpression(AttributeExpr expression) {
+        Boolean result = this.evaluations.get(expression);
+        if (result != null) {
+            return result;
+        }
+        if (this.evaluationCache != null) {
+            result = this.evaluationCache.get(this.userAttributes, expression, this::lookupHierarchy);
+        }
+        if (result == null) {
+            // Track the hierarchies consulted during evaluation so the shared cache can tell whether the result is
+            // still valid in future
+            this.consultedHierarchies = new HashMap<>();
+            try {
+                result = expression.eval(this.abacContext).getBoolean();
+                if (this.evaluationCache != null) {
+                    this.evaluationCache.put(this.userAttributes, expression, result, this.consultedHierarchies);
+                }
+            } finally {
+                this.consultedHierarchies = null;
+            }
+        }
+        this.evaluations.put(expression, result);
+        return result;
+    }
+
+    /**
+     * Determines which of the given security requirements, as calculated by {@link SecurityRequirements}, are not
+     * satisfied by the users attributes
+     * <p>
+     * Any document with an unsatisfied requirement cannot be viewed within this search context so may be excluded from
+     * a search before its results are retrieved.  Requirements that cannot be parsed are never considered unsatisfied
+     * since excluding documents on that basis could hide documents the user is permitted to see.
+     * </p>
+     *
+     * @param requirements Security requirements
+     * @return Unsatisfied requirements
+     */
+    public List<String> unsatisfiedRequirements(Collection<String> requirements) {
+        if (CollectionUtils.isEmpty(requirements)) {
+            return List.of();
+        }
+        List<String> unsatisfied = new ArrayList<>();
+        for (String requirement : requirements) {
+            List<AttributeExpr> labels = this.parseLabelExpressions(null, requirement);
+            if (CollectionUtils.isNotEmpty(labels) && !this.evaluate(labels)) {
+                unsatisfied.add(requirement);
+            }
+        }
+        return unsatisfied;
     }
 
     /**
      * Lookups an attribute hierarchy (if any)
+     * <p>
+     * Hierarchies are only looked up from the attributes store once for the lifetime of this context.
+     * </p>
      *
      * @param attribute Attribute
      * @return Hierarchy, or {@code null} if no such hierarchy
      */
     private Hierarchy lookupHierarchy(Attribute attribute) {
-        if (this.store == null || !this.store.hasHierarchy(attribute)) {
-            return null;
+        Hierarchy hierarchy;
+        if (this.hierarchies.containsKey(attribute)) {
+            hierarchy = this.hierarchies.get(attribute);
+        } else {
+            hierarchy = this.store == null || !this.store.hasHierarchy(attribute) ? null :
+                        this.store.getHierarchy(attribute);
+            this.hierarchies.put(attribute, hierarchy);
+        }
+        if (this.consultedHierarchies != null) {
+            this.consultedHierarchies.put(attribute, hierarchy);
         }
-        return this.store.getHierarchy(attribute);
+        return hierarchy;
     }
 
     /**
@@ -340,6 +422,7 @@ public final class SecureSearchContext {
         private AttributesStore store;
         private Cache<String, List<AttributeExpr>> labelsToExpressions;
         private RedactedDocumentsCache redactedDocumentsCache;
+        private LabelEvaluationCache evaluationCache;
         private List<FieldNameExpression> typeFilterFields = new ArrayList<>();
 
         /**
@@ -437,6 +520,28 @@ public final class SecureSearchContext {
             return withRedactionCache(null);
         }
 
+        /**
+         * Configures a label evaluation cache, this is shared across search contexts so that label evaluation results
+         * can be reused across searches
+         *
+         * @param cache Label evaluation cache
+         * @return Builder
+         */
+        public Builder withEvaluationCache(LabelEvaluationCache cache) {
+            this.evaluationCache = cache;
+            return this;
+        }
+
+        /**
+         * Disables the shared label evaluation cache, evaluation results are then only cached for the lifetime of the
+         * search context
+         *
+         * @return Builder
+         */
+        public Builder withoutEvaluationCache() {
+            return withEvaluationCache(null);
+        }
+
         /**
          * Sets that type filtering is in use for this search context
          *
@@ -495,7 +600,7 @@ public final class SecureSearchContext {
         public SecureSearchContext build() {
             return new SecureSearchContext(this.searchOptions, this.userAttributes, this.store,
                                            this.labelsToExpressions, this.redactedDocumentsCache,
-                                           this.typeFilterFields);
+                                           this.evaluationCache, this.typeFilterFields);
         }
     }
 
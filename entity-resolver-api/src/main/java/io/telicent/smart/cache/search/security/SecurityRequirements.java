@@ -0,0 +1,175 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.security;
+
+import io.telicent.jena.abac.attributes.AttributeExpr;
+import io.telicent.jena.abac.attributes.AttributeParser;
+import io.telicent.jena.abac.attributes.AttributeSyntaxError;
+import io.telicent.smart.cache.entity.sinks.converters.DefaultOutputFields;
+import io.telicent.smart.cache.search.model.Document;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+
+/**
+ * Calculates the security requirements of a document, these are a normalized form of its default security labels that
+ * a search backend can index as keywords, allowing searches to exclude documents that a user can never see before they
+ * are retrieved
+ * <p>
+ * Default security labels are a list of label expressions, all of which must be satisfied for the user to see the
+ * document, so each individual expression is a requirement of the document.  If the user fails to satisfy any
+ * requirement they cannot see the document, <strong>unless</strong> fine-grained security labels permit them to see
+ * parts of the document.  Therefore, requirements are only calculated for documents that have default security labels
+ * and no fine-grained security labels.
+ * </p>
+ * <p>
+ * Requirements are a coarse pre-filter only, documents that satisfy them are still subject to the normal security
+ * filtering via {@link SecureSearchContext#canViewDocument(String, String, Document)}.
+ * </p>
+ */
+public final class SecurityRequirements {
+
+    /**
+     * Private constructor prevents instantiation
+     */
+    private SecurityRequirements() {
+    }
+
+    /**
+     * Calculates the security requirements for a document
+     *
+     * @param document Document
+     * @return Security requirements, sorted and de-duplicated, or an empty list if the document has no requirements
+     * that can safely be used to pre-filter searches
+     */
+    public static List<String> forDocument(Map<String, Object> document) {
+        if (document == null) {
+            return List.of();
+        }
+        Object securityLabels = document.get(DefaultOutputFields.SECURITY_LABELS);
+        if (!(securityLabels instanceof Map<?, ?> labels)) {
+            return List.of();
+        }
+        Object defaultLabels = labels.get(DefaultOutputFields.SECURITY_LABELS_SUB_FIELD_DEFAULTS);
+        if (!(defaultLabels instanceof String rawLabels) || StringUtils.isBlank(rawLabels)) {
+            return List.of();
+        }
+        if (hasFineGrainedLabels(document, true)) {
+            return List.of();
+        }
+        return forLabels(rawLabels);
+    }
+
+    /**
+     * Calculates the security requirements for some default security labels
+     *
+     * @param defaultLabels Default security labels
+     * @return Security requirements, sorted and de-duplicated, or an empty list if the labels are blank or malformed
+     */
+    public static List<String> forLabels(String defaultLabels) {
+        if (StringUtils.isBlank(defaultLabels)) {
+            return List.of();
+        }
+
+        // Only trust our split of the labels if it agrees with the label parser, malformed labels deny access anyway
+        // and shouldn't happen in practice so not worth pre-filtering on
+        List<String> expressions = splitExpressions(defaultLabels);
+        try {
+            List<AttributeExpr> parsed = AttributeParser.parseAttrExprList(defaultLabels);
+            if (expressions.isEmpty() || parsed.size() != expressions.size()) {
+                return List.of();
+            }
+        } catch (AttributeSyntaxError e) {
+            return List.of();
+        }
+        return new ArrayList<>(new TreeSet<>(expressions));
+    }
+
+    /**
+     * Splits a list of label expressions into the individual expressions, ignoring any separators that occur within
+     * quoted strings or parentheses
+     *
+     * @param labels Labels
+     * @return Individual expressions, or an empty list if any expression is empty
+     */
+    static List<String> splitExpressions(String labels) {
+        List<String> expressions = new ArrayList<>();
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < labels.length(); i++) {
+            char c = labels.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                expressions.add(labels.substring(start, i).strip());
+                start = i + 1;
+            }
+        }
+        expressions.add(labels.substring(start).strip());
+        return expressions.stream().anyMatch(String::isEmpty) ? List.of() : expressions;
+    }
+
+    /**
+     * Determines whether a document, or some portion thereof, contains fine-grained security labels
+     *
+     * @param map      Document, or portion thereof
+     * @param topLevel Whether this is the top level of the document
+     * @return True if fine-grained security labels are present, false otherwise
+     */
+    private static boolean hasFineGrainedLabels(Map<?, ?> map, boolean topLevel) {
+        for (Map.Entry<?, ?> field : map.entrySet()) {
+            if (field.getKey() instanceof String key && key.endsWith(DefaultOutputFields.SECURITY_LABELS)) {
+                if (!(field.getValue() instanceof Map<?, ?> labels)) {
+                    continue;
+                }
+                // At the top level the security labels may include the document level labels, anything else is a
+                // fine-grained label for some field
+                if (!topLevel || !isDocumentLevelOnly(labels)) {
+                    return true;
+                }
+            } else if (field.getValue() instanceof Map<?, ?> inner) {
+                if (hasFineGrainedLabels(inner, false)) {
+                    return true;
+                }
+            } else if (field.getValue() instanceof Collection<?> items) {
+                for (Object item : items) {
+                    if (item instanceof Map<?, ?> inner && hasFineGrainedLabels(inner, false)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDocumentLevelOnly(Map<?, ?> labels) {
+        return labels.keySet()
+                     .stream()
+                     .allMatch(k -> DefaultOutputFields.SECURITY_LABELS_SUB_FIELD_DEFAULTS.equals(k)
+                                    || DefaultOutputFields.SECURITY_LABELS_SUB_FIELD_GRAPH.equals(k));
+    }
+}
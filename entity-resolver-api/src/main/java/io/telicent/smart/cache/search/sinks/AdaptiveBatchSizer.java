@@ -0,0 +1,97 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.sinks;
+
+import java.time.Duration;
+
+/**
+ * Controls the target batch size for bulk indexing using an Additive Increase Multiplicative Decrease (AIMD) strategy
+ * <p>
+ * Each time a bulk operation completes quickly, and without any rejections or failures, the target is increased by a
+ * fixed step.  If the bulk operation was slower than the target latency, or the search backend rejected any items
+ * because it was overloaded, or any items failed, the target is halved.  The target is always kept within the
+ * configured minimum and maximum.
+ * </p>
+ */
+final class AdaptiveBatchSizer {
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int increaseStep;
+    private final long targetLatency;
+    private volatile int target;
+
+    /**
+     * Creates a new sizer
+     *
+     * @param initialBatchSize Initial target batch size
+     * @param minBatchSize     Minimum target batch size
+     * @param maxBatchSize     Maximum target batch size
+     * @param targetLatency    Target latency for bulk operations, operations that take longer than this cause the
+     *                         target batch size to be decreased
+     */
+    AdaptiveBatchSizer(int initialBatchSize, int minBatchSize, int maxBatchSize, Duration targetLatency) {
+        if (minBatchSize <= 0) {
+            throw new IllegalArgumentException("minBatchSize must be >= 1");
+        }
+        if (maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("maxBatchSize must be >= minBatchSize");
+        }
+        if (targetLatency == null || targetLatency.isNegative() || targetLatency.isZero()) {
+            throw new IllegalArgumentException("targetLatency must be a duration greater than zero");
+        }
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.increaseStep = minBatchSize;
+        this.targetLatency = targetLatency.toMillis();
+        this.target = Math.max(minBatchSize, Math.min(maxBatchSize, initialBatchSize));
+    }
+
+    /**
+     * Gets the current target batch size
+     *
+     * @return Target batch size
+     */
+    int target() {
+        return this.target;
+    }
+
+    /**
+     * Records the outcome of a completed bulk operation, adjusting the target batch size accordingly
+     *
+     * @param took       How long, in milliseconds, the bulk operation took
+     * @param rejections How many times the search backend rejected some, or all, of the operation as it was overloaded
+     * @param failures   How many items failed
+     */
+    void completed(long took, int rejections, int failures) {
+        if (rejections > 0 || failures > 0 || took > this.targetLatency) {
+            this.decrease();
+        } else {
+            this.target = Math.min(this.maxBatchSize, this.target + this.increaseStep);
+        }
+    }
+
+    /**
+     * Records that a bulk operation failed entirely, decreasing the target batch size
+     */
+    void failed() {
+        this.decrease();
+    }
+
+    private void decrease() {
+        this.target = Math.max(this.minBatchSize, this.target / 2);
+    }
+}
@@ -19,6 +19,7 @@ import io.telicent.smart.cache.observability.events.EventListener;
 import io.telicent.smart.cache.observability.events.MetricEvent;
 import io.telicent.smart.cache.projectors.Sink;
 import io.telicent.smart.cache.projectors.sinks.builder.SinkBuilder;
+import io.telicent.smart.cache.search.SearchException;
 import io.telicent.smart.cache.search.SearchIndexer;
 import io.telicent.smart.cache.search.model.SearchIndexBulkResult;
 import io.telicent.smart.cache.search.model.SearchIndexBulkResults;
@@ -31,11 +32,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -48,6 +62,48 @@ import static java.util.Arrays.stream;
 
 /**
  * A sink that sends items for search indexing in bulk using a {@link SearchIndexer}
+ * <p>
+ * Items are collected into a batch by the thread calling {@link #send(Event)}, once a batch is full it is handed off to
+ * a background thread for indexing while the next batch is filled.  Batches are always indexed, and their events
+ * reported as processed to their {@link EventSource}, in the order they were filled.  Since event sources need not be
+ * thread-safe, events are only reported as processed from the thread calling {@link #send(Event)} and
+ * {@link #close()}, i.e. the thread consuming events from the event source, so events indexed in the background are
+ * reported on the next call to either, see {@link ProcessedEvents}.  At most
+ * {@code maxOutstandingBatches} batches may be waiting for, or undergoing, indexing at once, if this limit is reached
+ * then {@link #send(Event)} blocks until an earlier batch has been indexed.
+ * </p>
+ * <p>
+ * By default batches are indexed one at a time.  If {@code maxConcurrentRequests} is greater than 1 then up to that many
+ * bulk requests are issued concurrently via the asynchronous methods of the {@link SearchIndexer}, e.g.
+ * {@link SearchIndexer#bulkIndexAsync(Function, java.util.Collection)}.  Their completions are re-sequenced so that
+ * results are still handled, and events reported as processed, strictly in order.  A batch that contains a document ID
+ * also present in an in-flight batch is not issued until that earlier batch has completed, so updates to the same
+ * document are always applied in order.
+ * </p>
+ * <p>
+ * If a batch fails to index then no further batches are indexed, since that would report events as processed beyond
+ * the failed batch, and the failure is thrown from the next call to {@link #send(Event)} or {@link #close()}.  The
+ * same applies if the background thread itself stops unexpectedly, and {@link #close()} waits at most
+ * {@link #CLOSE_TIMEOUT} for outstanding batches to be indexed.
+ * </p>
+ * <p>
+ * Optionally batch sizes may be adapted to the observed performance of the search backend.  When adaptive batch sizing
+ * is enabled the target batch size is increased additively while bulk operations complete within the target latency,
+ * and halved whenever an operation is slower than that, the backend rejects items because it is overloaded, or items
+ * fail to index.  Separately a size estimator and a maximum batch size in bytes may be configured, in which case a
+ * batch is also sealed once its estimated size reaches that limit, regardless of how many items it contains.  Each
+ * time a batch is sealed a {@code search.indexer.bulksink.flush.<reason>} metric is emitted indicating which limit
+ * caused it to be sealed.
+ * </p>
+ * <p>
+ * Optionally the sink can detect when it has a backlog of items to index, signalled by {@code bulkIngestionThreshold}
+ * consecutive batches having to wait for an earlier batch to be indexed before they could be submitted.  When a backlog
+ * is detected {@link SearchIndexer#beginBulkIngestion()} is called, allowing the indexer to reconfigure the index for
+ * ingestion throughput.  Once the backlog drains, signalled by the same number of consecutive batches being submitted
+ * without waiting, or by the maximum idle time being exceeded, {@link SearchIndexer#endBulkIngestion()} is called.  It
+ * is also called when the sink is closed.  Since bulk ingestion is purely an optimisation any failure to begin or end
+ * it is logged and otherwise ignored.
+ * </p>
  *
  * @param <TKey>   Event key type
  * @param <TValue> Event value type
@@ -63,46 +119,111 @@ public class BulkSearchIndexerSink<TKey, TValue> extends SearchIndexerSink<TKey,
      * Default idle time, currently <strong>1 minute</strong>
      */
     public static final Duration DEFAULT_IDLE_TIME = Duration.ofMinutes(1);
+    /**
+     * Default maximum number of outstanding batches, currently <strong>2</strong> i.e. one batch may be waiting to be
+     * indexed while another is being indexed
+     */
+    public static final int DEFAULT_MAX_OUTSTANDING_BATCHES = 2;
+    /**
+     * Default maximum number of concurrent bulk requests, currently <strong>1</strong> i.e. batches are indexed one at
+     * a time
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 1;
+    /**
+     * Default target latency for adaptive batch sizing, currently <strong>1 second</strong>
+     */
+    public static final Duration DEFAULT_TARGET_LATENCY = Duration.ofSeconds(1);
+    /**
+     * Maximum time that {@link #close()} waits for outstanding batches to be indexed, currently <strong>5
+     * minutes</strong>
+     */
+    public static final Duration CLOSE_TIMEOUT = Duration.ofMinutes(5);
+
+    private static final String FLUSH_ON_SIZE = "size";
+    private static final String FLUSH_ON_BYTES = "bytes";
+    private static final String FLUSH_ON_OPERATION = "operation";
+    private static final String FLUSH_ON_IDLE = "idle";
+    private static final String FLUSH_ON_CLOSE = "close";
 
     private final ExecutorService executor;
-    private final IndexingIdleTrigger<TKey, TValue> trigger;
+    private final BatchFlusher<TKey, TValue> flusher;
 
-    private final List<Event<TKey, TValue>> items = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final BlockingQueue<Batch<TKey, TValue>> pending = new LinkedBlockingQueue<>();
+    private final Semaphore outstanding;
+    private final Batch<TKey, TValue> wakeUp = new Batch<>(Collections.emptyList(), false, null);
+    private final Deque<InFlight<TKey, TValue>> inFlight = new ArrayDeque<>();
+    private List<Event<TKey, TValue>> items;
     private final int batchSize;
     private final int flushPerBatches;
-    private int batches;
-    private int idleTriggers;
-    private long lastIndexedAt = System.currentTimeMillis();
+    private final int maxConcurrentRequests;
+    private final AdaptiveBatchSizer sizer;
+    private final Function<TValue, Long> sizeEstimator;
+    private final long maxBatchBytes;
+    private long currentBatchBytes;
+    private final AtomicInteger batches = new AtomicInteger();
+    private final AtomicInteger idleTriggers = new AtomicInteger();
+    private volatile long lastIndexedAt = System.currentTimeMillis();
+    private volatile Throwable failure;
+    private boolean closed;
     private boolean currentBatchIsForDeletion;
+    private final int bulkIngestionThreshold;
+    private int waitedBatches;
+    private int unwaitedBatches;
+    private volatile boolean bulkIngestion;
+    private final Object bulkIngestionLock = new Object();
+    private boolean bulkIngestionApplied;
 
     /**
      * Creates a new bulk search indexing sink
      *
-     * @param indexer         Search Indexer
-     * @param idProvider      ID Provider function that generates Document IDs for items
-     * @param isDeletion      Function that detects when an item represents a deletion
-     * @param deletionAction  Action to perform when encountering an item that represents a deletion
-     * @param indexBatchSize  Batch size for bulk indexing i.e. how many items to collect before submitting them for
-     *                        bulk indexing.  This <strong>MUST</strong> be less than the {@code reportBatchSize}.
-     * @param flushPerBatches Controls how often a {@link SearchIndexer#flush(boolean)} operation will be called in
-     *                        terms of number of batches, so a value of {@code 10} means that after 10 batches have been
-     *                        indexed a {@link SearchIndexer#flush(boolean)} will be called.
-     * @param reportBatchSize Controls how often progress is reported to the logs.  This is expressed as a batch size
-     *                        i.e. after how many items are seen should progress be reported.  This
-     *                        <strong>MUST</strong> be a multiple of the {@code indexBatchSize}.
-     * @param maxIdleTime     Controls the maximum amount of time the sink is allowed to be idle, i.e. not perform an
-     *                        actual index operation, before one will be triggered regardless of whether the
-     *                        {@code indexBatchSize} has been reached.  This ensures that documents are regularly
-     *                        indexed even when the pipeline producing the documents may be slow, or contains minimal
-     *                        amounts of data.  If {@code null} then {@link #DEFAULT_IDLE_TIME} is used.
-     * @param deadLetterSink  A dead letter sink where events which cannot be indexed will be written, which may be null
+     * @param indexer               Search Indexer
+     * @param idProvider            ID Provider function that generates Document IDs for items
+     * @param isDeletion            Function that detects when an item represents a deletion
+     * @param deletionAction        Action to perform when encountering an item that represents a deletion
+     * @param indexBatchSize        Batch size for bulk indexing i.e. how many items to collect before submitting them
+     *                              for bulk indexing.  This <strong>MUST</strong> be less than the
+     *                              {@code reportBatchSize}.
+     * @param flushPerBatches       Controls how often a {@link SearchIndexer#flush(boolean)} operation will be called
+     *                              in terms of number of batches, so a value of {@code 10} means that after 10 batches
+     *                              have been indexed a {@link SearchIndexer#flush(boolean)} will be called.
+     * @param maxOutstandingBatches Controls how many full batches may be waiting for, or undergoing, indexing before
+     *                              further calls to {@link #send(Event)} block.  This is raised to
+     *                              {@code maxConcurrentRequests} if lower.
+     * @param maxConcurrentRequests Controls how many bulk requests may be in-flight concurrently, if greater than 1
+     *                              then the asynchronous methods of the {@link SearchIndexer} are used.
+     * @param reportBatchSize       Controls how often progress is reported to the logs.  This is expressed as a batch
+     *                              size i.e. after how many items are seen should progress be reported.  This
+     *                              <strong>MUST</strong> be a multiple of the {@code indexBatchSize}.
+     * @param maxIdleTime           Controls the maximum amount of time the sink is allowed to be idle, i.e. not
+     *                              perform an actual index operation, before one will be triggered regardless of
+     *                              whether the {@code indexBatchSize} has been reached.  This ensures that documents
+     *                              are regularly indexed even when the pipeline producing the documents may be slow, or
+     *                              contains minimal amounts of data.  If {@code null} then {@link #DEFAULT_IDLE_TIME}
+     *                              is used.
+     * @param deadLetterSink        A dead letter sink where events which cannot be indexed will be written, which may
+     *                              be null
+     * @param sizer                 Adaptive batch sizer, if {@code null} then batches are always sealed once they
+     *                              contain {@code indexBatchSize} items
+     * @param sizeEstimator         Function that estimates the serialized size, in bytes, of an item, which may be
+     *                              null
+     * @param maxBatchBytes         Maximum estimated size, in bytes, of a batch, only applies if a
+     *                              {@code sizeEstimator} is provided and this is greater than zero
+     * @param backlogThreshold      Number of consecutive batches that must wait to be submitted before a backlog is
+     *                              detected and the indexer asked to begin bulk ingestion, a value of zero disables
+     *                              backlog detection
+     * @param processedEvents       Where processed events are queued for reporting to their event source, if
+     *                              {@code null} then the sink reports them itself
      */
     BulkSearchIndexerSink(SearchIndexer<TValue> indexer,
                           Function<TValue, String> idProvider, Function<Event<TKey, TValue>, Boolean> isDeletion,
                           IndexDeletionAction deletionAction,
-                          int indexBatchSize, int flushPerBatches,
-                          long reportBatchSize, Duration maxIdleTime, final Sink<Event<TKey, TValue>> deadLetterSink) {
-        super(indexer, idProvider, isDeletion, deletionAction, reportBatchSize, deadLetterSink);
+                          int indexBatchSize, int flushPerBatches, int maxOutstandingBatches,
+                          int maxConcurrentRequests,
+                          long reportBatchSize, Duration maxIdleTime, final Sink<Event<TKey, TValue>> deadLetterSink,
+                          AdaptiveBatchSizer sizer, Function<TValue, Long> sizeEstimator, long maxBatchBytes,
+                          int backlogThreshold, ProcessedEvents processedEvents) {
+        super(indexer, idProvider, isDeletion, deletionAction, reportBatchSize, deadLetterSink, processedEvents);
 
         if (indexBatchSize <= 0) {
             throw new IllegalArgumentException("indexBatchSize must be >= 1");
@@ -116,19 +237,35 @@ public class BulkSearchIndexerSink<TKey, TValue> extends SearchIndexerSink<TKey,
         if (flushPerBatches <= 0) {
             throw new IllegalArgumentException("flushPerBatches must be >= 1");
         }
+        if (maxOutstandingBatches <= 0) {
+            throw new IllegalArgumentException("maxOutstandingBatches must be >= 1");
+        }
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("maxConcurrentRequests must be >= 1");
+        }
+        if (backlogThreshold < 0) {
+            throw new IllegalArgumentException("backlogThreshold must be >= 0");
+        }
 
         this.batchSize = indexBatchSize;
         this.flushPerBatches = flushPerBatches;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.outstanding = new Semaphore(Math.max(maxOutstandingBatches, maxConcurrentRequests));
+        this.sizer = sizer;
+        this.sizeEstimator = sizeEstimator;
+        this.maxBatchBytes = sizeEstimator != null ? maxBatchBytes : 0;
+        this.bulkIngestionThreshold = backlogThreshold;
+        this.items = new ArrayList<>(this.targetBatchSize());
 
-        // Configure and set up the background thread that's going to trigger indexing based on an idle time i.e. forces
-        // an indexing operation to happen every so often regardless of whether the configured batch size has been
-        // reached
-        // The only scenario in which we don't enable this feature is when the configured batch size is 1 i.e. no
+        // Configure and set up the background thread that's going to do the actual indexing, this also triggers
+        // indexing based on an idle time i.e. forces an indexing operation to happen every so often regardless of
+        // whether the configured batch size has been reached
+        // The only scenario in which we don't need this thread is when the configured batch size is 1 i.e. no
         // batching, because in that case we're always indexing stuff as soon as we receive it
         if (maxIdleTime == null) {
             maxIdleTime = DEFAULT_IDLE_TIME;
         }
-        boolean enableIdleTrigger = indexBatchSize > 1;
+        boolean enableBackgroundIndexing = indexBatchSize > 1 || sizer != null || this.maxBatchBytes > 0;
         if (MINIMUM_IDLE_TIME.compareTo(maxIdleTime) >= 1) {
             // We do enforce a minimum idle time to prevent the triggering from happening too frequently.  The minimum
             // is very low as this makes writing fast test cases for this code easier.  However, real users of this code
@@ -137,123 +274,456 @@ public class BulkSearchIndexerSink<TKey, TValue> extends SearchIndexerSink<TKey,
             throw new IllegalArgumentException(
                     String.format("maxIdleTime must be a minimum of %,d seconds", MINIMUM_IDLE_TIME.getSeconds()));
         }
-        this.executor = enableIdleTrigger ? Executors.newSingleThreadExecutor() : null;
-        this.trigger = enableIdleTrigger ? new IndexingIdleTrigger<>(this, maxIdleTime) : null;
-        if (enableIdleTrigger) {
-            this.executor.submit(this.trigger);
+        this.executor = enableBackgroundIndexing ? Executors.newSingleThreadExecutor() : null;
+        this.flusher = enableBackgroundIndexing ? new BatchFlusher<>(this, maxIdleTime) : null;
+        if (enableBackgroundIndexing) {
+            this.executor.submit(this.flusher);
         }
     }
 
     @Override
     public void send(Event<TKey, TValue> item) {
-        if (this.batchSize == 1) {
+        if (this.flusher == null) {
             super.send(item);
         } else {
+            this.reportProcessed();
+            this.checkForFailure();
             this.tracker.itemReceived();
 
-            synchronized (this.items) {
-                boolean isDeletion = this.isDeletion.apply(item);
+            boolean isDeletion = this.isDeletion.apply(item);
+            this.lock.lock();
+            try {
                 if (isDeletion != this.currentBatchIsForDeletion) {
                     if (!this.items.isEmpty()) {
                         // Existing batch represents the opposite operation from the current item.  Need to cause
                         // that batch to be processed and then start a new batch setting the operation type
-                        this.bulkIndex();
+                        this.submit(this.seal(FLUSH_ON_OPERATION));
                     }
                     this.currentBatchIsForDeletion = isDeletion;
                 }
 
+                long itemBytes = 0;
+                if (this.maxBatchBytes > 0) {
+                    itemBytes = this.sizeEstimator.apply(item.value());
+                    if (!this.items.isEmpty() && this.currentBatchBytes + itemBytes > this.maxBatchBytes) {
+                        // Adding this item would take the batch over the byte limit so seal the batch first
+                        this.submit(this.seal(FLUSH_ON_BYTES));
+                    }
+                }
+
                 this.items.add(item);
+                this.currentBatchBytes += itemBytes;
 
-                if (this.items.size() == this.batchSize) {
-                    this.bulkIndex();
+                if (this.items.size() >= this.targetBatchSize()) {
+                    this.submit(this.seal(FLUSH_ON_SIZE));
+                } else if (this.maxBatchBytes > 0 && this.currentBatchBytes >= this.maxBatchBytes) {
+                    this.submit(this.seal(FLUSH_ON_BYTES));
                 }
+            } finally {
+                this.lock.unlock();
             }
+            this.applyBulkIngestion();
         }
     }
 
     /**
-     * Performs the bulk indexing, called whenever the batch size is reached or the sink is closed
+     * Gets the current target batch size, this is fixed unless adaptive batch sizing is enabled
+     *
+     * @return Target batch size
+     */
+    public int targetBatchSize() {
+        return this.sizer != null ? this.sizer.target() : this.batchSize;
+    }
+
+    /**
+     * Seals the current batch, starting a new empty batch.  Caller <strong>MUST</strong> hold the lock.
+     *
+     * @param reason Reason the batch is being sealed i.e. which limit was reached
+     * @return Sealed batch
+     */
+    private Batch<TKey, TValue> seal(String reason) {
+        Batch<TKey, TValue> batch = new Batch<>(this.items, this.currentBatchIsForDeletion, new CompletableFuture<>());
+        if (!this.items.isEmpty()) {
+            List<MetricEvent> metricEvents = new ArrayList<>();
+            metricEvents.add(counterEvent("search.indexer.bulksink.flush." + reason));
+            metricEvents.add(counterEvent("search.indexer.bulksink.batch.items", this.items.size()));
+            if (this.maxBatchBytes > 0) {
+                metricEvents.add(counterEvent("search.indexer.bulksink.batch.bytes", this.currentBatchBytes));
+            }
+            emit(eventSupport, metricEvents);
+        }
+        this.items = new ArrayList<>(this.targetBatchSize());
+        this.currentBatchBytes = 0;
+        return batch;
+    }
+
+    /**
+     * Submits a sealed batch for background indexing, blocking if the maximum number of outstanding batches has been
+     * reached.  Caller <strong>MUST</strong> hold the lock, this guarantees that batches are queued in the order they
+     * were sealed.
+     *
+     * @param batch Batch
      */
-    private void bulkIndex() {
-        synchronized (this.items) {
-            LOGGER.debug("Bulk indexing {} items", this.items.size());
-
-            final List<TValue> indexItems = this.items.stream().map(Event::value).toList();
-            SearchIndexBulkResults<TValue> indexBulkResults;
-            long startTime = System.currentTimeMillis();
-            if (this.currentBatchIsForDeletion) {
-                switch (this.deleteAction) {
-                    case DOCUMENT:
-                        indexBulkResults = this.indexer.bulkDeleteDocuments(this.idProvider, indexItems);
-                        emit(eventSupport, metricsFor(indexBulkResults, "delete", startTime, System.currentTimeMillis()));
-                        break;
-                    case CONTENTS:
-                    default:
-                        indexBulkResults = this.indexer.bulkDeleteContents(this.idProvider, indexItems);
-                        emit(eventSupport, metricsFor(indexBulkResults, "deletecontents", startTime, System.currentTimeMillis()));
-                        break;
+    private void submit(Batch<TKey, TValue> batch) {
+        if (this.closed) {
+            // Background indexing has stopped so index directly
+            if (!batch.items().isEmpty()) {
+                long startTime = System.currentTimeMillis();
+                this.bulkIndexed(batch, this.bulkIndex(batch), startTime, System.currentTimeMillis());
+            }
+            return;
+        }
+        boolean waited = !this.outstanding.tryAcquire();
+        if (waited) {
+            try {
+                this.outstanding.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SearchException("Interrupted while waiting to submit a batch for bulk indexing", e);
+            }
+        }
+        this.pending.add(batch);
+        this.detectBacklog(waited);
+    }
+
+    /**
+     * Tracks whether submitted batches are having to wait for earlier batches to be indexed, beginning or ending bulk
+     * ingestion as appropriate.  Caller <strong>MUST</strong> hold the lock.
+     *
+     * @param waited Whether the most recently submitted batch had to wait
+     */
+    private void detectBacklog(boolean waited) {
+        if (this.bulkIngestionThreshold == 0) {
+            return;
+        }
+        if (waited) {
+            this.unwaitedBatches = 0;
+            if (++this.waitedBatches >= this.bulkIngestionThreshold && !this.bulkIngestion) {
+                LOGGER.info("Backlog detected after {} consecutive batches waited to be indexed, beginning bulk "
+                            + "ingestion", this.waitedBatches);
+                this.bulkIngestion = true;
+                emit(eventSupport, counterEvent("search.indexer.bulksink.ingestion.begin"));
+            }
+        } else {
+            this.waitedBatches = 0;
+            if (++this.unwaitedBatches >= this.bulkIngestionThreshold) {
+                this.endBulkIngestion("backlog drained");
+            }
+        }
+    }
+
+    /**
+     * Ends bulk ingestion, if it was begun.  Caller <strong>MUST</strong> hold the lock.
+     *
+     * @param reason Reason bulk ingestion is ending
+     */
+    private void endBulkIngestion(String reason) {
+        this.waitedBatches = 0;
+        this.unwaitedBatches = 0;
+        if (this.bulkIngestion) {
+            LOGGER.info("Ending bulk ingestion as {}", reason);
+            this.bulkIngestion = false;
+            emit(eventSupport, counterEvent("search.indexer.bulksink.ingestion.end"));
+        }
+    }
+
+    /**
+     * Informs the indexer of any change in whether bulk ingestion is in progress.  Caller <strong>MUST NOT</strong>
+     * hold the lock, reconfiguring an index for bulk ingestion typically involves blocking requests to the search
+     * backend and these must not hold up other threads sending items to, or idle flushing, the sink.
+     * <p>
+     * Whether bulk ingestion is in progress is decided under the lock, this method then makes the indexer match that
+     * decision, so the calls made to the indexer are always correctly paired even if the decision changes several
+     * times before this method runs.
+     * </p>
+     */
+    private void applyBulkIngestion() {
+        synchronized (this.bulkIngestionLock) {
+            boolean desired = this.bulkIngestion;
+            if (desired == this.bulkIngestionApplied) {
+                return;
+            }
+            this.bulkIngestionApplied = desired;
+            try {
+                if (desired) {
+                    this.indexer.beginBulkIngestion();
+                } else {
+                    this.indexer.endBulkIngestion();
                 }
+            } catch (RuntimeException e) {
+                // Bulk ingestion is purely an optimisation so failing to reconfigure the index must not stop items
+                // being indexed
+                LOGGER.warn("Failed to {} bulk ingestion: {}", desired ? "begin" : "end", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Starts indexing a batch on the background thread, called for every submitted batch in the order they were
+     * submitted
+     *
+     * @param batch Batch
+     */
+    private void start(Batch<TKey, TValue> batch) {
+        Set<String> ids = Collections.emptySet();
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<SearchIndexBulkResults<TValue>> results;
+        try {
+            if (this.failure != null || batch.items().isEmpty()) {
+                // Nothing to index, either a previous batch failed and this batch will be discarded, or it's the
+                // marker batch submitted by close(), still needs to complete in order though
+                results = CompletableFuture.completedFuture(null);
+            } else if (this.maxConcurrentRequests == 1) {
+                results = CompletableFuture.completedFuture(this.bulkIndex(batch));
             } else {
-                indexBulkResults = this.indexer.bulkIndex(this.idProvider, indexItems);
-                emit(eventSupport, metricsFor(indexBulkResults, "index", startTime, System.currentTimeMillis()));
+                // Don't reorder updates to the same document, wait for any in-flight batches that touch the same
+                // documents to complete first
+                ids = batch.items()
+                           .stream()
+                           .map(e -> this.idProvider.apply(e.value()))
+                           .collect(Collectors.toSet());
+                while (this.conflictsWithInFlight(ids)) {
+                    this.awaitOldestInFlight();
+                    this.completeInOrder();
+                }
+                startTime = System.currentTimeMillis();
+                results = this.bulkIndexAsync(batch);
             }
+        } catch (Throwable e) {
+            results = CompletableFuture.failedFuture(e);
+        }
+
+        InFlight<TKey, TValue> request = new InFlight<>(batch, ids, startTime);
+        request.results = results.whenComplete((r, e) -> request.completedAt = System.currentTimeMillis());
+        // Wake up the background thread when the request completes so it can complete it in order
+        request.results.whenComplete((r, e) -> this.pending.add(this.wakeUp));
+        this.inFlight.add(request);
+    }
 
-            if (indexBulkResults.getSuccessfulCount() > 0) {
-                this.tracker.itemsProcessed(indexBulkResults.getSuccessfulCount());
+    private boolean conflictsWithInFlight(Set<String> ids) {
+        for (InFlight<TKey, TValue> request : this.inFlight) {
+            if (!request.results.isDone() && !Collections.disjoint(request.ids, ids)) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            // NB - Per Javadoc this part of the Events API is unchecked by design
-            Map<EventSource, List<Event<TKey, TValue>>>
-                    eventsBySource = IntStream.range(0, this.items.size())
-                                              .filter(indexBulkResults::isSuccessful)
-                                              .mapToObj(this.items::get)
-                                              .filter(e -> e.source() != null).collect(Collectors.groupingBy(
-                            Event::source));
-            if (!eventsBySource.isEmpty()) {
-                eventsBySource.forEach((key, value) -> {
-                    // From #202 if the EventSource.processed() method threw an error we'd never clear the items that
-                    // we just successfully indexed so next time bulkIndex() was called we'd over-report our processed
-                    // items leading to an error in the ThroughputTracker
-                    try {
-                        key.processed(value);
-                    } catch (Throwable t) {
-                        // Failure to report processed items isn't considered fatal.  The worse case for Kafka is that
-                        // fail to commit our very latest offsets and thus are forced to re-process some events when we
-                        // are restarted.
-                        LOGGER.warn("Failed to report items processed to event source {} ({}): {}",
-                                    key.getClass().getSimpleName(), key, t.getMessage());
+    /**
+     * Waits for the oldest in-flight batch to complete, waiting at most the idle trigger check interval
+     */
+    private void awaitOldestInFlight() {
+        InFlight<TKey, TValue> oldest = this.inFlight.peekFirst();
+        if (oldest == null) {
+            return;
+        }
+        try {
+            oldest.results.get(BatchFlusher.IDLE_TRIGGER_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException | TimeoutException e) {
+            // Ignored, caller will check again
+        } catch (Throwable e) {
+            // Ignored, handled when the batch is completed
+        }
+    }
+
+    /**
+     * Completes in-flight batches whose bulk requests have finished, strictly in the order they were submitted
+     */
+    private void completeInOrder() {
+        while (!this.inFlight.isEmpty() && this.inFlight.peekFirst().results.isDone()) {
+            InFlight<TKey, TValue> request = this.inFlight.pollFirst();
+            Batch<TKey, TValue> batch = request.batch;
+            try {
+                if (this.failure != null) {
+                    // A previous batch failed so we can't report this batch as processed without skipping over the
+                    // failed batch.  Discarding it means these events are simply re-processed when the pipeline is
+                    // restarted.
+                    if (!batch.items().isEmpty()) {
+                        LOGGER.warn("Discarding batch of {} items as a previous bulk indexing operation failed",
+                                    batch.items().size());
                     }
-                });
+                } else if (!batch.items().isEmpty()) {
+                    this.bulkIndexed(batch, request.results.join(), request.startedAt, request.completedAt);
+                }
+            } catch (Throwable e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                LOGGER.error("Background bulk indexing failed:", cause);
+                this.failure = cause;
+                if (this.sizer != null) {
+                    this.sizer.failed();
+                }
+            } finally {
+                this.outstanding.release();
+                batch.completed().complete(null);
             }
+        }
+    }
 
-            if (deadLetterSink != null) {
-                final SearchIndexBulkResults<TValue> finalIndexBulkResults = indexBulkResults;
-                IntStream.range(0, this.items.size())
-                         .filter(indexBulkResults::isFailure)
-                         .mapToObj(i -> new ImmutablePair<>(this.items.get(i), finalIndexBulkResults.getResults().get(i)))
-                         .forEach(indexResultEventPair -> {
-                             final Event<TKey, TValue> deadLetterEvent =
-                                     decorateDeadLetterEventWithMetadata(indexResultEventPair.getLeft(),
-                                                                         indexResultEventPair.getRight());
-                             try {
-                                deadLetterSink.send(deadLetterEvent);
-                            } catch (Throwable t) {
-                                LOGGER.error("Failed to send index error event [" + deadLetterEvent + "] to dead letter sink: ", t);
-                            }
-                         });
+    /**
+     * Triggers indexing of the current batch, if any, because the maximum idle time was exceeded
+     *
+     * @param maxIdleTime Maximum idle time
+     */
+    private void triggerIdleIndexing(Duration maxIdleTime) {
+        // Never block here, if the lock is held then either items are actively being added, or the sending thread is
+        // waiting for us to index an earlier batch, so we aren't actually idle
+        if (!this.lock.tryLock()) {
+            return;
+        }
+        try {
+            // Only need to trigger if there's actually something to be indexed
+            if (this.closed || this.items.isEmpty() || !this.outstanding.tryAcquire()) {
+                return;
             }
+            LOGGER.debug("Triggering a bulk index as max idle time of {} was exceeded", maxIdleTime);
+            this.idleTriggers.incrementAndGet();
+            this.pending.add(this.seal(FLUSH_ON_IDLE));
+            this.endBulkIngestion("max idle time was exceeded");
+        } finally {
+            this.lock.unlock();
+        }
+        this.applyBulkIngestion();
+    }
 
-            this.items.clear();
-
-            this.batches++;
-            if (this.batches % this.flushPerBatches == 0) {
-                this.indexer.flush(false);
+    /**
+     * Completes any batches that are still pending or in-flight exceptionally, called when the background thread stops
+     * so that nothing waiting on those batches, e.g. {@link #close()}, blocks forever
+     */
+    private void abandonOutstanding() {
+        SearchException abandoned =
+                new SearchException("Background bulk indexing stopped before all batches were indexed");
+        List<Batch<TKey, TValue>> batches = new ArrayList<>();
+        InFlight<TKey, TValue> request;
+        while ((request = this.inFlight.pollFirst()) != null) {
+            batches.add(request.batch);
+        }
+        Batch<TKey, TValue> batch;
+        while ((batch = this.pending.poll()) != null) {
+            if (batch != this.wakeUp) {
+                batches.add(batch);
+            }
+        }
+        for (Batch<TKey, TValue> b : batches) {
+            if (b.completed().completeExceptionally(abandoned)) {
+                if (this.failure == null) {
+                    this.failure = abandoned;
+                }
+                this.outstanding.release();
             }
+        }
+    }
+
+    /**
+     * Throws an error if background bulk indexing has failed
+     */
+    private void checkForFailure() {
+        Throwable e = this.failure;
+        if (e != null) {
+            throw new SearchException("Background bulk indexing failed: " + e.getMessage(), e);
+        }
+    }
 
-            this.lastIndexedAt = System.currentTimeMillis();
+    private static <TKey, TValue> List<TValue> toValues(Batch<TKey, TValue> batch) {
+        return batch.items().stream().map(Event::value).toList();
+    }
+
+    /**
+     * Performs the bulk indexing of a batch on the calling thread
+     *
+     * @param batch Batch to index
+     * @return Bulk results
+     */
+    private SearchIndexBulkResults<TValue> bulkIndex(Batch<TKey, TValue> batch) {
+        LOGGER.debug("Bulk indexing {} items", batch.items().size());
+        final List<TValue> indexItems = toValues(batch);
+        if (batch.forDeletion()) {
+            return switch (this.deleteAction) {
+                case DOCUMENT -> this.indexer.bulkDeleteDocuments(this.idProvider, indexItems);
+                case CONTENTS -> this.indexer.bulkDeleteContents(this.idProvider, indexItems);
+            };
+        } else {
+            return this.indexer.bulkIndex(this.idProvider, indexItems);
+        }
+    }
+
+    /**
+     * Starts the bulk indexing of a batch asynchronously
+     *
+     * @param batch Batch to index
+     * @return Future bulk results
+     */
+    private CompletableFuture<SearchIndexBulkResults<TValue>> bulkIndexAsync(Batch<TKey, TValue> batch) {
+        LOGGER.debug("Bulk indexing {} items asynchronously", batch.items().size());
+        final List<TValue> indexItems = toValues(batch);
+        if (batch.forDeletion()) {
+            return switch (this.deleteAction) {
+                case DOCUMENT -> this.indexer.bulkDeleteDocumentsAsync(this.idProvider, indexItems);
+                case CONTENTS -> this.indexer.bulkDeleteContentsAsync(this.idProvider, indexItems);
+            };
+        } else {
+            return this.indexer.bulkIndexAsync(this.idProvider, indexItems);
         }
     }
 
+    /**
+     * Handles the results of bulk indexing a batch, reporting successfully indexed events as processed and sending
+     * failed events to the dead letter sink (if any)
+     *
+     * @param batch            Batch
+     * @param indexBulkResults Bulk results
+     * @param startTime        Time at which indexing started
+     * @param endTime          Time at which indexing completed
+     */
+    private void bulkIndexed(Batch<TKey, TValue> batch, SearchIndexBulkResults<TValue> indexBulkResults,
+                             long startTime, long endTime) {
+        final List<Event<TKey, TValue>> events = batch.items();
+        String operation = !batch.forDeletion() ? "index" :
+                           this.deleteAction == IndexDeletionAction.DOCUMENT ? "delete" : "deletecontents";
+        emit(eventSupport, metricsFor(indexBulkResults, operation, startTime, endTime));
+        if (this.sizer != null) {
+            // Prefer the time the backend reports having spent on the operation, falling back to the time we observed
+            // if it's unknown
+            long took = indexBulkResults.getTook() >= 0 ? indexBulkResults.getTook() : endTime - startTime;
+            this.sizer.completed(took, indexBulkResults.getRejections(), indexBulkResults.getFailureCount());
+            emit(eventSupport, counterEvent("search.indexer.bulksink.batch.target", this.sizer.target()));
+        }
+
+        if (indexBulkResults.getSuccessfulCount() > 0) {
+            this.tracker.itemsProcessed(indexBulkResults.getSuccessfulCount());
+        }
+
+        // This may be running on the background thread so only queue the events for reporting, they are reported on
+        // the next call to send() or close() from the thread consuming the event source
+        this.processedEvents.add(IntStream.range(0, events.size())
+                                          .filter(indexBulkResults::isSuccessful)
+                                          .mapToObj(events::get)
+                                          .filter(e -> e.source() != null)
+                                          .toList());
+
+        if (deadLetterSink != null) {
+            final SearchIndexBulkResults<TValue> finalIndexBulkResults = indexBulkResults;
+            IntStream.range(0, events.size())
+                     .filter(indexBulkResults::isFailure)
+                     .mapToObj(i -> new ImmutablePair<>(events.get(i), finalIndexBulkResults.getResults().get(i)))
+                     .forEach(indexResultEventPair -> {
+                         final Event<TKey, TValue> deadLetterEvent =
+                                 decorateDeadLetterEventWithMetadata(indexResultEventPair.getLeft(),
+                                                                     indexResultEventPair.getRight());
+                         try {
+                            deadLetterSink.send(deadLetterEvent);
+                        } catch (Throwable t) {
+                            LOGGER.error("Failed to send index error event [" + deadLetterEvent + "] to dead letter sink: ", t);
+                        }
+                     });
+        }
+
+        if (this.batches.incrementAndGet() % this.flushPerBatches == 0) {
+            this.indexer.flush(false);
+        }
+
+        this.lastIndexedAt = System.currentTimeMillis();
+    }
+
     private List<MetricEvent> metricsFor(final SearchIndexBulkResults<TValue> indexBulkResults,
                                          final String operation,
                                          final long startTime, final long endTime) {
@@ -283,7 +753,7 @@ public class BulkSearchIndexerSink<TKey, TValue> extends SearchIndexerSink<TKey,
      * @return Batched indexed
      */
     public int batchesIndexed() {
-        return this.batches;
+        return this.batches.get();
     }
 
     /**
@@ -292,38 +762,124 @@ public class BulkSearchIndexerSink<TKey, TValue> extends SearchIndexerSink<TKey,
      * @return Number of times triggered
      */
     public int idleTriggers() {
-        return this.idleTriggers;
+        return this.idleTriggers.get();
     }
 
     @Override
     public void close() {
-        synchronized (this.items) {
-            if (!this.items.isEmpty()) {
-                this.bulkIndex();
+        if (this.flusher != null) {
+            Batch<TKey, TValue> last = null;
+            this.lock.lock();
+            try {
+                if (this.closed) {
+                    // Already closed, any items sent since are indexed directly
+                    this.submit(this.seal(FLUSH_ON_CLOSE));
+                } else {
+                    // Submit the final batch, even if empty, as we use it to detect when all batches are indexed
+                    last = this.seal(FLUSH_ON_CLOSE);
+                    this.submit(last);
+                    this.closed = true;
+                }
+            } finally {
+                this.lock.unlock();
             }
+            if (last != null) {
+                // Batches are indexed in order so once the final batch is complete so are all the others
+                this.awaitCompletion(last);
+                this.flusher.cancel();
+                this.executor.shutdownNow();
+            }
+            this.lock.lock();
+            try {
+                this.endBulkIngestion("sink closed");
+            } finally {
+                this.lock.unlock();
+            }
+            this.applyBulkIngestion();
         }
-        if (this.trigger != null) {
-            this.trigger.cancel();
-            this.executor.shutdownNow();
-        }
+        this.reportProcessed();
         this.tracker.reportThroughput();
         this.tracker.reset();
-        this.batches = 0;
+        this.batches.set(0);
         this.lastIndexedAt = System.currentTimeMillis();
 
+        this.checkForFailure();
         this.indexer.flush(true);
     }
 
-    private static final class IndexingIdleTrigger<TKey, TValue> implements Runnable {
+    /**
+     * Waits, for at most {@link #CLOSE_TIMEOUT}, for a batch to complete, recording a failure if it does not
+     *
+     * @param batch Batch
+     */
+    private void awaitCompletion(Batch<TKey, TValue> batch) {
+        try {
+            batch.completed().get(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.recordFailure(new SearchException("Interrupted while waiting for bulk indexing to complete", e));
+        } catch (TimeoutException e) {
+            this.recordFailure(new SearchException(
+                    "Timed out after " + CLOSE_TIMEOUT + " waiting for bulk indexing to complete", e));
+        } catch (ExecutionException e) {
+            this.recordFailure(e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    /**
+     * Records a failure, unless an earlier failure was already recorded
+     *
+     * @param e Failure
+     */
+    private void recordFailure(Throwable e) {
+        if (this.failure == null) {
+            this.failure = e;
+        }
+    }
+
+    /**
+     * A batch of events to be indexed
+     *
+     * @param items       Events
+     * @param forDeletion Whether the events represent deletions
+     * @param completed   Future that completes once the batch has been processed
+     * @param <TKey>      Event key type
+     * @param <TValue>    Event value type
+     */
+    private record Batch<TKey, TValue>(List<Event<TKey, TValue>> items, boolean forDeletion,
+                                       CompletableFuture<Void> completed) {
+    }
+
+    /**
+     * A batch whose bulk request has been issued
+     *
+     * @param <TKey>   Event key type
+     * @param <TValue> Event value type
+     */
+    private static final class InFlight<TKey, TValue> {
+        private final Batch<TKey, TValue> batch;
+        private final Set<String> ids;
+        private final long startedAt;
+        private CompletableFuture<SearchIndexBulkResults<TValue>> results;
+        private volatile long completedAt;
+
+        private InFlight(Batch<TKey, TValue> batch, Set<String> ids, long startedAt) {
+            this.batch = batch;
+            this.ids = ids;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private static final class BatchFlusher<TKey, TValue> implements Runnable {
 
-        private static final Logger LOGGER = LoggerFactory.getLogger(IndexingIdleTrigger.class);
+        private static final Logger LOGGER = LoggerFactory.getLogger(BatchFlusher.class);
         public static final long IDLE_TRIGGER_CHECK_INTERVAL = 250L;
 
         private final BulkSearchIndexerSink<TKey, TValue> sink;
         private final Duration maxIdleTime;
         private volatile boolean cancelled;
 
-        public IndexingIdleTrigger(BulkSearchIndexerSink<TKey, TValue> sink, Duration maxIdleTime) {
+        public BatchFlusher(BulkSearchIndexerSink<TKey, TValue> sink, Duration maxIdleTime) {
             this.sink = sink;
             this.maxIdleTime = maxIdleTime;
         }
@@ -335,43 +891,56 @@ public class BulkSearchIndexerSink<TKey, TValue> extends SearchIndexerSink<TKey,
         @Override
         public void run() {
             LOGGER.debug("Bulk Indexing configured with max idle time of {}", this.maxIdleTime);
-            while (!this.cancelled) {
-                // Check whether the idle time has been exceeded
-                // Do this first because we want to avoid unnecessarily taking the synchronisation lock on the items
-                // list too frequently and impacting the main processing thread that is pushing incoming items onto that
-                // list for bulk indexing.
-                long now = System.currentTimeMillis();
-                Duration idle = Duration.ofMillis(now - this.sink.lastIndexedAt);
-                if (idle.compareTo(this.maxIdleTime) >= 1) {
-                    synchronized (this.sink.items) {
-                        // Only need to trigger if there's actually something to be indexed
-                        if (!this.sink.items.isEmpty()) {
-                            LOGGER.debug("Triggering a bulk index as max idle time of {} was exceeded",
-                                         this.maxIdleTime);
-                            this.sink.idleTriggers++;
-                            try {
-                                this.sink.bulkIndex();
-                            } catch (Throwable e) {
-                                // From #202 previously failed bulk indexing on the idle trigger thread would kill the
-                                // thread rendering the trigger useless after the first failure.  We now instead log
-                                // the failure for visibility.
-                                // If it is a genuine persistent failure the main thread will encounter it in due course
-                                // and crash out in a more user-friendly fashion than an invisible background thread
-                                // dying.
-                                LOGGER.error("Background idle time bulk indexing failed:", e);
-                            }
-                        }
+            try {
+                while (!this.cancelled) {
+                    try {
+                        this.flush();
+                    } catch (RuntimeException e) {
+                        // Don't let an unexpected error kill the background thread, otherwise no batch would ever
+                        // complete again
+                        LOGGER.error("Unexpected error in Bulk Indexing background thread:", e);
+                        this.sink.recordFailure(e);
                     }
                 }
+                LOGGER.debug("Bulk Indexing background thread cancelled");
+            } finally {
+                this.sink.abandonOutstanding();
+            }
+        }
 
-                // Check again at regular intervals
-                try {
-                    Thread.sleep(IDLE_TRIGGER_CHECK_INTERVAL);
-                } catch (InterruptedException e) {
-                    // Ignored, likely means we're cancelled which we'll spot as soon as we go round our loop and exit
-                }
+        /**
+         * Performs a single iteration of the background flushing loop
+         */
+        private void flush() {
+            // Complete any batches whose bulk requests have finished, then if we're at our limit of concurrent
+            // requests wait for the oldest to finish before starting any more
+            this.sink.completeInOrder();
+            if (this.sink.inFlight.size() >= this.sink.maxConcurrentRequests) {
+                this.sink.awaitOldestInFlight();
+                return;
+            }
+
+            // Start indexing the next batch, waiting for at most our check interval for one to become available
+            Batch<TKey, TValue> batch;
+            try {
+                batch = this.sink.pending.poll(IDLE_TRIGGER_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Ignored, likely means we're cancelled which we'll spot as soon as we go round our loop and exit
+                return;
+            }
+            if (batch == this.sink.wakeUp) {
+                return;
+            } else if (batch != null) {
+                this.sink.start(batch);
+                return;
+            }
+
+            // No batch available so check whether the idle time has been exceeded
+            long now = System.currentTimeMillis();
+            Duration idle = Duration.ofMillis(now - this.sink.lastIndexedAt);
+            if (idle.compareTo(this.maxIdleTime) >= 1) {
+                this.sink.triggerIdleIndexing(this.maxIdleTime);
             }
-            LOGGER.debug("Bulk Indexing idle trigger cancelled");
         }
     }
 
@@ -402,7 +971,17 @@ public class BulkSearchIndexerSink<TKey, TValue> extends SearchIndexerSink<TKey,
         private Duration maxIdleTime = DEFAULT_IDLE_TIME;
         private int indexBatchSize = 1000;
         private int flushPerBatches = 10;
+        private int maxOutstandingBatches = DEFAULT_MAX_OUTSTANDING_BATCHES;
+        private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
         private long reportBatchSize = 1000L;
+        private boolean adaptiveBatchSizing = false;
+        private int minIndexBatchSize;
+        private int maxIndexBatchSize;
+        private Duration targetLatency = DEFAULT_TARGET_LATENCY;
+        private Function<TValue, Long> sizeEstimator;
+        private long maxBatchBytes;
+        private int bulkIngestionThreshold;
+        private ProcessedEvents processedEvents;
         /**
          * The Dead Letter Sink where events which cannot be indexed will be written
          */
@@ -527,6 +1106,111 @@ public class BulkSearchIndexerSink<TKey, TValue> extends SearchIndexerSink<TKey,
             return this;
         }
 
+        /**
+         * Sets how many full batches may be waiting for, or undergoing, indexing at once before sending further items to
+         * the sink blocks
+         *
+         * @param maxOutstandingBatches Maximum outstanding batches
+         * @return Builder
+         */
+        public Builder<TKey, TValue> maxOutstandingBatches(int maxOutstandingBatches) {
+            this.maxOutstandingBatches = maxOutstandingBatches;
+            return this;
+        }
+
+        /**
+         * Sets how many bulk requests may be in-flight concurrently, if greater than 1 then the asynchronous methods of
+         * the search indexer are used to issue bulk requests
+         *
+         * @param maxConcurrentRequests Maximum concurrent requests
+         * @return Builder
+         */
+        public Builder<TKey, TValue> maxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        /**
+         * Enables adaptive batch sizing, the configured {@link #indexBatchSize(int)} is used as the initial target batch
+         * size, and the target is then adjusted within the given bounds based upon how quickly bulk operations
+         * complete
+         *
+         * @param minBatchSize  Minimum target batch size, this is also the step by which the target is increased
+         * @param maxBatchSize  Maximum target batch size
+         * @param targetLatency Target latency for bulk operations, if {@code null} then {@link #DEFAULT_TARGET_LATENCY}
+         *                      is used
+         * @return Builder
+         */
+        public Builder<TKey, TValue> adaptiveBatchSizing(int minBatchSize, int maxBatchSize, Duration targetLatency) {
+            this.adaptiveBatchSizing = true;
+            this.minIndexBatchSize = minBatchSize;
+            this.maxIndexBatchSize = maxBatchSize;
+            this.targetLatency = targetLatency != null ? targetLatency : DEFAULT_TARGET_LATENCY;
+            return this;
+        }
+
+        /**
+         * Disables adaptive batch sizing, this is the default
+         *
+         * @return Builder
+         */
+        public Builder<TKey, TValue> fixedBatchSizing() {
+            this.adaptiveBatchSizing = false;
+            return this;
+        }
+
+        /**
+         * Sets a function that estimates the serialized size of items in bytes, used in conjunction with
+         * {@link #maxBatchBytes(long)} to limit the size of bulk requests
+         *
+         * @param sizeEstimator Size estimator
+         * @return Builder
+         */
+        public Builder<TKey, TValue> sizeEstimator(Function<TValue, Long> sizeEstimator) {
+            this.sizeEstimator = sizeEstimator;
+            return this;
+        }
+
+        /**
+         * Sets the maximum estimated size in bytes of a batch, once a batch reaches this size it is indexed regardless
+         * of how many items it contains.  Only applies if a {@link #sizeEstimator(Function)} is also set, a value of
+         * zero, the default, means no limit.
+         *
+         * @param maxBatchBytes Maximum batch size in bytes
+         * @return Builder
+         */
+        public Builder<TKey, TValue> maxBatchBytes(long maxBatchBytes) {
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        /**
+         * Sets how many consecutive batches must wait for earlier batches to be indexed before the sink considers
+         * itself to have a backlog, and calls {@link SearchIndexer#beginBulkIngestion()}.  A value of zero, the default,
+         * disables backlog detection.
+         *
+         * @param batches Number of consecutive batches
+         * @return Builder
+         */
+        public Builder<TKey, TValue> bulkIngestionThreshold(int batches) {
+            this.bulkIngestionThreshold = batches;
+            return this;
+        }
+
+        /**
+         * Sets where the sink queues processed events for reporting to their event source.  By default the sink reports
+         * them itself, if a shared {@link ProcessedEvents} is supplied then the caller is responsible for calling
+         * {@link ProcessedEvents#report()} from the thread consuming events from the event source, e.g. as a
+         * {@link PartitionedSink} does for the sinks of its workers.
+         *
+         * @param processedEvents Processed events
+         * @return Builder
+         */
+        public Builder<TKey, TValue> processedEvents(ProcessedEvents processedEvents) {
+            this.processedEvents = processedEvents;
+            return this;
+        }
+
         /**
          * Sets the maximum idle time for the sink
          *
@@ -553,7 +1237,19 @@ public class BulkSearchIndexerSink<TKey, TValue> extends SearchIndexerSink<TKey,
         public BulkSearchIndexerSink<TKey, TValue> build() {
             BulkSearchIndexerSink<TKey, TValue> sink = new BulkSearchIndexerSink<>(this.indexer, this.idProvider, this.isDeletion, this.onDelete,
                                                                                    this.indexBatchSize, this.flushPerBatches,
-                                                                                   this.reportBatchSize, this.maxIdleTime, this.deadLetterSink);
+                                                                                   this.maxOutstandingBatches,
+                                                                                   this.maxConcurrentRequests,
+                                                                                   this.reportBatchSize, this.maxIdleTime, this.deadLetterSink,
+                                                                                   this.adaptiveBatchSizing ?
+                                                                                   new AdaptiveBatchSizer(
+                                                                                           this.indexBatchSize,
+                                                                                           this.minIndexBatchSize,
+                                                                                           this.maxIndexBatchSize,
+                                                                                           this.targetLatency) : null,
+                                                                                   this.sizeEstimator,
+                                                                                   this.maxBatchBytes,
+                                                                                   this.bulkIngestionThreshold,
+                                                                                   this.processedEvents);
             if (eventListeners != null) {
                 stream(eventListeners).forEach(sink::addListener);
             }
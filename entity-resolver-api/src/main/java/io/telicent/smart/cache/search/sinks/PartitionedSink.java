@@ -0,0 +1,339 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.sinks;
+
+import io.telicent.smart.cache.projectors.Sink;
+import io.telicent.smart.cache.projectors.sinks.builder.SinkBuilder;
+import io.telicent.smart.cache.search.SearchException;
+import io.telicent.smart.cache.sources.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * A sink that spreads events across several workers, each of which sends the events it is given to its own independent
+ * sink on its own thread
+ * <p>
+ * Events are assigned to workers by a partitioner function, all events with the same partition are always sent to the
+ * same worker, and thus to the same sink, in the order they were received.  When used with Kafka, partitioning by the
+ * topic partition an event was read from means that each worker reports events as processed, and thus has offsets
+ * committed, for its own partitions independently of the other workers, while offsets within a partition still only
+ * ever advance in order.
+ * </p>
+ * <p>
+ * Each worker has a bounded queue of events waiting to be sent to its sink, if a worker's queue is full then
+ * {@link #send(Event)} blocks until there is space.  If any worker's sink fails then the failure is thrown from the
+ * next call to {@link #send(Event)} or {@link #close()}.
+ * </p>
+ * <p>
+ * Since event sources need not be thread-safe, e.g. a {@code KafkaConsumer} may only be used from the thread that polls
+ * it, the workers' sinks must not report events as processed themselves.  Instead a shared {@link ProcessedEvents} is
+ * supplied to this sink, and to each worker's sink, e.g. via
+ * {@link BulkSearchIndexerSink.Builder#processedEvents(ProcessedEvents)}.  The workers' sinks queue their processed
+ * events there, and this sink reports them from the thread calling {@link #send(Event)} and {@link #close()}.
+ * </p>
+ *
+ * @param <TKey>   Event key type
+ * @param <TValue> Event value type
+ */
+public class PartitionedSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedSink.class);
+
+    /**
+     * Default worker queue depth, currently <strong>1,000</strong> events
+     */
+    public static final int DEFAULT_QUEUE_DEPTH = 1_000;
+
+    private final ToIntFunction<Event<TKey, TValue>> partitioner;
+    private final List<Worker<TKey, TValue>> workers;
+    private final List<Future<?>> running = new ArrayList<>();
+    private final ExecutorService executor;
+    private final ProcessedEvents processedEvents;
+    private volatile Throwable failure;
+    private boolean closed;
+
+    /**
+     * Creates a new partitioned sink
+     *
+     * @param workers         Number of workers
+     * @param queueDepth      Maximum number of events that may be queued for each worker
+     * @param sinkFactory     Factory that creates the sink for each worker, given the worker number
+     * @param partitioner     Function that calculates the partition of an event, events with the same partition are
+     *                        always sent to the same worker
+     * @param processedEvents Where the workers' sinks queue processed events for reporting to their event source, may
+     *                        be {@code null} if the workers' sinks don't report processed events
+     */
+    PartitionedSink(int workers, int queueDepth, IntFunction<Sink<Event<TKey, TValue>>> sinkFactory,
+                    ToIntFunction<Event<TKey, TValue>> partitioner, ProcessedEvents processedEvents) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers must be >= 1");
+        }
+        if (queueDepth <= 0) {
+            throw new IllegalArgumentException("queueDepth must be >= 1");
+        }
+        Objects.requireNonNull(sinkFactory, "Sink factory cannot be null");
+        this.partitioner = Objects.requireNonNull(partitioner, "Partitioner cannot be null");
+        this.processedEvents = processedEvents != null ? processedEvents : new ProcessedEvents();
+
+        this.workers = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            this.workers.add(new Worker<>(this, i, new ArrayBlockingQueue<>(queueDepth),
+                                          Objects.requireNonNull(sinkFactory.apply(i),
+                                                                 "Sink factory cannot return null")));
+        }
+        this.executor = Executors.newFixedThreadPool(workers);
+        for (Worker<TKey, TValue> worker : this.workers) {
+            this.running.add(this.executor.submit(worker));
+        }
+    }
+
+    @Override
+    public void send(Event<TKey, TValue> event) {
+        this.processedEvents.report();
+        this.checkForFailure();
+        if (this.closed) {
+            throw new IllegalStateException("Sink has been closed");
+        }
+        Worker<TKey, TValue> worker =
+                this.workers.get(workerFor(this.partitioner.applyAsInt(event), this.workers.size()));
+        try {
+            // Wait for space in the worker's queue, waking periodically to check the worker hasn't failed as otherwise
+            // we could wait forever, and to report events the workers have processed meanwhile
+            while (!worker.queue.offer(event, Worker.POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                this.processedEvents.report();
+                this.checkForFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchException("Interrupted while waiting to queue an event for a worker", e);
+        }
+    }
+
+    /**
+     * Selects the worker for a partition, a partition is always assigned to the same worker
+     *
+     * @param partition Partition, as calculated by the partitioner function
+     * @param workers   Number of workers
+     * @return Worker number
+     */
+    static int workerFor(int partition, int workers) {
+        return Math.floorMod(partition, workers);
+    }
+
+    /**
+     * Gets the number of workers
+     *
+     * @return Number of workers
+     */
+    public int workers() {
+        return this.workers.size();
+    }
+
+    /**
+     * Throws an error if any worker has failed
+     */
+    private void checkForFailure() {
+        Throwable e = this.failure;
+        if (e != null) {
+            throw new SearchException("Partitioned sink worker failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!this.closed) {
+            this.closed = true;
+            // Let each worker drain its queue, which ends by closing its sink, and wait for them all to finish
+            this.workers.forEach(Worker::finish);
+            for (Future<?> future : this.running) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Throwable e) {
+                    // Ignored, workers record their own failures
+                }
+            }
+            this.executor.shutdownNow();
+        }
+        // Events processed before any failure are still safe to report since each worker only reports events in order
+        this.processedEvents.report();
+        this.checkForFailure();
+    }
+
+    /**
+     * A worker that sends events to its own sink
+     *
+     * @param <TKey>   Event key type
+     * @param <TValue> Event value type
+     */
+    private static final class Worker<TKey, TValue> implements Runnable {
+        private static final long POLL_INTERVAL = 250L;
+
+        private final PartitionedSink<TKey, TValue> parent;
+        private final int id;
+        private final BlockingQueue<Event<TKey, TValue>> queue;
+        private final Sink<Event<TKey, TValue>> sink;
+        private volatile boolean finished;
+
+        private Worker(PartitionedSink<TKey, TValue> parent, int id, BlockingQueue<Event<TKey, TValue>> queue,
+                       Sink<Event<TKey, TValue>> sink) {
+            this.parent = parent;
+            this.id = id;
+            this.queue = queue;
+            this.sink = sink;
+        }
+
+        private void finish() {
+            this.finished = true;
+        }
+
+        @Override
+        public void run() {
+            LOGGER.debug("Partitioned sink worker {} started", this.id);
+            try {
+                while (this.parent.failure == null) {
+                    Event<TKey, TValue> event = this.queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                    if (event != null) {
+                        this.sink.send(event);
+                    } else if (this.finished && this.queue.isEmpty()) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                LOGGER.warn("Partitioned sink worker {} interrupted", this.id);
+            } catch (Throwable e) {
+                LOGGER.error("Partitioned sink worker {} failed:", this.id, e);
+                this.parent.failure = e;
+            } finally {
+                // Always close our sink, if a failure occurred the sink may also fail to close but we've already
+                // recorded the original failure
+                try {
+                    this.sink.close();
+                } catch (Throwable e) {
+                    if (this.parent.failure == null) {
+                        LOGGER.error("Partitioned sink worker {} failed to close its sink:", this.id, e);
+                        this.parent.failure = e;
+                    }
+                }
+                LOGGER.debug("Partitioned sink worker {} finished", this.id);
+            }
+        }
+    }
+
+    /**
+     * Creates a new builder for a partitioned sink
+     *
+     * @param <TKey>   Key type
+     * @param <TValue> Value type
+     * @return Builder
+     */
+    public static <TKey, TValue> Builder<TKey, TValue> createPartitioned() {
+        return new Builder<>();
+    }
+
+    /**
+     * A builder for partitioned sinks
+     *
+     * @param <TKey>   Key type
+     * @param <TValue> Value type
+     */
+    public static final class Builder<TKey, TValue>
+            implements SinkBuilder<Event<TKey, TValue>, PartitionedSink<TKey, TValue>> {
+
+        private int workers = 1;
+        private int queueDepth = DEFAULT_QUEUE_DEPTH;
+        private IntFunction<Sink<Event<TKey, TValue>>> sinkFactory;
+        private ToIntFunction<Event<TKey, TValue>> partitioner = e -> 0;
+        private ProcessedEvents processedEvents;
+
+        /**
+         * Sets the number of workers
+         *
+         * @param workers Number of workers
+         * @return Builder
+         */
+        public Builder<TKey, TValue> workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of events that may be queued for each worker
+         *
+         * @param queueDepth Queue depth
+         * @return Builder
+         */
+        public Builder<TKey, TValue> queueDepth(int queueDepth) {
+            this.queueDepth = queueDepth;
+            return this;
+        }
+
+        /**
+         * Sets the factory that creates the sink for each worker, the factory is given the worker number
+         *
+         * @param sinkFactory Sink factory
+         * @return Builder
+         */
+        public Builder<TKey, TValue> sinkPerWorker(IntFunction<Sink<Event<TKey, TValue>>> sinkFactory) {
+            this.sinkFactory = sinkFactory;
+            return this;
+        }
+
+        /**
+         * Sets the function that calculates the partition of an event, if not set all events are sent to the first
+         * worker
+         *
+         * @param partitioner Partitioner
+         * @return Builder
+         */
+        public Builder<TKey, TValue> partitionBy(ToIntFunction<Event<TKey, TValue>> partitioner) {
+            this.partitioner = partitioner;
+            return this;
+        }
+
+        /**
+         * Sets where the workers' sinks queue processed events, these are then reported to their event source by the
+         * built sink from the thread sending events to it.  The same instance <strong>MUST</strong> be given to each
+         * worker's sink.
+         *
+         * @param processedEvents Processed events
+         * @return Builder
+         */
+        public Builder<TKey, TValue> processedEvents(ProcessedEvents processedEvents) {
+            this.processedEvents = processedEvents;
+            return this;
+        }
+
+        @Override
+        public PartitionedSink<TKey, TValue> build() {
+            return new PartitionedSink<>(this.workers, this.queueDepth, this.sinkFactory, this.partitioner,
+                                         this.processedEvents);
+        }
+    }
+}
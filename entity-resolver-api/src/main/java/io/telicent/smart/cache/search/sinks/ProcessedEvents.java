@@ -0,0 +1,100 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.sinks;
+
+import io.telicent.smart.cache.sources.Event;
+import io.telicent.smart.cache.sources.EventSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Events that a sink has finished processing, waiting to be reported as processed to their {@link EventSource}
+ * <p>
+ * Event sources are not required to be thread-safe, e.g. a Kafka event source reports processed events by committing
+ * offsets via a {@code KafkaConsumer}, which may only be used from the thread that polls it.  Sinks that finish
+ * processing events on other threads, e.g. a background indexing thread, or the workers of a {@link PartitionedSink},
+ * therefore {@link #add(List)} them here, which is safe from any thread.  The thread that consumes events from the
+ * event source then calls {@link #report()}, which is the only place {@link EventSource#processed(java.util.Collection)}
+ * is called.
+ * </p>
+ * <p>
+ * Events are reported in the order they were added, so as long as each producer adds its events in order, as the sinks
+ * in this package do, offsets only ever advance in order.
+ * </p>
+ */
+public final class ProcessedEvents {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProcessedEvents.class);
+
+    private final Queue<List<? extends Event<?, ?>>> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Adds events that have been processed, they are reported to their event source on the next call to
+     * {@link #report()}.  May be called from any thread.
+     *
+     * @param events Processed events
+     */
+    public void add(List<? extends Event<?, ?>> events) {
+        if (!events.isEmpty()) {
+            this.pending.add(events);
+        }
+    }
+
+    /**
+     * Gets whether there are any processed events waiting to be reported
+     *
+     * @return True if no events are waiting, false otherwise
+     */
+    public boolean isEmpty() {
+        return this.pending.isEmpty();
+    }
+
+    /**
+     * Reports all processed events added so far to their event sources
+     * <p>
+     * This <strong>MUST</strong> only be called from the thread that consumes events from the event sources.  Failure
+     * to report processed events isn't considered fatal, the worst case for Kafka is that we fail to commit our very
+     * latest offsets and thus are forced to re-process some events when we are restarted.
+     * </p>
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void report() {
+        Map<EventSource, List<Event>> bySource = new LinkedHashMap<>();
+        List<? extends Event<?, ?>> events;
+        while ((events = this.pending.poll()) != null) {
+            for (Event<?, ?> event : events) {
+                if (event.source() != null) {
+                    bySource.computeIfAbsent(event.source(), s -> new ArrayList<>()).add(event);
+                }
+            }
+        }
+        // NB - Per Javadoc this part of the Events API is unchecked by design
+        bySource.forEach((source, processed) -> {
+            try {
+                source.processed(processed);
+            } catch (Throwable t) {
+                LOGGER.warn("Failed to report items processed to event source {} ({}): {}",
+                            source.getClass().getSimpleName(), source, t.getMessage());
+            }
+        });
+    }
+}
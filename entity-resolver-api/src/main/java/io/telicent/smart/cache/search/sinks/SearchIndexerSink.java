@@ -78,6 +78,17 @@ public class SearchIndexerSink<TKey, TValue> implements Sink<Event<TKey, TValue>
      */
     protected final Sink<Event<TKey, TValue>> deadLetterSink;
 
+    /**
+     * Events that have been processed, waiting to be reported to their event source
+     */
+    protected final ProcessedEvents processedEvents;
+
+    /**
+     * Whether this sink reports its processed events itself, or whether they are reported by whoever supplied a shared
+     * {@link ProcessedEvents}
+     */
+    private final boolean reportsProcessedEvents;
+
     /**
      * An event support delegate used for configuration of event listeners.
      */
@@ -93,11 +104,14 @@ public class SearchIndexerSink<TKey, TValue> implements Sink<Event<TKey, TValue>
      * @param reportBatchSize Controls how often progress is reported by the sink i.e. how often it logs
      * @param deadLetterSink  A dead letter sink where events which cannot be indexed will be written, which may be
      *                        null
+     * @param processedEvents Where processed events are queued for reporting to their event source, if {@code null}
+     *                        then the sink reports them itself from the thread calling {@link #send(Event)} and
+     *                        {@link #close()}, otherwise whoever supplied it is responsible for reporting them
      */
     SearchIndexerSink(SearchIndexer<TValue> indexer, Function<TValue, String> idProvider,
                       Function<Event<TKey, TValue>, Boolean> isDeletion, IndexDeletionAction deleteAction,
                       long reportBatchSize,
-                      final Sink<Event<TKey, TValue>> deadLetterSink) {
+                      final Sink<Event<TKey, TValue>> deadLetterSink, ProcessedEvents processedEvents) {
         requireNonNull(indexer, "Search Indexer cannot be null");
         requireNonNull(idProvider, "ID Provider function cannot be null");
         requireNonNull(isDeletion, "Deletion detection function cannot be null");
@@ -115,6 +129,19 @@ public class SearchIndexerSink<TKey, TValue> implements Sink<Event<TKey, TValue>
                                         .metricsLabel("indexed_documents")
                                         .build();
         this.deadLetterSink = deadLetterSink;
+        this.reportsProcessedEvents = processedEvents == null;
+        this.processedEvents = processedEvents != null ? processedEvents : new ProcessedEvents();
+    }
+
+    /**
+     * Reports processed events to their event source, unless they are reported by whoever supplied a shared
+     * {@link ProcessedEvents}.  This <strong>MUST</strong> only be called from the thread calling {@link #send(Event)}
+     * and {@link #close()}, since that is the thread consuming events from the event source.
+     */
+    protected void reportProcessed() {
+        if (this.reportsProcessedEvents) {
+            this.processedEvents.report();
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -142,8 +169,8 @@ public class SearchIndexerSink<TKey, TValue> implements Sink<Event<TKey, TValue>
             emit(eventSupport, counterEvent("search.indexer.sink.success"), durationEvent("search.indexer.sink.success.duration", startTime, System.currentTimeMillis()));
 
             if (event.source() != null) {
-                // NB - Per Javadoc this part of the Event Source API intentionally unchecked
-                event.source().processed(List.of(event));
+                this.processedEvents.add(List.of(event));
+                this.reportProcessed();
             }
         } catch (RuntimeException ex) {
             emit(eventSupport, counterEvent("search.indexer.sink.failure"), durationEvent("search.indexer.sink.failure.duration", startTime, System.currentTimeMillis()));
@@ -163,6 +190,7 @@ public class SearchIndexerSink<TKey, TValue> implements Sink<Event<TKey, TValue>
 
     @Override
     public void close() {
+        this.reportProcessed();
         this.tracker.reportThroughput();
         this.tracker.reset();
 
@@ -194,6 +222,7 @@ public class SearchIndexerSink<TKey, TValue> implements Sink<Event<TKey, TValue>
         private Function<Event<TKey, TValue>, Boolean> isDeletion = e -> false;
         private IndexDeletionAction onDelete = IndexDeletionAction.CONTENTS;
         private long reportBatchSize = 1000L;
+        private ProcessedEvents processedEvents;
         /**
          * The Dead Letter Sink where events which cannot be indexed will be written
          */
@@ -283,10 +312,24 @@ public class SearchIndexerSink<TKey, TValue> implements Sink<Event<TKey, TValue>
             return this;
         }
 
+        /**
+         * Sets where the sink queues processed events for reporting to their event source.  By default the sink reports
+         * them itself, if a shared {@link ProcessedEvents} is supplied then the caller is responsible for calling
+         * {@link ProcessedEvents#report()} from the thread consuming events from the event source, e.g. as a
+         * {@link PartitionedSink} does for the sinks of its workers.
+         *
+         * @param processedEvents Processed events
+         * @return Builder
+         */
+        public Builder<TKey, TValue> processedEvents(ProcessedEvents processedEvents) {
+            this.processedEvents = processedEvents;
+            return this;
+        }
+
         @Override
         public SearchIndexerSink<TKey, TValue> build() {
             return new SearchIndexerSink<>(this.indexer, this.idProvider, this.isDeletion, this.onDelete,
-                                           this.reportBatchSize, this.deadLetterSink);
+                                           this.reportBatchSize, this.deadLetterSink, this.processedEvents);
         }
     }
 }
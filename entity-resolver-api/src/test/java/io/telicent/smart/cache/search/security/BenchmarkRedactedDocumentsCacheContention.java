@@ -0,0 +1,178 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.security;
+
+import io.telicent.jena.abac.AttributeValueSet;
+import io.telicent.smart.cache.search.options.SearchOptions;
+import io.telicent.smart.cache.search.options.SecurityOptions;
+import org.apache.jena.atlas.lib.CacheFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A contention benchmark for {@link CaffeineRedactedDocumentsCache}, measures cache throughput as the number of
+ * concurrent request threads increases, comparing it against the same cache with every operation serialized on a single
+ * monitor, which approximates the previously synchronized user lookup
+ * <p>
+ * This is deliberately not named so as to be picked up by the default test run, run it explicitly via
+ * {@code mvn test -pl entity-resolver-api -Dtest=BenchmarkRedactedDocumentsCacheContention}
+ * </p>
+ */
+public class BenchmarkRedactedDocumentsCacheContention {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BenchmarkRedactedDocumentsCacheContention.class);
+
+    private static final int USERS = 64;
+    private static final int DOCUMENTS = 1_000;
+    private static final int OPERATIONS_PER_THREAD = 200_000;
+
+    private static SecureSearchContext createContext(String username, RedactedDocumentsCache cache) {
+        SecurityOptions security =
+                new SecurityOptions(username, AttributeValueSet.EMPTY, null, CacheFactory.createNullCache());
+        return SecureSearchContext.create()
+                                  .fromSearchOptions(SearchOptions.create().withSecurity(security).build())
+                                  .withRedactionCache(cache)
+                                  .build();
+    }
+
+    private static double measureThroughput(RedactedDocumentsCache cache, int threads) throws Exception {
+        List<SecureSearchContext> contexts = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            contexts.add(createContext("user" + i, cache));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        SecureSearchContext context = contexts.get((i + offset) % USERS);
+                        String id = Integer.toString((i * 31 + offset) % DOCUMENTS);
+                        if (cache.isVisible(context, id, "1") == null) {
+                            cache.setVisible(context, id, "1", i % 2 == 0);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            long elapsed = System.nanoTime() - started;
+            return ((double) threads * OPERATIONS_PER_THREAD) / elapsed * 1_000_000_000L;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Measures throughput for doubling thread counts up to the given maximum
+     *
+     * @param name       Name of the cache for logging
+     * @param cache      Cache
+     * @param maxThreads Maximum threads
+     * @return Throughput at the largest thread count measured
+     * @throws Exception Thrown if a worker fails
+     */
+    private static double measureScaling(String name, RedactedDocumentsCache cache, int maxThreads) throws Exception {
+        // Warm up so that caches are populated and JIT compilation has happened
+        measureThroughput(cache, maxThreads);
+
+        double baseline = measureThroughput(cache, 1);
+        double throughput = baseline;
+        LOGGER.info("{}: 1 thread: {} ops/sec", name, String.format("%.0f", baseline));
+        for (int threads = 2; threads <= maxThreads; threads *= 2) {
+            throughput = measureThroughput(cache, threads);
+            LOGGER.info("{}: {} threads: {} ops/sec ({}x speedup)", name, threads, String.format("%.0f", throughput),
+                        String.format("%.2f", throughput / baseline));
+        }
+        return throughput;
+    }
+
+    @Test
+    public void benchmark_concurrentLookups_outperformSynchronizedLookups() throws Exception {
+        // given
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        try (CaffeineRedactedDocumentsCache cache = new CaffeineRedactedDocumentsCache(USERS, DOCUMENTS,
+                                                                                        Duration.ofMinutes(5));
+             SynchronizedRedactedDocumentsCache synchronizedCache = new SynchronizedRedactedDocumentsCache(
+                     new CaffeineRedactedDocumentsCache(USERS, DOCUMENTS, Duration.ofMinutes(5)))) {
+            // when
+            double serialized = measureScaling("Synchronized", synchronizedCache, maxThreads);
+            double concurrent = measureScaling("Lock free", cache, maxThreads);
+
+            // then
+            // Only meaningful with enough cores for contention to occur, and deliberately only a relative comparison
+            // since absolute scaling depends too heavily on the hardware the benchmark happens to run on
+            if (maxThreads >= 4) {
+                int measuredThreads = Integer.highestOneBit(maxThreads);
+                Assert.assertTrue(concurrent > serialized,
+                                  "Lock free lookups should outperform synchronized lookups with " + measuredThreads
+                                  + " threads");
+            }
+        }
+    }
+
+    /**
+     * A cache that serializes every operation on a single monitor, approximating {@link CaffeineRedactedDocumentsCache}
+     * before its user lookup was made lock free
+     */
+    private static final class SynchronizedRedactedDocumentsCache implements RedactedDocumentsCache {
+        private final RedactedDocumentsCache delegate;
+
+        private SynchronizedRedactedDocumentsCache(RedactedDocumentsCache delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void invalidate() {
+            this.delegate.invalidate();
+        }
+
+        @Override
+        public synchronized Boolean isVisible(SecureSearchContext context, String id, String version) {
+            return this.delegate.isVisible(context, id, version);
+        }
+
+        @Override
+        public synchronized void setVisible(SecureSearchContext context, String id, String version,
+                                            boolean visibility) {
+            this.delegate.setVisible(context, id, version, visibility);
+        }
+
+        @Override
+        public synchronized void close() {
+            this.delegate.close();
+        }
+    }
+}
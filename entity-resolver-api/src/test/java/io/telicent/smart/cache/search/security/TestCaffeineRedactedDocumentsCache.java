@@ -0,0 +1,128 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.security;
+
+import io.telicent.jena.abac.AttributeValueSet;
+import io.telicent.jena.abac.attributes.AttributeValue;
+import io.telicent.jena.abac.attributes.ValueTerm;
+import io.telicent.smart.cache.search.options.SearchOptions;
+import io.telicent.smart.cache.search.options.SecurityOptions;
+import org.apache.jena.atlas.lib.CacheFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+
+public class TestCaffeineRedactedDocumentsCache {
+
+    private CaffeineRedactedDocumentsCache cache;
+
+    @BeforeMethod
+    public void setup() {
+        this.cache = new CaffeineRedactedDocumentsCache(10, 100, Duration.ofMinutes(5));
+    }
+
+    @AfterMethod
+    public void teardown() {
+        this.cache.close();
+    }
+
+    /**
+     * Builds a fresh attribute value set on every call, so tests don't accidentally rely upon instance identity
+     *
+     * @param clearance Clearance
+     * @return Attribute value set
+     */
+    private static AttributeValueSet attributes(String clearance) {
+        return AttributeValueSet.of(AttributeValue.of("clearance", ValueTerm.value(clearance)));
+    }
+
+    private static SecureSearchContext contextFor(String username, AttributeValueSet attributes) {
+        SecurityOptions security = new SecurityOptions(username, attributes, null, CacheFactory.createNullCache());
+        return SecureSearchContext.create()
+                                  .fromSearchOptions(SearchOptions.create().withSecurity(security).build())
+                                  .build();
+    }
+
+    @Test
+    public void givenEmptyCache_whenCheckingVisibility_thenUnknown() {
+        // Given
+        SecureSearchContext context = contextFor("test", attributes("S"));
+
+        // When and Then
+        Assert.assertNull(this.cache.isVisible(context, "a", "1"));
+    }
+
+    @Test
+    public void givenCachedVisibility_whenCheckingWithEqualButDistinctAttributes_thenSameEntryUsed() {
+        // Given
+        this.cache.setVisible(contextFor("test", attributes("S")), "a", "1", true);
+
+        // When
+        Boolean visible = this.cache.isVisible(contextFor("test", attributes("S")), "a", "1");
+
+        // Then
+        Assert.assertEquals(visible, Boolean.TRUE);
+    }
+
+    @Test
+    public void givenCachedVisibility_whenUsersAttributesChange_thenUnknown() {
+        // Given
+        this.cache.setVisible(contextFor("test", attributes("S")), "a", "1", true);
+
+        // When
+        Boolean visible = this.cache.isVisible(contextFor("test", attributes("TS")), "a", "1");
+
+        // Then
+        Assert.assertNull(visible);
+    }
+
+    @Test
+    public void givenCachedVisibility_whenCheckingForDifferentUserWithSameAttributes_thenUnknown() {
+        // Given
+        this.cache.setVisible(contextFor("test", attributes("S")), "a", "1", true);
+
+        // When
+        Boolean visible = this.cache.isVisible(contextFor("other", attributes("S")), "a", "1");
+
+        // Then
+        Assert.assertNull(visible);
+    }
+
+    @Test
+    public void givenCachedVisibility_whenCheckingDifferentVersion_thenUnknown() {
+        // Given
+        this.cache.setVisible(contextFor("test", attributes("S")), "a", "1", false);
+
+        // When and Then
+        Assert.assertEquals(this.cache.isVisible(contextFor("test", attributes("S")), "a", "1"), Boolean.FALSE);
+        Assert.assertNull(this.cache.isVisible(contextFor("test", attributes("S")), "a", "2"));
+    }
+
+    @Test
+    public void givenCachedVisibility_whenInvalidated_thenUnknown() {
+        // Given
+        this.cache.setVisible(contextFor("test", attributes("S")), "a", "1", true);
+
+        // When
+        this.cache.invalidate();
+
+        // Then
+        Assert.assertNull(this.cache.isVisible(contextFor("test", attributes("S")), "a", "1"));
+    }
+}
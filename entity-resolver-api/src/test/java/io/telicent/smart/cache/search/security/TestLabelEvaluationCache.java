@@ -0,0 +1,202 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.security;
+
+import io.telicent.jena.abac.AttributeValueSet;
+import io.telicent.jena.abac.Hierarchy;
+import io.telicent.jena.abac.attributes.Attribute;
+import io.telicent.jena.abac.attributes.AttributeExpr;
+import io.telicent.jena.abac.attributes.AttributeParser;
+import io.telicent.jena.abac.attributes.AttributeValue;
+import io.telicent.jena.abac.attributes.ValueTerm;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class TestLabelEvaluationCache {
+
+    private static final Attribute CLEARANCE = Attribute.create("clearance");
+
+    private LabelEvaluationCache cache;
+
+    @BeforeMethod
+    public void setup() {
+        this.cache = new LabelEvaluationCache(100, Duration.ofMinutes(5));
+    }
+
+    /**
+     * Builds a fresh attribute value set on every call, so tests don't accidentally rely upon instance identity
+     *
+     * @param clearance Clearance
+     * @return Attribute value set
+     */
+    private static AttributeValueSet attributes(String clearance) {
+        return AttributeValueSet.of(AttributeValue.of("clearance", ValueTerm.value(clearance)));
+    }
+
+    /**
+     * Builds a fresh clearance hierarchy on every call, so tests don't accidentally rely upon instance identity
+     *
+     * @param values Hierarchy values, from most to least privileged
+     * @return Hierarchy
+     */
+    private static Hierarchy hierarchy(String... values) {
+        return Hierarchy.create(CLEARANCE, List.of(values).stream().map(ValueTerm::value).toList());
+    }
+
+    private static AttributeExpr expression(String label) {
+        return AttributeParser.parseAttrExprList(label).get(0);
+    }
+
+    private static Map<Attribute, Hierarchy> consulted(Hierarchy hierarchy) {
+        Map<Attribute, Hierarchy> hierarchies = new HashMap<>();
+        hierarchies.put(CLEARANCE, hierarchy);
+        return hierarchies;
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenZeroEntries_whenCreatingCache_thenRejected() {
+        // Given, When and Then
+        new LabelEvaluationCache(0, Duration.ofMinutes(5));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenZeroExpiry_whenCreatingCache_thenRejected() {
+        // Given, When and Then
+        new LabelEvaluationCache(100, Duration.ZERO);
+    }
+
+    @Test
+    public void givenEmptyCache_whenGetting_thenMiss() {
+        // Given, When and Then
+        Assert.assertNull(this.cache.get(attributes("S"), expression("clearance=S"), a -> null));
+    }
+
+    @Test
+    public void givenCachedResult_whenGettingWithEqualButDistinctAttributes_thenHit() {
+        // Given
+        this.cache.put(attributes("S"), expression("clearance=S"), true, Map.of());
+
+        // When
+        Boolean result = this.cache.get(attributes("S"), expression("clearance=S"), a -> null);
+
+        // Then
+        Assert.assertEquals(result, Boolean.TRUE);
+    }
+
+    @Test
+    public void givenCachedResult_whenGettingWithDifferentAttributes_thenMiss() {
+        // Given
+        this.cache.put(attributes("S"), expression("clearance=S"), true, Map.of());
+
+        // When and Then
+        Assert.assertNull(this.cache.get(attributes("TS"), expression("clearance=S"), a -> null));
+        Assert.assertNull(this.cache.get(AttributeValueSet.EMPTY, expression("clearance=S"), a -> null));
+    }
+
+    @Test
+    public void givenCachedResult_whenGettingWithDifferentExpression_thenMiss() {
+        // Given
+        this.cache.put(attributes("S"), expression("clearance=S"), true, Map.of());
+
+        // When and Then
+        Assert.assertNull(this.cache.get(attributes("S"), expression("clearance=TS"), a -> null));
+    }
+
+    @Test
+    public void givenResultThatConsultedHierarchy_whenGettingWithEqualButDistinctHierarchy_thenHit() {
+        // Given
+        this.cache.put(attributes("TS"), expression("clearance=S"), true, consulted(hierarchy("TS", "S", "O")));
+
+        // When
+        Boolean result = this.cache.get(attributes("TS"), expression("clearance=S"), a -> hierarchy("TS", "S", "O"));
+
+        // Then
+        Assert.assertEquals(result, Boolean.TRUE);
+    }
+
+    @Test
+    public void givenResultThatConsultedHierarchy_whenHierarchyChanges_thenMissAndEntryInvalidated() {
+        // Given
+        this.cache.put(attributes("TS"), expression("clearance=S"), true, consulted(hierarchy("TS", "S", "O")));
+
+        // When
+        Boolean changed = this.cache.get(attributes("TS"), expression("clearance=S"), a -> hierarchy("S", "TS", "O"));
+
+        // Then
+        Assert.assertNull(changed);
+        Assert.assertNull(this.cache.get(attributes("TS"), expression("clearance=S"), a -> hierarchy("TS", "S", "O")));
+    }
+
+    @Test
+    public void givenResultThatConsultedMissingHierarchy_whenHierarchyAdded_thenMiss() {
+        // Given
+        this.cache.put(attributes("TS"), expression("clearance=S"), false, consulted(null));
+
+        // When and Then
+        Assert.assertEquals(this.cache.get(attributes("TS"), expression("clearance=S"), a -> null), Boolean.FALSE);
+        Assert.assertNull(this.cache.get(attributes("TS"), expression("clearance=S"), a -> hierarchy("TS", "S")));
+    }
+
+    @Test
+    public void givenResultThatConsultedHierarchy_whenHierarchyRemoved_thenMiss() {
+        // Given
+        this.cache.put(attributes("TS"), expression("clearance=S"), true, consulted(hierarchy("TS", "S")));
+
+        // When and Then
+        Assert.assertNull(this.cache.get(attributes("TS"), expression("clearance=S"), a -> null));
+    }
+
+    @Test
+    public void givenCachedResults_whenInvalidating_thenMiss() {
+        // Given
+        this.cache.put(attributes("S"), expression("clearance=S"), true, Map.of());
+
+        // When
+        this.cache.invalidate();
+
+        // Then
+        Assert.assertNull(this.cache.get(attributes("S"), expression("clearance=S"), a -> null));
+    }
+
+    @Test
+    public void givenSharedCache_whenContextsForEqualAttributesEvaluate_thenSecondContextReusesResult() {
+        // Given
+        LabelEvaluationCache shared = spy(this.cache);
+        SecureSearchContext first =
+                SecureSearchContext.create().userAttributes(attributes("S")).withEvaluationCache(shared).build();
+        SecureSearchContext second =
+                SecureSearchContext.create().userAttributes(attributes("S")).withEvaluationCache(shared).build();
+
+        // When
+        boolean firstResult = first.evaluate(List.of(expression("clearance=S")));
+        boolean secondResult = second.evaluate(List.of(expression("clearance=S")));
+
+        // Then
+        Assert.assertTrue(firstResult);
+        Assert.assertTrue(secondResult);
+        verify(shared, times(1)).put(any(), any(), anyBoolean(), any());
+        verify(shared, times(2)).get(any(), any(), any());
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.security;
+
+import io.telicent.jena.abac.AttributeValueSet;
+import io.telicent.jena.abac.attributes.AttributeValue;
+import io.telicent.jena.abac.attributes.ValueTerm;
+import io.telicent.smart.cache.entity.sinks.converters.DefaultOutputFields;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestSecurityRequirements {
+
+    private static Map<String, Object> documentWithLabels(Map<String, Object> securityLabels) {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("uri", "https://example.org/id");
+        document.put(DefaultOutputFields.SECURITY_LABELS, securityLabels);
+        return document;
+    }
+
+    @Test
+    public void givenNoDocument_whenCalculatingRequirements_thenNone() {
+        // Given, When and Then
+        Assert.assertEquals(SecurityRequirements.forDocument(null), List.of());
+    }
+
+    @Test
+    public void givenDocumentWithoutLabels_whenCalculatingRequirements_thenNone() {
+        // Given
+        Map<String, Object> document = Map.of("uri", "https://example.org/id");
+
+        // When and Then
+        Assert.assertEquals(SecurityRequirements.forDocument(document), List.of());
+    }
+
+    @Test
+    public void givenDocumentWithBlankDefaultLabels_whenCalculatingRequirements_thenNone() {
+        // Given
+        Map<String, Object> document =
+                documentWithLabels(Map.of(DefaultOutputFields.SECURITY_LABELS_SUB_FIELD_DEFAULTS, " "));
+
+        // When and Then
+        Assert.assertEquals(SecurityRequirements.forDocument(document), List.of());
+    }
+
+    @Test
+    public void givenDocumentWithDefaultLabels_whenCalculatingRequirements_thenSortedAndDeduplicated() {
+        // Given
+        Map<String, Object> document = documentWithLabels(
+                Map.of(DefaultOutputFields.SECURITY_LABELS_SUB_FIELD_DEFAULTS, "nationality=UK, clearance=S, "
+                                                                               + "nationality=UK",
+                       DefaultOutputFields.SECURITY_LABELS_SUB_FIELD_GRAPH, "clearance=O"));
+
+        // When
+        List<String> requirements = SecurityRequirements.forDocument(document);
+
+        // Then
+        Assert.assertEquals(requirements, List.of("clearance=S", "nationality=UK"));
+    }
+
+    @Test
+    public void givenDocumentWithFineGrainedLabelsOnNestedField_whenCalculatingRequirements_thenNone() {
+        // Given
+        Map<String, Object> document =
+                documentWithLabels(Map.of(DefaultOutputFields.SECURITY_LABELS_SUB_FIELD_DEFAULTS, "clearance=S"));
+        document.put("literals", Map.of("name", List.of(
+                Map.of("value", "Secret", DefaultOutputFields.SECURITY_LABELS, Map.of("name", "clearance=TS")))));
+
+        // When and Then
+        Assert.assertEquals(SecurityRequirements.forDocument(document), List.of());
+    }
+
+    @Test
+    public void givenDocumentWithFineGrainedLabelsAtTopLevel_whenCalculatingRequirements_thenNone() {
+        // Given
+        Map<String, Object> document = documentWithLabels(
+                Map.of(DefaultOutputFields.SECURITY_LABELS_SUB_FIELD_DEFAULTS, "clearance=S", "name",
+                       "clearance=TS"));
+
+        // When and Then
+        Assert.assertEquals(SecurityRequirements.forDocument(document), List.of());
+    }
+
+    @Test
+    public void givenLabelsWithSeparatorsInsideQuotesAndParentheses_whenCalculatingRequirements_thenSplitCorrectly() {
+        // Given
+        String labels = "(clearance=S || clearance=TS), department=\"a,b\"";
+
+        // When
+        List<String> requirements = SecurityRequirements.forLabels(labels);
+
+        // Then
+        Assert.assertEquals(requirements, List.of("(clearance=S || clearance=TS)", "department=\"a,b\""));
+    }
+
+    @Test
+    public void givenMalformedLabels_whenCalculatingRequirements_thenNone() {
+        // Given, When and Then
+        Assert.assertEquals(SecurityRequirements.forLabels("clearance=S, (nationality=UK"), List.of());
+        Assert.assertEquals(SecurityRequirements.forLabels("clearance=S,,nationality=UK"), List.of());
+        Assert.assertEquals(SecurityRequirements.forLabels(""), List.of());
+        Assert.assertEquals(SecurityRequirements.forLabels(null), List.of());
+    }
+
+    @Test
+    public void givenRequirements_whenDeterminingUnsatisfied_thenOnlyParseableUnsatisfiedRequirementsReturned() {
+        // Given
+        SecureSearchContext context =
+                SecureSearchContext.create()
+                                   .userAttributes(AttributeValueSet.of(
+                                           AttributeValue.of("clearance", ValueTerm.value("S"))))
+                                   .withoutEvaluationCache()
+                                   .build();
+
+        // When
+        List<String> unsatisfied =
+                context.unsatisfiedRequirements(List.of("clearance=S", "nationality=UK", "(clearance=S"));
+
+        // Then
+        Assert.assertEquals(unsatisfied, List.of("nationality=UK"));
+        Assert.assertEquals(context.unsatisfiedRequirements(List.of()), List.of());
+        Assert.assertEquals(context.unsatisfiedRequirements(null), List.of());
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.sinks;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+
+public class TestAdaptiveBatchSizer {
+
+    private static final Duration TARGET_LATENCY = Duration.ofSeconds(1);
+
+    @DataProvider(name = "invalid")
+    public Object[][] invalid() {
+        return new Object[][] {
+                { 0, 100, TARGET_LATENCY },
+                { 10, 5, TARGET_LATENCY },
+                { 10, 100, null },
+                { 10, 100, Duration.ZERO },
+                { 10, 100, Duration.ofSeconds(-1) }
+        };
+    }
+
+    @Test(dataProvider = "invalid", expectedExceptions = IllegalArgumentException.class)
+    public void test_create_invalid(int min, int max, Duration targetLatency) {
+        // given, when and then
+        new AdaptiveBatchSizer(50, min, max, targetLatency);
+    }
+
+    @Test
+    public void test_create_initialClampedToBounds() {
+        // given, when and then
+        Assert.assertEquals(new AdaptiveBatchSizer(1, 10, 100, TARGET_LATENCY).target(), 10);
+        Assert.assertEquals(new AdaptiveBatchSizer(1000, 10, 100, TARGET_LATENCY).target(), 100);
+        Assert.assertEquals(new AdaptiveBatchSizer(50, 10, 100, TARGET_LATENCY).target(), 50);
+    }
+
+    @Test
+    public void test_completed_fast_increasesAdditively() {
+        // given
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 10, 100, TARGET_LATENCY);
+
+        // when
+        sizer.completed(100, 0, 0);
+
+        // then
+        Assert.assertEquals(sizer.target(), 60);
+
+        // and
+        sizer.completed(TARGET_LATENCY.toMillis(), 0, 0);
+        Assert.assertEquals(sizer.target(), 70);
+    }
+
+    @Test
+    public void test_completed_fast_cappedAtMaximum() {
+        // given
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(95, 10, 100, TARGET_LATENCY);
+
+        // when
+        sizer.completed(100, 0, 0);
+        sizer.completed(100, 0, 0);
+
+        // then
+        Assert.assertEquals(sizer.target(), 100);
+    }
+
+    @Test
+    public void test_completed_slow_halves() {
+        // given
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(80, 10, 100, TARGET_LATENCY);
+
+        // when
+        sizer.completed(TARGET_LATENCY.toMillis() + 1, 0, 0);
+
+        // then
+        Assert.assertEquals(sizer.target(), 40);
+    }
+
+    @Test
+    public void test_completed_rejections_halves() {
+        // given
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(80, 10, 100, TARGET_LATENCY);
+
+        // when
+        sizer.completed(100, 1, 0);
+
+        // then
+        Assert.assertEquals(sizer.target(), 40);
+    }
+
+    @Test
+    public void test_completed_failures_halves() {
+        // given
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(80, 10, 100, TARGET_LATENCY);
+
+        // when
+        sizer.completed(100, 0, 3);
+
+        // then
+        Assert.assertEquals(sizer.target(), 40);
+    }
+
+    @Test
+    public void test_failed_halvesButNotBelowMinimum() {
+        // given
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(30, 10, 100, TARGET_LATENCY);
+
+        // when
+        sizer.failed();
+        sizer.failed();
+
+        // then
+        Assert.assertEquals(sizer.target(), 10);
+    }
+
+    @Test
+    public void test_completed_recoversAfterDecrease() {
+        // given
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(80, 10, 100, TARGET_LATENCY);
+        sizer.completed(100, 2, 0);
+
+        // when
+        sizer.completed(100, 0, 0);
+        sizer.completed(100, 0, 0);
+
+        // then
+        Assert.assertEquals(sizer.target(), 60);
+    }
+
+    @Test
+    public void test_create_minEqualsMax_targetFixed() {
+        // given
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 25, 25, TARGET_LATENCY);
+
+        // when
+        sizer.completed(100, 0, 0);
+        int afterIncrease = sizer.target();
+        sizer.failed();
+
+        // then
+        Assert.assertEquals(afterIncrease, 25);
+        Assert.assertEquals(sizer.target(), 25);
+    }
+
+    @Test
+    public void test_completed_increaseStepIsMinimum() {
+        // given
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, 7, 1000, TARGET_LATENCY);
+
+        // when
+        sizer.completed(100, 0, 0);
+
+        // then
+        Assert.assertEquals(sizer.target(), 107);
+    }
+
+    @Test
+    public void test_completed_sawtooth_convergesBelowOverloadPoint() {
+        // given
+        // A backend that rejects any batch larger than 75 items
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(10, 10, 200, TARGET_LATENCY);
+        int largestAccepted = 0;
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            int batch = sizer.target();
+            if (batch > 75) {
+                sizer.completed(100, 1, 0);
+            } else {
+                largestAccepted = Math.max(largestAccepted, batch);
+                sizer.completed(100, 0, 0);
+            }
+            Assert.assertTrue(sizer.target() >= 10 && sizer.target() <= 200);
+        }
+
+        // then
+        Assert.assertEquals(largestAccepted, 70);
+        Assert.assertTrue(sizer.target() <= 80);
+    }
+
+    @Test
+    public void test_completed_concurrentOutcomes_staysWithinBounds() throws InterruptedException {
+        // given
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 10, 100, TARGET_LATENCY);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            boolean slow = t % 2 == 0;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    if (slow) {
+                        sizer.completed(TARGET_LATENCY.toMillis() * 2, 0, 0);
+                    } else {
+                        sizer.completed(1, 0, 0);
+                    }
+                }
+            });
+        }
+
+        // when
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // then
+        Assert.assertTrue(sizer.target() >= 10 && sizer.target() <= 100);
+    }
+}
@@ -0,0 +1,469 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.sinks;
+
+import io.telicent.smart.cache.search.SearchException;
+import io.telicent.smart.cache.search.SearchIndexer;
+import io.telicent.smart.cache.search.model.SearchIndexBulkResult;
+import io.telicent.smart.cache.search.model.SearchIndexBulkResults;
+import io.telicent.smart.cache.sources.Event;
+import io.telicent.smart.cache.sources.EventSource;
+import org.mockito.InOrder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.mockito.Mockito.*;
+
+public class TestBulkSearchIndexerSink {
+
+    private static final long TIMEOUT = 5_000L;
+
+    /**
+     * Records the events reported as processed to an event source, and the threads they were reported on
+     */
+    private static final class RecordingSource {
+        private final EventSource<String, String> source;
+        private final List<Event<String, String>> processed = new CopyOnWriteArrayList<>();
+        private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+        @SuppressWarnings("unchecked")
+        private RecordingSource() {
+            this.source = mock(EventSource.class);
+            doAnswer(invocation -> {
+                this.threads.add(Thread.currentThread());
+                this.processed.addAll(invocation.getArgument(0));
+                return null;
+            }).when(this.source).processed(any());
+        }
+
+        @SuppressWarnings("unchecked")
+        private Event<String, String> event(String value) {
+            Event<String, String> event = mock(Event.class);
+            when(event.value()).thenReturn(value);
+            when(event.source()).thenReturn(this.source);
+            return event;
+        }
+
+        private List<Event<String, String>> events(int count) {
+            List<Event<String, String>> events = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                events.add(this.event("doc-" + i));
+            }
+            return events;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SearchIndexer<String> mockIndexer() {
+        SearchIndexer<String> indexer = mock(SearchIndexer.class);
+        when(indexer.bulkIndex(any(), any())).thenAnswer(invocation -> succeeded(invocation.getArgument(1)));
+        when(indexer.bulkDeleteDocuments(any(), any())).thenAnswer(
+                invocation -> succeeded(invocation.getArgument(1)));
+        when(indexer.bulkDeleteContents(any(), any())).thenAnswer(invocation -> succeeded(invocation.getArgument(1)));
+        return indexer;
+    }
+
+    private static SearchIndexBulkResults<String> succeeded(Collection<String> items) {
+        return succeeded(items, -1, 0);
+    }
+
+    private static SearchIndexBulkResults<String> succeeded(Collection<String> items, long took, int rejections) {
+        List<SearchIndexBulkResult<String>> results =
+                items.stream().map(item -> new SearchIndexBulkResult<>(true, item)).toList();
+        return new SearchIndexBulkResults<>(results, took, rejections);
+    }
+
+    private static BulkSearchIndexerSink.Builder<String, String> builder(SearchIndexer<String> indexer) {
+        return BulkSearchIndexerSink.<String, String>createBulk().indexer(indexer).idProvider(v -> v);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                Assert.fail("Timed out waiting for condition");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void test_send_concurrentRequests_completedInOrder() throws InterruptedException {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        List<CompletableFuture<SearchIndexBulkResults<String>>> futures = new CopyOnWriteArrayList<>();
+        List<Collection<String>> requests = new CopyOnWriteArrayList<>();
+        when(indexer.bulkIndexAsync(any(), any())).thenAnswer(invocation -> {
+            CompletableFuture<SearchIndexBulkResults<String>> future = new CompletableFuture<>();
+            requests.add(invocation.getArgument(1));
+            futures.add(future);
+            return future;
+        });
+        RecordingSource source = new RecordingSource();
+        List<Event<String, String>> events = source.events(6);
+        BulkSearchIndexerSink<String, String> sink = builder(indexer).batchSize(2).maxConcurrentRequests(3).build();
+
+        // when
+        events.forEach(sink::send);
+        await(() -> futures.size() == 3);
+        for (int i = futures.size() - 1; i >= 0; i--) {
+            futures.get(i).complete(succeeded(requests.get(i)));
+        }
+        sink.close();
+
+        // then
+        Assert.assertEquals(source.processed, events);
+        Assert.assertFalse(source.threads.isEmpty());
+        Assert.assertTrue(source.threads.stream().allMatch(t -> t == Thread.currentThread()));
+    }
+
+    @Test
+    public void test_send_processedOnlyReportedOnSendingThread() throws InterruptedException {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        RecordingSource source = new RecordingSource();
+        List<Event<String, String>> events = source.events(4);
+        BulkSearchIndexerSink<String, String> sink = builder(indexer).batchSize(2).build();
+
+        // when
+        sink.send(events.get(0));
+        sink.send(events.get(1));
+        verify(indexer, timeout(TIMEOUT)).bulkIndex(any(), any());
+        await(() -> sink.batchesIndexed() == 1);
+
+        // then
+        Assert.assertTrue(source.processed.isEmpty());
+
+        // and
+        sink.send(events.get(2));
+        Assert.assertEquals(source.processed, events.subList(0, 2));
+        sink.send(events.get(3));
+        sink.close();
+        Assert.assertEquals(source.processed, events);
+        Assert.assertTrue(source.threads.stream().allMatch(t -> t == Thread.currentThread()));
+    }
+
+    @Test
+    public void test_send_maxOutstandingBatches_blocksSender() throws Exception {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(indexer.bulkIndex(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return succeeded(invocation.getArgument(1));
+        });
+        RecordingSource source = new RecordingSource();
+        List<Event<String, String>> events = source.events(4);
+        BulkSearchIndexerSink<String, String> sink = builder(indexer).batchSize(2).maxOutstandingBatches(1).build();
+        sink.send(events.get(0));
+        sink.send(events.get(1));
+        Assert.assertTrue(started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
+        // when
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> {
+            sink.send(events.get(2));
+            sink.send(events.get(3));
+        });
+
+        // then
+        Thread.sleep(250);
+        Assert.assertFalse(blocked.isDone());
+        release.countDown();
+        blocked.get(TIMEOUT, TimeUnit.MILLISECONDS);
+        sink.close();
+        verify(indexer, times(2)).bulkIndex(any(), any());
+    }
+
+    @Test
+    public void test_send_backlog_beginsAndEndsBulkIngestion() {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        when(indexer.bulkIndex(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return succeeded(invocation.getArgument(1));
+        });
+        RecordingSource source = new RecordingSource();
+        BulkSearchIndexerSink<String, String> sink =
+                builder(indexer).batchSize(2).maxOutstandingBatches(1).bulkIngestionThreshold(2).build();
+
+        // when
+        source.events(8).forEach(sink::send);
+
+        // then
+        verify(indexer).beginBulkIngestion();
+        verify(indexer, never()).endBulkIngestion();
+
+        // and
+        sink.close();
+        InOrder inOrder = inOrder(indexer);
+        inOrder.verify(indexer).beginBulkIngestion();
+        inOrder.verify(indexer).endBulkIngestion();
+        verify(indexer, times(1)).beginBulkIngestion();
+        verify(indexer, times(1)).endBulkIngestion();
+    }
+
+    @Test
+    public void test_send_noBacklog_neverBeginsBulkIngestion() {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        RecordingSource source = new RecordingSource();
+        BulkSearchIndexerSink<String, String> sink = builder(indexer).batchSize(2).bulkIngestionThreshold(2).build();
+
+        // when
+        sink.send(source.event("a"));
+        sink.send(source.event("b"));
+        sink.close();
+
+        // then
+        verify(indexer, never()).beginBulkIngestion();
+        verify(indexer, never()).endBulkIngestion();
+    }
+
+    @Test(timeOut = TIMEOUT)
+    public void test_send_backlog_beginBulkIngestionFails_closeStillReturns() {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        when(indexer.bulkIndex(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return succeeded(invocation.getArgument(1));
+        });
+        doThrow(new SearchException("boom")).when(indexer).beginBulkIngestion();
+        RecordingSource source = new RecordingSource();
+        List<Event<String, String>> events = source.events(8);
+        BulkSearchIndexerSink<String, String> sink =
+                builder(indexer).batchSize(2).maxOutstandingBatches(1).bulkIngestionThreshold(2).build();
+
+        // when
+        events.forEach(sink::send);
+        sink.close();
+
+        // then
+        verify(indexer).beginBulkIngestion();
+        verify(indexer).endBulkIngestion();
+        verify(indexer, times(4)).bulkIndex(any(), any());
+        Assert.assertEquals(source.processed, events);
+    }
+
+    @Test(timeOut = 3 * TIMEOUT)
+    public void test_idle_endBulkIngestionFails_backgroundIndexingContinues() throws InterruptedException {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        when(indexer.bulkIndex(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return succeeded(invocation.getArgument(1));
+        });
+        doThrow(new SearchException("boom")).when(indexer).endBulkIngestion();
+        RecordingSource source = new RecordingSource();
+        List<Event<String, String>> events = source.events(9);
+        BulkSearchIndexerSink<String, String> sink = builder(indexer).batchSize(2)
+                                                                     .maxOutstandingBatches(1)
+                                                                     .bulkIngestionThreshold(2)
+                                                                     .maxIdleTime(Duration.ofSeconds(1))
+                                                                     .build();
+
+        // when
+        // The final, partial, batch is only indexed once the idle time is exceeded and that also ends bulk ingestion,
+        // which fails on the background thread
+        events.subList(0, 7).forEach(sink::send);
+        await(() -> sink.idleTriggers() == 1);
+        verify(indexer, timeout(TIMEOUT)).endBulkIngestion();
+        events.subList(7, 9).forEach(sink::send);
+        sink.close();
+
+        // then
+        verify(indexer, times(5)).bulkIndex(any(), any());
+        Assert.assertEquals(source.processed, events);
+    }
+
+    private static BulkSearchIndexerSink<String, String> adaptiveSink(SearchIndexer<String> indexer) {
+        return builder(indexer).batchSize(20).adaptiveBatchSizing(10, 100, Duration.ofSeconds(1)).build();
+    }
+
+    private static void sendBatch(BulkSearchIndexerSink<String, String> sink, int size) {
+        RecordingSource source = new RecordingSource();
+        source.events(size).forEach(sink::send);
+    }
+
+    @Test
+    public void test_adaptiveSizing_fastRequests_growTarget() {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        when(indexer.bulkIndex(any(), any())).thenAnswer(invocation -> succeeded(invocation.getArgument(1), 10, 0));
+        BulkSearchIndexerSink<String, String> sink = adaptiveSink(indexer);
+        Assert.assertEquals(sink.targetBatchSize(), 20);
+
+        // when
+        sendBatch(sink, 20);
+        sink.close();
+
+        // then
+        Assert.assertEquals(sink.targetBatchSize(), 30);
+    }
+
+    @Test
+    public void test_adaptiveSizing_slowRequests_shrinkTarget() {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        when(indexer.bulkIndex(any(), any())).thenAnswer(invocation -> succeeded(invocation.getArgument(1), 5_000, 0));
+        BulkSearchIndexerSink<String, String> sink = adaptiveSink(indexer);
+
+        // when
+        sendBatch(sink, 20);
+        sink.close();
+
+        // then
+        Assert.assertEquals(sink.targetBatchSize(), 10);
+    }
+
+    @Test
+    public void test_adaptiveSizing_rejections_shrinkTarget() {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        when(indexer.bulkIndex(any(), any())).thenAnswer(invocation -> succeeded(invocation.getArgument(1), 10, 1));
+        BulkSearchIndexerSink<String, String> sink = adaptiveSink(indexer);
+
+        // when
+        sendBatch(sink, 20);
+        sink.close();
+
+        // then
+        Assert.assertEquals(sink.targetBatchSize(), 10);
+    }
+
+    @Test
+    public void test_send_afterBackgroundFailure_throws() throws InterruptedException {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        when(indexer.bulkIndex(any(), any())).thenThrow(new SearchException("boom"));
+        RecordingSource source = new RecordingSource();
+        BulkSearchIndexerSink<String, String> sink = builder(indexer).batchSize(2).build();
+        sink.send(source.event("a"));
+        sink.send(source.event("b"));
+
+        // when
+        boolean failed = false;
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!failed && System.currentTimeMillis() < deadline) {
+            try {
+                sink.send(source.event("c"));
+                Thread.sleep(10);
+            } catch (SearchException e) {
+                failed = true;
+            }
+        }
+
+        // then
+        Assert.assertTrue(failed);
+        Assert.assertThrows(SearchException.class, sink::close);
+        verify(indexer, times(1)).bulkIndex(any(), any());
+        Assert.assertTrue(source.processed.isEmpty());
+    }
+
+    @Test
+    public void test_close_afterBackgroundFailure_throws() {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        when(indexer.bulkIndex(any(), any())).thenThrow(new SearchException("boom"));
+        RecordingSource source = new RecordingSource();
+        BulkSearchIndexerSink<String, String> sink = builder(indexer).batchSize(2).build();
+
+        // when
+        sink.send(source.event("a"));
+        sink.send(source.event("b"));
+
+        // then
+        Assert.assertThrows(SearchException.class, sink::close);
+        Assert.assertThrows(SearchException.class, () -> sink.send(source.event("c")));
+    }
+
+    @Test
+    public void test_send_afterClose_deletionsAreDeleted() {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        RecordingSource source = new RecordingSource();
+        BulkSearchIndexerSink<String, String> sink = builder(indexer).batchSize(2)
+                                                                     .isDeletionWhen(e -> true)
+                                                                     .onDeletion(IndexDeletionAction.DOCUMENT)
+                                                                     .build();
+        sink.close();
+        List<Event<String, String>> events = source.events(2);
+
+        // when
+        events.forEach(sink::send);
+        sink.close();
+
+        // then
+        verify(indexer).bulkDeleteDocuments(any(), eq(List.of("doc-0", "doc-1")));
+        verify(indexer, never()).bulkIndex(any(), any());
+        verify(indexer, never()).bulkDeleteContents(any(), any());
+        Assert.assertEquals(source.processed, events);
+    }
+
+    @Test
+    public void test_send_afterClose_indexesDirectly() {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        RecordingSource source = new RecordingSource();
+        BulkSearchIndexerSink<String, String> sink = builder(indexer).batchSize(2).build();
+        sink.close();
+
+        // when
+        sink.send(source.event("a"));
+        sink.send(source.event("b"));
+
+        // then
+        verify(indexer).bulkIndex(any(), eq(List.of("a", "b")));
+        verify(indexer, never()).bulkDeleteContents(any(), any());
+        verify(indexer, never()).bulkDeleteDocuments(any(), any());
+    }
+
+    @Test
+    public void test_close_sharedProcessedEvents_leavesReportingToOwner() {
+        // given
+        SearchIndexer<String> indexer = mockIndexer();
+        RecordingSource source = new RecordingSource();
+        ProcessedEvents processed = new ProcessedEvents();
+        BulkSearchIndexerSink<String, String> sink =
+                builder(indexer).batchSize(2).processedEvents(processed).build();
+        List<Event<String, String>> events = source.events(3);
+
+        // when
+        events.forEach(sink::send);
+        sink.close();
+
+        // then
+        Assert.assertTrue(source.processed.isEmpty());
+        Assert.assertFalse(processed.isEmpty());
+
+        // and
+        processed.report();
+        Assert.assertEquals(source.processed, events);
+        Assert.assertTrue(processed.isEmpty());
+        Assert.assertTrue(source.threads.stream().allMatch(t -> t == Thread.currentThread()));
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.sinks;
+
+import io.telicent.smart.cache.projectors.Sink;
+import io.telicent.smart.cache.search.SearchException;
+import io.telicent.smart.cache.sources.Event;
+import io.telicent.smart.cache.sources.EventSource;
+import io.telicent.smart.cache.sources.memory.SimpleEvent;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.mockito.Mockito.*;
+
+public class TestPartitionedSink {
+
+    private static final long TIMEOUT = 5_000L;
+
+    /**
+     * A worker sink that records the events it receives, and whether it was closed
+     */
+    private static final class RecordingSink implements Sink<Event<Integer, Integer>> {
+        private final int worker;
+        private final Consumer<Event<Integer, Integer>> onSend;
+        private final List<Event<Integer, Integer>> received = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private RecordingSink(int worker, Consumer<Event<Integer, Integer>> onSend) {
+            this.worker = worker;
+            this.onSend = onSend;
+        }
+
+        @Override
+        public void send(Event<Integer, Integer> event) {
+            this.onSend.accept(event);
+            this.received.add(event);
+        }
+
+        @Override
+        public void close() {
+            this.closed.set(true);
+        }
+    }
+
+    private static PartitionedSink<Integer, Integer> partitionedSink(int workers, int queueDepth,
+                                                                     List<RecordingSink> sinks,
+                                                                     Consumer<Event<Integer, Integer>> onSend) {
+        return PartitionedSink.<Integer, Integer>createPartitioned()
+                              .workers(workers)
+                              .queueDepth(queueDepth)
+                              .sinkPerWorker(worker -> {
+                                  RecordingSink sink = new RecordingSink(worker, onSend);
+                                  sinks.add(sink);
+                                  return sink;
+                              })
+                              .partitionBy(Event::key)
+                              .build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void test_create_noWorkers() {
+        // given, when and then
+        partitionedSink(0, 10, new ArrayList<>(), e -> {});
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void test_create_noQueue() {
+        // given, when and then
+        partitionedSink(2, 0, new ArrayList<>(), e -> {});
+    }
+
+    @Test
+    public void test_workerFor_negativePartitions() {
+        // given, when and then
+        Assert.assertEquals(PartitionedSink.workerFor(-1, 4), 3);
+        Assert.assertEquals(PartitionedSink.workerFor(Integer.MIN_VALUE, 4), 0);
+        Assert.assertEquals(PartitionedSink.workerFor(5, 4), 1);
+    }
+
+    @Test
+    public void test_send_perKeyOrderingAcrossWorkers() {
+        // given
+        List<RecordingSink> sinks = new CopyOnWriteArrayList<>();
+        PartitionedSink<Integer, Integer> sink = partitionedSink(4, 10, sinks, e -> {});
+
+        // when
+        for (int i = 0; i < 1_000; i++) {
+            sink.send(new SimpleEvent<>(null, i % 10 - 5, i));
+        }
+        sink.close();
+
+        // then
+        Map<Integer, Integer> keyToWorker = new ConcurrentHashMap<>();
+        int total = 0;
+        for (RecordingSink worker : sinks) {
+            Map<Integer, Integer> lastValues = new ConcurrentHashMap<>();
+            for (Event<Integer, Integer> event : worker.received) {
+                // Each key only ever goes to a single worker...
+                Assert.assertEquals(keyToWorker.computeIfAbsent(event.key(), k -> worker.worker), worker.worker);
+                // ...which receives its events in the order they were sent
+                Integer last = lastValues.put(event.key(), event.value());
+                if (last != null) {
+                    Assert.assertTrue(last < event.value());
+                }
+            }
+            total += worker.received.size();
+        }
+        Assert.assertEquals(total, 1_000);
+        Assert.assertEquals(keyToWorker.size(), 10);
+        Assert.assertTrue(Set.copyOf(keyToWorker.values()).size() > 1);
+    }
+
+    @Test
+    public void test_close_drainsEveryQueue() {
+        // given
+        List<RecordingSink> sinks = new CopyOnWriteArrayList<>();
+        PartitionedSink<Integer, Integer> sink = partitionedSink(3, 100, sinks, e -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        for (int i = 0; i < 300; i++) {
+            sink.send(new SimpleEvent<>(null, i, i));
+        }
+
+        // when
+        sink.close();
+
+        // then
+        Assert.assertEquals(sinks.size(), 3);
+        for (RecordingSink worker : sinks) {
+            Assert.assertEquals(worker.received.size(), 100);
+            Assert.assertTrue(worker.closed.get());
+        }
+    }
+
+    @Test
+    public void test_send_workerFailure_surfacesOnSendAndClose() throws InterruptedException {
+        // given
+        List<RecordingSink> sinks = new CopyOnWriteArrayList<>();
+        PartitionedSink<Integer, Integer> sink = partitionedSink(2, 10, sinks, e -> {
+            if (e.value() < 0) {
+                throw new SearchException("boom");
+            }
+        });
+        sink.send(new SimpleEvent<>(null, 0, -1));
+
+        // when
+        boolean failed = false;
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!failed && System.currentTimeMillis() < deadline) {
+            try {
+                sink.send(new SimpleEvent<>(null, 1, 1));
+                Thread.sleep(10);
+            } catch (SearchException e) {
+                failed = true;
+            }
+        }
+
+        // then
+        Assert.assertTrue(failed);
+        Assert.assertThrows(SearchException.class, sink::close);
+        for (RecordingSink worker : sinks) {
+            Assert.assertTrue(worker.closed.get());
+        }
+    }
+
+    @Test
+    public void test_close_workerFailure_surfaces() {
+        // given
+        List<RecordingSink> sinks = new CopyOnWriteArrayList<>();
+        PartitionedSink<Integer, Integer> sink = partitionedSink(2, 10, sinks, e -> {
+            if (e.value() < 0) {
+                throw new SearchException("boom");
+            }
+        });
+
+        // when
+        sink.send(new SimpleEvent<>(null, 0, -1));
+
+        // then
+        Assert.assertThrows(SearchException.class, sink::close);
+        Assert.assertThrows(SearchException.class, () -> sink.send(new SimpleEvent<>(null, 0, 1)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_send_processedEventsReportedOnSendingThread() {
+        // given
+        EventSource<Integer, Integer> source = mock(EventSource.class);
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        List<Event<Integer, Integer>> reported = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread());
+            reported.addAll(invocation.getArgument(0));
+            return null;
+        }).when(source).processed(any());
+        ProcessedEvents processedEvents = new ProcessedEvents();
+        PartitionedSink<Integer, Integer> sink =
+                PartitionedSink.<Integer, Integer>createPartitioned()
+                               .workers(4)
+                               .sinkPerWorker(worker -> new RecordingSink(worker, e -> processedEvents.add(List.of(e))))
+                               .partitionBy(Event::key)
+                               .processedEvents(processedEvents)
+                               .build();
+        List<Event<Integer, Integer>> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Event<Integer, Integer> event = mock(Event.class);
+            when(event.key()).thenReturn(i % 4);
+            when(event.value()).thenReturn(i);
+            when(event.source()).thenReturn(source);
+            events.add(event);
+        }
+
+        // when
+        events.forEach(sink::send);
+        sink.close();
+
+        // then
+        Assert.assertEquals(Set.copyOf(reported), Set.copyOf(events));
+        Assert.assertEquals(reported.size(), events.size());
+        Assert.assertTrue(threads.stream().allMatch(t -> t == Thread.currentThread()));
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.sinks;
+
+import io.telicent.smart.cache.sources.Event;
+import io.telicent.smart.cache.sources.EventSource;
+import io.telicent.smart.cache.sources.memory.SimpleEvent;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.*;
+
+public class TestProcessedEvents {
+
+    @SuppressWarnings("unchecked")
+    private static EventSource<String, String> mockSource() {
+        return mock(EventSource.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Event<String, String> event(String value, EventSource<String, String> source) {
+        Event<String, String> event = mock(Event.class);
+        when(event.value()).thenReturn(value);
+        when(event.source()).thenReturn(source);
+        return event;
+    }
+
+    @Test
+    public void test_report_empty() {
+        // given
+        ProcessedEvents processed = new ProcessedEvents();
+
+        // when and then
+        Assert.assertTrue(processed.isEmpty());
+        processed.add(List.of());
+        Assert.assertTrue(processed.isEmpty());
+        processed.report();
+    }
+
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void test_report_groupedBySourceInOrder() {
+        // given
+        EventSource<String, String> a = mockSource();
+        EventSource<String, String> b = mockSource();
+        Event<String, String> a1 = event("a1", a), a2 = event("a2", a), b1 = event("b1", b), a3 = event("a3", a);
+        ProcessedEvents processed = new ProcessedEvents();
+        processed.add(List.of(a1, b1));
+        processed.add(List.of(a2));
+        processed.add(List.of(a3));
+
+        // when
+        processed.report();
+
+        // then
+        verify(a).processed((Collection) List.of(a1, a2, a3));
+        verify(b).processed((Collection) List.of(b1));
+        Assert.assertTrue(processed.isEmpty());
+
+        // and
+        processed.report();
+        verify(a, times(1)).processed(any());
+        verify(b, times(1)).processed(any());
+    }
+
+    @Test
+    public void test_report_eventsWithoutSourceIgnored() {
+        // given
+        ProcessedEvents processed = new ProcessedEvents();
+        processed.add(List.of(new SimpleEvent<>(null, "key", "value")));
+
+        // when
+        processed.report();
+
+        // then
+        Assert.assertTrue(processed.isEmpty());
+    }
+
+    @Test
+    public void test_report_sourceFailureDoesNotPreventOtherSources() {
+        // given
+        EventSource<String, String> a = mockSource();
+        EventSource<String, String> b = mockSource();
+        doThrow(new IllegalStateException("commit failed")).when(a).processed(any());
+        Event<String, String> a1 = event("a1", a), b1 = event("b1", b);
+        ProcessedEvents processed = new ProcessedEvents();
+        processed.add(List.of(a1, b1));
+
+        // when
+        processed.report();
+
+        // then
+        verify(a).processed(any());
+        verify(b).processed(any());
+    }
+
+    @Test
+    public void test_add_fromOtherThreads_reportedOnCallingThread() {
+        // given
+        EventSource<String, String> source = mockSource();
+        List<Thread> threads = new ArrayList<>();
+        doAnswer(invocation -> threads.add(Thread.currentThread())).when(source).processed(any());
+        ProcessedEvents processed = new ProcessedEvents();
+
+        // when
+        CompletableFuture.allOf(CompletableFuture.runAsync(() -> processed.add(List.of(event("a", source)))),
+                                CompletableFuture.runAsync(() -> processed.add(List.of(event("b", source)))))
+                         .join();
+        processed.report();
+
+        // then
+        Assert.assertEquals(threads, List.of(Thread.currentThread()));
+    }
+}
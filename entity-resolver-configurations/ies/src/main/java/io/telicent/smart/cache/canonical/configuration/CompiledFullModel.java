@@ -0,0 +1,238 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.canonical.configuration;
+
+import java.util.*;
+
+/**
+ * A compiled, immutable, scoring form of a {@link FullModel}.
+ * <p>
+ * Field names used by the model's relations are assigned ordinals, each relation becomes a bitmask over those ordinals
+ * and its weighted combined score, which depends only on the model, is computed once.  Scoring a candidate is then a matter of
+ * building the bitmask of its matched fields and summing the weighted scores of the relations whose masks it covers.
+ * The top candidates are selected with a bounded heap rather than sorting every candidate.
+ * </p>
+ * <p>
+ * Scores are identical to those calculated by {@link FullModel#calculateScore(List)}.
+ * </p>
+ */
+public final class CompiledFullModel {
+
+    private final Map<String, Integer> ordinals;
+    private final int words;
+    private final long[] relationMasks;
+    private final double[] relationScores;
+    private final double totalWeight;
+
+    private CompiledFullModel(Map<String, Integer> ordinals, int words, long[] relationMasks,
+                              double[] relationScores, double totalWeight) {
+        this.ordinals = ordinals;
+        this.words = words;
+        this.relationMasks = relationMasks;
+        this.relationScores = relationScores;
+        this.totalWeight = totalWeight;
+    }
+
+    /**
+     * Compiles the given model
+     *
+     * @param model Model
+     * @return Compiled model
+     */
+    public static CompiledFullModel compile(FullModel model) {
+        Map<String, Integer> ordinals = new HashMap<>();
+        for (Relation relation : model.relations) {
+            for (String field : relation.fields) {
+                ordinals.putIfAbsent(field, ordinals.size());
+            }
+        }
+
+        double[] fieldScores = new double[ordinals.size()];
+        ordinals.forEach((field, ordinal) -> fieldScores[ordinal] =
+                model.scores != null ? model.scores.getScore(field) : 0.0);
+
+        int words = Math.max(1, (ordinals.size() + Long.SIZE - 1) / Long.SIZE);
+        int relationCount = model.relations.size();
+        long[] relationMasks = new long[relationCount * words];
+        double[] relationScores = new double[relationCount];
+        double totalWeight = 0.0;
+        for (int r = 0; r < relationCount; r++) {
+            Relation relation = model.relations.get(r);
+            double combinedProduct = 1.0;
+            double complementProduct = 1.0;
+            for (String field : relation.fields) {
+                int ordinal = ordinals.get(field);
+                relationMasks[r * words + (ordinal / Long.SIZE)] |= 1L << (ordinal % Long.SIZE);
+                combinedProduct *= fieldScores[ordinal];
+                complementProduct *= (1 - fieldScores[ordinal]);
+            }
+            relationScores[r] = relation.getWeight() * (combinedProduct / (combinedProduct + complementProduct));
+            totalWeight += relation.getWeight();
+        }
+        return new CompiledFullModel(Map.copyOf(ordinals), words, relationMasks, relationScores, totalWeight);
+    }
+
+    /**
+     * Calculates the score for a single candidate
+     *
+     * @param matchedFields Fields that matched for the candidate
+     * @return Score
+     */
+    public double calculateScore(List<String> matchedFields) {
+        return calculateScore(matchedFields, new long[this.words]);
+    }
+
+    private double calculateScore(List<String> matchedFields, long[] matched) {
+        Arrays.fill(matched, 0L);
+        if (matchedFields != null) {
+            for (String field : matchedFields) {
+                Integer ordinal = this.ordinals.get(field);
+                if (ordinal != null) {
+                    matched[ordinal / Long.SIZE] |= 1L << (ordinal % Long.SIZE);
+                }
+            }
+        }
+
+        double score = 0.0;
+        for (int r = 0; r < this.relationScores.length; r++) {
+            if (covers(matched, r)) {
+                score += this.relationScores[r];
+            }
+        }
+        return this.totalWeight == 0 ? 0.0 : score / this.totalWeight;
+    }
+
+    private boolean covers(long[] matched, int relation) {
+        int offset = relation * this.words;
+        for (int w = 0; w < this.words; w++) {
+            long mask = this.relationMasks[offset + w];
+            if ((matched[w] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates scores for candidates, returning only the highest scoring candidates.
+     * <p>
+     * The candidates are given as parallel lists of identifiers and matched fields, e.g. the hit IDs and matched
+     * queries from a search response.  Candidates with equal scores are returned in the order they were given.
+     * </p>
+     *
+     * @param ids            Candidate identifiers
+     * @param matchedQueries Fields that matched for each candidate, {@code null} is treated as no matches
+     * @param limit          Maximum number of candidates to return
+     * @param minScore       Minimum score for a candidate to be returned
+     * @return (id, score) entries sorted descending by score
+     */
+    public List<Map.Entry<String, Double>> calculateScores(List<String> ids, List<List<String>> matchedQueries,
+                                                           int limit, double minScore) {
+        if (ids.size() != matchedQueries.size()) {
+            throw new IllegalArgumentException("Must provide matched queries for every candidate");
+        }
+        int capacity = Math.min(Math.max(limit, 0), ids.size());
+        if (capacity == 0) {
+            return Collections.emptyList();
+        }
+
+        // Bounded min-heap of candidate positions, the root is the weakest candidate retained so far
+        double[] heapScores = new double[capacity];
+        int[] heapPositions = new int[capacity];
+        int size = 0;
+        long[] matched = new long[this.words];
+        for (int i = 0; i < ids.size(); i++) {
+            double score = calculateScore(matchedQueries.get(i), matched);
+            if (score < minScore) {
+                continue;
+            }
+            if (size < capacity) {
+                heapScores[size] = score;
+                heapPositions[size] = i;
+                siftUp(heapScores, heapPositions, size++);
+            } else if (Double.compare(score, heapScores[0]) > 0) {
+                // Candidates are visited in order so an equal score never displaces an earlier candidate
+                heapScores[0] = score;
+                heapPositions[0] = i;
+                siftDown(heapScores, heapPositions, size);
+            }
+        }
+
+        // Drain weakest first, filling the results from the back
+        Map.Entry<String, Double>[] results = newEntryArray(size);
+        for (int n = size; n > 0; n--) {
+            results[n - 1] = Map.entry(ids.get(heapPositions[0]), heapScores[0]);
+            heapScores[0] = heapScores[n - 1];
+            heapPositions[0] = heapPositions[n - 1];
+            siftDown(heapScores, heapPositions, n - 1);
+        }
+        return Arrays.asList(results);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map.Entry<String, Double>[] newEntryArray(int size) {
+        return (Map.Entry<String, Double>[]) new Map.Entry[size];
+    }
+
+    /**
+     * Whether the candidate at heap index {@code a} ranks below that at {@code b}, lower scores rank lower and for
+     * equal scores later candidates rank lower
+     */
+    private static boolean ranksBelow(double[] scores, int[] positions, int a, int b) {
+        int cmp = Double.compare(scores[a], scores[b]);
+        return cmp < 0 || (cmp == 0 && positions[a] > positions[b]);
+    }
+
+    private static void siftUp(double[] scores, int[] positions, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBelow(scores, positions, index, parent)) {
+                return;
+            }
+            swap(scores, positions, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(double[] scores, int[] positions, int size) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int weakest = left;
+            int right = left + 1;
+            if (right < size && ranksBelow(scores, positions, right, left)) {
+                weakest = right;
+            }
+            if (!ranksBelow(scores, positions, weakest, index)) {
+                return;
+            }
+            swap(scores, positions, index, weakest);
+            index = weakest;
+        }
+    }
+
+    private static void swap(double[] scores, int[] positions, int a, int b) {
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        int position = positions[a];
+        positions[a] = positions[b];
+        positions[b] = position;
+    }
+}
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Represents a (Full) Model but with the actual classes (not ids) for the related items
@@ -72,6 +73,23 @@ public class FullModel {
         return Mapper.loadFromStringLenient(FullModel.class, json);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof FullModel m) {
+            return Objects.equals(modelId, m.modelId) && Objects.equals(index, m.index) && relations.equals(
+                    m.relations) && Objects.equals(scores, m.scores);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(modelId, index, relations, scores);
+    }
+
     @Override
     public String toString() {
         return Mapper.writeValueAsString(this);
@@ -158,4 +176,28 @@ public class FullModel {
                          .toList();
     }
 
+    /**
+     * Calculate scores for hits for this model, returning only the best scoring hits.
+     *
+     * The input is the raw hit identifiers and, for each hit, the list of field names that matched for that hit,
+     * e.g. the matched queries from a search response.
+     *
+     * Returns a list of at most {@code limit} (id, score) entries, with a score of at least {@code minScore}, sorted
+     * descending by score.  When scoring many batches of hits against the same model prefer {@link #compile()} and
+     * reuse the compiled model.
+     */
+    public List<Map.Entry<String, Double>> calculateScores(List<String> ids, List<List<String>> matchedQueries,
+                                                           int limit, double minScore) {
+        return compile().calculateScores(ids, matchedQueries, limit, minScore);
+    }
+
+    /**
+     * Compile this model into a form optimised for scoring.
+     *
+     * The compiled model is a snapshot, subsequent changes to this model are not reflected in it.
+     */
+    public CompiledFullModel compile() {
+        return CompiledFullModel.compile(this);
+    }
+
 }
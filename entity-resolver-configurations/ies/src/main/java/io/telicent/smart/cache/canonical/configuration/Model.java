@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Represents an E.R. Model which constitutes a grouping of indices, relations and scores.
@@ -102,6 +103,23 @@ public class Model {
         }
         return model;
     }
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof Model m) {
+            return Objects.equals(modelId, m.modelId) && Objects.equals(index, m.index) && Objects.equals(
+                    relations, m.relations) && Objects.equals(scores, m.scores);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(modelId, index, relations, scores);
+    }
+
     @Override
     public String toString() {
         return Mapper.writeValueAsString(this);
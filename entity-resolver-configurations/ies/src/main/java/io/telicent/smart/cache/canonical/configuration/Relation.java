@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Represents a set of relationships between fields for better watching.
@@ -80,6 +81,22 @@ public class Relation {
         return Mapper.loadFromString(Relation.class, node.asText());
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof Relation r) {
+            return weight == r.weight && Objects.equals(resolverId, r.resolverId) && fields.equals(r.fields);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(resolverId, fields, weight);
+    }
+
     @Override
     public String toString() {
         return Mapper.writeValueAsString(this);
@@ -24,6 +24,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Represents a set of scores per fields for matching purposes.
@@ -70,6 +71,22 @@ public class Scores {
         return Mapper.loadFromString(Scores.class, node.asText());
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof Scores s) {
+            return Objects.equals(scorerId, s.scorerId) && fieldScores.equals(s.fieldScores);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(scorerId, fieldScores);
+    }
+
     @Override
     public String toString() {
         return Mapper.writeValueAsString(this);
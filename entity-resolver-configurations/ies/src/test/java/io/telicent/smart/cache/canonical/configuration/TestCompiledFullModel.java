@@ -0,0 +1,194 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.canonical.configuration;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class TestCompiledFullModel {
+
+    private static FullModel model() {
+        FullModel model = new FullModel();
+        model.scores = new Scores();
+        model.scores.fieldScores.put("name", 0.9);
+        model.scores.fieldScores.put("dob", 0.8);
+        model.scores.fieldScores.put("city", 0.6);
+        model.relations.add(relation(4, "name", "dob"));
+        model.relations.add(relation(2, "name", "city"));
+        model.relations.add(relation(1, "city"));
+        return model;
+    }
+
+    private static Relation relation(int weight, String... fields) {
+        Relation relation = new Relation();
+        relation.weight = weight;
+        relation.fields.addAll(Arrays.asList(fields));
+        return relation;
+    }
+
+    @Test
+    public void test_calculateScore_matchesModel() {
+        // given
+        FullModel model = model();
+        CompiledFullModel compiled = model.compile();
+        List<List<String>> candidates = List.of(List.of(), List.of("name"), List.of("name", "dob"),
+                                                List.of("city", "name"), List.of("name", "dob", "city"),
+                                                List.of("unknown", "city"));
+        // when
+        // then
+        for (List<String> matched : candidates) {
+            Assert.assertEquals(compiled.calculateScore(matched), model.calculateScore(matched),
+                                "Score mismatch for " + matched);
+        }
+    }
+
+    @Test
+    public void test_calculateScore_nullMatches() {
+        // given
+        CompiledFullModel compiled = model().compile();
+        // when
+        double score = compiled.calculateScore(null);
+        // then
+        Assert.assertEquals(score, 0.0);
+    }
+
+    @Test
+    public void test_calculateScore_noRelations() {
+        // given
+        FullModel model = new FullModel();
+        // when
+        double score = model.compile().calculateScore(List.of("name"));
+        // then
+        Assert.assertEquals(score, 0.0);
+    }
+
+    @Test
+    public void test_calculateScore_manyFields() {
+        // given
+        FullModel model = new FullModel();
+        model.scores = new Scores();
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            fields.add("field_" + i);
+            model.scores.fieldScores.put("field_" + i, 0.5 + (i % 5) / 10.0);
+        }
+        model.relations.add(relation(3, fields.subList(0, 70).toArray(new String[0])));
+        model.relations.add(relation(5, "field_1", "field_140"));
+        model.relations.add(relation(1, "field_149"));
+        List<String> matched = new ArrayList<>(fields.subList(0, 70));
+        matched.add("field_149");
+        // when
+        double score = model.compile().calculateScore(matched);
+        // then
+        Assert.assertEquals(score, model.calculateScore(matched));
+        Assert.assertTrue(score > 0.0);
+    }
+
+    @Test
+    public void test_calculateScores_topK() {
+        // given
+        FullModel model = model();
+        List<String> ids = List.of("a", "b", "c", "d", "e");
+        List<List<String>> matched = List.of(List.of("city"), List.of("name", "dob", "city"), List.of(),
+                                             List.of("name", "dob"), List.of("name", "city"));
+        // when
+        List<Map.Entry<String, Double>> scores = model.calculateScores(ids, matched, 3, 0.0);
+        // then
+        Assert.assertEquals(scores.stream().map(Map.Entry::getKey).toList(), List.of("b", "d", "e"));
+        Assert.assertEquals(scores.get(0).getValue().doubleValue(), model.calculateScore(matched.get(1)));
+    }
+
+    @Test
+    public void test_calculateScores_sameAsSorting() {
+        // given
+        FullModel model = model();
+        List<String> ids = List.of("a", "b", "c", "d", "e");
+        List<List<String>> matched = List.of(List.of("city"), List.of("name", "dob", "city"), List.of(),
+                                             List.of("name", "dob"), List.of("name", "city"));
+        List<Map.Entry<String, List<String>>> entries = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            entries.add(Map.entry(ids.get(i), matched.get(i)));
+        }
+        // when
+        List<Map.Entry<String, Double>> expected = model.calculateScores(entries);
+        List<Map.Entry<String, Double>> actual = model.calculateScores(ids, matched, ids.size(), 0.0);
+        // then
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test
+    public void test_calculateScores_minScore() {
+        // given
+        FullModel model = model();
+        List<String> ids = List.of("a", "b", "c");
+        List<List<String>> matched = List.of(List.of("city"), List.of("name", "dob"), List.of());
+        // when
+        List<Map.Entry<String, Double>> scores = model.calculateScores(ids, matched, 10, 0.5);
+        // then
+        Assert.assertEquals(scores.size(), 1);
+        Assert.assertEquals(scores.get(0).getKey(), "b");
+    }
+
+    @Test
+    public void test_calculateScores_tiesKeepInputOrder() {
+        // given
+        FullModel model = model();
+        List<String> ids = List.of("a", "b", "c", "d");
+        List<List<String>> matched = List.of(List.of("city"), List.of("city"), List.of("city"), List.of("city"));
+        // when
+        List<Map.Entry<String, Double>> scores = model.calculateScores(ids, matched, 2, 0.0);
+        // then
+        Assert.assertEquals(scores.stream().map(Map.Entry::getKey).toList(), List.of("a", "b"));
+    }
+
+    @Test
+    public void test_calculateScores_zeroLimit() {
+        // given
+        FullModel model = model();
+        // when
+        List<Map.Entry<String, Double>> scores =
+                model.calculateScores(List.of("a"), List.of(List.of("city")), 0, 0.0);
+        // then
+        Assert.assertTrue(scores.isEmpty());
+    }
+
+    @Test
+    public void test_calculateScores_nullMatchedQueries() {
+        // given
+        FullModel model = model();
+        // when
+        List<Map.Entry<String, Double>> scores =
+                model.calculateScores(List.of("a"), Collections.singletonList(null), 1, 0.0);
+        // then
+        Assert.assertEquals(scores.size(), 1);
+        Assert.assertEquals(scores.get(0).getValue().doubleValue(), 0.0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void test_calculateScores_mismatchedLists() {
+        // given
+        FullModel model = model();
+        // when
+        // then
+        model.calculateScores(List.of("a", "b"), List.of(List.of("city")), 1, 0.0);
+    }
+}
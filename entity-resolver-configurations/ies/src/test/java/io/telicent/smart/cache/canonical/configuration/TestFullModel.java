@@ -79,4 +79,17 @@ public class TestFullModel {
         JsonNode actualNode = Mapper.getJsonMapper().readTree(fullModel.toString());
         Assert.assertTrue(actualNode.equals(expectedNode));
     }
+
+    @Test
+    public void test_equals_separatelyLoadedFullModelsAreEqual() {
+        // given
+        FullModel first = FullModel.loadFromString(FULL_MODEL_HAPPY);
+        FullModel second = FullModel.loadFromString(FULL_MODEL_HAPPY);
+        // when
+        // then
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.hashCode(), second.hashCode());
+        second.index = "other";
+        Assert.assertNotEquals(first, second);
+    }
 }
@@ -100,4 +100,17 @@ public class TestModel {
         Assert.assertEquals(model.relations, List.of("testcase"));
         Assert.assertEquals(model.scores, "testcase");
     }
+
+    @Test
+    public void test_equals_separatelyLoadedModelsAreEqual() {
+        // given
+        Model first = Model.loadFromFullModel(FullModel.loadFromString(FULL_MODEL_HAPPY));
+        Model second = Model.loadFromFullModel(FullModel.loadFromString(FULL_MODEL_HAPPY));
+        // when
+        // then
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.hashCode(), second.hashCode());
+        second.relations.add("other");
+        Assert.assertNotEquals(first, second);
+    }
 }
@@ -94,4 +94,17 @@ public class TestRelation {
         // then
         Relation.loadFromNode(new TextNode("{\"badJson\":\"test\"}"));
     }
+
+    @Test
+    public void test_equals_separatelyLoadedRelationsAreEqual() {
+        // given
+        Relation first = Relation.loadFromString(JSON);
+        Relation second = Relation.loadFromString(JSON);
+        // when
+        // then
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.hashCode(), second.hashCode());
+        second.weight = 6;
+        Assert.assertNotEquals(first, second);
+    }
 }
@@ -129,4 +129,17 @@ public class TestScores {
         Assert.assertFalse(scores.hasField("field_1"));
     }
 
+
+    @Test
+    public void test_equals_separatelyLoadedScoresAreEqual() {
+        // given
+        Scores first = Scores.loadFromString(JSON);
+        Scores second = Scores.loadFromString(JSON);
+        // when
+        // then
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.hashCode(), second.hashCode());
+        second.fieldScores.put("field_1", 4.0);
+        Assert.assertNotEquals(first, second);
+    }
 }
@@ -20,20 +20,32 @@ import co.elastic.clients.elasticsearch._types.Refresh;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch.core.BulkRequest;
 import co.elastic.clients.elasticsearch.core.DeleteByQueryRequest;
+import co.elastic.clients.elasticsearch.core.MsearchRequest;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
+import co.elastic.clients.elasticsearch.core.MtermvectorsRequest;
+import co.elastic.clients.elasticsearch.core.MtermvectorsResponse;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.mtermvectors.MultiTermVectorsOperation;
+import co.elastic.clients.elasticsearch.core.mtermvectors.MultiTermVectorsResult;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.termvectors.TermVector;
+import co.elastic.clients.json.JsonData;
 import io.telicent.smart.cache.canonical.configuration.*;
 import io.telicent.smart.cache.canonical.exception.ValidationException;
 import io.telicent.smart.cache.entity.resolver.EntityResolver;
 import io.telicent.smart.cache.entity.resolver.elastic.index.CachedIndexMapper;
+import io.telicent.smart.cache.entity.resolver.elastic.index.ConfigurationCache;
 import io.telicent.smart.cache.entity.resolver.elastic.index.IndexMapper;
 import io.telicent.smart.cache.entity.resolver.elastic.similarity.CanonicalTypeConfigurationValidator;
 import io.telicent.smart.cache.entity.resolver.elastic.similarity.QueryGeneratorResolver;
+import io.telicent.smart.cache.entity.resolver.elastic.similarity.SelfSimilarityScorer;
 import io.telicent.smart.cache.entity.resolver.model.SimilarityResult;
 import io.telicent.smart.cache.entity.resolver.model.SimilarityResults;
 import io.telicent.smart.cache.search.SearchException;
 import io.telicent.smart.cache.search.elastic.AbstractClientAdaptor;
+import io.telicent.smart.cache.search.elastic.ElasticIndexManager;
 import io.telicent.smart.cache.search.model.Document;
 import io.telicent.smart.cache.search.model.SearchResults;
 import io.telicent.smart.cache.search.options.*;
@@ -42,7 +54,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * An entity resolver backed by ElasticSearch
@@ -53,6 +75,38 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
 
     private final String similarityIndex;
 
+    /**
+     * Whether similarity requests should be answered purely by querying, without temporarily indexing the input
+     * documents, wherever the request allows it
+     */
+    private final boolean queryOnly;
+
+    /**
+     * Maximum number of searches sent in a single multi-search request when resolving a batch of documents
+     */
+    private final int multiSearchBatchSize;
+
+    /**
+     * Bounds the number of asynchronous requests to ElasticSearch in-flight at once
+     */
+    private final InFlightLimiter inFlightLimiter;
+
+    /**
+     * Bounded executor on which asynchronous resolution stages run, keeping them off the ElasticSearch client's I/O
+     * threads
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Caches similarity results, {@code null} if result caching is disabled
+     */
+    private final SimilarityResultCache resultCache;
+
+    /**
+     * Registration of the periodic configuration refresh scheduled by this resolver, {@code null} if none
+     */
+    private ConfigurationCache.ScheduledRefresh configurationRefresh;
+
     /**
      * Make it configurable later on
      **/
@@ -63,8 +117,32 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
      **/
     public static final String DEFAULT_NAME_SIMILARITY_INDEX = "canonical";
 
+    /**
+     * Default maximum number of searches sent in a single multi-search request
+     */
+    public static final int DEFAULT_MULTI_SEARCH_BATCH_SIZE = 100;
+
+    /**
+     * Default maximum number of asynchronous requests to ElasticSearch in-flight at once
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 64;
+
+    /**
+     * Default maximum number of cached similarity results, zero meaning result caching is disabled
+     */
+    public static final long DEFAULT_RESULT_CACHE_SIZE = 0;
+
+    /**
+     * Default duration for which similarity results are cached
+     */
+    public static final Duration DEFAULT_RESULT_CACHE_TTL = Duration.ofMinutes(5);
+
     private static final int DELETE_ALL_COUNT = 2;
-    private static int deleteCount;
+    /**
+     * Number of temporary document deletions since the last clean-up of all temporary documents, updated from the
+     * callbacks of concurrent asynchronous requests
+     */
+    private static final AtomicLong DELETE_COUNT = new AtomicLong();
 
     /**
      * Builds a new ElasticSearch client.
@@ -99,9 +177,9 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
      */
     protected ElasticSearchEntityResolver(String elasticHost, int elasticPort, String similarityIndex, String user,
                                           String password, boolean makeOpenSearchCompatible) {
-        super(elasticHost, elasticPort, user, password, null, makeOpenSearchCompatible);
-
-        this.similarityIndex = similarityIndex;
+        this(elasticHost, elasticPort, similarityIndex, user, password, null, makeOpenSearchCompatible, false,
+             DEFAULT_MULTI_SEARCH_BATCH_SIZE, DEFAULT_MAX_IN_FLIGHT_REQUESTS, DEFAULT_RESULT_CACHE_SIZE,
+             DEFAULT_RESULT_CACHE_TTL);
     }
 
     /**
@@ -120,9 +198,98 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
      */
     protected ElasticSearchEntityResolver(String elasticHost, int elasticPort, String similarityIndex, String user,
                                           String password, String elasticTlsCaCert, boolean makeOpenSearchCompatible) {
+        this(elasticHost, elasticPort, similarityIndex, user, password, elasticTlsCaCert, makeOpenSearchCompatible,
+             false, DEFAULT_MULTI_SEARCH_BATCH_SIZE, DEFAULT_MAX_IN_FLIGHT_REQUESTS, DEFAULT_RESULT_CACHE_SIZE,
+             DEFAULT_RESULT_CACHE_TTL);
+    }
+
+    /**
+     * Creates a new ElasticSearch Search client
+     *
+     * @param elasticHost              ElasticSearch host
+     * @param elasticPort              ElasticSearch port
+     * @param similarityIndex          Index for similarity
+     * @param user                     ElasticSearch user
+     * @param password                 ElasticSearch password
+     * @param elasticTlsCaCert         the TLS/SSL trust base-64 encoded certificate of the Elasticsearch service for
+     *                                 secure communication, which may be null if security features are disabled
+     *                                 (i.e. plain text HTTP only).
+     * @param makeOpenSearchCompatible Whether to make the client "compatible", in so far as is possible, with
+     *                                 OpenSearch servers
+     * @param queryOnly                Whether to resolve similarity purely by querying, only falling back to
+     *                                 temporarily indexing the input documents when matches within the input are
+     *                                 requested, in which case scores are normalised against a locally calculated
+     *                                 self-similarity score
+     * @param multiSearchBatchSize     Maximum number of searches sent in a single multi-search request when resolving
+     *                                 a batch of documents
+     * @param maxInFlightRequests      Maximum number of asynchronous requests to ElasticSearch in-flight at once
+     * @param resultCacheSize          Maximum number of similarity results to cache, zero to disable result caching
+     * @param resultCacheTtl           Duration for which similarity results are cached
+     */
+    protected ElasticSearchEntityResolver(String elasticHost, int elasticPort, String similarityIndex, String user,
+                                          String password, String elasticTlsCaCert, boolean makeOpenSearchCompatible,
+                                          boolean queryOnly, int multiSearchBatchSize, int maxInFlightRequests,
+                                          long resultCacheSize, Duration resultCacheTtl) {
         super(elasticHost, elasticPort, user, password, elasticTlsCaCert, makeOpenSearchCompatible);
 
+        if (multiSearchBatchSize < 1) {
+            throw new IllegalArgumentException("Multi-search batch size must be at least 1");
+        }
         this.similarityIndex = similarityIndex;
+        this.queryOnly = queryOnly;
+        this.multiSearchBatchSize = multiSearchBatchSize;
+        AtomicInteger threadId = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread thread = new Thread(r, "similarity-resolver-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.inFlightLimiter = new InFlightLimiter(maxInFlightRequests, this.executor);
+        this.resultCache = resultCacheSize > 0
+                           ? new SimilarityResultCache(resultCacheSize, resultCacheTtl,
+                                                       SimilarityResultCache.DEFAULT_INDEX_ID_INTERVAL,
+                                                       index -> ElasticIndexManager.getInternalId(getClient(), index),
+                                                       CachedIndexMapper.getCache())
+                           : null;
+    }
+
+    /**
+     * Gets the similarity result cache
+     *
+     * @return Result cache, or {@code null} if result caching is disabled
+     */
+    SimilarityResultCache getResultCache() {
+        return this.resultCache;
+    }
+
+    /**
+     * Gets the maximum number of searches sent in a single multi-search request
+     *
+     * @return Multi-search batch size
+     */
+    public int getMultiSearchBatchSize() {
+        return this.multiSearchBatchSize;
+    }
+
+    /**
+     * Gets whether this resolver operates in query-only mode
+     *
+     * @return True if query-only, false otherwise
+     */
+    public boolean isQueryOnly() {
+        return this.queryOnly;
+    }
+
+    /**
+     * Determines whether the input documents need to be temporarily indexed into the similarity index in order to
+     * answer a request.  This is only required when not in query-only mode, or when the caller wants matches between
+     * the input documents themselves since those can only be found once the inputs are searchable.
+     *
+     * @param withinInput Whether similarities between input documents were requested
+     * @return True if temporary indexing is required, false otherwise
+     */
+    boolean requiresTemporaryIndexing(boolean withinInput) {
+        return !this.queryOnly || withinInput;
     }
 
     @Override
@@ -132,18 +299,11 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
 
     private SimilarityResult findSimilar(final Document doc, int maxResults, final float minScore,
                                          final boolean withinInput, final SecurityOptions securityOptions,
-                                         CanonicalTypeConfiguration overrideConfiguration) {
+                                         CanonicalTypeConfiguration overrideConfiguration,
+                                         final boolean selfIndexed) {
 
-        // the input document will have been indexed at this stage
-        final String id = (String) doc.getProperty("id");
         final String originalId = (String) doc.getProperty("originalId");
-        final SimilarityResult sr = new SimilarityResult();
-        sr.setIDSourceEntity(originalId);
-
-        final Query query = QueryGeneratorResolver.generateQuery(doc, overrideConfiguration);
-        if (query == null) {
-            throw new SearchException("Could not generate a query for doc " + doc);
-        }
+        final Query query = generateSimilarityQuery(doc, overrideConfiguration);
 
         final SearchRequest.Builder builder = new SearchRequest.Builder();
         String indexToUse = getIndexToUse(doc, overrideConfiguration);
@@ -166,13 +326,62 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
             throw new SearchException(e);
         }
 
-        // return the top docs
-        final List<Hit<Document>> hits = response.hits().hits();
+        final Double selfScore = selfIndexed ? null : selfScores(List.of(doc), overrideConfiguration).getFirst();
+        return toSimilarityResult(doc, response.hits().hits(), maxResults, minScore, withinInput, selfScore);
+    }
+
+    /**
+     * Generates the similarity query for the given input document
+     *
+     * @param doc                   Input document
+     * @param overrideConfiguration Override configuration, may be null
+     * @return Similarity query
+     * @throws SearchException Thrown if no query can be generated for the document
+     */
+    private static Query generateSimilarityQuery(Document doc, CanonicalTypeConfiguration overrideConfiguration) {
+        final Query query = QueryGeneratorResolver.generateQuery(doc, overrideConfiguration);
+        if (query == null) {
+            throw new SearchException("Could not generate a query for doc " + doc);
+        }
+        return query;
+    }
+
+    /**
+     * Converts the search hits for an input document into a similarity result
+     * <p>
+     * When the input document was temporarily indexed its own hit provides the self-similarity score.  Otherwise, i.e.
+     * in query-only mode, ElasticSearch can only score documents that are in the index so the self-similarity score is
+     * calculated locally, see {@link SelfSimilarityScorer}.  Either way the scores of the other hits are normalised
+     * against the self-similarity score before being compared against {@code minScore}.
+     * </p>
+     *
+     * @param doc         Input document
+     * @param hits        Search hits
+     * @param maxResults  max number of results per input
+     * @param minScore    minimum score for a match
+     * @param withinInput whether to return similarities between input documents
+     * @param selfScore   locally calculated self-similarity score, or {@code null} if the input document was
+     *                    temporarily indexed and so its own hit provides the self-similarity score
+     * @return Similarity result
+     */
+    static SimilarityResult toSimilarityResult(final Document doc, final List<Hit<Document>> hits, int maxResults,
+                                               final float minScore, final boolean withinInput,
+                                               final Double selfScore) {
+        final String id = (String) doc.getProperty("id");
+        final SimilarityResult sr = new SimilarityResult();
+        sr.setIDSourceEntity((String) doc.getProperty("originalId"));
 
         final List<io.telicent.smart.cache.search.model.Hit> similarHits = new ArrayList<>();
 
-        double topScore = -1;
-        boolean firstLoop = true;
+        double topScore = 1;
+        boolean firstLoop = selfScore == null;
+        if (selfScore != null) {
+            if (selfScore > 0) {
+                topScore = selfScore;
+            } else {
+                LOGGER.warn("No self-similarity score for {}, returning raw scores", id);
+            }
+        }
         for(Hit<Document> hit : hits) {
             if (maxResults <= similarHits.size()) {
                 break;
@@ -204,7 +413,7 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
             else if (!withinInput && fromTempSet) {
                 continue;
             } else {
-                // normalise the score
+                // normalise the score, if possible
                 double normalisedScore = score / topScore;
                 if (normalisedScore < minScore) {
                     break;
@@ -235,22 +444,27 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
                                         final SecurityOptions securityOptions, String overrides) {
         // parse and validate override mapping, if provided
         CanonicalTypeConfiguration overrideConfiguration = loadAndValidateConfigurationOverride(overrides, doc);
+        return resolveWithResultCache(doc, scoringForOverrides(overrides), maxResults, minScore,
+                                      overrideConfiguration,
+                                      () -> findSimilarUncached(doc, maxResults, minScore, securityOptions,
+                                                                overrideConfiguration));
+    }
+
+    private SimilarityResult findSimilarUncached(final Document doc, int maxResults, final float minScore,
+                                                 final SecurityOptions securityOptions,
+                                                 CanonicalTypeConfiguration overrideConfiguration) {
         // index the documents for which we need similarity
-        String batchID = indexDocumentsTemporarilyIntoSimilarityIndex(Collections.singletonList(doc), overrideConfiguration);
+        String batchID =
+                prepareDocumentsForSimilarity(Collections.singletonList(doc), false, overrideConfiguration);
 
         // do the similarity magic e.g. by querying the search
         // back-end
-        final SimilarityResult res = findSimilar(doc, maxResults, minScore, false, securityOptions, overrideConfiguration);
+        final SimilarityResult res =
+                findSimilar(doc, maxResults, minScore, false, securityOptions, overrideConfiguration,
+                            batchID != null);
 
         // delete temporary docs
-        DeleteByQueryRequest request = generateDeleteRequest(getIndexToUse(doc, overrideConfiguration), batchID);
-        try {
-            this.getClient().deleteByQuery(request);
-        } catch (Exception e) {
-            LOGGER.error("Exception while deleting batch", e);
-            // no need to propagate - it is not that crucial, but we should clean up after.
-            flagFutureDeleteForCleanUp();
-        }
+        deleteTemporaryDocuments(getIndexToUse(doc, overrideConfiguration), batchID);
 
         return res;
     }
@@ -277,31 +491,285 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
         // parse and validate override mapping, if provided
         CanonicalTypeConfiguration overrideConfiguration = loadAndValidateConfigurationOverride(overrides, docs.getFirst());
 
+        return resolveWithResultCache(docs, withinInput, scoringForOverrides(overrides), maxResults, minScore,
+                                      overrideConfiguration,
+                                      pending -> findSimilarUncached(pending, maxResults, minScore, withinInput,
+                                                                     overrideConfiguration));
+    }
+
+    private SimilarityResults findSimilarUncached(final List<Document> docs, int maxResults, final float minScore,
+                                                  final boolean withinInput,
+                                                  CanonicalTypeConfiguration overrideConfiguration) {
         // index the documents for which we need similarity
-        String batchID = indexDocumentsTemporarilyIntoSimilarityIndex(docs, overrideConfiguration);
+        String batchID = prepareDocumentsForSimilarity(docs, withinInput, overrideConfiguration);
 
         final List<SimilarityResult> results = new ArrayList<>();
 
-
         // do the similarity magic e.g. by querying the search
-        // back-end
-        for (Document d : docs) {
-            final SimilarityResult res = findSimilar(d, maxResults, minScore, withinInput, securityOptions, overrideConfiguration);
-            results.add(res);
+        // back-end, batching the per-document queries into multi-searches
+        try {
+            List<List<Hit<Document>>> hits = multiSearch(docs, overrideConfiguration, null);
+            List<Double> selfScores = batchID == null ? selfScores(docs, overrideConfiguration) : null;
+            for (int i = 0; i < docs.size(); i++) {
+                results.add(toSimilarityResult(docs.get(i), hits.get(i), maxResults, minScore,
+                                               withinInput, selfScores != null ? selfScores.get(i) : null));
+            }
+        } finally {
+            // delete temporary docs
+            deleteTemporaryDocuments(getIndexToUse(docs.getFirst(), overrideConfiguration), batchID);
         }
 
-        // delete temporary docs
-        DeleteByQueryRequest request = generateDeleteRequest(getIndexToUse(docs.getFirst(), overrideConfiguration), batchID);
+        return new SimilarityResults(results);
+    }
 
-        try {
-            this.getClient().deleteByQuery(request);
-        } catch (Exception e) {
-            LOGGER.error("Exception while deleting batch", e);
-            // no need to propagate - it is not that crucial, but we should clean up after.
-            flagFutureDeleteForCleanUp();
+    /**
+     * Runs the similarity queries for the given input documents as a series of multi-search requests, each containing
+     * at most {@link #getMultiSearchBatchSize()} searches
+     *
+     * @param docs                  Input documents
+     * @param overrideConfiguration Override configuration, may be null
+     * @param size                  Number of hits to request per document, {@code null} to use the server default
+     * @return Search hits for each input document, in the same order as the input documents
+     * @throws SearchException Thrown if any of the searches fails
+     */
+    List<List<Hit<Document>>> multiSearch(final List<Document> docs, CanonicalTypeConfiguration overrideConfiguration,
+                                          Integer size) {
+        final List<List<Hit<Document>>> results = new ArrayList<>(docs.size());
+        for (int from = 0; from < docs.size(); from += this.multiSearchBatchSize) {
+            final List<Document> chunk = docs.subList(from, Math.min(from + this.multiSearchBatchSize, docs.size()));
+            final MsearchRequest request = buildMultiSearchRequest(chunk, overrideConfiguration, size);
+
+            LOGGER.info("Starting multi-search for documents similar to {} input documents", chunk.size());
+            long start = System.currentTimeMillis();
+            MsearchResponse<Document> response;
+            try {
+                response = this.sendMultiSearch(request);
+            } catch (ElasticsearchException e) {
+                LOGGER.error("ElasticsearchException caught when multi-searching Elastic", e);
+                throw AbstractClientAdaptor.fromElasticException(e, "Similarity multi-search for "
+                                                                    + chunk.size() + " docs");
+            } catch (Exception e) {
+                LOGGER.error("Exception caught when multi-searching Elastic", e);
+                throw new SearchException(e);
+            }
+            LOGGER.info("Retrieved {} multi-search responses in {} milliseconds", response.responses().size(),
+                        System.currentTimeMillis() - start);
+
+            results.addAll(collectMultiSearchHits(chunk, response));
         }
+        return results;
+    }
 
-        return new SimilarityResults(results);
+    /**
+     * Builds a multi-search request containing the similarity query for each of the given input documents
+     *
+     * @param chunk                 Input documents
+     * @param overrideConfiguration Override configuration, may be null
+     * @param size                  Number of hits to request per document, {@code null} to use the server default
+     * @return Multi-search request
+     */
+    private MsearchRequest buildMultiSearchRequest(final List<Document> chunk,
+                                                   CanonicalTypeConfiguration overrideConfiguration, Integer size) {
+        final MsearchRequest.Builder builder = new MsearchRequest.Builder();
+        for (Document doc : chunk) {
+            final Query query = generateSimilarityQuery(doc, overrideConfiguration);
+            final String indexToUse = getIndexToUse(doc, overrideConfiguration);
+            builder.searches(s -> s.header(h -> h.index(indexToUse)).body(b -> b.query(query).size(size)));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Sends a single multi-search request
+     *
+     * @param request Multi-search request
+     * @return Multi-search response
+     * @throws IOException Thrown if the request could not be sent
+     */
+    MsearchResponse<Document> sendMultiSearch(MsearchRequest request) throws IOException {
+        return this.getClient().msearch(request, Document.class);
+    }
+
+    /**
+     * Sends a single multi-search request asynchronously
+     *
+     * @param request Multi-search request
+     * @return Future multi-search response
+     */
+    CompletableFuture<MsearchResponse<Document>> sendMultiSearchAsync(MsearchRequest request) {
+        return this.getAsyncClient().msearch(request, Document.class);
+    }
+
+    /**
+     * Collects the search hits for each input document from a multi-search response
+     *
+     * @param chunk    Input documents the multi-search request was built from
+     * @param response Multi-search response
+     * @return Search hits for each input document, in the same order as the input documents
+     * @throws SearchException Thrown if any of the searches failed
+     */
+    private static List<List<Hit<Document>>> collectMultiSearchHits(final List<Document> chunk,
+                                                                   MsearchResponse<Document> response) {
+        if (response.responses().size() != chunk.size()) {
+            throw new SearchException(
+                    "Expected " + chunk.size() + " multi-search responses but received " + response.responses()
+                                                                                                .size());
+        }
+        final List<List<Hit<Document>>> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            MultiSearchResponseItem<Document> item = response.responses().get(i);
+            if (item.isFailure()) {
+                throw AbstractClientAdaptor.fromElasticException(
+                        new ElasticsearchException("msearch", item.failure()),
+                        "Similarity search for doc " + chunk.get(i));
+            }
+            results.add(item.result().hits().hits());
+        }
+        return results;
+    }
+
+    /**
+     * Calculates the self-similarity scores of input documents that were not temporarily indexed, requesting the term
+     * statistics needed as a series of multi term vectors requests, each for at most
+     * {@link #getMultiSearchBatchSize()} documents
+     *
+     * @param docs                  Input documents
+     * @param overrideConfiguration Override configuration, may be null
+     * @return Self-similarity scores, in the same order as the input documents
+     * @throws SearchException Thrown if the term statistics could not be obtained
+     */
+    private List<Double> selfScores(final List<Document> docs, CanonicalTypeConfiguration overrideConfiguration) {
+        final List<Double> scores = new ArrayList<>(docs.size());
+        for (int from = 0; from < docs.size(); from += this.multiSearchBatchSize) {
+            final List<Document> chunk = docs.subList(from, Math.min(from + this.multiSearchBatchSize, docs.size()));
+            final SelfScoreRequest request = buildSelfScoreRequest(chunk, overrideConfiguration);
+            MtermvectorsResponse response = null;
+            if (request.request() != null) {
+                try {
+                    response = this.getClient().mtermvectors(request.request());
+                } catch (ElasticsearchException e) {
+                    LOGGER.error("ElasticsearchException caught when requesting term vectors from Elastic", e);
+                    throw AbstractClientAdaptor.fromElasticException(e, "Similarity self-scoring for "
+                                                                        + chunk.size() + " docs");
+                } catch (Exception e) {
+                    LOGGER.error("Exception caught when requesting term vectors from Elastic", e);
+                    throw new SearchException(e);
+                }
+            }
+            scores.addAll(request.scores(response));
+        }
+        return scores;
+    }
+
+    /**
+     * Asynchronous equivalent of {@link #selfScores(List, CanonicalTypeConfiguration)}, the chunks are sent
+     * concurrently subject to the bound on in-flight requests
+     *
+     * @param docs                  Input documents
+     * @param overrideConfiguration Override configuration, may be null
+     * @return Future self-similarity scores, in the same order as the input documents
+     */
+    private CompletableFuture<List<Double>> selfScoresAsync(final List<Document> docs,
+                                                            CanonicalTypeConfiguration overrideConfiguration) {
+        final List<CompletableFuture<List<Double>>> chunks = new ArrayList<>();
+        for (int from = 0; from < docs.size(); from += this.multiSearchBatchSize) {
+            final List<Document> chunk = docs.subList(from, Math.min(from + this.multiSearchBatchSize, docs.size()));
+            final SelfScoreRequest request = buildSelfScoreRequest(chunk, overrideConfiguration);
+            if (request.request() == null) {
+                chunks.add(CompletableFuture.completedFuture(request.scores(null)));
+                continue;
+            }
+            chunks.add(this.inFlightLimiter.submit(
+                                   () -> invokeAsync(() -> this.getAsyncClient().mtermvectors(request.request())))
+                                           .handleAsync((response, error) -> {
+                                               if (error != null) {
+                                                   LOGGER.error("Exception caught when requesting term vectors "
+                                                                + "from Elastic", error);
+                                                   throw translateAsyncFailure(error, "Similarity self-scoring for "
+                                                                                      + chunk.size() + " docs");
+                                               }
+                                               return request.scores(response);
+                                           }, this.executor));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).thenApplyAsync(x -> {
+            final List<Double> scores = new ArrayList<>(docs.size());
+            chunks.forEach(c -> scores.addAll(c.join()));
+            return scores;
+        }, this.executor);
+    }
+
+    /**
+     * Builds the request for the term statistics needed to calculate the self-similarity scores of the given input
+     * documents, each input document is supplied as an artificial document so it need not be indexed
+     *
+     * @param chunk                 Input documents
+     * @param overrideConfiguration Override configuration, may be null
+     * @return Self-similarity score request
+     */
+    private SelfScoreRequest buildSelfScoreRequest(final List<Document> chunk,
+                                                   CanonicalTypeConfiguration overrideConfiguration) {
+        final List<Query> queries = new ArrayList<>(chunk.size());
+        final List<Boolean> requested = new ArrayList<>(chunk.size());
+        final List<MultiTermVectorsOperation> operations = new ArrayList<>();
+        for (Document doc : chunk) {
+            final Query query = generateSimilarityQuery(doc, overrideConfiguration);
+            final Map<String, String> fields = SelfSimilarityScorer.termFields(query);
+            queries.add(query);
+            requested.add(!fields.isEmpty());
+            if (!fields.isEmpty()) {
+                final String indexToUse = getIndexToUse(doc, overrideConfiguration);
+                operations.add(MultiTermVectorsOperation.of(o -> o.index(indexToUse)
+                                                                  .doc(JsonData.of(fields))
+                                                                  .fields(List.copyOf(fields.keySet()))
+                                                                  .termStatistics(true)
+                                                                  .fieldStatistics(true)
+                                                                  .positions(false)
+                                                                  .offsets(false)
+                                                                  .payloads(false)));
+            }
+        }
+        return new SelfScoreRequest(queries, requested,
+                                    operations.isEmpty() ? null : MtermvectorsRequest.of(r -> r.docs(operations)));
+    }
+
+    /**
+     * A request for the term statistics needed to calculate the self-similarity scores of a chunk of input documents
+     *
+     * @param queries   Similarity queries for the input documents
+     * @param requested Whether term vectors were requested for each input document, they are not requested for queries
+     *                  that have no term based clauses
+     * @param request   Multi term vectors request, {@code null} if no term vectors are needed
+     */
+    private record SelfScoreRequest(List<Query> queries, List<Boolean> requested, MtermvectorsRequest request) {
+
+        /**
+         * Calculates the self-similarity scores from the response to the request
+         *
+         * @param response Multi term vectors response, {@code null} if no request was needed
+         * @return Self-similarity scores, in the same order as the input documents
+         * @throws SearchException Thrown if the term vectors for any input document could not be obtained
+         */
+        private List<Double> scores(MtermvectorsResponse response) {
+            final Iterator<MultiTermVectorsResult> results =
+                    response != null ? response.docs().iterator() : Collections.emptyIterator();
+            final List<Double> scores = new ArrayList<>(this.queries.size());
+            for (int i = 0; i < this.queries.size(); i++) {
+                Map<String, TermVector> termVectors = Map.of();
+                if (this.requested.get(i)) {
+                    if (!results.hasNext()) {
+                        throw new SearchException("Fewer term vectors responses than input documents were received");
+                    }
+                    MultiTermVectorsResult result = results.next();
+                    if (result.error() != null) {
+                        throw new SearchException("Failed to obtain term vectors for similarity self-scoring: "
+                                                  + result.error().reason());
+                    }
+                    termVectors = result.termVectors();
+                }
+                scores.add(SelfSimilarityScorer.selfScore(this.queries.get(i), termVectors));
+            }
+            return scores;
+        }
     }
 
     @Override
@@ -354,11 +822,111 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
         return IndexMapper.validateIndexEntry(getClient(), type, id, index);
     }
 
+    /**
+     * Invalidates the cached configuration, refreshing it from the config indices.  Resolution continues to use the
+     * existing configuration until the refreshed configuration is available.
+     */
+    public void invalidateConfiguration() {
+        CachedIndexMapper.invalidate(getClient());
+    }
+
+    /**
+     * Periodically refreshes the cached configuration from the config indices, so that configuration changes made via
+     * other instances are picked up.  The configuration is shared by all resolvers, so the refresh continues until
+     * every resolver that scheduled it has been closed.
+     *
+     * @param interval Refresh interval
+     */
+    public synchronized void scheduleConfigurationRefresh(Duration interval) {
+        ConfigurationCache.ScheduledRefresh previous = this.configurationRefresh;
+        this.configurationRefresh = CachedIndexMapper.scheduleRefresh(getClient(), interval);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        synchronized (this) {
+            if (this.configurationRefresh != null) {
+                this.configurationRefresh.close();
+                this.configurationRefresh = null;
+            }
+        }
+        this.executor.shutdown();
+        if (this.resultCache != null) {
+            this.resultCache.close();
+        }
+        super.close();
+    }
+
+    /**
+     * Prepares the input documents for a similarity request, temporarily indexing them into the similarity index only
+     * when the request requires it.
+     *
+     * @param docs        Input documents
+     * @param withinInput Whether similarities between input documents were requested
+     * @param override    Override configuration, may be null
+     * @return Batch ID of the temporarily indexed documents, or {@code null} if they were not indexed
+     */
+    private String prepareDocumentsForSimilarity(final List<Document> docs, final boolean withinInput,
+                                                 CanonicalTypeConfiguration override) {
+        if (requiresTemporaryIndexing(withinInput)) {
+            return indexDocumentsTemporarilyIntoSimilarityIndex(docs, override);
+        }
+        docs.forEach(this::processDocumentID);
+        return null;
+    }
+
+    /**
+     * Deletes any temporarily indexed documents, failures are logged and flagged for a future clean-up rather than
+     * being propagated.
+     *
+     * @param index   Index the documents were indexed into
+     * @param batchID Batch ID of the temporarily indexed documents, if {@code null} there is nothing to delete
+     */
+    private void deleteTemporaryDocuments(String index, String batchID) {
+        if (batchID == null) {
+            return;
+        }
+        DeleteByQueryRequest request = generateDeleteRequest(index, batchID);
+        try {
+            this.getClient().deleteByQuery(request);
+        } catch (Exception e) {
+            LOGGER.error("Exception while deleting batch {}", batchID, e);
+            // no need to propagate - it is not that crucial, but we should clean up after.
+            flagFutureDeleteForCleanUp();
+        }
+    }
+
     private String indexDocumentsTemporarilyIntoSimilarityIndex(final List<Document> docs, CanonicalTypeConfiguration override) {
 
         // batch index - with unique ID
         final String batchID = UUID.randomUUID().toString();
 
+        try {
+            this.getClient().bulk(buildTemporaryIndexRequest(docs, override, batchID));
+        } catch (ElasticsearchException e) {
+            LOGGER.error("ElasticsearchException found while indexing bulk", e);
+            throw fromElasticException(e, "Similarity search temporarily indexing docs");
+        } catch (Exception e) {
+            LOGGER.error("Error found while indexing bulk ", e);
+            throw new SearchException(e);
+        }
+
+        return batchID;
+    }
+
+    /**
+     * Builds the bulk request that temporarily indexes the input documents into the similarity index
+     *
+     * @param docs     Input documents
+     * @param override Override configuration, may be null
+     * @param batchID  Unique ID of this batch of temporary documents
+     * @return Bulk request
+     */
+    private BulkRequest buildTemporaryIndexRequest(final List<Document> docs, CanonicalTypeConfiguration override,
+                                                   final String batchID) {
         final BulkRequest.Builder br = new BulkRequest.Builder();
 
         String index = getIndexToUse(docs.getFirst(), override);
@@ -375,18 +943,7 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
         }
 
         br.refresh(Refresh.True);
-
-        try {
-            this.getClient().bulk(br.build());
-        } catch (ElasticsearchException e) {
-            LOGGER.error("ElasticsearchException found while indexing bulk", e);
-            throw fromElasticException(e, "Similarity search temporarily indexing docs");
-        } catch (Exception e) {
-            LOGGER.error("Error found while indexing bulk ", e);
-            throw new SearchException(e);
-        }
-
-        return batchID;
+        return br.build();
     }
 
     /**
@@ -437,15 +994,13 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
         DeleteByQueryRequest.Builder requestBuilder = new DeleteByQueryRequest.Builder().index(index)
                                                                                         .refresh(true);
 
-        if (deleteCount >= DELETE_ALL_COUNT) {
+        if (DELETE_COUNT.getAndUpdate(count -> count >= DELETE_ALL_COUNT ? 0 : count + 1) >= DELETE_ALL_COUNT) {
             requestBuilder
                     .query(q -> q.exists(t -> t.field(TEMP_INDEXING_SIMILARITY_FIELD)));
-            deleteCount = 0;
         } else {
             requestBuilder
                     .maxDocs(1L)
                     .query(q -> q.match(t -> t.field(TEMP_INDEXING_SIMILARITY_FIELD).query(batchID)));
-            ++deleteCount;
         }
         return requestBuilder.build();
     }
@@ -454,7 +1009,7 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
      * Helper function to clear out any tmp entries from index on next Deletion.
      */
     public static void flagFutureDeleteForCleanUp() {
-        deleteCount = DELETE_ALL_COUNT;
+        DELETE_COUNT.set(DELETE_ALL_COUNT);
     }
 
     /**
@@ -519,18 +1074,29 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
                                               + "' but similarity search uses '" + indexToUse + "'");
         }
 
-        // Index this doc temporarily, as v1 does
-        String batchId = indexDocumentsTemporarilyIntoSimilarityIndex(
-                Collections.singletonList(doc), overrideConfiguration);
+        return resolveWithResultCache(doc, scoringForModel(modelId), maxResults, minScore, overrideConfiguration,
+                                      () -> findSimilarV2Uncached(doc, maxResults, minScore, securityOptions,
+                                                                  indexToUse, fullModel));
+    }
+
+    private SimilarityResult findSimilarV2Uncached(Document doc, int maxResults, float minScore,
+                                                   SecurityOptions securityOptions, String indexToUse,
+                                                   FullModel fullModel) {
+        CanonicalTypeConfiguration overrideConfiguration = null; // v2 uses model, not overrides
+        // Index this doc temporarily, as v1 does, unless operating query-only
+        String batchId =
+                prepareDocumentsForSimilarity(Collections.singletonList(doc), false, overrideConfiguration);
 
         try {
             SimilarityResult result =
                     findSimilarV2Internal(doc, maxResults, minScore, false,
-                                          securityOptions, overrideConfiguration, fullModel);
+                                          securityOptions, overrideConfiguration, fullModel.compile());
 
             // after successful scoring, delete the temporary docs
-            DeleteByQueryRequest request = generateDeleteRequest(indexToUse, batchId);
-            this.getClient().deleteByQuery(request);
+            if (batchId != null) {
+                DeleteByQueryRequest request = generateDeleteRequest(indexToUse, batchId);
+                this.getClient().deleteByQuery(request);
+            }
             return result;
         } catch (ElasticsearchException e) {
             throw AbstractClientAdaptor.fromElasticException(e, "Similarity v2 search for doc " + doc);
@@ -545,21 +1111,14 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
                                                    boolean withinInput,
                                                    SecurityOptions securityOptions,
                                                    CanonicalTypeConfiguration overrideConfiguration,
-                                                   FullModel fullModel) throws IOException {
+                                                   CompiledFullModel scorer) throws IOException {
 
-        final String id = (String) doc.getProperty("id");
         final String originalId = (String) doc.getProperty("originalId");
-        final SimilarityResult sr = new SimilarityResult();
-        sr.setIDSourceEntity(originalId);
-
-        final Query query = QueryGeneratorResolver.generateQuery(doc, overrideConfiguration);
-        if (query == null) {
-            throw new SearchException("Could not generate a query for doc " + doc);
-        }
+        final Query query = generateSimilarityQuery(doc, overrideConfiguration);
 
         final SearchRequest.Builder builder = new SearchRequest.Builder();
         String indexToUse = getIndexToUse(doc, overrideConfiguration);
-        builder.index(indexToUse).query(query).size(maxResults * 5);
+        builder.index(indexToUse).query(query).size(v2CandidateCount(maxResults));
 
 //        SearchOptions withHighlighting = SearchOptions.of(maxResults * 5,SearchResults.FIRST_OFFSET);
 //                  ask for more, we’ll re-rank
@@ -578,15 +1137,48 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
                     response.hits().hits().size(),
                     System.currentTimeMillis() - start);
 
-        final List<Hit<Document>> hits = response.hits().hits();
+        return toSimilarityResultV2(doc, response.hits().hits(), maxResults, minScore, withinInput, scorer);
+    }
+
+    /**
+     * Gets the number of candidates requested for v2 similarity, we ask for more than needed since the candidates are
+     * re-ranked by the model
+     *
+     * @param maxResults max number of results per input
+     * @return Number of candidates to request
+     */
+    private static int v2CandidateCount(int maxResults) {
+        return maxResults * 5;
+    }
+
+    /**
+     * Converts the search hits for an input document into a similarity result, scoring the candidates with the given
+     * model
+     *
+     * @param doc         Input document
+     * @param hits        Search hits
+     * @param maxResults  max number of results per input
+     * @param minScore    minimum score for a match
+     * @param withinInput whether to return similarities between input documents
+     * @param scorer      Compiled model used to score candidates
+     * @return Similarity result
+     */
+    private static SimilarityResult toSimilarityResultV2(Document doc, List<Hit<Document>> hits, int maxResults,
+                                                         float minScore, boolean withinInput,
+                                                         CompiledFullModel scorer) {
+        final String id = (String) doc.getProperty("id");
+        final SimilarityResult sr = new SimilarityResult();
+        sr.setIDSourceEntity((String) doc.getProperty("originalId"));
+
         if (hits.isEmpty()) {
             sr.setHits(new io.telicent.smart.cache.search.model.Hit[0]);
             return sr;
         }
 
-        // 1) Collect matches (candidateId -> matched fields)
+        // 1) Collect candidates (candidateId -> matched fields), excluding those that can never be returned
         Map<String, Hit<Document>> hitById = new HashMap<>();
-        List<Map.Entry<String, List<String>>> matchesForModel = new ArrayList<>();
+        List<String> candidateIds = new ArrayList<>(hits.size());
+        List<List<String>> matchedQueries = new ArrayList<>(hits.size());
 
         for (Hit<Document> hit : hits) {
             String hitId = hit.id();
@@ -598,53 +1190,32 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
                 continue;
             }
 
-            hitById.put(hitId, hit);
+            // Exclude the source doc itself
+            if (hitId.equals(id)) {
+                continue;
+            }
+            // Exclude temporary docs if withinInput = false
+            if (!withinInput && source.getProperties().containsKey(TEMP_INDEXING_SIMILARITY_FIELD)) {
+                continue;
+            }
 
+            hitById.put(hitId, hit);
+            candidateIds.add(hitId);
             // matchedQueries() returns the queryName we set in queries (the field name)
-            List<String> matchedFields = hit.matchedQueries();
-            matchesForModel.add(Map.entry(hitId, matchedFields));
+            matchedQueries.add(hit.matchedQueries());
         }
 
-        // 2) Score each candidate using FullModel
+        // 2) Score each candidate using the model, keeping only the best maxResults
         List<Map.Entry<String, Double>> scored =
-                fullModel.calculateScores(matchesForModel);
+                scorer.calculateScores(candidateIds, matchedQueries, maxResults, minScore);
 
         // 3) Build final hits ordered by model score
-        List<io.telicent.smart.cache.search.model.Hit> similarHits = new ArrayList<>();
-
+        List<io.telicent.smart.cache.search.model.Hit> similarHits = new ArrayList<>(scored.size());
         for (Map.Entry<String, Double> entry : scored) {
-            if (similarHits.size() >= maxResults) {
-                break;
-            }
-
             String hitId = entry.getKey();
-            double modelScore = entry.getValue();
-
-            if (modelScore < minScore) {
-                continue;
-            }
-
-            Hit<Document> hit = hitById.get(hitId);
-            if (hit == null) {
-                continue;
-            }
-
-            Document source = hit.source();
-            boolean fromTempSet =
-                    source.getProperties().containsKey(TEMP_INDEXING_SIMILARITY_FIELD);
-
-            // Exclude the source doc itself
-            if (hitId.equals(id)) {
-                continue;
-            }
-            // Exclude temporary docs if withinInput = false
-            if (!withinInput && fromTempSet) {
-                continue;
-            }
-
             similarHits.add(
                     new io.telicent.smart.cache.search.model.Hit(
-                            hitId, modelScore, source));
+                            hitId, entry.getValue(), hitById.get(hitId).source()));
         }
 
         sr.setHits(similarHits.toArray(new io.telicent.smart.cache.search.model.Hit[0]));
@@ -660,38 +1231,432 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
                                            SecurityOptions securityOptions,
                                            String modelId) {
 
-        FullModel fullModel = loadFullModel(modelId);
+        CompiledFullModel scorer = loadFullModel(modelId).compile();
+        CanonicalTypeConfiguration overrideConfiguration = null;
+
+        return resolveWithResultCache(docs, withinInput, scoringForModel(modelId), maxResults, minScore,
+                                      overrideConfiguration,
+                                      pending -> findSimilarV2Uncached(pending, maxResults, minScore, withinInput,
+                                                                       scorer));
+    }
+
+    private SimilarityResults findSimilarV2Uncached(List<Document> docs, int maxResults, float minScore,
+                                                    boolean withinInput, CompiledFullModel scorer) {
         CanonicalTypeConfiguration overrideConfiguration = null;
 
         // Index the documents for similarity comparison
-        String batchId = indexDocumentsTemporarilyIntoSimilarityIndex(docs, overrideConfiguration);
+        String batchId = prepareDocumentsForSimilarity(docs, withinInput, overrideConfiguration);
         String indexToUse = getIndexToUse(docs.getFirst(), overrideConfiguration);
 
         final List<SimilarityResult> results = new ArrayList<>();
 
         try {
-            for (Document d : docs) {
-                SimilarityResult res = findSimilarV2Internal(
-                        d, maxResults, minScore, withinInput,
-                        securityOptions, overrideConfiguration, fullModel);
-                results.add(res);
+            List<List<Hit<Document>>> hits =
+                    multiSearch(docs, overrideConfiguration, v2CandidateCount(maxResults));
+            for (int i = 0; i < docs.size(); i++) {
+                results.add(toSimilarityResultV2(docs.get(i), hits.get(i), maxResults, minScore,
+                                                 withinInput, scorer));
             }
         } catch (Exception e) {
             throw new SearchException("Error during similarity v2 search", e);
         } finally {
             // Clean up temp docs, regardless of errors
-            try {
-                DeleteByQueryRequest request = generateDeleteRequest(indexToUse, batchId);
-                this.getClient().deleteByQuery(request);
-            } catch (Exception e) {
-                LOGGER.error("Exception while deleting batch {}", batchId, e);
-                flagFutureDeleteForCleanUp();
-            }
+            deleteTemporaryDocuments(indexToUse, batchId);
         }
 
         return new SimilarityResults(results);
     }
 
+    @Override
+    public CompletableFuture<SimilarityResult> findSimilarAsync(final Document doc, int maxResults,
+                                                                final float minScore,
+                                                                final SecurityOptions securityOptions,
+                                                                String overrides) {
+        return findSimilarAsync(Collections.singletonList(doc), maxResults, minScore, false, securityOptions,
+                                overrides).thenApply(results -> results.getResults().getFirst());
+    }
+
+    @Override
+    public CompletableFuture<SimilarityResults> findSimilarAsync(final List<Document> docs, int maxResults,
+                                                                 final float minScore, final boolean withinInput,
+                                                                 final SecurityOptions securityOptions,
+                                                                 String overrides) {
+        final CanonicalTypeConfiguration overrideConfiguration;
+        try {
+            overrideConfiguration = loadAndValidateConfigurationOverride(overrides, docs.getFirst());
+        } catch (SearchException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return resolveWithResultCacheAsync(
+                docs, withinInput, scoringForOverrides(overrides), maxResults, minScore, overrideConfiguration,
+                pending -> resolveAsync(pending, withinInput, overrideConfiguration, null, true,
+                                        (doc, hits, selfScore) -> toSimilarityResult(doc, hits, maxResults,
+                                                                                     minScore, withinInput,
+                                                                                     selfScore)));
+    }
+
+    @Override
+    public CompletableFuture<SimilarityResult> findSimilarV2Async(Document doc, int maxResults, float minScore,
+                                                                  SecurityOptions securityOptions, String modelId) {
+        final FullModel fullModel;
+        try {
+            fullModel = loadFullModel(modelId);
+            String indexToUse = getIndexToUse(doc, null);
+            if (!fullModel.index.equals(indexToUse)) {
+                throw new SearchException("Model '" + modelId + "' is for index '" + fullModel.index
+                                                  + "' but similarity search uses '" + indexToUse + "'");
+            }
+        } catch (SearchException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        final CompiledFullModel scorer = fullModel.compile();
+        return resolveWithResultCacheAsync(
+                Collections.singletonList(doc), false, scoringForModel(modelId), maxResults, minScore, null,
+                pending -> resolveAsync(pending, false, null, v2CandidateCount(maxResults), false,
+                                        (d, hits, selfScore) -> toSimilarityResultV2(d, hits, maxResults, minScore,
+                                                                                     false, scorer)))
+                .thenApply(results -> results.getResults().getFirst());
+    }
+
+    @Override
+    public CompletableFuture<SimilarityResults> findSimilarV2Async(List<Document> docs, int maxResults,
+                                                                   float minScore, boolean withinInput,
+                                                                   SecurityOptions securityOptions, String modelId) {
+        final CompiledFullModel scorer;
+        try {
+            scorer = loadFullModel(modelId).compile();
+        } catch (SearchException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return resolveWithResultCacheAsync(
+                docs, withinInput, scoringForModel(modelId), maxResults, minScore, null,
+                pending -> resolveAsync(pending, withinInput, null, v2CandidateCount(maxResults), false,
+                                        (d, hits, selfScore) -> toSimilarityResultV2(d, hits, maxResults, minScore,
+                                                                                     withinInput, scorer)));
+    }
+
+    /**
+     * Identifies how v1 similarity results are scored, for result caching purposes
+     *
+     * @param overrides Override configuration, may be blank
+     * @return Scoring identifier
+     */
+    private static String scoringForOverrides(String overrides) {
+        return StringUtils.isBlank(overrides) ? "v1" : "v1:" + SimilarityResultCache.hash(overrides);
+    }
+
+    /**
+     * Identifies how v2 similarity results are scored, for result caching purposes
+     *
+     * @param modelId Model ID
+     * @return Scoring identifier
+     */
+    private static String scoringForModel(String modelId) {
+        return "v2:" + modelId;
+    }
+
+    /**
+     * Resolves a single document, answering from the result cache where possible
+     *
+     * @param doc                   Input document
+     * @param scoring               Identifies how results are scored
+     * @param maxResults            max number of results per input
+     * @param minScore              minimum score for a match
+     * @param overrideConfiguration Override configuration, may be null
+     * @param resolver              Resolves the document when it is not cached
+     * @return Similarity result
+     */
+    private SimilarityResult resolveWithResultCache(Document doc, String scoring, int maxResults, float minScore,
+                                                    CanonicalTypeConfiguration overrideConfiguration,
+                                                    Supplier<SimilarityResult> resolver) {
+        if (this.resultCache == null) {
+            return resolver.get();
+        }
+        SimilarityResultCache.Key key =
+                this.resultCache.keyFor(doc, scoring, maxResults, minScore, getIndexToUse(doc, overrideConfiguration));
+        SimilarityResult cached = this.resultCache.get(key, doc);
+        if (cached != null) {
+            return cached;
+        }
+        SimilarityResult result = resolver.get();
+        this.resultCache.put(key, result);
+        return result;
+    }
+
+    /**
+     * Resolves a batch of documents, answering from the result cache where possible so that only the documents that
+     * are not cached are resolved.  Results are only cached when similarities within the input are not requested,
+     * since otherwise the result for each document depends upon the rest of the batch.
+     *
+     * @param docs                  Input documents
+     * @param withinInput           whether to return similarities between input documents
+     * @param scoring               Identifies how results are scored
+     * @param maxResults            max number of results per input
+     * @param minScore              minimum score for a match
+     * @param overrideConfiguration Override configuration, may be null
+     * @param resolver              Resolves the documents that are not cached
+     * @return Similarity results
+     */
+    private SimilarityResults resolveWithResultCache(List<Document> docs, boolean withinInput, String scoring,
+                                                     int maxResults, float minScore,
+                                                     CanonicalTypeConfiguration overrideConfiguration,
+                                                     Function<List<Document>, SimilarityResults> resolver) {
+        if (this.resultCache == null || withinInput) {
+            return resolver.apply(docs);
+        }
+        CachedResults cached = lookupCachedResults(docs, scoring, maxResults, minScore, overrideConfiguration);
+        if (cached.isComplete()) {
+            return cached.complete(null);
+        }
+        return cached.complete(resolver.apply(cached.misses));
+    }
+
+    /**
+     * Asynchronously resolves a batch of documents, answering from the result cache where possible, see
+     * {@link #resolveWithResultCache(List, boolean, String, int, float, CanonicalTypeConfiguration, Function)}
+     */
+    private CompletableFuture<SimilarityResults> resolveWithResultCacheAsync(
+            List<Document> docs, boolean withinInput, String scoring, int maxResults, float minScore,
+            CanonicalTypeConfiguration overrideConfiguration,
+            Function<List<Document>, CompletableFuture<SimilarityResults>> resolver) {
+        if (this.resultCache == null || withinInput) {
+            return resolver.apply(docs);
+        }
+        CachedResults cached = lookupCachedResults(docs, scoring, maxResults, minScore, overrideConfiguration);
+        if (cached.isComplete()) {
+            return CompletableFuture.completedFuture(cached.complete(null));
+        }
+        return resolver.apply(cached.misses).thenApply(cached::complete);
+    }
+
+    private CachedResults lookupCachedResults(List<Document> docs, String scoring, int maxResults, float minScore,
+                                              CanonicalTypeConfiguration overrideConfiguration) {
+        CachedResults cached = new CachedResults(this.resultCache, docs.size());
+        for (int i = 0; i < docs.size(); i++) {
+            Document doc = docs.get(i);
+            SimilarityResultCache.Key key =
+                    this.resultCache.keyFor(doc, scoring, maxResults, minScore,
+                                            getIndexToUse(doc, overrideConfiguration));
+            SimilarityResult result = this.resultCache.get(key, doc);
+            if (result != null) {
+                cached.results[i] = result;
+            } else {
+                cached.misses.add(doc);
+                cached.missPositions.add(i);
+                cached.missKeys.add(key);
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * The results for a batch of documents that were found in the result cache, along with the documents that were not
+     */
+    private static final class CachedResults {
+        private final SimilarityResultCache cache;
+        private final SimilarityResult[] results;
+        private final List<Document> misses = new ArrayList<>();
+        private final List<Integer> missPositions = new ArrayList<>();
+        private final List<SimilarityResultCache.Key> missKeys = new ArrayList<>();
+
+        private CachedResults(SimilarityResultCache cache, int size) {
+            this.cache = cache;
+            this.results = new SimilarityResult[size];
+        }
+
+        private boolean isComplete() {
+            return this.misses.isEmpty();
+        }
+
+        /**
+         * Completes the results with those resolved for the documents that were not cached, caching them
+         *
+         * @param resolved Results for the documents that were not cached, in the same order
+         * @return Complete results
+         */
+        private SimilarityResults complete(SimilarityResults resolved) {
+            for (int i = 0; i < this.misses.size(); i++) {
+                SimilarityResult result = resolved.getResults().get(i);
+                this.results[this.missPositions.get(i)] = result;
+                this.cache.put(this.missKeys.get(i), result);
+            }
+            return new SimilarityResults(Arrays.asList(this.results));
+        }
+    }
+
+    /**
+     * Converts the search hits for an input document into a similarity result
+     */
+    @FunctionalInterface
+    private interface SimilarityResultConverter {
+        /**
+         * Converts the search hits for an input document into a similarity result
+         *
+         * @param doc       Input document
+         * @param hits      Search hits
+         * @param selfScore Locally calculated self-similarity score, {@code null} if the input document was temporarily
+         *                  indexed or self-similarity scores were not needed
+         * @return Similarity result
+         */
+        SimilarityResult convert(Document doc, List<Hit<Document>> hits, Double selfScore);
+    }
+
+    /**
+     * Resolves the given input documents asynchronously, pipelining the temporary indexing (if required), search and
+     * clean up stages without blocking the calling thread.  Each request made to ElasticSearch counts against the bound
+     * on in-flight requests, requests beyond that bound are queued until earlier ones complete.  Processing of the
+     * responses runs on the resolver's executor rather than the ElasticSearch client's I/O threads.
+     *
+     * @param docs                  Input documents
+     * @param withinInput           Whether similarities between input documents were requested
+     * @param overrideConfiguration Override configuration, may be null
+     * @param size                  Number of hits to request per document, {@code null} to use the server default
+     * @param selfScored            Whether the converter normalises against self-similarity scores, in which case they
+     *                              are calculated locally for input documents that are not temporarily indexed
+     * @param converter             Converts the hits for each input document into a similarity result
+     * @return Future similarity results, in the same order as the input documents
+     */
+    private CompletableFuture<SimilarityResults> resolveAsync(final List<Document> docs, final boolean withinInput,
+                                                              CanonicalTypeConfiguration overrideConfiguration,
+                                                              Integer size, boolean selfScored,
+                                                              SimilarityResultConverter converter) {
+        final String index;
+        final String batchID;
+        final CompletableFuture<?> prepared;
+        final CompletableFuture<List<Double>> selfScores;
+        try {
+            index = getIndexToUse(docs.getFirst(), overrideConfiguration);
+            if (requiresTemporaryIndexing(withinInput)) {
+                batchID = UUID.randomUUID().toString();
+                BulkRequest request = buildTemporaryIndexRequest(docs, overrideConfiguration, batchID);
+                prepared = this.inFlightLimiter.submit(() -> invokeAsync(() -> this.getAsyncClient().bulk(request)))
+                                               .exceptionally(e -> {
+                                                   LOGGER.error("Error found while indexing bulk ", e);
+                                                   throw translateAsyncFailure(
+                                                           e, "Similarity search temporarily indexing docs");
+                                               });
+                selfScores = CompletableFuture.completedFuture(null);
+            } else {
+                batchID = null;
+                docs.forEach(this::processDocumentID);
+                prepared = CompletableFuture.completedFuture(null);
+                selfScores = selfScored ? selfScoresAsync(docs, overrideConfiguration)
+                                        : CompletableFuture.completedFuture(null);
+            }
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<SimilarityResults> resolved =
+                prepared.thenComposeAsync(x -> multiSearchAsync(docs, overrideConfiguration, size), this.executor)
+                        .thenCombineAsync(selfScores, (hits, scores) -> {
+                            List<SimilarityResult> results = new ArrayList<>(docs.size());
+                            for (int i = 0; i < docs.size(); i++) {
+                                results.add(converter.convert(docs.get(i), hits.get(i),
+                                                              scores != null ? scores.get(i) : null));
+                            }
+                            return new SimilarityResults(results);
+                        }, this.executor);
+
+        // clean up temporary docs regardless of errors, failures to do so don't impact the results
+        return resolved.handleAsync((results, error) -> results, this.executor)
+                       .thenComposeAsync(x -> deleteTemporaryDocumentsAsync(index, batchID), this.executor)
+                       .thenComposeAsync(x -> resolved, this.executor);
+    }
+
+    /**
+     * Asynchronous equivalent of {@link #multiSearch(List, CanonicalTypeConfiguration, Integer)}, the chunks are sent
+     * concurrently subject to the bound on in-flight requests
+     *
+     * @param docs                  Input documents
+     * @param overrideConfiguration Override configuration, may be null
+     * @param size                  Number of hits to request per document, {@code null} to use the server default
+     * @return Future search hits for each input document, in the same order as the input documents
+     */
+    CompletableFuture<List<List<Hit<Document>>>> multiSearchAsync(final List<Document> docs,
+                                                                  CanonicalTypeConfiguration overrideConfiguration,
+                                                                  Integer size) {
+        final List<CompletableFuture<List<List<Hit<Document>>>>> chunks = new ArrayList<>();
+        for (int from = 0; from < docs.size(); from += this.multiSearchBatchSize) {
+            final List<Document> chunk = docs.subList(from, Math.min(from + this.multiSearchBatchSize, docs.size()));
+            final MsearchRequest request = buildMultiSearchRequest(chunk, overrideConfiguration, size);
+            chunks.add(this.inFlightLimiter.submit(
+                                   () -> invokeAsync(() -> this.sendMultiSearchAsync(request)))
+                                           .handleAsync((response, error) -> {
+                                               if (error != null) {
+                                                   LOGGER.error("Exception caught when multi-searching Elastic",
+                                                                error);
+                                                   throw translateAsyncFailure(error, "Similarity multi-search for "
+                                                                                      + chunk.size() + " docs");
+                                               }
+                                               return collectMultiSearchHits(chunk, response);
+                                           }, this.executor));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).thenApplyAsync(x -> {
+            final List<List<Hit<Document>>> results = new ArrayList<>(docs.size());
+            chunks.forEach(c -> results.addAll(c.join()));
+            return results;
+        }, this.executor);
+    }
+
+    /**
+     * Asynchronous equivalent of {@link #deleteTemporaryDocuments(String, String)}, the returned future never
+     * completes exceptionally
+     *
+     * @param index   Index the documents were indexed into
+     * @param batchID Batch ID of the temporarily indexed documents, if {@code null} there is nothing to delete
+     * @return Future that completes once the delete has finished
+     */
+    private CompletableFuture<Void> deleteTemporaryDocumentsAsync(String index, String batchID) {
+        if (batchID == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        DeleteByQueryRequest request = generateDeleteRequest(index, batchID);
+        return this.inFlightLimiter.submit(() -> invokeAsync(() -> this.getAsyncClient().deleteByQuery(request)))
+                                   .handleAsync((response, error) -> {
+                                       if (error != null) {
+                                           LOGGER.error("Exception while deleting batch {}", batchID, error);
+                                           // no need to propagate - it is not that crucial, but we should clean up
+                                           // after.
+                                           flagFutureDeleteForCleanUp();
+                                       }
+                                       return null;
+                                   }, this.executor);
+    }
+
+    /**
+     * Invokes an asynchronous client call, converting any exception thrown while issuing the call into a failed
+     * future
+     *
+     * @param call Asynchronous call
+     * @param <T>  Response type
+     * @return Future response
+     */
+    private static <T> CompletableFuture<T> invokeAsync(Callable<CompletableFuture<T>> call) {
+        try {
+            return call.call();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Translates the failure of an asynchronous call into a Search exception
+     *
+     * @param e      Failure
+     * @param action Action that was being attempted
+     * @return Search exception
+     */
+    private static SearchException translateAsyncFailure(Throwable e, String action) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof SearchException searchException) {
+            return searchException;
+        } else if (cause instanceof ElasticsearchException elasticException) {
+            return AbstractClientAdaptor.fromElasticException(elasticException, action);
+        }
+        return new SearchException(cause);
+    }
+
 
     /**
      * An ElasticSearch entity resolver builder, suitable for extending.
@@ -703,6 +1668,16 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
             extends AbstractElasticClientBuilder<C, B> {
         /** The similarity index to be used. */
         protected String similarityIndex;
+        /** Whether similarity is resolved purely by querying where possible. */
+        protected boolean queryOnly;
+        /** Maximum number of searches sent in a single multi-search request. */
+        protected int multiSearchBatchSize = DEFAULT_MULTI_SEARCH_BATCH_SIZE;
+        /** Maximum number of asynchronous requests to ElasticSearch in-flight at once. */
+        protected int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+        /** Maximum number of cached similarity results, zero to disable result caching. */
+        protected long resultCacheSize = DEFAULT_RESULT_CACHE_SIZE;
+        /** Duration for which similarity results are cached. */
+        protected Duration resultCacheTtl = DEFAULT_RESULT_CACHE_TTL;
 
         /**
          * @param similarityIndex configures the similarity index on the builder, used to construct the client.
@@ -713,6 +1688,58 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
             return self();
         }
 
+        /**
+         * @param queryOnly configures on the builder whether similarity requests are resolved purely by querying,
+         *                  without temporarily indexing the input documents, unless matches within the input are
+         *                  requested.  Scores are still normalised in this mode, against a self-similarity score
+         *                  calculated locally since the input documents are not in the index.
+         * @return the builder for chaining.
+         */
+        public B queryOnly(boolean queryOnly) {
+            this.queryOnly = queryOnly;
+            return self();
+        }
+
+        /**
+         * @param multiSearchBatchSize configures on the builder the maximum number of searches sent in a single
+         *                             multi-search request when resolving a batch of documents.
+         * @return the builder for chaining.
+         */
+        public B multiSearchBatchSize(int multiSearchBatchSize) {
+            this.multiSearchBatchSize = multiSearchBatchSize;
+            return self();
+        }
+
+        /**
+         * @param maxInFlightRequests configures on the builder the maximum number of asynchronous requests to
+         *                            ElasticSearch in-flight at once, further requests are queued until earlier ones
+         *                            complete.
+         * @return the builder for chaining.
+         */
+        public B maxInFlightRequests(int maxInFlightRequests) {
+            this.maxInFlightRequests = maxInFlightRequests;
+            return self();
+        }
+
+        /**
+         * @param resultCacheSize configures on the builder the maximum number of similarity results to cache, zero
+         *                        disables result caching.
+         * @return the builder for chaining.
+         */
+        public B resultCacheSize(long resultCacheSize) {
+            this.resultCacheSize = resultCacheSize;
+            return self();
+        }
+
+        /**
+         * @param resultCacheTtl configures on the builder the duration for which similarity results are cached.
+         * @return the builder for chaining.
+         */
+        public B resultCacheTtl(Duration resultCacheTtl) {
+            this.resultCacheTtl = resultCacheTtl;
+            return self();
+        }
+
         protected abstract B self();
 
         /**
@@ -728,7 +1755,7 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
          */
         @Override
         public String toString() {
-            return "ElasticSearchEntityResolver.ElasticEntityResolverBuilder(super=" + super.toString() + ", similarityIndex=" + this.similarityIndex + ")";
+            return "ElasticSearchEntityResolver.ElasticEntityResolverBuilder(super=" + super.toString() + ", similarityIndex=" + this.similarityIndex + ", queryOnly=" + this.queryOnly + ", multiSearchBatchSize=" + this.multiSearchBatchSize + ", maxInFlightRequests=" + this.maxInFlightRequests + ", resultCacheSize=" + this.resultCacheSize + ", resultCacheTtl=" + this.resultCacheTtl + ")";
         }
     }
 
@@ -744,7 +1771,9 @@ public class ElasticSearchEntityResolver extends AbstractClientAdaptor implement
 
         @Override
         public ElasticSearchEntityResolver build() {
-            return new ElasticSearchEntityResolver(elasticHost, elasticPort, similarityIndex, username, password, makeOpenSearchCompatible);
+            return new ElasticSearchEntityResolver(elasticHost, elasticPort, similarityIndex, username, password,
+                                                   null, makeOpenSearchCompatible, queryOnly, multiSearchBatchSize,
+                                                   maxInFlightRequests, resultCacheSize, resultCacheTtl);
         }
     }
 }
@@ -0,0 +1,135 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of asynchronous operations that may be in-flight at once without blocking the submitting thread.
+ * <p>
+ * Operations submitted while the limit is reached are queued and started, in submission order, as earlier operations
+ * complete.  Queued operations, and the completion of the futures returned by {@link #submit(Supplier)}, are handed off
+ * to the supplied executor.  This keeps dependent stages off the thread that completed the operation, typically an
+ * HTTP client I/O thread, and means draining a long queue does not recurse on that thread's stack.
+ * </p>
+ */
+final class InFlightLimiter {
+
+    private final int maxInFlight;
+    private final Executor executor;
+    private final Deque<Runnable> pending = new ArrayDeque<>();
+    private int inFlight;
+
+    /**
+     * Creates a new limiter
+     *
+     * @param maxInFlight Maximum number of operations in-flight at once
+     * @param executor    Executor used to start queued operations and to complete the returned futures
+     */
+    InFlightLimiter(int maxInFlight, Executor executor) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Maximum in-flight operations must be at least 1");
+        }
+        this.maxInFlight = maxInFlight;
+        this.executor = Objects.requireNonNull(executor, "Executor cannot be null");
+    }
+
+    /**
+     * Submits an operation, it is started immediately if the limit permits, otherwise it is started once a permit
+     * becomes available
+     *
+     * @param operation Operation to start
+     * @param <T>       Result type
+     * @return Future that completes with the result of the operation
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> future;
+            try {
+                future = operation.get();
+            } catch (Throwable e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenCompleteAsync((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            }, this.executor);
+        };
+
+        boolean startNow;
+        synchronized (this.pending) {
+            startNow = this.inFlight < this.maxInFlight;
+            if (startNow) {
+                this.inFlight++;
+            } else {
+                this.pending.addLast(start);
+            }
+        }
+        if (startNow) {
+            start.run();
+        }
+        return result;
+    }
+
+    /**
+     * Releases the permit held by a completed operation, handing it directly to the next pending operation if any,
+     * which is started on the executor
+     */
+    private void release() {
+        Runnable next;
+        synchronized (this.pending) {
+            next = this.pending.pollFirst();
+            if (next == null) {
+                this.inFlight--;
+            }
+        }
+        if (next != null) {
+            this.executor.execute(next);
+        }
+    }
+
+    /**
+     * Gets the number of operations currently in-flight
+     *
+     * @return In-flight operations
+     */
+    int inFlight() {
+        synchronized (this.pending) {
+            return this.inFlight;
+        }
+    }
+
+    /**
+     * Gets the number of operations waiting for a permit
+     *
+     * @return Pending operations
+     */
+    int pending() {
+        synchronized (this.pending) {
+            return this.pending.size();
+        }
+    }
+}
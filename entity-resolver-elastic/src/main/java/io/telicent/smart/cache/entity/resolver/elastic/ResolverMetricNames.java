@@ -0,0 +1,47 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic;
+
+/**
+ * Provides constants for naming entity resolution related metrics
+ */
+public final class ResolverMetricNames {
+
+    /**
+     * Metric for the number of similarity results served from the result cache
+     */
+    public static final String RESULT_CACHE_HITS = "resolver.result_cache.hits";
+    /**
+     * Metric for the number of similarity results that were not in the result cache
+     */
+    public static final String RESULT_CACHE_MISSES = "resolver.result_cache.misses";
+    /**
+     * Description for the {@link #RESULT_CACHE_HITS} metric
+     */
+    public static final String RESULT_CACHE_HITS_DESCRIPTION =
+            "Number of similarity results served from the result cache";
+    /**
+     * Description for the {@link #RESULT_CACHE_MISSES} metric
+     */
+    public static final String RESULT_CACHE_MISSES_DESCRIPTION =
+            "Number of similarity results that had to be resolved against ElasticSearch";
+
+    /**
+     * Private constructor prevents instantiation
+     */
+    private ResolverMetricNames() {
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.telicent.smart.cache.entity.resolver.elastic.index.ConfigurationCache;
+import io.telicent.smart.cache.entity.resolver.model.SimilarityResult;
+import io.telicent.smart.cache.observability.AttributeNames;
+import io.telicent.smart.cache.observability.LibraryVersion;
+import io.telicent.smart.cache.observability.TelicentMetrics;
+import io.telicent.smart.cache.projectors.Library;
+import io.telicent.smart.cache.search.model.Document;
+import io.telicent.smart.cache.search.model.Hit;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A cache of similarity results, allowing repeated resolution requests for the same document to be answered without
+ * querying ElasticSearch.
+ * <p>
+ * Results are keyed by the normalised content of the input document, i.e. its properties in key order excluding its
+ * identifiers, together with everything else that can influence the result: the maximum results, minimum score, the
+ * model or override configuration used, the internal ID of the index searched, and the version of the cached entity
+ * resolution configuration.  Since the index internal ID changes when an index is recreated, and the configuration
+ * version changes whenever any configuration changes, stale results are never served.  Additionally, the cache is
+ * invalidated whenever the configuration changes so that unreachable results don't occupy space.
+ * </p>
+ * <p>
+ * Index internal IDs are themselves cached for a short interval so that checking them does not require an
+ * ElasticSearch round trip per request.
+ * </p>
+ * <p>
+ * Results are deep copied both when cached and when returned, so callers may freely modify the documents of the hits
+ * they are given without affecting the cached result.
+ * </p>
+ */
+public class SimilarityResultCache implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SimilarityResultCache.class);
+
+    /**
+     * Default interval for which index internal IDs are cached
+     */
+    public static final Duration DEFAULT_INDEX_ID_INTERVAL = Duration.ofSeconds(5);
+
+    private static final ObjectMapper CANONICAL_MAPPER =
+            new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    /**
+     * A cache key
+     *
+     * @param content       Hash of the normalised document content
+     * @param scoring       Identifies how results are scored, e.g. the model or override configuration used
+     * @param maxResults    Maximum results
+     * @param minScore      Minimum score
+     * @param indexId       Internal ID of the index searched
+     * @param configVersion Version of the entity resolution configuration
+     */
+    public record Key(String content, String scoring, int maxResults, float minScore, String indexId,
+                      long configVersion) {
+    }
+
+    private final Cache<Key, SimilarityResult> results;
+    private final Cache<String, String> indexIds;
+    private final Function<String, String> indexIdLookup;
+    private final ConfigurationCache configuration;
+    private final Runnable invalidator = this::invalidate;
+    private final Attributes metricAttributes;
+    private final LongCounter hits;
+    private final LongCounter misses;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Creates a new result cache
+     *
+     * @param maxSize         Maximum number of results to cache
+     * @param expiry          How long after being cached a result expires
+     * @param indexIdInterval How long index internal IDs are cached for
+     * @param indexIdLookup   Function that looks up the internal ID of an index, returning {@code null} if the index
+     *                        does not exist
+     * @param configuration   Configuration cache, results are invalidated when this changes
+     */
+    public SimilarityResultCache(long maxSize, Duration expiry, Duration indexIdInterval,
+                                 Function<String, String> indexIdLookup, ConfigurationCache configuration) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be >= 1");
+        }
+        Objects.requireNonNull(expiry, "expiry cannot be null");
+        if (Duration.ZERO.compareTo(expiry) >= 0) {
+            throw new IllegalArgumentException("expiry must be a duration greater than zero");
+        }
+        Objects.requireNonNull(indexIdInterval, "indexIdInterval cannot be null");
+        if (Duration.ZERO.compareTo(indexIdInterval) >= 0) {
+            throw new IllegalArgumentException("indexIdInterval must be a duration greater than zero");
+        }
+        this.indexIdLookup = Objects.requireNonNull(indexIdLookup, "indexIdLookup cannot be null");
+        this.configuration = Objects.requireNonNull(configuration, "configuration cannot be null");
+
+        this.results = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(expiry).build();
+        this.indexIds = Caffeine.newBuilder().expireAfterWrite(indexIdInterval).build();
+        this.configuration.addListener(this.invalidator);
+
+        this.metricAttributes =
+                Attributes.of(AttributeKey.stringKey(AttributeNames.INSTANCE_ID), UUID.randomUUID().toString());
+        Meter meter = TelicentMetrics.getMeter(Library.NAME, LibraryVersion.get(Library.NAME));
+        //@formatter:off
+        this.hits
+                = meter.counterBuilder(ResolverMetricNames.RESULT_CACHE_HITS)
+                       .setDescription(ResolverMetricNames.RESULT_CACHE_HITS_DESCRIPTION)
+                       .build();
+        this.misses
+                = meter.counterBuilder(ResolverMetricNames.RESULT_CACHE_MISSES)
+                       .setDescription(ResolverMetricNames.RESULT_CACHE_MISSES_DESCRIPTION)
+                       .build();
+        //@formatter:on
+    }
+
+    /**
+     * Computes the cache key for resolving the given document.  This <strong>MUST</strong> be called prior to
+     * resolving the document, both because resolution modifies the document identifiers and so that the key reflects
+     * the configuration version the document is resolved against.
+     *
+     * @param doc        Input document
+     * @param scoring    Identifies how results are scored, e.g. the model or override configuration used
+     * @param maxResults Maximum results
+     * @param minScore   Minimum score
+     * @param index      Index that will be searched
+     * @return Key, or {@code null} if results for this document cannot be cached
+     */
+    public Key keyFor(Document doc, String scoring, int maxResults, float minScore, String index) {
+        long configVersion = this.configuration.getVersion();
+        String indexId = StringUtils.isBlank(index) ? null : this.indexIds.get(index, this.indexIdLookup);
+        if (indexId == null) {
+            return null;
+        }
+        String content = contentHash(doc);
+        if (content == null) {
+            return null;
+        }
+        return new Key(content, scoring, maxResults, minScore, indexId, configVersion);
+    }
+
+    /**
+     * Gets a cached result
+     *
+     * @param key Key, may be {@code null} in which case this is always a miss
+     * @param doc Input document, used to populate the source entity ID of the returned result
+     * @return Result, or {@code null} if not cached
+     */
+    public SimilarityResult get(Key key, Document doc) {
+        SimilarityResult cached = key != null ? this.results.getIfPresent(key) : null;
+        if (cached == null) {
+            this.missCount.increment();
+            this.misses.add(1, this.metricAttributes);
+            return null;
+        }
+        this.hitCount.increment();
+        this.hits.add(1, this.metricAttributes);
+        return new SimilarityResult(sourceEntityId(doc), copy(cached.getHits()));
+    }
+
+    /**
+     * Caches a result
+     *
+     * @param key    Key, may be {@code null} in which case nothing is cached
+     * @param result Result
+     */
+    public void put(Key key, SimilarityResult result) {
+        if (key == null || result == null || result.getHits() == null) {
+            return;
+        }
+        this.results.put(key, new SimilarityResult(null, copy(result.getHits())));
+    }
+
+    /**
+     * Deep copies hits, so that neither the cached hits nor the hits given to callers share mutable documents
+     *
+     * @param hits Hits
+     * @return Copied hits
+     */
+    static Hit[] copy(Hit[] hits) {
+        Hit[] copies = new Hit[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            Hit hit = hits[i];
+            copies[i] = hit == null ? null :
+                        new Hit(hit.getId(), hit.getScore(),
+                                hit.getDocument() != null ? Document.copy(hit.getDocument()) : null);
+        }
+        return copies;
+    }
+
+    /**
+     * Invalidates all cached results
+     */
+    public void invalidate() {
+        this.results.invalidateAll();
+        this.indexIds.invalidateAll();
+    }
+
+    /**
+     * Gets the number of cache hits, this always agrees with the hits reported via metrics
+     *
+     * @return Hits
+     */
+    public long hitCount() {
+        return this.hitCount.sum();
+    }
+
+    /**
+     * Gets the number of cache misses, including lookups for results that could not be cached, this always agrees
+     * with the misses reported via metrics
+     *
+     * @return Misses
+     */
+    public long missCount() {
+        return this.missCount.sum();
+    }
+
+    /**
+     * Gets the approximate number of cached results
+     *
+     * @return Size
+     */
+    public long size() {
+        return this.results.estimatedSize();
+    }
+
+    @Override
+    public void close() {
+        this.configuration.removeListener(this.invalidator);
+        this.invalidate();
+    }
+
+    /**
+     * Gets the source entity ID a result for this document will carry, this mirrors how the resolver assigns it
+     */
+    private static String sourceEntityId(Document doc) {
+        String id = (String) doc.getProperty("id");
+        return StringUtils.isNotBlank(id) ? id : UUID.randomUUID().toString();
+    }
+
+    /**
+     * Hashes the normalised document content, i.e. its properties, in key order, excluding its identifiers
+     */
+    private static String contentHash(Document doc) {
+        Map<String, Object> properties = new TreeMap<>(doc.getProperties());
+        properties.remove("id");
+        properties.remove("originalId");
+        try {
+            return hash(CANONICAL_MAPPER.writeValueAsString(properties));
+        } catch (JsonProcessingException e) {
+            LOGGER.warn("Unable to normalise document for result caching: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Hashes the given value
+     *
+     * @param value Value
+     * @return Hex encoded SHA-256 hash of the value
+     */
+    static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
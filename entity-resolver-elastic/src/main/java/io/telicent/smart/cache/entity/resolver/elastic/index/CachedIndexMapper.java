@@ -22,12 +22,17 @@ import io.telicent.smart.cache.canonical.utility.Mapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.*;
 
 import static io.telicent.smart.cache.canonical.utility.Mapper.writeValueAsString;
 
 /**
  * An internal mapping of the config to stop making calls to ES every time.
+ * <p>
+ * The mapping is held in a {@link ConfigurationCache} so lookups on the resolution hot path are lock free and never
+ * observe a partially loaded mapping.
+ * </p>
  */
 public final class CachedIndexMapper {
 
@@ -35,25 +40,19 @@ public final class CachedIndexMapper {
     private static final List<String> configList =
             Arrays.asList(Model.TYPE, Relation.TYPE, Scores.TYPE, CanonicalTypeConfiguration.TYPE);
     /**
-     * Internal map of config types
+     * Internal cache of config types
      */
-    static Map<String, Map<String, Object>> cacheMap = initializeMapOfMaps(configList);
-
-    static boolean initialLoad = true;
+    private static final ConfigurationCache CACHE = new ConfigurationCache(configList);
 
     private CachedIndexMapper() {}
 
     /**
-     * Pre-populate the map of maps of config
-     * @param keys the config types to use
-     * @return the initialised map
+     * Gets the underlying configuration cache
+     *
+     * @return Configuration cache
      */
-    public static Map<String, Map<String, Object>> initializeMapOfMaps(List<String> keys) {
-        return keys.stream().collect(
-                HashMap::new,
-                (map, key) -> map.put(key, new HashMap<>()),
-                HashMap::putAll
-        );
+    public static ConfigurationCache getCache() {
+        return CACHE;
     }
 
     /**
@@ -63,7 +62,7 @@ public final class CachedIndexMapper {
     public static void load(String path) {
         CanonicalTypeConfigurationMap ctMap = CanonicalTypeConfigurationMap.loadFromConfigFile(path);
         if (null != ctMap) {
-            cacheMap.get(CanonicalTypeConfiguration.TYPE).putAll(ctMap);
+            CACHE.putAll(CanonicalTypeConfiguration.TYPE, ctMap, false);
         }
     }
 
@@ -73,7 +72,7 @@ public final class CachedIndexMapper {
      */
     public static void loadCTMapFromMap(CanonicalTypeConfigurationMap ctMap) {
         if (null != ctMap && !ctMap.isEmpty()) {
-            cacheMap.get(CanonicalTypeConfiguration.TYPE).putAll(ctMap);
+            CACHE.putAll(CanonicalTypeConfiguration.TYPE, ctMap, false);
         }
     }
 
@@ -83,7 +82,7 @@ public final class CachedIndexMapper {
      * @return relevant config
      */
     public static CanonicalTypeConfiguration getCanonicalTypeConfiguration(String id) {
-        Object object = cacheMap.get(CanonicalTypeConfiguration.TYPE).get(id);
+        Object object = CACHE.get(CanonicalTypeConfiguration.TYPE, id);
         if (object instanceof CanonicalTypeConfiguration canonicalTypeConfiguration) {
             return canonicalTypeConfiguration;
         } else {
@@ -114,21 +113,36 @@ public final class CachedIndexMapper {
 
     public static Object getIndexTypEntryObject(ElasticsearchClient client, String type, String id) {
         initialLoadIfNecessary(client);
-        Map<String, Object> itemMap = cacheMap.getOrDefault(type, Collections.emptyMap());
-        if (itemMap.containsKey(id)) {
-            return itemMap.get(id);
-        }
-        return null;
+        return CACHE.get(type, id);
     }
 
     /**
-     * Initially populate the internal memory map
+     * Populate the internal memory map from the config indices, replacing any previously loaded entries
      * @param client ES client to do look-up
      */
     public static void populateEmptyMap(ElasticsearchClient client) {
-        for (String config : configList) {
-            cacheMap.get(config).putAll(IndexMapper.getAllIndexEntriesAsMap(client, config));
-        }
+        CACHE.refresh(type -> IndexMapper.getAllIndexEntriesAsMap(client, type));
+    }
+
+    /**
+     * Invalidates the internal memory map, refreshing it from the config indices.  Lookups continue to be served from
+     * the existing mapping until the refreshed mapping is available.
+     * @param client ES client to do look-up
+     */
+    public static void invalidate(ElasticsearchClient client) {
+        populateEmptyMap(client);
+    }
+
+    /**
+     * Periodically refresh the internal memory map from the config indices, so that changes made by other instances
+     * are picked up.  The map is shared, so the refresh continues until every caller has closed the returned
+     * registration.
+     * @param client   ES client to do look-up
+     * @param interval refresh interval
+     * @return registration to close once the refresh is no longer required
+     */
+    public static ConfigurationCache.ScheduledRefresh scheduleRefresh(ElasticsearchClient client, Duration interval) {
+        return CACHE.scheduleRefresh(type -> IndexMapper.getAllIndexEntriesAsMap(client, type), interval);
     }
 
     /**
@@ -150,13 +164,17 @@ public final class CachedIndexMapper {
 
     public static void addIndexTypeEntryObject(ElasticsearchClient client, String type, String id, Object value) {
         initialLoadIfNecessary(client);
-        cacheMap.get(type).put(id, value);
+        CACHE.put(type, id, value, true);
     }
 
     public static void updateIndexEntry(ElasticsearchClient client, String type, String id, String value) {
         Object existing = CachedIndexMapper.getIndexTypEntryObject(client, type, id);
         if (existing != null) {
-            Object updated = Mapper.updateFieldsFromJSON(existing, value);
+            // Update a copy, the cached instance may be in use by concurrent readers
+            Object copy = IndexMapper.validateEntry(type, id, writeValueAsString(existing));
+            Object updated = Mapper.updateFieldsFromJSON(copy, value);
+            // Persist the update so that it survives refreshes of the cache
+            IndexMapper.addIndexEntry(client, type, id, writeValueAsString(updated));
             addIndexTypeEntryObject(client, type, id, updated);
         } else {
             throw new ValidationException("Type " + type + " does not exist for " + id);
@@ -176,7 +194,7 @@ public final class CachedIndexMapper {
     }
 
     private static void deleteIndexTypeEntry(String type, String id) {
-        cacheMap.get(type).remove(id);
+        CACHE.remove(type, id);
     }
 
     /**
@@ -188,7 +206,7 @@ public final class CachedIndexMapper {
      */
     public static String getAllIndexEntriesAsString(ElasticsearchClient client, String type) {
         initialLoadIfNecessary(client);
-        return writeValueAsString(cacheMap.get(type));
+        return writeValueAsString(CACHE.getAll(type));
     }
 
     public static Model getModelEntry(ElasticsearchClient client, String id) {
@@ -200,10 +218,7 @@ public final class CachedIndexMapper {
     }
 
     static void initialLoadIfNecessary(ElasticsearchClient client) {
-        if (initialLoad) {
-            populateEmptyMap(client);
-            initialLoad = false;
-        }
+        CACHE.loadIfNecessary(type -> IndexMapper.getAllIndexEntriesAsMap(client, type));
     }
 
     /**
@@ -211,8 +226,6 @@ public final class CachedIndexMapper {
      * NOTE: used for testing purposes only
      */
     public static void clearCache() {
-        for (String config : configList) {
-            cacheMap.get(config).clear();
-        }
+        CACHE.clear();
     }
 }
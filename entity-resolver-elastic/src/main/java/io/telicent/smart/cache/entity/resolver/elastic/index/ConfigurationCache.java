@@ -0,0 +1,439 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A thread-safe cache of configuration entries, grouped by configuration type.
+ * <p>
+ * The cache contents are published as immutable snapshots, writers build a modified copy of the current snapshot and
+ * then publish it atomically.  Readers therefore never take a lock and never observe a partially loaded or partially
+ * updated snapshot.  Every entry carries a version number, allocated from a cache wide counter whenever the entry is
+ * added or changed, so callers holding derived state can cheaply detect when it has become stale.
+ * </p>
+ * <p>
+ * Entries may be loaded from a backing store via a loader function, either lazily on first use, explicitly via
+ * {@link #refresh(Function)}, or periodically via {@link #scheduleRefresh(Function, Duration)}.
+ * </p>
+ */
+public final class ConfigurationCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationCache.class);
+
+    /**
+     * A versioned cache entry
+     *
+     * @param value     Configuration value
+     * @param version   Version of the entry
+     * @param fromStore Whether the entry is held in the backing store, entries that are not (e.g. those loaded from a
+     *                  local configuration file) are retained when refreshing from the backing store
+     */
+    public record Entry(Object value, long version, boolean fromStore) {
+    }
+
+    /**
+     * An immutable snapshot of the cache contents
+     *
+     * @param entries Entries by configuration type and ID
+     * @param loaded  Whether the snapshot has been loaded from the backing store
+     * @param version Version of the snapshot, the highest entry version at the time it was published
+     */
+    private record Snapshot(Map<String, Map<String, Entry>> entries, boolean loaded, long version) {
+    }
+
+    private final List<String> types;
+    private final AtomicLong versions = new AtomicLong();
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> scheduledRefresh;
+    private final List<ScheduledRefresh> refreshes = new ArrayList<>();
+
+    /**
+     * Creates a new empty cache
+     *
+     * @param types Configuration types held by the cache
+     */
+    public ConfigurationCache(List<String> types) {
+        this.types = List.copyOf(types);
+        this.snapshot = emptySnapshot(false);
+    }
+
+    private Snapshot emptySnapshot(boolean loaded) {
+        Map<String, Map<String, Entry>> entries = new HashMap<>();
+        for (String type : this.types) {
+            entries.put(type, Collections.emptyMap());
+        }
+        return new Snapshot(Collections.unmodifiableMap(entries), loaded, this.versions.get());
+    }
+
+    /**
+     * Gets an entry
+     *
+     * @param type Configuration type
+     * @param id   Configuration ID
+     * @return Entry, or {@code null} if no such entry
+     */
+    public Entry getEntry(String type, String id) {
+        return this.snapshot.entries().getOrDefault(type, Collections.emptyMap()).get(id);
+    }
+
+    /**
+     * Gets the value of an entry
+     *
+     * @param type Configuration type
+     * @param id   Configuration ID
+     * @return Value, or {@code null} if no such entry
+     */
+    public Object get(String type, String id) {
+        Entry entry = getEntry(type, id);
+        return entry != null ? entry.value() : null;
+    }
+
+    /**
+     * Gets the version of an entry
+     *
+     * @param type Configuration type
+     * @param id   Configuration ID
+     * @return Version, or {@code -1} if no such entry
+     */
+    public long getVersion(String type, String id) {
+        Entry entry = getEntry(type, id);
+        return entry != null ? entry.version() : -1;
+    }
+
+    /**
+     * Gets the version of the cache as a whole, this changes whenever any entry is added, changed or removed
+     *
+     * @return Version
+     */
+    public long getVersion() {
+        return this.snapshot.version();
+    }
+
+    /**
+     * Gets all the values for a configuration type
+     *
+     * @param type Configuration type
+     * @return Immutable map of values by ID
+     */
+    public Map<String, Object> getAll(String type) {
+        Map<String, Entry> entries = this.snapshot.entries().getOrDefault(type, Collections.emptyMap());
+        Map<String, Object> values = new HashMap<>();
+        entries.forEach((id, entry) -> values.put(id, entry.value()));
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Gets whether the cache has been loaded from the backing store
+     *
+     * @return True if loaded, false otherwise
+     */
+    public boolean isLoaded() {
+        return this.snapshot.loaded();
+    }
+
+    /**
+     * Adds, or replaces, an entry
+     *
+     * @param type      Configuration type
+     * @param id        Configuration ID
+     * @param value     Value
+     * @param fromStore Whether the entry is held in the backing store
+     */
+    public void put(String type, String id, Object value, boolean fromStore) {
+        putAll(type, Collections.singletonMap(id, value), fromStore);
+    }
+
+    /**
+     * Adds, or replaces, several entries of the same type
+     *
+     * @param type      Configuration type
+     * @param values    Values by ID
+     * @param fromStore Whether the entries are held in the backing store
+     */
+    public void putAll(String type, Map<String, ?> values, boolean fromStore) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        synchronized (this.writeLock) {
+            Snapshot current = this.snapshot;
+            Map<String, Entry> updated = new HashMap<>(current.entries().getOrDefault(type, Collections.emptyMap()));
+            values.forEach((id, value) -> updated.put(id, new Entry(value, this.versions.incrementAndGet(), fromStore)));
+            publish(current, type, updated, current.loaded());
+        }
+    }
+
+    /**
+     * Removes an entry
+     *
+     * @param type Configuration type
+     * @param id   Configuration ID
+     */
+    public void remove(String type, String id) {
+        synchronized (this.writeLock) {
+            Snapshot current = this.snapshot;
+            Map<String, Entry> existing = current.entries().getOrDefault(type, Collections.emptyMap());
+            if (!existing.containsKey(id)) {
+                return;
+            }
+            Map<String, Entry> updated = new HashMap<>(existing);
+            updated.remove(id);
+            this.versions.incrementAndGet();
+            publish(current, type, updated, current.loaded());
+        }
+    }
+
+    /**
+     * Removes all entries, the cache remains marked as loaded if it was previously
+     */
+    public void clear() {
+        synchronized (this.writeLock) {
+            this.versions.incrementAndGet();
+            setSnapshot(emptySnapshot(this.snapshot.loaded()));
+        }
+    }
+
+    private void publish(Snapshot current, String type, Map<String, Entry> typeEntries, boolean loaded) {
+        Map<String, Map<String, Entry>> entries = new HashMap<>(current.entries());
+        entries.put(type, Collections.unmodifiableMap(typeEntries));
+        setSnapshot(new Snapshot(Collections.unmodifiableMap(entries), loaded, this.versions.get()));
+    }
+
+    private void setSnapshot(Snapshot updated) {
+        long previousVersion = this.snapshot.version();
+        this.snapshot = updated;
+        if (updated.version() != previousVersion) {
+            for (Runnable listener : this.listeners) {
+                try {
+                    listener.run();
+                } catch (Throwable e) {
+                    LOGGER.warn("Configuration cache change listener failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a listener that is notified whenever the cache contents change.  Listeners are notified synchronously as
+     * part of the change so must be fast and must not themselves modify the cache.
+     *
+     * @param listener Listener
+     */
+    public void addListener(Runnable listener) {
+        this.listeners.add(Objects.requireNonNull(listener, "Listener cannot be null"));
+    }
+
+    /**
+     * Removes a previously added listener
+     *
+     * @param listener Listener
+     */
+    public void removeListener(Runnable listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Loads the cache from the backing store if it has not yet been loaded.  Once loaded this is a single volatile
+     * read, only callers racing on the very first load wait for it to complete.
+     *
+     * @param loader Loader that retrieves all entries of a configuration type from the backing store
+     */
+    public void loadIfNecessary(Function<String, Map<String, Object>> loader) {
+        if (this.snapshot.loaded()) {
+            return;
+        }
+        synchronized (this.writeLock) {
+            if (!this.snapshot.loaded()) {
+                reload(loader);
+            }
+        }
+    }
+
+    /**
+     * Refreshes the cache from the backing store.  Entries that are unchanged, as determined by their
+     * {@link Object#equals(Object)} implementation, keep their existing version, entries
+     * that were previously loaded from the backing store but no longer exist there are removed, entries that did not
+     * come from the backing store are retained.  Readers continue to see the previous snapshot until the refreshed
+     * snapshot is published.
+     *
+     * @param loader Loader that retrieves all entries of a configuration type from the backing store
+     */
+    public void refresh(Function<String, Map<String, Object>> loader) {
+        synchronized (this.writeLock) {
+            reload(loader);
+        }
+    }
+
+    private void reload(Function<String, Map<String, Object>> loader) {
+        // Load everything first so that a failure part way through leaves the current snapshot untouched
+        Map<String, Map<String, Object>> loaded = new HashMap<>();
+        for (String type : this.types) {
+            loaded.put(type, loader.apply(type));
+        }
+
+        Snapshot current = this.snapshot;
+        long before = this.versions.get();
+        Map<String, Map<String, Entry>> entries = new HashMap<>();
+        for (String type : this.types) {
+            Map<String, Entry> existing = current.entries().getOrDefault(type, Collections.emptyMap());
+            Map<String, Object> fromStore = loaded.getOrDefault(type, Collections.emptyMap());
+            Map<String, Entry> updated = new HashMap<>();
+            existing.forEach((id, entry) -> {
+                if (!entry.fromStore() && !fromStore.containsKey(id)) {
+                    updated.put(id, entry);
+                }
+            });
+            fromStore.forEach((id, value) -> {
+                Entry previous = existing.get(id);
+                if (previous != null && Objects.equals(previous.value(), value)) {
+                    updated.put(id, new Entry(value, previous.version(), true));
+                } else {
+                    updated.put(id, new Entry(value, this.versions.incrementAndGet(), true));
+                }
+            });
+            if (!updated.keySet().containsAll(existing.keySet())) {
+                // Some entries were removed
+                this.versions.incrementAndGet();
+            }
+            entries.put(type, Collections.unmodifiableMap(updated));
+        }
+        setSnapshot(new Snapshot(Collections.unmodifiableMap(entries), true, this.versions.get()));
+        LOGGER.debug("Configuration cache reloaded, version {} -> {}", before, this.versions.get());
+    }
+
+    /**
+     * A registered interest in periodically refreshing the cache, as returned by
+     * {@link #scheduleRefresh(Function, Duration)}
+     * <p>
+     * Closing the registration withdraws that interest, the cache continues to be refreshed for as long as any other
+     * registrations remain open.
+     * </p>
+     */
+    public final class ScheduledRefresh implements AutoCloseable {
+        private final Function<String, Map<String, Object>> loader;
+        private final Duration interval;
+
+        private ScheduledRefresh(Function<String, Map<String, Object>> loader, Duration interval) {
+            this.loader = loader;
+            this.interval = interval;
+        }
+
+        @Override
+        public void close() {
+            cancelScheduledRefresh(this);
+        }
+    }
+
+    /**
+     * Schedules a periodic refresh of the cache from the backing store.
+     * <p>
+     * Several callers, e.g. several resolvers sharing this cache, may each schedule a refresh, only one refresh is ever
+     * running and it uses the loader and interval of the most recent registration that remains open.  The refresh is
+     * only cancelled once every registration has been closed.  Failures to refresh are logged and the current snapshot
+     * retained.
+     * </p>
+     *
+     * @param loader   Loader that retrieves all entries of a configuration type from the backing store
+     * @param interval Refresh interval
+     * @return Registration that must be closed once the caller no longer requires the refresh
+     */
+    public synchronized ScheduledRefresh scheduleRefresh(Function<String, Map<String, Object>> loader,
+                                                         Duration interval) {
+        ScheduledRefresh refresh = new ScheduledRefresh(loader, interval);
+        this.refreshes.add(refresh);
+        startRefresh(refresh);
+        return refresh;
+    }
+
+    private void startRefresh(ScheduledRefresh refresh) {
+        stopRefresh();
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "configuration-cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        long millis = refresh.interval.toMillis();
+        this.scheduledRefresh = this.scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh(refresh.loader);
+            } catch (Throwable e) {
+                LOGGER.warn("Failed to refresh configuration cache, retaining existing configuration: {}",
+                            e.getMessage());
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+        LOGGER.info("Configuration cache will be refreshed every {}", refresh.interval);
+    }
+
+    private void stopRefresh() {
+        if (this.scheduledRefresh != null) {
+            this.scheduledRefresh.cancel(false);
+            this.scheduledRefresh = null;
+        }
+    }
+
+    /**
+     * Closes a scheduled refresh registration, the refresh continues using the most recent remaining registration, if
+     * any, and is otherwise cancelled
+     *
+     * @param refresh Registration
+     */
+    synchronized void cancelScheduledRefresh(ScheduledRefresh refresh) {
+        int index = this.refreshes.indexOf(refresh);
+        if (index < 0) {
+            return;
+        }
+        this.refreshes.remove(index);
+        if (this.refreshes.isEmpty()) {
+            stopRefresh();
+        } else if (index == this.refreshes.size()) {
+            // The closed registration was the one in use, its loader may no longer be usable so switch to another
+            startRefresh(this.refreshes.get(this.refreshes.size() - 1));
+        }
+    }
+
+    /**
+     * Cancels any scheduled refresh, closing all registrations
+     */
+    public synchronized void cancelScheduledRefresh() {
+        this.refreshes.clear();
+        stopRefresh();
+    }
+
+    /**
+     * Gets whether a refresh is currently scheduled
+     *
+     * @return True if scheduled, false otherwise
+     */
+    public synchronized boolean isRefreshScheduled() {
+        return this.scheduledRefresh != null;
+    }
+}
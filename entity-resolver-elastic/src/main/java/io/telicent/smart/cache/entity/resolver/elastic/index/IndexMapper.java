@@ -32,6 +32,7 @@ import io.telicent.smart.cache.canonical.configuration.*;
 import io.telicent.smart.cache.canonical.exception.IndexException;
 import io.telicent.smart.cache.canonical.exception.ValidationException;
 import io.telicent.smart.cache.canonical.utility.Mapper;
+import io.telicent.smart.cache.search.elastic.AbstractElasticClient;
 import io.telicent.smart.cache.search.model.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -547,7 +548,7 @@ public final class IndexMapper {
             if (indexExists(client, index)) {
                 GetMappingRequest request = GetMappingRequest.of(r -> r.index(index));
                 GetMappingResponse response = client.indices().getMapping(request);
-                IndexMappingRecord record = response.get(index);
+                IndexMappingRecord record = AbstractElasticClient.resolveIndexEntry(response.result(), index);
                 TypeMapping mappings = record.mappings();
                 return mappings.properties();
             } else {
@@ -25,6 +25,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+
 import static io.telicent.smart.cache.entity.resolver.elastic.ElasticSearchEntityResolver.DEFAULT_NAME_SIMILARITY_INDEX;
 import static io.telicent.smart.cache.search.elastic.providers.ElasticsearchClientProvider.*;
 
@@ -57,6 +59,21 @@ public class ElasticSearchResolverProvider implements EntityResolverProvider {
         final String elasticPassword = Configurator.get(ENV_ELASTIC_PASSWORD);
         final boolean openSearchCompatibility =
                 StringUtils.equalsIgnoreCase(Configurator.get(ENV_OPENSEARCH_COMPATIBILITY), "true");
+        final boolean queryOnly =
+                StringUtils.equalsIgnoreCase(Configurator.get(ENV_SIMILARITY_QUERY_ONLY), "true");
+        final int multiSearchBatchSize =
+                Configurator.get(ENV_SIMILARITY_MSEARCH_BATCH_SIZE, Integer::parseInt,
+                                 ElasticSearchEntityResolver.DEFAULT_MULTI_SEARCH_BATCH_SIZE);
+        final int maxInFlightRequests =
+                Configurator.get(ENV_SIMILARITY_MAX_IN_FLIGHT, Integer::parseInt,
+                                 ElasticSearchEntityResolver.DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+        final int configRefreshSeconds = Configurator.get(ENV_CONFIG_REFRESH_SECONDS, Integer::parseInt, 0);
+        final long resultCacheSize =
+                Configurator.get(ENV_SIMILARITY_RESULT_CACHE_SIZE, Long::parseLong,
+                                 ElasticSearchEntityResolver.DEFAULT_RESULT_CACHE_SIZE);
+        final long resultCacheTtlSeconds =
+                Configurator.get(ENV_SIMILARITY_RESULT_CACHE_TTL_SECONDS, Long::parseLong,
+                                 ElasticSearchEntityResolver.DEFAULT_RESULT_CACHE_TTL.toSeconds());
         try {
             final int port = StringUtils.isNotBlank(elasticPort) ? Integer.parseInt(elasticPort) : 9200;
             final String similarityIndex = StringUtils.isNotBlank(elasticSimilarityIndex) ? elasticSimilarityIndex
@@ -65,14 +82,23 @@ public class ElasticSearchResolverProvider implements EntityResolverProvider {
             CachedIndexMapper.load(Configurator.get(ENV_CANONICAL_CONFIG));
             LOGGER.info("Using ElasticSearch Entity Resolver with index {} on host {}:{}",
                         similarityIndex, elasticHost, port);
-            return ElasticSearchEntityResolver.builder()
-                                              .username(elasticUser)
-                                              .password(elasticPassword)
-                                              .host(elasticHost)
-                                              .port(port)
-                                              .similarityIndex(similarityIndex)
-                                              .makeOpenSearchCompatible(openSearchCompatibility)
-                                              .build();
+            ElasticSearchEntityResolver resolver = ElasticSearchEntityResolver.builder()
+                                                                         .username(elasticUser)
+                                                                         .password(elasticPassword)
+                                                                         .host(elasticHost)
+                                                                         .port(port)
+                                                                         .similarityIndex(similarityIndex)
+                                                                         .makeOpenSearchCompatible(openSearchCompatibility)
+                                                                         .queryOnly(queryOnly)
+                                                                         .multiSearchBatchSize(multiSearchBatchSize)
+                                                                         .maxInFlightRequests(maxInFlightRequests)
+                                                                         .resultCacheSize(resultCacheSize)
+                                                                         .resultCacheTtl(Duration.ofSeconds(resultCacheTtlSeconds))
+                                                                         .build();
+            if (configRefreshSeconds > 0) {
+                resolver.scheduleConfigurationRefresh(Duration.ofSeconds(configRefreshSeconds));
+            }
+            return resolver;
 
         } catch (NumberFormatException e) {
             LOGGER.error("Bad ElasticSearch port configuration, expected a valid number but got {}", elasticPort);
@@ -24,6 +24,7 @@ import co.elastic.clients.elasticsearch.indices.GetMappingResponse;
 import co.elastic.clients.elasticsearch.indices.get_mapping.IndexMappingRecord;
 import io.telicent.smart.cache.canonical.configuration.CanonicalTypeConfiguration;
 import io.telicent.smart.cache.search.SearchException;
+import io.telicent.smart.cache.search.elastic.AbstractElasticClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,7 +51,7 @@ public final class CanonicalTypeConfigurationValidator {
         GetMappingRequest request = GetMappingRequest.of(r -> r.index(index));
         try {
             GetMappingResponse response = client.indices().getMapping(request);
-            IndexMappingRecord record = response.get(index);
+            IndexMappingRecord record = AbstractElasticClient.resolveIndexEntry(response.result(), index);
             TypeMapping mappings = record.mappings();
             Map<String, Property> propertyMap = mappings.properties();
             validateConfigVsMapping(propertyMap, canonicalTypeConfiguration);
@@ -0,0 +1,209 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic.similarity;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.*;
+import co.elastic.clients.json.JsonData;
+import io.telicent.smart.cache.canonical.QueryVisitor;
+import io.telicent.smart.cache.canonical.configuration.CanonicalTypeConfiguration;
+import io.telicent.smart.cache.canonical.configuration.CanonicalTypeConfiguration.*;
+import io.telicent.smart.cache.search.model.Document;
+
+import java.util.*;
+
+/**
+ * A {@link CanonicalTypeConfiguration} compiled into a query template.
+ * <p>
+ * Compiling resolves everything that depends only on the configuration up front, i.e. the case-insensitive field
+ * lookup, boosts, fuzziness settings, decay and distance parameters, into a per-field query factory.  Generating a query
+ * for a document then only has to substitute the document values into those factories.
+ * </p>
+ * <p>
+ * The generated queries are identical to those produced via {@link SimilarityQueryVisitor}.  Templates are immutable
+ * and so may be shared between threads, they do not track subsequent changes to the configuration they were compiled
+ * from.
+ * </p>
+ */
+public final class CompiledQueryTemplate {
+
+    private final Map<String, FieldQuery> fields;
+
+    private CompiledQueryTemplate(Map<String, FieldQuery> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Compiles the given configuration into a query template
+     *
+     * @param config Canonical type configuration
+     * @return Compiled template
+     */
+    public static CompiledQueryTemplate compile(CanonicalTypeConfiguration config) {
+        Map<String, FieldQuery> fields = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        FieldQueryCompiler compiler = new FieldQueryCompiler();
+        for (SimilarityField field : config.fields) {
+            // First match wins, same as CanonicalTypeConfiguration.getField(), and only required fields contribute to
+            // queries
+            if (seen.add(foldCase(field.name)) && field.required) {
+                fields.put(foldCase(field.name), compiler.compile(field));
+            }
+        }
+        return new CompiledQueryTemplate(Map.copyOf(fields));
+    }
+
+    /**
+     * Generates the sub-queries for the given document, one per document property that has a corresponding required
+     * field in the configuration
+     *
+     * @param doc Document
+     * @return Sub-queries, empty if none of the document properties are configured
+     */
+    public List<Query> generateSubQueries(Document doc) {
+        List<Query> subQueries = new ArrayList<>();
+        doc.getProperties().forEach((k, v) -> {
+            if ("id".equals(k) || "originalId".equals(k) || CanonicalTypeConfiguration.TYPE.equalsIgnoreCase(k)) {
+                return;
+            }
+            FieldQuery fieldQuery = this.fields.get(foldCase(k));
+            if (null != fieldQuery) {
+                subQueries.add(fieldQuery.build(k, v));
+            }
+        });
+        return subQueries;
+    }
+
+    private static String foldCase(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds a query for a single document property
+     */
+    @FunctionalInterface
+    private interface FieldQuery {
+        Query build(String propertyName, Object value);
+    }
+
+    /**
+     * Visitor that compiles a field configuration into a {@link FieldQuery}, visited fields are given a {@code null}
+     * value since the value is only known at query generation time.
+     */
+    private static final class FieldQueryCompiler implements QueryVisitor {
+        private FieldQuery compiled;
+
+        FieldQuery compile(SimilarityField field) {
+            if (field.exactMatch) {
+                String name = field.name;
+                float boost = field.boost;
+                return (property, value) -> Query.of(
+                        q -> q.term(qq -> qq.boost(boost).field(name).queryName(property).value(value.toString())));
+            }
+            field.accept(this, null);
+            return this.compiled;
+        }
+
+        @Override
+        public void buildQuery(KeywordField field, Object ignored) {
+            this.compiled = term(field);
+        }
+
+        @Override
+        public void buildQuery(TextField field, Object ignored) {
+            String name = field.name;
+            float boost = field.boost;
+            if (null != field.fuzziness) {
+                String fuzziness = null != field.fuzziness.min && null != field.fuzziness.max
+                                   ? "AUTO:" + field.fuzziness.min + "," + field.fuzziness.max
+                                   : "AUTO";
+                this.compiled = (property, value) -> Query.of(
+                        q -> q.match(qq -> qq.fuzziness(fuzziness).field(name).boost(boost).query(value.toString())));
+            } else {
+                this.compiled = match(field);
+            }
+        }
+
+        @Override
+        public void buildQuery(NumberField field, Object ignored) {
+            if (null != field.decay) {
+                String name = field.name;
+                float boost = field.boost;
+                double decay = field.decay.decay;
+                JsonData offset = JsonData.of(field.decay.offset);
+                JsonData scale = JsonData.of(field.decay.scale);
+                this.compiled = (property, value) -> {
+                    DecayFunction decayFunction = DecayFunction.of(
+                            f -> f.field(name).placement(
+                                    DecayPlacement.of(d -> d.decay(decay)
+                                                            .origin(JsonData.of(value))
+                                                            .offset(offset)
+                                                            .scale(scale))));
+                    return Query.of(q -> q.functionScore(
+                            FunctionScoreQuery.of(
+                                    qq -> qq.functions(List.of(decayFunction._toFunctionScore())).boost(boost))));
+                };
+            } else {
+                this.compiled = match(field);
+            }
+        }
+
+        @Override
+        public void buildQuery(DateField field, Object ignored) {
+            if (null != field.distance && null != field.distance.pivot) {
+                this.compiled = distanceFeature(field, field.distance.pivot);
+            } else {
+                this.compiled = match(field);
+            }
+        }
+
+        @Override
+        public void buildQuery(LocationField field, Object ignored) {
+            this.compiled = distanceFeature(field, null != field.distance && null != field.distance.pivot
+                                                   ? field.distance.pivot
+                                                   : "1in");
+        }
+
+        @Override
+        public void buildQuery(BooleanField field, Object ignored) {
+            this.compiled = term(field);
+        }
+
+        private static FieldQuery term(SimilarityField field) {
+            String name = field.name;
+            float boost = field.boost;
+            return (property, value) -> Query.of(
+                    q -> q.term(qq -> qq.boost(boost).field(name).value(value.toString())));
+        }
+
+        private static FieldQuery match(SimilarityField field) {
+            String name = field.name;
+            float boost = field.boost;
+            return (property, value) -> Query.of(
+                    q -> q.match(qq -> qq.field(name).boost(boost).query(value.toString())));
+        }
+
+        private static FieldQuery distanceFeature(SimilarityField field, String pivot) {
+            String name = field.name;
+            float boost = field.boost;
+            JsonData pivotData = JsonData.of(pivot);
+            return (property, value) -> Query.of(q -> q.distanceFeature(
+                    DistanceFeatureQuery.of(qq -> qq.field(name)
+                                                    .boost(boost)
+                                                    .origin(JsonData.of(value))
+                                                    .pivot(pivotData))));
+        }
+    }
+}
@@ -18,13 +18,15 @@ package io.telicent.smart.cache.entity.resolver.elastic.similarity;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import io.telicent.smart.cache.canonical.configuration.CanonicalTypeConfiguration;
 import io.telicent.smart.cache.entity.resolver.elastic.index.CachedIndexMapper;
+import io.telicent.smart.cache.entity.resolver.elastic.index.ConfigurationCache;
 import io.telicent.smart.cache.search.model.Document;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementation of Dynamic Query generation by configuration
@@ -32,6 +34,12 @@ import java.util.List;
 public final class DynamicSimilarityQueryGenerator {
     private static final Logger LOGGER = LoggerFactory.getLogger(DynamicSimilarityQueryGenerator.class);
 
+    /**
+     * Compiled templates for stored configurations, keyed by canonical type
+     */
+    private static final ConcurrentMap<String, CompiledTemplate> COMPILED_TEMPLATES = new ConcurrentHashMap<>();
+    private static volatile CompiledTemplate lastOverrideTemplate;
+
     private DynamicSimilarityQueryGenerator() {}
 
     /**
@@ -43,8 +51,12 @@ public final class DynamicSimilarityQueryGenerator {
      * @return Elasticsearch Query
      **/
     public static Query generateQuery(Document doc, String type) {
-        CanonicalTypeConfiguration config = CachedIndexMapper.getCanonicalTypeConfiguration(type);
-        return generateQuery(doc, config);
+        CompiledQueryTemplate template = getTemplate(type);
+        if (null == template) {
+            LOGGER.error("No configuration available to generate query");
+            return null;
+        }
+        return generateQuery(doc, template);
     }
 
     /**
@@ -60,24 +72,12 @@ public final class DynamicSimilarityQueryGenerator {
             LOGGER.error("No configuration available to generate query");
             return null;
         }
+        return generateQuery(doc, getTemplate(config));
+    }
+
+    private static Query generateQuery(Document doc, CompiledQueryTemplate template) {
         // build a Boolean query with one sub-query per field
-        List<Query> subQ = new ArrayList<>();
-        doc.getProperties().forEach((k, v) -> {
-            if ("id".equals(k)) {
-                return;
-            }
-            if ("originalId".equals(k)) {
-                return;
-            }
-            if (CanonicalTypeConfiguration.TYPE.equalsIgnoreCase(k)) {
-                return;
-            }
-            // build a query analysing the content of the query
-            Query subQuery = getSubQuery(config, k, v);
-            if (null != subQuery) {
-                subQ.add(subQuery);
-            }
-        });
+        List<Query> subQ = template.generateSubQueries(doc);
         if (subQ.isEmpty()) {
             LOGGER.error("No sufficient data provided to generate query");
             return null;
@@ -86,26 +86,51 @@ public final class DynamicSimilarityQueryGenerator {
     }
 
     /**
-     * Generate a (sub)query for the given configuration, field and value.
-     * Provided the field exists, otherwise default to an exact match query.
-     * TODO: Decide - should this be the default behaviour for un-configured fields?
-     * @param config canonical type configuration
-     * @param fieldName the name of the field to query
-     * @param value the object to query with
-     * @return Elasticsearch Query
-     **/
-    private static Query getSubQuery(CanonicalTypeConfiguration config, String fieldName, Object value) {
-        CanonicalTypeConfiguration.SimilarityField fieldConfig = config.getField(fieldName);
-        if (null != fieldConfig && fieldConfig.required) {
-            if (fieldConfig.exactMatch) {
-                return Query.of(q -> q.term(qq -> qq.boost(fieldConfig.boost).field(fieldConfig.name).queryName(fieldName).value(value.toString())));
-            } else {
-                SimilarityQueryVisitor similarityQueryVisitor = new SimilarityQueryVisitor();
-                fieldConfig.accept(similarityQueryVisitor, value);
-                return similarityQueryVisitor.getQuery();
-            }
+     * Gets the compiled query template for the given canonical type, compiling it if the configuration has not been
+     * compiled before or has changed since it was last compiled.
+     *
+     * @param type canonical type
+     * @return Compiled template, or null if no configuration for the type
+     */
+    static CompiledQueryTemplate getTemplate(String type) {
+        ConfigurationCache.Entry entry = CachedIndexMapper.getCache().getEntry(CanonicalTypeConfiguration.TYPE, type);
+        if (null == entry || !(entry.value() instanceof CanonicalTypeConfiguration config)) {
+            COMPILED_TEMPLATES.remove(type);
+            return null;
         }
-        return null;
+        CompiledTemplate compiled = COMPILED_TEMPLATES.get(type);
+        if (null == compiled || compiled.version() != entry.version()) {
+            compiled = new CompiledTemplate(config, entry.version(), CompiledQueryTemplate.compile(config));
+            COMPILED_TEMPLATES.put(type, compiled);
+        }
+        return compiled.template();
+    }
+
+    /**
+     * Gets the compiled query template for an override configuration.  Override configurations are request scoped, so
+     * rather than caching them all the most recently compiled one is kept, which is sufficient for a batch request
+     * that applies the same override to every document.
+     *
+     * @param config override configuration
+     * @return Compiled template
+     */
+    static CompiledQueryTemplate getTemplate(CanonicalTypeConfiguration config) {
+        CompiledTemplate compiled = lastOverrideTemplate;
+        if (null == compiled || compiled.config() != config) {
+            compiled = new CompiledTemplate(config, 0, CompiledQueryTemplate.compile(config));
+            lastOverrideTemplate = compiled;
+        }
+        return compiled.template();
+    }
+
+    /**
+     * A compiled template along with the configuration, and configuration version, it was compiled from
+     *
+     * @param config   configuration
+     * @param version  configuration version
+     * @param template compiled template
+     */
+    private record CompiledTemplate(CanonicalTypeConfiguration config, long version, CompiledQueryTemplate template) {
     }
 
     /**
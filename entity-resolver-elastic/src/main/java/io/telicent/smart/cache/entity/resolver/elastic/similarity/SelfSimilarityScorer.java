@@ -0,0 +1,144 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic.similarity;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.termvectors.FieldStatistics;
+import co.elastic.clients.elasticsearch.core.termvectors.Term;
+import co.elastic.clients.elasticsearch.core.termvectors.TermVector;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calculates the self-similarity score of an input document locally, i.e. the score ElasticSearch would give the input
+ * document for its own similarity query were it in the index.
+ * <p>
+ * When the input documents are temporarily indexed their own hits provide this score, and the scores of the other hits
+ * are normalised against it.  In query-only mode the input documents are never indexed so the score is calculated here
+ * instead, applying ElasticSearch's default BM25 similarity to the term statistics of the input document, as obtained
+ * from the term vectors API, as if the input document were part of the index.  This keeps scores on the same scale
+ * regardless of which mode is used.
+ * </p>
+ * <p>
+ * Fuzzy matches are scored as exact matches, since the input document always matches its own terms exactly.  Clauses
+ * that are not term based, i.e. decay functions and distance features, score their boost since the input document is
+ * always at the origin of its own query.
+ * </p>
+ */
+public final class SelfSimilarityScorer {
+
+    /**
+     * BM25 term frequency saturation parameter, ElasticSearch's default
+     */
+    static final double K1 = 1.2;
+    /**
+     * BM25 length normalisation parameter, ElasticSearch's default
+     */
+    static final double B = 0.75;
+
+    private SelfSimilarityScorer() {}
+
+    /**
+     * Gets the fields, and their values, of the term based clauses of a similarity query, these are the fields whose
+     * term vectors are needed to calculate the self-similarity score
+     *
+     * @param query Similarity query
+     * @return Field values, empty if the query has no term based clauses
+     */
+    public static Map<String, String> termFields(Query query) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (Query clause : clauses(query)) {
+            if (clause.isTerm()) {
+                fields.putIfAbsent(clause.term().field(), text(clause.term().value()));
+            } else if (clause.isMatch()) {
+                fields.putIfAbsent(clause.match().field(), text(clause.match().query()));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Calculates the self-similarity score for a similarity query
+     *
+     * @param query       Similarity query
+     * @param termVectors Term vectors, including term and field statistics, for the fields returned by
+     *                    {@link #termFields(Query)}
+     * @return Self-similarity score
+     */
+    public static double selfScore(Query query, Map<String, TermVector> termVectors) {
+        double score = 0;
+        for (Query clause : clauses(query)) {
+            if (clause.isTerm()) {
+                score += termScore(boost(clause.term().boost()), termVectors.get(clause.term().field()), false);
+            } else if (clause.isMatch()) {
+                score += termScore(boost(clause.match().boost()), termVectors.get(clause.match().field()), true);
+            } else if (clause.isFunctionScore()) {
+                score += boost(clause.functionScore().boost());
+            } else if (clause.isDistanceFeature()) {
+                score += boost(clause.distanceFeature().boost());
+            }
+        }
+        return score;
+    }
+
+    private static List<Query> clauses(Query query) {
+        return query.isBool() ? query.bool().should() : List.of(query);
+    }
+
+    private static String text(FieldValue value) {
+        return value.isString() ? value.stringValue() : String.valueOf(value._get());
+    }
+
+    private static double boost(Float boost) {
+        return boost != null ? boost : 1.0;
+    }
+
+    /**
+     * Calculates the BM25 score of a term based clause matching the input document, treating the input document as if
+     * it were part of the index
+     *
+     * @param boost       Clause boost
+     * @param termVector  Term vector for the clause field, {@code null} if the field produced no terms
+     * @param perPosition Whether the clause was analysed into a term per position, as a match query is, so a term that
+     *                    occurs several times in the value is matched that many times
+     * @return Score
+     */
+    static double termScore(double boost, TermVector termVector, boolean perPosition) {
+        if (termVector == null || termVector.fieldStatistics() == null) {
+            return 0;
+        }
+        FieldStatistics stats = termVector.fieldStatistics();
+        double docCount = stats.docCount() + 1;
+        long length = termVector.terms().values().stream().mapToLong(Term::termFreq).sum();
+        // Fields indexed without frequencies, e.g. keywords, have no length normalisation
+        double lengthNorm = stats.sumTtf() < 0 ? 1 : 1 - B + B * length / ((stats.sumTtf() + length) / docCount);
+
+        double score = 0;
+        for (Term term : termVector.terms().values()) {
+            double docFreq = (term.docFreq() != null ? term.docFreq() : 0) + 1;
+            double idf = Math.log(1 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
+            double tf = term.termFreq();
+            // ElasticSearch's BM25 retains the (k1 + 1) factor that Lucene dropped, it makes no difference to
+            // normalised scores but keeps term based clauses in proportion with any other clauses
+            double termScore = idf * (K1 + 1) * tf / (tf + K1 * lengthNorm);
+            score += perPosition ? tf * termScore : termScore;
+        }
+        return boost * score;
+    }
+}
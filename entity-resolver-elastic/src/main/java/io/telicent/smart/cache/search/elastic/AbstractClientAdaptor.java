@@ -15,6 +15,7 @@
  */
 package io.telicent.smart.cache.search.elastic;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import io.telicent.smart.cache.search.SearchException;
@@ -26,6 +27,11 @@ import io.telicent.smart.cache.search.SearchException;
  * Smart Cache Search code is adjusted to make this unnecessary.
  */
 public abstract class AbstractClientAdaptor extends AbstractElasticClient {
+    /**
+     * Asynchronous ElasticSearch client, shares the underlying transport of the synchronous client
+     */
+    private final ElasticsearchAsyncClient asyncClient;
+
     /**
      * Creates a new client
      *
@@ -42,6 +48,7 @@ public abstract class AbstractClientAdaptor extends AbstractElasticClient {
     public AbstractClientAdaptor(String elasticHost, int elasticPort, String username, String password,
                                  String elasticTlsCaCert, boolean makeOpenSearchCompatible) {
         super(elasticHost, elasticPort, username, password, elasticTlsCaCert, makeOpenSearchCompatible);
+        this.asyncClient = new ElasticsearchAsyncClient(this.client._transport());
     }
 
     /**
@@ -53,6 +60,15 @@ public abstract class AbstractClientAdaptor extends AbstractElasticClient {
         return this.client;
     }
 
+    /**
+     * Gets the underlying asynchronous ElasticSearch client
+     *
+     * @return Asynchronous ElasticSearch client
+     */
+    protected final ElasticsearchAsyncClient getAsyncClient() {
+        return this.asyncClient;
+    }
+
     /**
      * Translates an ElasticSearch exception into a Search exception
      *
@@ -25,6 +25,9 @@ import co.elastic.clients.json.JsonpDeserializer;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
 import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.telicent.smart.cache.search.SearchBackend;
 import io.telicent.smart.cache.search.SearchException;
 import lombok.Getter;
@@ -34,10 +37,15 @@ import org.apache.http.*;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.nio.entity.NStringEntity;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.ssl.SSLContexts;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
 import org.slf4j.Logger;
@@ -50,8 +58,11 @@ import java.security.KeyStore;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 
@@ -69,6 +80,10 @@ public class AbstractElasticClient implements AutoCloseable, SearchBackend {
     protected static final JsonpDeserializer<List<ShardFailure>> SHARD_FAILURES_DESERIALIZER =
             JsonpDeserializer.arrayDeserializer(ShardFailure._DESERIALIZER);
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractElasticClient.class);
+    /**
+     * Object mapper used for requests and responses made via the {@link #lowLevelClient()}
+     */
+    protected static final ObjectMapper JSON = new ObjectMapper();
     /**
      * Error reason used when ElasticSearch did not provide a reason
      */
@@ -362,6 +377,392 @@ public class AbstractElasticClient implements AutoCloseable, SearchBackend {
         }
     }
 
+    /**
+     * Gets the entry for an index from a response that is keyed by index name
+     * <p>
+     * ElasticSearch always keys such responses by the concrete index name, so if the index was referred to via an alias
+     * the response is keyed by the name of the index the alias points to instead.  Provided the alias points to a
+     * single index that entry is returned.
+     * </p>
+     *
+     * @param results Results keyed by index name
+     * @param name    Index, or alias, name
+     * @param <V>     Result type
+     * @return Entry for the index, or {@code null} if none
+     */
+    public static <V> V resolveIndexEntry(Map<String, V> results, String name) {
+        if (results == null) {
+            return null;
+        }
+        V entry = results.get(name);
+        if (entry == null && results.size() == 1) {
+            entry = results.values().iterator().next();
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the explicitly configured values of the given settings for an index
+     * <p>
+     * Settings that have not been explicitly configured for the index, i.e. are using the cluster defaults, have a
+     * {@code null} value in the returned map.  Passing the returned map back to {@link #updateIndexSettings(String, Map)}
+     * therefore restores the index to exactly its current configuration.
+     * </p>
+     *
+     * @param name Index name
+     * @param keys Setting keys, in flat form e.g. {@code index.refresh_interval}
+     * @return Setting values, or {@code null} if the settings could not be retrieved
+     */
+    public Map<String, String> getIndexSettings(String name, Collection<String> keys) {
+        try {
+            Request request = new Request("GET", "/" + name + "/_settings");
+            request.addParameter("flat_settings", "true");
+            Response response = lowLevelClient().performRequest(request);
+            JsonNode body = JSON.readTree(response.getEntity().getContent());
+            JsonNode index = body.has(name) || body.size() != 1 ? body.path(name) : body.elements().next();
+            JsonNode settings = index.path("settings");
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String key : keys) {
+                JsonNode value = settings.get(key);
+                values.put(key, value == null || value.isNull() ? null : value.asText());
+            }
+            return values;
+        } catch (ResponseException e) {
+            LOGGER.warn("Failed to retrieve settings for ElasticSearch index {}: {}", name, e.getMessage());
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to retrieve settings for ElasticSearch index {}", name);
+            return null;
+        }
+    }
+
+    /**
+     * Updates the given dynamic settings of an index
+     *
+     * @param name     Index name
+     * @param settings Settings to update, in flat form e.g. {@code index.refresh_interval}, a {@code null} value resets
+     *                 a setting to its default
+     * @return True if the settings were updated, false if ElasticSearch refused to update them, {@code null} if unable
+     * to determine whether the settings were updated
+     */
+    public Boolean updateIndexSettings(String name, Map<String, String> settings) {
+        try {
+            ObjectNode body = JSON.createObjectNode();
+            settings.forEach(body::put);
+            Request request = new Request("PUT", "/" + name + "/_settings");
+            request.setEntity(new NStringEntity(JSON.writeValueAsString(body), ContentType.APPLICATION_JSON));
+            lowLevelClient().performRequest(request);
+            LOGGER.info("Updated settings for ElasticSearch index {} to {}", name, settings);
+            return true;
+        } catch (ResponseException e) {
+            LOGGER.warn("Failed to update settings for ElasticSearch index {}: {}", name, e.getMessage());
+            return false;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to determine if settings for ElasticSearch index {} were updated", name);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the {@code _meta} section of an index mapping, which holds arbitrary metadata that ElasticSearch stores
+     * durably alongside the index but otherwise ignores
+     *
+     * @param name Index name
+     * @return Index metadata, an empty object if the index has no metadata, or {@code null} if the metadata could not
+     * be retrieved
+     */
+    public ObjectNode getIndexMeta(String name) {
+        try {
+            Response response = lowLevelClient().performRequest(new Request("GET", "/" + name + "/_mapping"));
+            JsonNode body = JSON.readTree(response.getEntity().getContent());
+            JsonNode index = body.has(name) || body.size() != 1 ? body.path(name) : body.elements().next();
+            JsonNode meta = index.path("mappings").path("_meta");
+            return meta.isObject() ? ((ObjectNode) meta).deepCopy() : JSON.createObjectNode();
+        } catch (ResponseException e) {
+            LOGGER.warn("Failed to retrieve metadata for ElasticSearch index {}: {}", name, e.getMessage());
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to retrieve metadata for ElasticSearch index {}", name);
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the {@code _meta} section of an index mapping
+     * <p>
+     * ElasticSearch replaces, rather than merges, the metadata so callers wishing to change only part of it should
+     * retrieve it via {@link #getIndexMeta(String)}, modify it, and then pass it to this method.
+     * </p>
+     *
+     * @param name Index name
+     * @param meta Index metadata
+     * @return True if the metadata was updated, false if ElasticSearch refused to update it, {@code null} if unable to
+     * determine whether the metadata was updated
+     */
+    public Boolean updateIndexMeta(String name, ObjectNode meta) {
+        try {
+            ObjectNode body = JSON.createObjectNode();
+            body.set("_meta", meta);
+            Request request = new Request("PUT", "/" + name + "/_mapping");
+            request.setEntity(new NStringEntity(JSON.writeValueAsString(body), ContentType.APPLICATION_JSON));
+            lowLevelClient().performRequest(request);
+            return true;
+        } catch (ResponseException e) {
+            LOGGER.warn("Failed to update metadata for ElasticSearch index {}: {}", name, e.getMessage());
+            return false;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to determine if metadata for ElasticSearch index {} was updated", name);
+            return null;
+        }
+    }
+
+    /**
+     * Switches an index to {@link ElasticIndexManager#BULK_INGESTION_SETTINGS}, which favour ingestion throughput,
+     * returning the settings to later pass to {@link #restoreBulkIngestionSettings(String, Map)}
+     * <p>
+     * The original values of the settings are recorded durably in the index metadata, under
+     * {@link ElasticIndexManager#BULK_INGESTION_ORIGINAL_SETTINGS_META}, so that if the caller terminates before
+     * restoring them the next bulk ingestion, whether by this or another process, restores the true original values
+     * rather than the bulk ingestion values it finds applied to the index.  If no such record exists, e.g. because the
+     * metadata could not be updated, and the index has exactly the bulk ingestion settings applied then those are never
+     * treated as the original values, instead the settings are restored to their defaults.
+     * </p>
+     *
+     * @param name Index name
+     * @return Settings to restore once bulk ingestion completes, or {@code null} if the bulk ingestion settings were
+     * not applied
+     */
+    public Map<String, String> applyBulkIngestionSettings(String name) {
+        boolean recordedNow = false;
+        Map<String, String> original = this.getRecordedOriginalSettings(name);
+        if (original != null) {
+            LOGGER.warn("Index {} has original settings {} recorded by a previous bulk ingestion that did not "
+                        + "complete, these will be restored once this bulk ingestion completes", name, original);
+        } else {
+            Map<String, String> current =
+                    this.getIndexSettings(name, ElasticIndexManager.BULK_INGESTION_SETTINGS.keySet());
+            if (current == null) {
+                LOGGER.warn("Unable to record current settings of index {}, not applying bulk ingestion settings",
+                            name);
+                return null;
+            }
+            original = originalSettings(current);
+            recordedNow = Boolean.TRUE.equals(this.recordOriginalSettings(name, original));
+            if (!recordedNow) {
+                LOGGER.warn("Unable to durably record original settings of index {}, they will not be restored "
+                            + "if this process terminates before bulk ingestion completes", name);
+            }
+        }
+        Boolean applied = this.updateIndexSettings(name, ElasticIndexManager.BULK_INGESTION_SETTINGS);
+        if (Boolean.FALSE.equals(applied)) {
+            if (recordedNow) {
+                this.clearRecordedOriginalSettings(name);
+            }
+            return null;
+        }
+        // Even if unable to determine whether the bulk ingestion settings were applied restoring the original
+        // settings later is harmless
+        LOGGER.info("Index {} switched to bulk ingestion settings", name);
+        return original;
+    }
+
+    /**
+     * Restores an index to the settings it had before {@link #applyBulkIngestionSettings(String)} was called, removing
+     * the durable record of those settings and refreshing the index
+     *
+     * @param name     Index name
+     * @param original Settings to restore, as returned by {@link #applyBulkIngestionSettings(String)}
+     * @return True if the settings were restored, false otherwise
+     */
+    public boolean restoreBulkIngestionSettings(String name, Map<String, String> original) {
+        if (!Boolean.TRUE.equals(this.updateIndexSettings(name, original))) {
+            LOGGER.warn("Failed to restore original settings {} of index {}", original, name);
+            return false;
+        }
+        LOGGER.info("Index {} restored to its original settings", name);
+        this.clearRecordedOriginalSettings(name);
+        this.refreshIndex(name);
+        return true;
+    }
+
+    /**
+     * Restores an index to the original settings recorded in its metadata by a previous bulk ingestion that never
+     * completed, e.g. because the process performing it was killed, if there are any
+     * <p>
+     * This should only be called when the caller knows it is not itself in the middle of a bulk ingestion of the index,
+     * since otherwise the recorded settings are its own and restoring them would end its bulk ingestion early.
+     * </p>
+     *
+     * @param name Index name
+     * @return True if original settings were recorded and have now been restored, false otherwise
+     */
+    public boolean restoreRecordedBulkIngestionSettings(String name) {
+        Map<String, String> original = this.getRecordedOriginalSettings(name);
+        if (original == null) {
+            return false;
+        }
+        LOGGER.warn("Index {} has original settings {} recorded by a previous bulk ingestion that did not complete, "
+                    + "restoring them", name, original);
+        return this.restoreBulkIngestionSettings(name, original);
+    }
+
+    /**
+     * Determines the settings to restore once bulk ingestion completes from the current settings of an index
+     * <p>
+     * If the current settings are exactly {@link ElasticIndexManager#BULK_INGESTION_SETTINGS} then they were left
+     * behind by a previous bulk ingestion that never completed, so rather than treating them as the original settings
+     * the settings are restored to their defaults.
+     * </p>
+     *
+     * @param current Current settings, as returned by {@link #getIndexSettings(String, Collection)}
+     * @return Settings to restore
+     */
+    static Map<String, String> originalSettings(Map<String, String> current) {
+        if (!ElasticIndexManager.BULK_INGESTION_SETTINGS.equals(current)) {
+            return current;
+        }
+        LOGGER.warn("Index has bulk ingestion settings {} left by a previous bulk ingestion that did not complete, "
+                    + "these will be reset to their defaults once this bulk ingestion completes", current);
+        Map<String, String> defaults = new LinkedHashMap<>();
+        current.keySet().forEach(key -> defaults.put(key, null));
+        return defaults;
+    }
+
+    /**
+     * Gets the original settings durably recorded in the index metadata by a previous bulk ingestion
+     *
+     * @param name Index name
+     * @return Original settings, or {@code null} if none are recorded
+     */
+    private Map<String, String> getRecordedOriginalSettings(String name) {
+        ObjectNode meta = this.getIndexMeta(name);
+        JsonNode recorded = meta != null ? meta.get(ElasticIndexManager.BULK_INGESTION_ORIGINAL_SETTINGS_META) : null;
+        if (recorded == null || !recorded.isObject()) {
+            return null;
+        }
+        Map<String, String> original = new LinkedHashMap<>();
+        for (String key : ElasticIndexManager.BULK_INGESTION_SETTINGS.keySet()) {
+            JsonNode value = recorded.get(key);
+            original.put(key, value == null || value.isNull() ? null : value.asText());
+        }
+        return original;
+    }
+
+    /**
+     * Durably records the original settings in the index metadata
+     *
+     * @param name     Index name
+     * @param original Original settings
+     * @return True if recorded, false or {@code null} otherwise
+     */
+    private Boolean recordOriginalSettings(String name, Map<String, String> original) {
+        ObjectNode meta = this.getIndexMeta(name);
+        if (meta == null) {
+            return null;
+        }
+        ObjectNode recorded = meta.putObject(ElasticIndexManager.BULK_INGESTION_ORIGINAL_SETTINGS_META);
+        original.forEach(recorded::put);
+        return this.updateIndexMeta(name, meta);
+    }
+
+    /**
+     * Removes any original settings recorded in the index metadata
+     *
+     * @param name Index name
+     */
+    private void clearRecordedOriginalSettings(String name) {
+        ObjectNode meta = this.getIndexMeta(name);
+        if (meta != null && meta.remove(ElasticIndexManager.BULK_INGESTION_ORIGINAL_SETTINGS_META) != null) {
+            if (!Boolean.TRUE.equals(this.updateIndexMeta(name, meta))) {
+                LOGGER.warn("Failed to remove recorded original settings from metadata of index {}", name);
+            }
+        }
+    }
+
+    /**
+     * Refreshes an index making all documents indexed so far visible to searches
+     *
+     * @param name Index name
+     * @return True if refreshed, false otherwise
+     */
+    public Boolean refreshIndex(String name) {
+        try {
+            this.client.indices().refresh(r -> r.index(name));
+            return true;
+        } catch (ElasticsearchException e) {
+            LOGGER.warn("Failed to refresh ElasticSearch index {}: {}", name, e.getMessage());
+            return false;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to determine if ElasticSearch index {} was refreshed", name);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the low level REST client, used for operations whose typed APIs vary between ElasticSearch versions
+     *
+     * @return Low level REST client
+     */
+    protected final RestClient lowLevelClient() {
+        return ((RestClientTransport) this.client._transport()).restClient();
+    }
+
+    /**
+     * Starts a force merge of an index without waiting for it to complete
+     * <p>
+     * Force merges can take a long time for large indexes so rather than blocking the caller the merge runs as a
+     * background task in ElasticSearch, whose progress can be checked via {@link #isTaskComplete(String)}.
+     * </p>
+     *
+     * @param name           Index name
+     * @param maxNumSegments Number of segments to merge each shard down to
+     * @return Task ID of the force merge, or {@code null} if the force merge could not be started
+     */
+    public String startForceMerge(String name, long maxNumSegments) {
+        try {
+            Request request = new Request("POST", "/" + name + "/_forcemerge");
+            request.addParameter("max_num_segments", Long.toString(maxNumSegments));
+            request.addParameter("wait_for_completion", "false");
+            Response response = lowLevelClient().performRequest(request);
+            String task = JSON.readTree(response.getEntity().getContent()).path("task").asText(null);
+            LOGGER.info("Started force merge of ElasticSearch index {} as task {}", name, task);
+            return task;
+        } catch (ResponseException e) {
+            LOGGER.warn("Failed to start force merge of ElasticSearch index {}: {}", name, e.getMessage());
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to determine if force merge of ElasticSearch index {} was started", name);
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether a background task has completed
+     *
+     * @param taskId Task ID
+     * @return True if completed, false if still running, {@code null} if unable to determine the task status
+     */
+    public Boolean isTaskComplete(String taskId) {
+        try {
+            Response response = lowLevelClient().performRequest(new Request("GET", "/_tasks/" + taskId));
+            JsonNode task = JSON.readTree(response.getEntity().getContent());
+            if (task.hasNonNull("error")) {
+                LOGGER.warn("ElasticSearch task {} failed: {}", taskId, task.path("error").path("reason").asText());
+            }
+            return task.path("completed").asBoolean(false);
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() == 404) {
+                // Task results are only retained for a limited time so an unknown task has long since completed
+                return true;
+            }
+            LOGGER.warn("Failed to retrieve status of ElasticSearch task {}: {}", taskId, e.getMessage());
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to retrieve status of ElasticSearch task {}", taskId);
+            return null;
+        }
+    }
+
     @Override
     public void close() throws Exception {
         this.client._transport().close();
@@ -15,6 +15,7 @@
  */
 package io.telicent.smart.cache.search.elastic;
 
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import co.elastic.clients.elasticsearch._types.mapping.DynamicMapping;
 import co.elastic.clients.elasticsearch._types.mapping.DynamicTemplate;
@@ -24,17 +25,27 @@ import co.elastic.clients.elasticsearch.cat.indices.IndicesRecord;
 import co.elastic.clients.elasticsearch.indices.*;
 import co.elastic.clients.elasticsearch.indices.get_mapping.IndexMappingRecord;
 import co.elastic.clients.transport.endpoints.BooleanResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.telicent.smart.cache.entity.sinks.converters.DefaultOutputFields;
 import io.telicent.smart.cache.search.IndexManager;
 import io.telicent.smart.cache.search.SearchException;
 import io.telicent.smart.cache.search.configuration.IndexConfiguration;
 import io.telicent.smart.cache.search.configuration.rules.SimpleMappingRule;
 import io.telicent.smart.cache.search.elastic.schema.ElasticMappings;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NStringEntity;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.*;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -51,6 +62,29 @@ public class ElasticIndexManager extends AbstractElasticClient implements IndexM
     private static final String USERNAME_PLACEHOLDER = "${elastic.username}";
     private static final String PASSWORD_PLACEHOLDER = "${elastic.password}";
 
+    /**
+     * Index settings that favour ingestion throughput over search visibility and redundancy, intended to be applied
+     * temporarily while loading large amounts of data, see {@link #updateIndexSettings(String, Map)}
+     * <p>
+     * These disable periodic refreshes, so newly indexed documents are not visible to searches until the index is
+     * explicitly refreshed or the settings are restored, and drop replicas, so documents are only indexed once.  The
+     * replicas are rebuilt by copying the primary shards once the original settings are restored, which is much cheaper
+     * than indexing every document on every replica.  They also switch the translog to asynchronous durability, so it
+     * is fsynced periodically rather than on every request, meaning that acknowledged operations since the last fsync
+     * may be lost if a node crashes.
+     * </p>
+     */
+    public static final Map<String, String> BULK_INGESTION_SETTINGS =
+            Map.of("index.refresh_interval", "-1", "index.number_of_replicas", "0", "index.translog.durability",
+                   "async");
+
+    /**
+     * Key within the {@code _meta} section of an index mapping under which the settings an index had prior to having
+     * {@link #BULK_INGESTION_SETTINGS} applied are durably recorded, so they can still be restored if the process that
+     * applied the bulk ingestion settings terminated before restoring them
+     */
+    public static final String BULK_INGESTION_ORIGINAL_SETTINGS_META = "bulkIngestionOriginalSettings";
+
     /**
      * Creates a new ElasticSearch backed index manager
      *
@@ -134,16 +168,28 @@ public class ElasticIndexManager extends AbstractElasticClient implements IndexM
      * @return Internal ID of the index, or {@code null} if no such index
      */
     public String getInternalId(String name) {
+        return getInternalId(this.client, name);
+    }
+
+    /**
+     * Gets the internal ID of the index using the given client, see {@link #getInternalId(String)}
+     *
+     * @param client ElasticSearch client
+     * @param name   Index name
+     * @return Internal ID of the index, or {@code null} if no such index
+     */
+    public static String getInternalId(ElasticsearchClient client, String name) {
         if (StringUtils.isBlank(name)) {
             return null;
         }
 
         try {
-            GetIndexResponse response = this.client.indices().get(i -> i.index(name));
-            if (!response.result().containsKey(name)) {
+            GetIndexResponse response = client.indices().get(i -> i.index(name));
+            IndexState state = resolveIndexEntry(response.result(), name);
+            if (state == null) {
                 return null;
             }
-            return response.result().get(name).settings().index().uuid();
+            return state.settings().index().uuid();
         } catch (ElasticsearchException e) {
             if (e.response().status() == 404) {
                 return null;
@@ -171,7 +217,7 @@ public class ElasticIndexManager extends AbstractElasticClient implements IndexM
     public IndexMappingRecord getIndexMappings(String name) {
         try {
             GetMappingResponse response = client.indices().getMapping(f -> f.index(name));
-            IndexMappingRecord mappings = response.get(name);
+            IndexMappingRecord mappings = resolveIndexEntry(response.result(), name);
             if (mappings == null) {
                 throw noIndexMappingsFound(name);
             }
@@ -190,6 +236,8 @@ public class ElasticIndexManager extends AbstractElasticClient implements IndexM
         List<Map<String, DynamicTemplate>> templates = new ArrayList<>();
         Map<String, Property> properties = new HashMap<>();
         configuration.getRules().forEach(rule -> ElasticMappings.ruleToElasticMapping(rule, templates, properties));
+        // Security requirements must be indexed as exact keywords so searches can pre-filter on them
+        properties.putIfAbsent(DefaultOutputFields.SECURITY_REQUIREMENTS, Property.of(p -> p.keyword(k -> k)));
 
         // load the setting file specified in the configuration's properties
         // or the default value if none has been set
@@ -309,6 +357,191 @@ public class ElasticIndexManager extends AbstractElasticClient implements IndexM
         }
     }
 
+    /**
+     * Gets the indices that an alias currently points to
+     *
+     * @param alias Alias
+     * @return Indices the alias points to, empty if no such alias, or {@code null} if unable to determine
+     */
+    public List<String> getAliasedIndices(String alias) {
+        try {
+            Response response = lowLevelClient().performRequest(new Request("GET", "/_alias/" + alias));
+            List<String> indices = new ArrayList<>();
+            JSON.readTree(response.getEntity().getContent()).fieldNames().forEachRemaining(indices::add);
+            return indices;
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() == 404) {
+                return Collections.emptyList();
+            }
+            LOGGER.warn("Failed to retrieve ElasticSearch alias {}: {}", alias, e.getMessage());
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to retrieve ElasticSearch alias {}", alias);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the name for the next version of an index that is accessed via the given alias
+     * <p>
+     * Versioned indices are named {@code <alias>-v<version>}, the next version is one greater than the highest version
+     * that currently exists, or {@code 1} if there are no existing versions.
+     * </p>
+     *
+     * @param alias Alias
+     * @return Next versioned index name
+     */
+    public String nextVersionedIndexName(String alias) {
+        Pattern versioned = Pattern.compile(Pattern.quote(alias) + "-v(\\d+)");
+        int latest = this.listIndices()
+                         .stream()
+                         .map(versioned::matcher)
+                         .filter(Matcher::matches)
+                         .mapToInt(m -> Integer.parseInt(m.group(1)))
+                         .max()
+                         .orElse(0);
+        return alias + "-v" + (latest + 1);
+    }
+
+    /**
+     * Atomically points an alias at a new index
+     * <p>
+     * In a single request the alias is removed from all the indices it currently points to, and added to the new
+     * index, so searches via the alias never see an intermediate state.  If the alias name is currently the name of a
+     * concrete index, e.g. when first moving from a plain index to an alias, then that index is deleted as part of the
+     * same request since an alias cannot share a name with an index.
+     * </p>
+     *
+     * @param alias    Alias
+     * @param newIndex Index the alias should point to
+     * @return True if the alias was switched, false if ElasticSearch refused to switch it, {@code null} if unable to
+     * determine whether the alias was switched
+     */
+    public Boolean switchAlias(String alias, String newIndex) {
+        try {
+            List<String> current = this.getAliasedIndices(alias);
+            if (current == null) {
+                return null;
+            }
+            ObjectNode body = JSON.createObjectNode();
+            ArrayNode actions = body.putArray("actions");
+            if (current.isEmpty() && Boolean.TRUE.equals(this.hasIndex(alias))) {
+                actions.addObject().putObject("remove_index").put("index", alias);
+            }
+            for (String index : current) {
+                actions.addObject().putObject("remove").put("index", index).put("alias", alias);
+            }
+            actions.addObject().putObject("add").put("index", newIndex).put("alias", alias);
+
+            Request request = new Request("POST", "/_aliases");
+            request.setEntity(new NStringEntity(JSON.writeValueAsString(body), ContentType.APPLICATION_JSON));
+            lowLevelClient().performRequest(request);
+            LOGGER.info("Switched ElasticSearch alias {} from {} to {}", alias, current.isEmpty() ? alias : current,
+                        newIndex);
+            return true;
+        } catch (ResponseException e) {
+            LOGGER.warn("Failed to switch ElasticSearch alias {} to {}: {}", alias, newIndex, e.getMessage());
+            return false;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to determine if ElasticSearch alias {} was switched to {}", alias, newIndex);
+            return null;
+        }
+    }
+
+    /**
+     * Starts copying all documents from one index to another without waiting for it to complete
+     * <p>
+     * The copy runs as a background task in ElasticSearch, whose progress can be checked via
+     * {@link #getReindexStatus(String)}.
+     * </p>
+     *
+     * @param source            Source index
+     * @param destination       Destination index
+     * @param slices            Number of slices to parallelise the copy into, or {@code auto} to let ElasticSearch
+     *                          decide
+     * @param requestsPerSecond Throttle for the copy in terms of documents per second, a value of zero or less means
+     *                          unthrottled
+     * @param batchSize         Number of documents copied in each batch
+     * @return Task ID of the copy, or {@code null} if it could not be started
+     */
+    public String startReindex(String source, String destination, String slices, float requestsPerSecond,
+                               int batchSize) {
+        try {
+            ObjectNode body = JSON.createObjectNode();
+            body.putObject("source").put("index", source).put("size", batchSize);
+            body.putObject("dest").put("index", destination);
+
+            Request request = new Request("POST", "/_reindex");
+            request.addParameter("wait_for_completion", "false");
+            request.addParameter("slices", slices);
+            request.addParameter("requests_per_second",
+                                 requestsPerSecond > 0 ? Float.toString(requestsPerSecond) : "-1");
+            request.setEntity(new NStringEntity(JSON.writeValueAsString(body), ContentType.APPLICATION_JSON));
+            Response response = lowLevelClient().performRequest(request);
+            String task = JSON.readTree(response.getEntity().getContent()).path("task").asText(null);
+            LOGGER.info("Started reindex of ElasticSearch index {} into {} as task {}", source, destination, task);
+            return task;
+        } catch (ResponseException e) {
+            LOGGER.warn("Failed to start reindex of ElasticSearch index {} into {}: {}", source, destination,
+                        e.getMessage());
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to determine if reindex of ElasticSearch index {} into {} was started", source,
+                        destination);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the status of a reindex started via {@link #startReindex(String, String, String, float, int)}
+     *
+     * @param taskId Task ID
+     * @return Reindex status, or {@code null} if unable to retrieve the status
+     */
+    public ReindexStatus getReindexStatus(String taskId) {
+        try {
+            Response response = lowLevelClient().performRequest(new Request("GET", "/_tasks/" + taskId));
+            JsonNode body = JSON.readTree(response.getEntity().getContent());
+            // Once completed the final status is in the response, prior to that it's in the task status
+            JsonNode status = body.path("completed").asBoolean(false) && body.has("response") ? body.path("response") :
+                              body.path("task").path("status");
+            List<String> failures = new ArrayList<>();
+            if (body.hasNonNull("error")) {
+                failures.add(body.path("error").path("reason").asText());
+            }
+            status.path("failures").forEach(f -> failures.add(f.path("cause").path("reason").asText(f.toString())));
+            return new ReindexStatus(body.path("completed").asBoolean(false), status.path("total").asLong(),
+                                     status.path("created").asLong(), status.path("updated").asLong(),
+                                     status.path("version_conflicts").asLong(), failures);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to retrieve status of ElasticSearch reindex task {}: {}", taskId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The status of a reindex
+     *
+     * @param completed        Whether the reindex has completed
+     * @param total            Total number of documents to be copied
+     * @param created          Number of documents created in the destination index so far
+     * @param updated          Number of documents updated in the destination index so far
+     * @param versionConflicts Number of version conflicts encountered so far
+     * @param failures         Failures encountered, if any
+     */
+    public record ReindexStatus(boolean completed, long total, long created, long updated, long versionConflicts,
+                                List<String> failures) {
+
+        /**
+         * Gets the number of documents copied so far
+         *
+         * @return Documents copied
+         */
+        public long copied() {
+            return this.created + this.updated;
+        }
+    }
+
     /**
      * Overrides placeholder values with credential values
      *
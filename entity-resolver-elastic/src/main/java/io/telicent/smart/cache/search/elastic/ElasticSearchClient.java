@@ -27,6 +27,7 @@ import co.elastic.clients.elasticsearch.indices.*;
 import co.elastic.clients.elasticsearch.indices.reload_search_analyzers.ReloadDetails;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.telicent.smart.cache.entity.sinks.converters.DefaultOutputFields;
 import io.telicent.smart.cache.search.SearchClient;
 import io.telicent.smart.cache.search.SearchException;
 import io.telicent.smart.cache.search.elastic.utils.Highlighting;
@@ -38,12 +39,17 @@ import io.telicent.smart.cache.search.options.SecurityOptions;
 import io.telicent.smart.cache.search.options.SortField.Direction;
 import io.telicent.smart.cache.search.options.TypeFilterOptions;
 import io.telicent.smart.cache.search.security.CaffeineRedactedDocumentsCache;
+import io.telicent.smart.cache.search.security.LabelEvaluationCache;
 import io.telicent.smart.cache.search.security.RedactedDocumentsCache;
 import io.telicent.smart.cache.search.security.SecureSearchContext;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.map.HashedMap;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NStringEntity;
 import org.apache.jena.atlas.logging.FmtLog;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -96,6 +102,24 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
     private final AtomicInteger serverMaxPageSize = new AtomicInteger(-1);
 
     private final RedactedDocumentsCache redactedDocumentsCache;
+    private final LabelEvaluationCache labelEvaluationCache;
+
+    /**
+     * How long ElasticSearch keeps a point in time open between successive pages of a search
+     */
+    protected static final String PIT_KEEP_ALIVE_DURATION = "1m";
+    private static final Time PIT_KEEP_ALIVE = Time.of(t -> t.time(PIT_KEEP_ALIVE_DURATION));
+
+    /**
+     * How long the security requirements present in the indices are cached before being rediscovered
+     */
+    protected static final Duration SECURITY_REQUIREMENTS_REFRESH_INTERVAL = Duration.ofMinutes(1);
+    /**
+     * The maximum number of distinct security requirements that are discovered and used to pre-filter searches
+     */
+    protected static final int MAXIMUM_KNOWN_SECURITY_REQUIREMENTS = 1000;
+    private static final String SECURITY_REQUIREMENTS_AGGREGATION = "securityRequirements";
+    private volatile KnownSecurityRequirements knownSecurityRequirements;
 
     /**
      * Builds a new ElasticSearch client.
@@ -163,12 +187,37 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
     protected ElasticSearchClient(String elasticHost, int elasticPort, final List<String> indices,
                                   String user, String password, String elasticTlsCaCert,
                                   boolean makeOpenSearchCompatible, RedactedDocumentsCache cache) {
+        this(elasticHost, elasticPort, indices, user, password, elasticTlsCaCert, makeOpenSearchCompatible, cache,
+             null);
+    }
+
+    /**
+     * Creates a new ElasticSearch Search client
+     *
+     * @param elasticHost              ElasticSearch host
+     * @param elasticPort              ElasticSearch port
+     * @param indices                  The indexes for searching.
+     * @param user                     ElasticSearch user
+     * @param password                 ElasticSearch password
+     * @param elasticTlsCaCert         the TLS/SSL trust base-64 encoded certificate of the Elasticsearch service for
+     *                                 secure communication, which may be null if security features are disabled
+     *                                 (i.e. plain text HTTP only).
+     * @param makeOpenSearchCompatible Whether to make the client "compatible", in so far as is possible, with
+     *                                 OpenSearch servers
+     * @param cache                    Redacted Documents Cache
+     * @param labelEvaluationCache     Label evaluation cache shared by all searches made via this client
+     */
+    protected ElasticSearchClient(String elasticHost, int elasticPort, final List<String> indices,
+                                  String user, String password, String elasticTlsCaCert,
+                                  boolean makeOpenSearchCompatible, RedactedDocumentsCache cache,
+                                  LabelEvaluationCache labelEvaluationCache) {
         super(elasticHost, elasticPort, user, password, elasticTlsCaCert, makeOpenSearchCompatible);
         if (CollectionUtils.isEmpty(indices) || indices.stream().anyMatch(StringUtils::isBlank)) {
             throw new IllegalArgumentException("Indices to search cannot be null/empty");
         }
         this.indices = indices;
         this.redactedDocumentsCache = cache;
+        this.labelEvaluationCache = labelEvaluationCache;
     }
 
     @Override
@@ -178,6 +227,9 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
         if (this.redactedDocumentsCache != null) {
             this.redactedDocumentsCache.close();
         }
+        if (this.labelEvaluationCache != null) {
+            this.labelEvaluationCache.invalidate();
+        }
     }
 
     @Override
@@ -251,12 +303,28 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
                 //@formatter:on
             }
 
+            // If security is enabled exclude any documents that have security requirements the user doesn't satisfy,
+            // these can never be visible to the user so there's no point retrieving them only to filter them out.
+            // Surviving documents are still subject to full security filtering once retrieved.
+            SecureSearchContext context = buildSecureSearchContext(options);
+            if (options.getSecurity().isEnabled()) {
+                query = withSecurityPreFilter(query, context, getKnownSecurityRequirements());
+            }
+
             // Build our search request passing through the search options where possible
             // NB - We need ElasticSearch's internal version field to be returned as we use this for cache keying in the
             //      RedactedDocumentsCache if one is configured
-            Time scrollTimeout = Time.of(t -> t.time("1m"));
             SearchRequest.Builder builder = new SearchRequest.Builder();
-            builder.index(indices).version(true).query(query);
+            builder.version(true).query(query);
+
+            // If we've been given a continuation from a previous page of results for this query we can reuse its point
+            // in time, and if this is a later page resume from where that page ended
+            String fingerprint = SearchContinuation.fingerprint(type, rawQuery, options);
+            SearchContinuation continuation = SearchContinuation.decode(options.getContinuation());
+            if (continuation != null && !continuation.fingerprint().equals(fingerprint)) {
+                LOGGER.info("Ignoring continuation that was issued for a different query");
+                continuation = null;
+            }
 
             // Detect the servers configured maximum page size if we haven't yet done so
             detectServerMaxPageSize();
@@ -267,37 +335,50 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
             // size regardless of the limit. We can't ever set the size to 0, so we set the size to 1 in that case so
             // that we can still accurately report how many results are available
             //
-            // Note that we can't use the "from" parameter in conjunction with scrolling, so we may have to apply offset
-            // manually after the fact
+            // Note that we can't use the "from" parameter in conjunction with search_after, so we may have to apply
+            // offset manually after the fact
             //
-            // We'll make a decision whether to scroll or not based upon the actual limit in-use, if its small enough
+            // We'll make a decision whether to page or not based upon the actual limit in-use, if its small enough
             // we'll push both the limit and offset down to ElasticSearch
             //
             // When security is enabled we'll be filtering results as they come back from ElasticSearch so always want
-            // to use scrolling, so we can continue scrolling until we have enough results to satisfy the other options
-            long requestedWindow = calculateEffectiveLimit(options);
-            boolean useScrolling
+            // to use paging, so we can continue paging until we have enough results to satisfy the other options
+            //
+            // Paging uses a point in time (PIT) and search_after, rather than scrolling, as a PIT is cheap for the data
+            // nodes to hold open and can be shared by concurrent requests for different pages of the same query
+            PagingState paging = null;
+            if (continuation != null) {
+                paging = continuation.nextOffset() <= options.getOffset() ?
+                         new PagingState(continuation.pitId(), continuation.searchAfter(), continuation.nextOffset()) :
+                         new PagingState(continuation.pitId(), List.of(), SearchResults.FIRST_OFFSET);
+            }
+            long requestedWindow = calculateEffectiveLimit(options, SearchResults.FIRST_OFFSET);
+            boolean usePaging
                     = options.getLimit() == SearchResults.UNLIMITED
                       || options.getLimit() > this.serverMaxPageSize.get()
                       || requestedWindow > DEFAULT_MAXIMUM_PAGE_SIZE
-                      || options.getSecurity().isEnabled();
-
-            if (useScrolling) {
-                // Scroll with a reasonable page size otherwise we'll waste a lot of time hopping back and forth across
-                // the network scrolling in tiny increments.  Prior to #205 we set this to the effective limit BUT that
-                // meant we scrolled the entire result set in tiny chunks which led to network traffic dominating
+                      || options.getSecurity().isEnabled()
+                      || paging != null;
+
+            int pageSize;
+            if (usePaging) {
+                // Page with a reasonable page size otherwise we'll waste a lot of time hopping back and forth across
+                // the network paging in tiny increments.  Prior to #205 we set this to the effective limit BUT that
+                // meant we paged through the entire result set in tiny chunks which led to network traffic dominating
                 // performance.  Subsequently, #334 also demonstrated that doing too much work will also harm
                 // performance, so we try to strike a balance.  This is especially true when security is enabled as
                 // just because the user asked for the first 10 results doesn't mean their attributes permit them to
                 // see the first 10 results that ES happens to give back.
-                // See selectScrollPageSize() for more detail on the heuristics we use to choose this
-                int scrollPageSize = selectScrollPageSize(options, requestedWindow);
-                LOGGER.info("Selected scroll page size {} for {} query '{}'...", scrollPageSize, type, rawQuery);
-                builder.scroll(scrollTimeout)
-                       .size(scrollPageSize);
+                // See selectPageSize() for more detail on the heuristics we use to choose this
+                long firstOffset = paging != null ? paging.firstOffset : SearchResults.FIRST_OFFSET;
+                pageSize = selectPageSize(options, calculateEffectiveLimit(options, firstOffset));
+                LOGGER.info("Selected page size {} for {} query '{}'...", pageSize, type, rawQuery);
+                builder.size(pageSize);
             } else {
                 // Can apply limit and offset directly
-                builder.size(Math.max((int) options.getLimit(), MINIMUM_PAGE_SIZE))
+                pageSize = Math.max((int) options.getLimit(), MINIMUM_PAGE_SIZE);
+                builder.index(this.indices)
+                       .size(pageSize)
                        .from((int) (options.getOffset() - 1));
             }
             //@formatter:on
@@ -339,45 +420,78 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
             //@formatter:on
             LOGGER.info("Starting search for {} query '{}'...", type, rawQuery);
             long start = System.currentTimeMillis();
-            SearchResponse<Document> response = this.client.search(builder.build(), Document.class);
-            FmtLog.info(LOGGER, "Retrieved %,d initial results in %,d milliseconds", response.hits().hits().size(),
-                        System.currentTimeMillis() - start);
-
-            HitsMetadata<Document> metadata = response.hits();
-            AtomicLong total = new AtomicLong(metadata.total().value());
-            List<SearchResult> results = new ArrayList<>();
-            if (options.getLimit() != 0 && options.getOffset() <= metadata.total().value()) {
-                SecureSearchContext context = buildSecureSearchContext(options);
-                hitsToResults(options, context, total, response.hits().hits(), results);
-                scrollAdditionalResults(options, context, scrollTimeout, total, results, response.scrollId());
-            } else {
-                FmtLog.info(LOGGER,
-                            "%s Query '%s' with offset %,d short-circuits document filtering as ElasticSearch only has %,d hits for it",
-                            type, rawQuery, options.getOffset(), metadata.total().value());
-                clearScroll(response.scrollId());
-            }
-
-            // Apply any limit and/or offset that we could not fully push down
-            if (options.getLimit() == 0) {
-                results = Collections.emptyList();
-            } else if (useScrolling && options.getOffset() > SearchResults.FIRST_OFFSET) {
-                // Since we do have an offset which we didn't push down (because its incompatible with scrolling) we
-                // need to go ahead and apply it now
-                if (options.getOffset() <= results.size()) {
-                    results = results.subList((int) (options.getOffset() - 1), results.size());
+            SearchResults searchResults;
+            try {
+                if (usePaging) {
+                    if (paging == null) {
+                        paging = new PagingState(openPointInTime(), List.of(), SearchResults.FIRST_OFFSET);
+                    }
+                    paging.applyTo(builder);
+                }
+                SearchRequest request = builder.build();
+                SearchResponse<Document> response = this.client.search(request, Document.class);
+                FmtLog.info(LOGGER, "Retrieved %,d initial results in %,d milliseconds", response.hits().hits().size(),
+                            System.currentTimeMillis() - start);
+
+                HitsMetadata<Document> metadata = response.hits();
+                AtomicLong total = new AtomicLong(metadata.total().value());
+                List<SearchResult> results = new ArrayList<>();
+                if (paging != null) {
+                    paging.update(response.pitId(), response.hits().hits().size() < pageSize);
+                }
+                if (options.getLimit() != 0 && options.getOffset() <= metadata.total().value()) {
+                    hitsToResults(options, context, total, response.hits().hits(), results, paging);
+                    pageAdditionalResults(options, context, total, results, paging, request);
                 } else {
+                    FmtLog.info(LOGGER,
+                                "%s Query '%s' with offset %,d short-circuits document filtering as ElasticSearch only has %,d hits for it",
+                                type, rawQuery, options.getOffset(), metadata.total().value());
+                }
+                int collected = results.size();
+
+                // Apply any limit and/or offset that we could not fully push down
+                if (options.getLimit() == 0) {
                     results = Collections.emptyList();
+                } else if (paging != null && options.getOffset() > paging.firstOffset) {
+                    // Since we do have an offset which we didn't push down (because its incompatible with
+                    // search_after) we need to go ahead and apply it now
+                    int skip = (int) (options.getOffset() - paging.firstOffset);
+                    if (skip < results.size()) {
+                        results = results.subList(skip, results.size());
+                    } else {
+                        results = Collections.emptyList();
+                    }
+                }
+                if (options.getLimit() != SearchResults.UNLIMITED && results.size() > options.getLimit()) {
+                    results = results.subList(0, (int) options.getLimit());
+                }
+
+                searchResults = new SearchResults(isMaybeMore(total.longValue(), options), options.getLimit(),
+                                                  options.getOffset(), rawQuery, type, results);
+                if (paging != null && searchResults.isMaybeMore() && !paging.exhausted &&
+                    CollectionUtils.isNotEmpty(paging.searchAfter)) {
+                    // Leave the point in time open so the next page of results can continue from where we stopped
+                    searchResults.setContinuation(
+                            new SearchContinuation(fingerprint, paging.pitId, paging.searchAfter,
+                                                   paging.firstOffset + collected).encode());
+                    paging = null;
+                }
+            } finally {
+                if (paging != null) {
+                    closePointInTime(paging.pitId);
                 }
-            }
-            if (options.getLimit() != SearchResults.UNLIMITED && results.size() > options.getLimit()) {
-                results = results.subList(0, (int) options.getLimit());
             }
 
             FmtLog.info(LOGGER, "Completed search for %s query '%s' in %,d total milliseconds", type, rawQuery,
                         System.currentTimeMillis() - start);
-            return new SearchResults(isMaybeMore(total.longValue(), options), options.getLimit(), options.getOffset(),
-                                     rawQuery, type, results);
+            return searchResults;
         } catch (ElasticsearchException e) {
+            // The point in time for a continuation may have expired, in which case calculate the results from scratch
+            if (options.getContinuation() != null) {
+                LOGGER.info("Unable to resume {} query '{}' from its continuation, searching from scratch: {}", type,
+                            rawQuery, e.getMessage());
+                return searchCommon(rawQuery, SearchOptions.copy(options).continueFrom(null).build(), type, query);
+            }
             // can't tell exactly why it failed but if there are sort fields
             // try again just in case one of the specified fields did not exist
             if (!options.getSortOptions().getFields().isEmpty()) {
@@ -392,7 +506,7 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
     }
 
     /**
-     * Select a suitable scroll page size
+     * Select a suitable page size
      * <p>
      * Past issues have demonstrated that asking for too few results, or too many, can both harm performance.  Therefore
      * we try to strike a balance in how many results we ask for so that we both minimise the number of network requests
@@ -405,9 +519,9 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
      *
      * @param options         Search options
      * @param requestedWindow Requested window of results, this is the limit plus the offset
-     * @return Scroll page size
+     * @return Page size
      */
-    private int selectScrollPageSize(SearchOptions options, long requestedWindow) {
+    private int selectPageSize(SearchOptions options, long requestedWindow) {
         // Safe to access, as searchCommon() will have called determineMaxServerPageSize() prior to calling us, which
         // guarantees to set this
         int serverMaxPageSize = this.serverMaxPageSize.get();
@@ -453,9 +567,10 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
             final Integer maxPageSizeAcrossAllIndices = indices.stream().map(index -> {
                 try {
                     GetIndexResponse response = this.client.indices().get(i -> i.index(index).includeDefaults(true));
-                    Integer maxPageSize = response.result().get(index).settings().index().maxResultWindow();
+                    IndexState state = resolveIndexEntry(response.result(), index);
+                    Integer maxPageSize = state.settings().index().maxResultWindow();
                     if (maxPageSize == null) {
-                        maxPageSize = response.result().get(index).defaults().index().maxResultWindow();
+                        maxPageSize = state.defaults().index().maxResultWindow();
                     }
 
                     return maxPageSize;
@@ -503,6 +618,81 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
         return options.getOffset() + options.getLimit() < total;
     }
 
+    /**
+     * Pre-filters a query to exclude any documents that have security requirements the user doesn't satisfy
+     *
+     * @param query   Query
+     * @param context Secure search context for the user
+     * @param known   Security requirements known to be present in the indices being searched
+     * @return Pre-filtered query, or the original query if the user satisfies all the known requirements
+     */
+    static Query withSecurityPreFilter(Query query, SecureSearchContext context, List<String> known) {
+        List<String> unsatisfied = context.unsatisfiedRequirements(known);
+        if (unsatisfied.isEmpty()) {
+            return query;
+        }
+        LOGGER.debug("Excluding documents with {} unsatisfied security requirements from search", unsatisfied.size());
+        List<FieldValue> excluded = unsatisfied.stream().map(FieldValue::of).toList();
+        return Query.of(q -> q.bool(b -> b.must(query)
+                                          .mustNot(m -> m.terms(t -> t.field(DefaultOutputFields.SECURITY_REQUIREMENTS)
+                                                                      .terms(v -> v.value(excluded))))));
+    }
+
+    /**
+     * Gets the security requirements known to be present on documents in the indices being searched
+     * <p>
+     * These are discovered via a terms aggregation and cached for {@link #SECURITY_REQUIREMENTS_REFRESH_INTERVAL},
+     * requirements that first appear after they were last discovered are not known until the next refresh.  Since
+     * searches only exclude documents with known requirements that the user does not satisfy this can't cause documents
+     * the user is permitted to see to be excluded.  If the requirements can't be discovered, e.g. because the indices
+     * predate security requirements being indexed, then no requirements are known and searches are not pre-filtered.
+     * </p>
+     *
+     * @return Known security requirements
+     */
+    protected List<String> getKnownSecurityRequirements() {
+        KnownSecurityRequirements known = this.knownSecurityRequirements;
+        if (known != null && known.expires() > System.currentTimeMillis()) {
+            return known.requirements();
+        }
+
+        List<String> requirements = new ArrayList<>();
+        try {
+            ObjectNode body = JSON.createObjectNode();
+            body.put("size", 0);
+            body.putObject("aggs")
+                .putObject(SECURITY_REQUIREMENTS_AGGREGATION)
+                .putObject("terms")
+                .put("field", DefaultOutputFields.SECURITY_REQUIREMENTS)
+                .put("size", MAXIMUM_KNOWN_SECURITY_REQUIREMENTS);
+            Request request = new Request("POST", "/" + String.join(",", this.indices) + "/_search");
+            request.setEntity(new NStringEntity(JSON.writeValueAsString(body), ContentType.APPLICATION_JSON));
+            Response response = lowLevelClient().performRequest(request);
+            JsonNode buckets = JSON.readTree(response.getEntity().getContent())
+                                   .path("aggregations")
+                                   .path(SECURITY_REQUIREMENTS_AGGREGATION)
+                                   .path("buckets");
+            buckets.forEach(bucket -> requirements.add(bucket.path("key").asText()));
+            LOGGER.debug("Discovered {} security requirements in indices {}", requirements.size(), this.indices);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to discover security requirements, searches will not be pre-filtered: {}",
+                        e.getMessage());
+            requirements.clear();
+        }
+        this.knownSecurityRequirements = new KnownSecurityRequirements(
+                requirements, System.currentTimeMillis() + SECURITY_REQUIREMENTS_REFRESH_INTERVAL.toMillis());
+        return requirements;
+    }
+
+    /**
+     * Security requirements known to be present in the indices
+     *
+     * @param requirements Requirements
+     * @param expires      When these should be rediscovered
+     */
+    private record KnownSecurityRequirements(List<String> requirements, long expires) {
+    }
+
     /**
      * Builds the secure context for the search
      *
@@ -514,6 +704,9 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
         if (this.redactedDocumentsCache != null) {
             builder.withRedactionCache(this.redactedDocumentsCache);
         }
+        if (this.labelEvaluationCache != null) {
+            builder.withEvaluationCache(this.labelEvaluationCache);
+        }
         if (options.getTypeFilterOpts().isEnabled()) {
             // Precompile the field match expressions for the type filtering once for the search context
             //@formatter:off
@@ -550,63 +743,104 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
     }
 
     /**
-     * Scrolls through additional results
+     * Pages through additional results, using search_after to continue from the last hit considered, until either there
+     * are enough results to satisfy the search options or there are no further results
      *
-     * @param options       Search options
-     * @param context       Search Context
-     * @param scrollTimeout Scroll timeout
-     * @param total         Total results
-     * @param results       Results array being built
-     * @param scrollId      Scroll ID
-     * @throws IOException Thrown if there's a problem scrolling further results
+     * @param options Search options
+     * @param context Search Context
+     * @param total   Total results
+     * @param results Results array being built
+     * @param paging  Paging state, {@code null} if not paging
+     * @param initial Initial search request, subsequent requests use the same query, sort, highlighting and page size
+     * @throws IOException Thrown if there's a problem retrieving further results
      */
-    private void scrollAdditionalResults(SearchOptions options, SecureSearchContext context, Time scrollTimeout,
-                                         AtomicLong total, List<SearchResult> results, String scrollId) throws
+    private void pageAdditionalResults(SearchOptions options, SecureSearchContext context, AtomicLong total,
+                                       List<SearchResult> results, PagingState paging, SearchRequest initial) throws
             IOException {
-        // If we aren't using scrolling no need to scroll for additional results
-        if (StringUtils.isBlank(scrollId)) {
+        // If we aren't paging no need to page for additional results
+        if (paging == null) {
             return;
         }
 
-        long effectiveLimit = calculateEffectiveLimit(options);
-        while (options.getLimit() == SearchResults.UNLIMITED || results.size() < effectiveLimit) {
-            final String finalScrollId = scrollId;
-            long start = System.currentTimeMillis();
-            LOGGER.info("Scrolling for additional results...");
-            ScrollResponse<Document> scrollResponse =
-                    this.client.scroll(s -> s.scrollId(finalScrollId).scroll(scrollTimeout), Document.class);
-            FmtLog.info(LOGGER, "Retrieved %,d additional results from scrolling in %,d milliseconds",
-                        scrollResponse.hits().hits().size(), System.currentTimeMillis() - start);
-            if (!scrollResponse.hits().hits().isEmpty()) {
-                hitsToResults(options, context, total, scrollResponse.hits().hits(), results);
-                scrollId = scrollResponse.scrollId();
-            } else {
-                // When a scroll response returns empty there are no further results
-                break;
+        int pageSize = initial.size();
+        long effectiveLimit = calculateEffectiveLimit(options, paging.firstOffset);
+        while (!paging.exhausted &&
+               (options.getLimit() == SearchResults.UNLIMITED || results.size() < effectiveLimit)) {
+            // No need to track total hits again, we already know it from the initial request
+            SearchRequest.Builder builder = new SearchRequest.Builder();
+            builder.version(true)
+                   .query(initial.query())
+                   .sort(initial.sort())
+                   .size(pageSize)
+                   .trackTotalHits(t -> t.enabled(false));
+            if (initial.highlight() != null) {
+                builder.highlight(initial.highlight());
             }
+            long start = System.currentTimeMillis();
+            LOGGER.info("Paging for additional results...");
+            SearchResponse<Document> response = this.client.search(paging.applyTo(builder).build(), Document.class);
+            FmtLog.info(LOGGER, "Retrieved %,d additional results from paging in %,d milliseconds",
+                        response.hits().hits().size(), System.currentTimeMillis() - start);
+            // When a page returns fewer results than the page size there are no further results
+            paging.update(response.pitId(), response.hits().hits().size() < pageSize);
+            hitsToResults(options, context, total, response.hits().hits(), results, paging);
         }
-        clearScroll(scrollId);
     }
 
-    private void clearScroll(final String scrollId) throws IOException {
-        if (StringUtils.isNotBlank(scrollId)) {
-            this.client.clearScroll(s -> s.scrollId(scrollId));
+    /**
+     * Opens a point in time across the indices this client searches, kept alive for
+     * {@value #PIT_KEEP_ALIVE_DURATION}
+     *
+     * @return Point in time ID
+     * @throws IOException Thrown if the point in time cannot be opened
+     */
+    protected String openPointInTime() throws IOException {
+        return this.client.openPointInTime(p -> p.index(this.indices).keepAlive(PIT_KEEP_ALIVE)).id();
+    }
+
+    /**
+     * Closes a point in time, failures are ignored since the point in time will expire of its own accord anyway
+     *
+     * @param pitId Point in time ID
+     */
+    protected void closePointInTime(final String pitId) {
+        try {
+            this.client.closePointInTime(c -> c.id(pitId));
+        } catch (IOException | ElasticsearchException e) {
+            LOGGER.debug("Failed to close point in time: {}", e.getMessage());
         }
     }
 
+    /**
+     * Gets the indices this client searches
+     *
+     * @return Indices
+     */
+    protected final List<String> getIndices() {
+        return this.indices;
+    }
+
     private void hitsToResults(SearchOptions options, SecureSearchContext context, AtomicLong total,
-                               List<Hit<Document>> hits, List<SearchResult> results) {
+                               List<Hit<Document>> hits, List<SearchResult> results, PagingState paging) {
         int returned = 0;
         int considered = 0;
-        long effectiveLimit = calculateEffectiveLimit(options);
+        long effectiveLimit =
+                calculateEffectiveLimit(options, paging != null ? paging.firstOffset : SearchResults.FIRST_OFFSET);
         long start = System.currentTimeMillis();
         for (Hit<Document> hit : hits) {
             if (options.getLimit() != SearchResults.UNLIMITED && results.size() >= effectiveLimit) {
                 // Can short-circuit as we've produced enough results to satisfy the page of results that is being
-                // requested
+                // requested, since some hits weren't considered there are definitely further results
+                if (paging != null) {
+                    paging.exhausted = false;
+                }
                 break;
             }
             considered++;
+            if (paging != null) {
+                // Remember where we got up to so that further pages continue from the next hit
+                paging.searchAfter = hit.sort();
+            }
             // NB - canViewDocument() includes fine-grained filtering of the Document reference provided by the Hit
             // instance in-place thus if this method returns true then that reference will then represent the filtered
             // document and can safely be wrapped in hitToResult()
@@ -630,14 +864,67 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
      * Calculates the effective limit i.e. number of results we need to return in order to be able to return the page of
      * results the user has requested
      * <p>
-     * This is the limit plus the offset minus 1, since we use a 1 based offset
+     * This is the limit plus the offset minus the offset of the first result we will retrieve, which is normally
+     * {@link SearchResults#FIRST_OFFSET} unless we are resuming from a continuation
      * </p>
      *
-     * @param options Search options
+     * @param options     Search options
+     * @param firstOffset 1 based offset of the first result that will be retrieved
      * @return Effective Limit
      */
-    private static long calculateEffectiveLimit(SearchOptions options) {
-        return options.getLimit() + options.getOffset() - 1;
+    private static long calculateEffectiveLimit(SearchOptions options, long firstOffset) {
+        return options.getLimit() + options.getOffset() - firstOffset;
+    }
+
+    /**
+     * Tracks the state of paging through the results of a search via a point in time and search_after
+     */
+    private static final class PagingState {
+        private String pitId;
+        private List<String> searchAfter;
+        private final long firstOffset;
+        private boolean exhausted;
+
+        /**
+         * Creates new paging state
+         *
+         * @param pitId       Point in time ID
+         * @param searchAfter Sort values of the hit to continue after, empty to start from the first hit
+         * @param firstOffset 1 based offset of the first result that will be retrieved
+         */
+        private PagingState(String pitId, List<String> searchAfter, long firstOffset) {
+            this.pitId = pitId;
+            this.searchAfter = searchAfter;
+            this.firstOffset = firstOffset;
+        }
+
+        /**
+         * Applies the paging state to a search request
+         *
+         * @param builder Search request builder
+         * @return Search request builder
+         */
+        private SearchRequest.Builder applyTo(SearchRequest.Builder builder) {
+            builder.pit(p -> p.id(this.pitId).keepAlive(PIT_KEEP_ALIVE));
+            if (CollectionUtils.isNotEmpty(this.searchAfter)) {
+                builder.searchAfter(this.searchAfter);
+            }
+            return builder;
+        }
+
+        /**
+         * Updates the paging state from a search response
+         *
+         * @param pitId     Point in time ID from the response, ElasticSearch may return a different ID to the one that
+         *                  was used for the request
+         * @param exhausted Whether the response indicates there are no further results
+         */
+        private void update(String pitId, boolean exhausted) {
+            if (StringUtils.isNotBlank(pitId)) {
+                this.pitId = pitId;
+            }
+            this.exhausted = exhausted;
+        }
     }
 
     private SearchResult hitToResult(SearchOptions options, Hit<Document> hit) {
@@ -942,6 +1229,10 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
          * The redacted documents cache to be used
          */
         protected RedactedDocumentsCache redactedDocumentsCache;
+        /**
+         * The label evaluation cache to be used
+         */
+        protected LabelEvaluationCache labelEvaluationCache;
 
         /**
          * @param index configures on index on the builder, used to construct the client.
@@ -994,6 +1285,17 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
             return self();
         }
 
+        /**
+         * Configures a label evaluation cache, allowing label evaluation results to be reused across searches
+         *
+         * @param cache Label evaluation cache
+         * @return the builder for chaining.
+         */
+        public B labelEvaluationCache(LabelEvaluationCache cache) {
+            this.labelEvaluationCache = cache;
+            return self();
+        }
+
         @Override
         protected abstract B self();
 
@@ -1012,7 +1314,7 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
          */
         @Override
         public String toString() {
-            return "ElasticSearchClient.ElasticSearchClientBuilder(super=" + super.toString() + ", indices=" + this.indices + ", redactedDocumentsCache=" + this.redactedDocumentsCache + ")";
+            return "ElasticSearchClient.ElasticSearchClientBuilder(super=" + super.toString() + ", indices=" + this.indices + ", redactedDocumentsCache=" + this.redactedDocumentsCache + ", labelEvaluationCache=" + this.labelEvaluationCache + ")";
         }
     }
 
@@ -1029,7 +1331,7 @@ public class ElasticSearchClient extends AbstractElasticClient implements Search
         @Override
         public ElasticSearchClient build() {
             return new ElasticSearchClient(elasticHost, elasticPort, indices, username, password, elasticTlsCaCert,
-                                           makeOpenSearchCompatible, redactedDocumentsCache);
+                                           makeOpenSearchCompatible, redactedDocumentsCache, labelEvaluationCache);
         }
     }
 }
@@ -15,12 +15,13 @@
  */
 package io.telicent.smart.cache.search.elastic;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch._types.*;
 import co.elastic.clients.elasticsearch.core.*;
 import co.elastic.clients.elasticsearch.core.bulk.*;
 import co.elastic.clients.elasticsearch.indices.FlushResponse;
-import co.elastic.clients.elasticsearch.indices.ForcemergeResponse;
 import io.github.resilience4j.retry.RetryConfig;
+import io.telicent.smart.cache.entity.sinks.converters.DefaultOutputFields;
 import io.telicent.smart.cache.search.SearchException;
 import io.telicent.smart.cache.search.SearchIndexer;
 import io.telicent.smart.cache.search.SearchUtils;
@@ -29,6 +30,7 @@ import io.telicent.smart.cache.search.elastic.utils.ContentUpdate;
 import io.telicent.smart.cache.search.model.Document;
 import io.telicent.smart.cache.search.model.SearchIndexBulkResult;
 import io.telicent.smart.cache.search.model.SearchIndexBulkResults;
+import io.telicent.smart.cache.search.security.SecurityRequirements;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -39,8 +41,13 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -77,6 +84,10 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
      * Default maximum retry interval for index operations
      */
     public static final Duration DEFAULT_MAX_INDEX_RETRY_INTERVAL = Duration.ofSeconds(60);
+    /**
+     * Default minimum interval between force merges, currently <strong>1 hour</strong>
+     */
+    public static final Duration DEFAULT_MIN_FORCE_MERGE_INTERVAL = Duration.ofHours(1);
     /**
      * Function used when no errors are permitted in a bulk response
      */
@@ -90,14 +101,25 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
      */
     private static final Function<WriteResponseBase, Boolean> DELETE_ON_NON_EXISTENT_DOCUMENT =
             r -> r.shards().failures().stream().allMatch(f -> StringUtils.equals(f.status(), "404"));
+    /**
+     * HTTP status used by ElasticSearch when rejecting operations because it is overloaded
+     */
+    private static final int TOO_MANY_REQUESTS = 429;
 
+    private final ElasticsearchAsyncClient asyncClient;
     private final String index;
     private final boolean upsert;
     private final RetryConfig flushRetryConfig;
-    private final RetryConfig forceMergeRetryConfig;
     private final RetryConfig indexRetryConfig;
     private final Function<T, Script> itemToUpdateScript;
     private final Function<T, Script> itemToDeleteScript;
+    private final Duration minForceMergeInterval;
+    private final Object ingestionLock = new Object();
+    private int bulkIngestions;
+    private Map<String, String> originalSettings;
+    private volatile boolean checkedRecordedSettings;
+    private String forceMergeTask;
+    private long lastForceMergeAt;
 
     /**
      * Creates a new ElasticSearch Indexer
@@ -128,21 +150,26 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
      *                                 (i.e. plain text HTTP only).
      * @param makeOpenSearchCompatible Whether to try to make the client OpenSearch "compatible", in so far as is
      *                                 possible
+     * @param minForceMergeInterval    Minimum interval between force merges started by {@link #flush(boolean)}, if
+     *                                 {@code null} then {@link #DEFAULT_MIN_FORCE_MERGE_INTERVAL} is used
      */
     ElasticSearchIndexer(String elasticHost, int elasticPort, String index, boolean upsert,
                          Function<T, Script> updateScriptBuilder, Function<T, Script> deleteScriptBuilder,
                          int maxRetries, Duration minRetryInterval, Duration maxRetryInterval,
                          Duration minIndexRetryInterval, Duration maxIndexRetryInterval, String user, String password,
-                         String elasticTlsCaCert, boolean makeOpenSearchCompatible) {
+                         String elasticTlsCaCert, boolean makeOpenSearchCompatible, Duration minForceMergeInterval) {
         super(elasticHost, elasticPort, user, password, elasticTlsCaCert, makeOpenSearchCompatible);
 
         if (StringUtils.isBlank(index)) {
             throw new IllegalArgumentException("Target ElasticSearch Index cannot be null/empty");
         }
+        this.asyncClient = new ElasticsearchAsyncClient(this.client._transport());
         this.index = index;
         this.upsert = upsert;
         this.itemToUpdateScript = updateScriptBuilder;
         this.itemToDeleteScript = deleteScriptBuilder;
+        this.minForceMergeInterval =
+                minForceMergeInterval != null ? minForceMergeInterval : DEFAULT_MIN_FORCE_MERGE_INTERVAL;
 
         // Prepare the various retry configurations using suitable defaults if not explicitly configured
         int actualMaxRetries = maxRetries >= 1 ? maxRetries : DEFAULT_MAX_RETRIES;
@@ -158,12 +185,6 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
                                            .retryExceptions(IOException.class, ElasticsearchException.class)
                                            .retryOnResult(ElasticSearchIndexer.createRetryTest())
                                            .build();
-        this.forceMergeRetryConfig =
-                SearchUtils.<ForcemergeResponse>prepareRetry(actualMaxRetries, actualMinRetryInterval,
-                                                             actualMaxRetryInterval)
-                           .retryExceptions(IOException.class, ElasticsearchException.class)
-                           .retryOnResult(ElasticSearchIndexer.createRetryTest())
-                           .build();
         this.indexRetryConfig =
                 SearchUtils.prepareRetry(actualMaxRetries, actualMinIndexRetryInterval, actualMaxIndexRetryInterval)
                            .retryExceptions(IOException.class, ElasticsearchException.class, SearchException.class)
@@ -200,6 +221,7 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
         if (StringUtils.isBlank(id)) {
             throw new SearchException("Calculated ID for document is null/empty which is not permitted");
         }
+        restoreInterruptedBulkIngestion();
         SearchUtils.retryIndexOperation(this, this.index, String.format("Index document %s into", id),
                                         this.indexRetryConfig, () -> {
                     try {
@@ -208,8 +230,10 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
                             if (this.itemToUpdateScript != null) {
                                 response = client.update(u -> u.index(this.index)
                                                                      .id(id)
-                                                                     .upsert(item)
-                                                                     .script(this.itemToUpdateScript.apply(item)),
+                                                                     .upsert(withSecurityRequirements(item, false))
+                                                                     .script(withSecurityRequirements(
+                                                                             this.itemToUpdateScript.apply(item),
+                                                                             item)),
                                                                (Class<T>) item.getClass());
                                 checkResponse(id, response, NO_ERRORS_ACCEPTED,
                                               "Indexed document (via scripted update)",
@@ -218,7 +242,7 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
                                 response =
                                         client.update(u -> u.index(this.index)
                                                                   .id(id)
-                                                                  .doc(item)
+                                                                  .doc(withSecurityRequirements(item, true))
                                                                   .docAsUpsert(true),
                                                             (Class<T>) item.getClass());
                                 checkResponse(id, response, NO_ERRORS_ACCEPTED,
@@ -228,7 +252,8 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
                         } else {
                             IndexResponse response = client.index(i -> i.index(this.index)
                                                                         .id(id)
-                                                                        .document(item));
+                                                                        .document(withSecurityRequirements(
+                                                                                item, false)));
                             checkResponse(id, response, NO_ERRORS_ACCEPTED, "Indexed document",
                                           "Failed to index document");
                         }
@@ -246,30 +271,10 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
     @Override
     public SearchIndexBulkResults<T> bulkIndex(Function<T, String> idProvider, Collection<T> items) {
         // Firstly build the bulk operations we want to send to ElasticSearch
-        String actionModifier =
-                this.upsert ? (this.itemToUpdateScript != null ? " (via scripted update)" : " (via upsert)") : "";
+        String actionModifier = indexActionModifier();
         final List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> allItemOps =
-                prepareBulkOperations(idProvider, items, (document, id) -> {
-                    if (this.upsert) {
-                        if (this.itemToUpdateScript != null) {
-                            return new BulkOperation(UpdateOperation.of(b -> b.index(this.index)
-                                                                              .id(id)
-                                                                              .action(UpdateAction.of(
-                                                                                      u -> u.upsert(document)
-                                                                                            .script(this.itemToUpdateScript.apply(
-                                                                                                    document))))));
-                        } else {
-                            return new BulkOperation(UpdateOperation.of(b -> b.index(this.index)
-                                                                              .id(id)
-                                                                              .action(UpdateAction.of(
-                                                                                      u -> u.doc(document)
-                                                                                            .docAsUpsert(
-                                                                                                    true)))));
-                        }
-                    } else {
-                        return new BulkOperation(IndexOperation.of(b -> b.index(this.index).id(id).document(document)));
-                    }
-                });
+                prepareIndexOperations(idProvider, items);
+        final BulkStatistics statistics = new BulkStatistics();
 
         // Then attempt the bulk indexing with retries enabled
         SearchUtils.retryIndexOperation(this, this.index, "Bulk index documents" + actionModifier + " into",
@@ -277,11 +282,11 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
                     final List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> retryOps =
                             determineRetryOps(allItemOps);
                     try {
-                        BulkResponse response = client.bulk(b -> b.index(this.index)
+                        BulkResponse response = statistics.record(() -> client.bulk(b -> b.index(this.index)
                                                                   .operations(retryOps.stream()
                                                                                       .map(Pair::getRight)
                                                                                       .map(Pair::getLeft)
-                                                                                      .toList()));
+                                                                                      .toList())));
 
                         // Figure out how many of the documents were successfully indexed and log any errors
                         checkBulkResponse(retryOps, response, NO_BULK_ERRORS_ACCEPTED,
@@ -297,13 +302,322 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
                 });
 
         // Update the index results for any operations that were unable to be tried
+        return toBulkResults(allItemOps,
+                             "Index " + actionModifier + " was not attempted as preceding item(s) failed to index",
+                             statistics);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The bulk request is issued via the asynchronous ElasticSearch client so several bulk requests may be in-flight
+     * at once.  Retries follow the same policy as {@link #bulkIndex(Function, Collection)}, with only the items that
+     * were not successfully indexed by a previous attempt being retried.
+     * </p>
+     */
+    @Override
+    public CompletableFuture<SearchIndexBulkResults<T>> bulkIndexAsync(Function<T, String> idProvider,
+                                                                       Collection<T> items) {
+        String actionModifier = indexActionModifier();
+        final List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> allItemOps;
+        try {
+            allItemOps = prepareIndexOperations(idProvider, items);
+        } catch (SearchException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return bulkAsync(allItemOps, "Bulk index documents" + actionModifier + " into", NO_BULK_ERRORS_ACCEPTED,
+                         "Bulk Indexed" + actionModifier, "Failed to index" + actionModifier,
+                         "Index " + actionModifier + " was not attempted as preceding item(s) failed to index");
+    }
+
+    private String indexActionModifier() {
+        return this.upsert ? (this.itemToUpdateScript != null ? " (via scripted update)" : " (via upsert)") : "";
+    }
+
+    private List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> prepareIndexOperations(
+            Function<T, String> idProvider, Collection<T> items) {
+        return prepareBulkOperations(idProvider, items, (document, id) -> {
+            if (this.upsert) {
+                if (this.itemToUpdateScript != null) {
+                    Script script = withSecurityRequirements(this.itemToUpdateScript.apply(document), document);
+                    return new BulkOperation(UpdateOperation.of(b -> b.index(this.index)
+                                                                      .id(id)
+                                                                      .action(UpdateAction.of(
+                                                                              u -> u.upsert(withSecurityRequirements(
+                                                                                            document, false))
+                                                                                    .script(script)))));
+                } else {
+                    return new BulkOperation(UpdateOperation.of(b -> b.index(this.index)
+                                                                      .id(id)
+                                                                      .action(UpdateAction.of(
+                                                                              u -> u.doc(withSecurityRequirements(
+                                                                                            document, true))
+                                                                                    .docAsUpsert(
+                                                                                            true)))));
+                }
+            } else {
+                return new BulkOperation(IndexOperation.of(b -> b.index(this.index)
+                                                                 .id(id)
+                                                                 .document(withSecurityRequirements(document, false))));
+            }
+        });
+    }
+
+    /**
+     * Prepares a document for indexing by adding its security requirements, as calculated by
+     * {@link SecurityRequirements}, which searches use to exclude documents a user can never see
+     * <p>
+     * Only map based documents are supported, other documents are indexed as-is.  A partial document is merged into any
+     * existing document, so its requirements can't be determined from the partial document alone.  Therefore, if it
+     * carries security labels anywhere within it, e.g. the fine-grained labels of a nested upsertable map, any existing
+     * requirements are cleared, otherwise existing requirements are unaffected.
+     * </p>
+     *
+     * @param document Document
+     * @param partial  Whether the document is a partial document
+     * @return Document to index
+     */
+    @SuppressWarnings("unchecked")
+    static Object withSecurityRequirements(Object document, boolean partial) {
+        if (!(document instanceof Map<?, ?> map)) {
+            return document;
+        }
+        Map<String, Object> fields = (Map<String, Object>) map;
+        if (partial) {
+            if (!hasSecurityLabels(fields)) {
+                return document;
+            }
+            Map<String, Object> prepared = new LinkedHashMap<>(fields);
+            prepared.put(DefaultOutputFields.SECURITY_REQUIREMENTS, List.of());
+            return prepared;
+        }
+
+        List<String> requirements = SecurityRequirements.forDocument(fields);
+        if (requirements.isEmpty()) {
+            return document;
+        }
+        Map<String, Object> prepared = new LinkedHashMap<>(fields);
+        prepared.put(DefaultOutputFields.SECURITY_REQUIREMENTS, requirements);
+        return prepared;
+    }
+
+    /**
+     * Prepares a scripted update of a document so that it maintains the documents security requirements
+     * <p>
+     * A scripted update is merged into any existing document, so as with a partial document its requirements can't be
+     * determined from the document alone.  Therefore, if the document carries security labels anywhere within it the
+     * script is extended to remove any existing requirements, otherwise existing requirements are unaffected and the
+     * script is used as-is.  Only inline scripts are supported, anything else is used as-is.
+     * </p>
+     *
+     * @param script   Update script
+     * @param document Document the script was generated from
+     * @return Update script
+     */
+    static Script withSecurityRequirements(Script script, Object document) {
+        if (script == null || !script.isInline() || !hasSecurityLabels(document)) {
+            return script;
+        }
+        InlineScript inline = script.inline();
+        String source =
+                inline.source() + "\nctx._source.remove('" + DefaultOutputFields.SECURITY_REQUIREMENTS + "');\n";
+        return Script.of(s -> s.inline(i -> i.lang(inline.lang())
+                                            .options(inline.options())
+                                            .params(inline.params())
+                                            .source(source)));
+    }
+
+    /**
+     * Determines whether a document, or some portion thereof, carries security labels at any depth
+     *
+     * @param value Document, or portion thereof
+     * @return True if security labels are present, false otherwise
+     */
+    static boolean hasSecurityLabels(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> field : map.entrySet()) {
+                if (field.getKey() instanceof String key && key.endsWith(DefaultOutputFields.SECURITY_LABELS)) {
+                    return true;
+                }
+                if (hasSecurityLabels(field.getValue())) {
+                    return true;
+                }
+            }
+        } else if (value instanceof Collection<?> items) {
+            for (Object item : items) {
+                if (hasSecurityLabels(item)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends the given bulk operations asynchronously, retrying those operations that fail per the index retry
+     * configuration
+     *
+     * @param allItemOps         Bulk operations
+     * @param operation          Operation description used in logging and errors
+     * @param isAcceptableError  Function that determines whether an error is acceptable
+     * @param successAction      Success action used in logging
+     * @param failureAction      Failure action used in logging and results
+     * @param notAttemptedReason Reason given for operations that were never attempted
+     * @return Future for the bulk results
+     */
+    private CompletableFuture<SearchIndexBulkResults<T>> bulkAsync(
+            List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> allItemOps, String operation,
+            Function<BulkResponseItem, Boolean> isAcceptableError, String successAction, String failureAction,
+            String notAttemptedReason) {
+        final BulkStatistics statistics = new BulkStatistics();
+        return attemptBulkAsync(allItemOps, operation, isAcceptableError, successAction, failureAction, statistics, 1)
+                .thenApply(v -> toBulkResults(allItemOps, notAttemptedReason, statistics));
+    }
+
+    private CompletableFuture<Void> attemptBulkAsync(
+            List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> allItemOps, String operation,
+            Function<BulkResponseItem, Boolean> isAcceptableError, String successAction, String failureAction,
+            BulkStatistics statistics, int attempt) {
+        final List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> retryOps =
+                determineRetryOps(allItemOps);
+        final int maxAttempts = this.indexRetryConfig.getMaxAttempts();
+        LOGGER.debug("Attempting to {} {} index {} (Attempt {} of {})...", operation, this.name(), this.index, attempt,
+                     maxAttempts);
+
+        CompletableFuture<BulkResponse> response;
+        try {
+            response = this.asyncClient().bulk(BulkRequest.of(b -> b.index(this.index)
+                                                                    .operations(retryOps.stream()
+                                                                                        .map(Pair::getRight)
+                                                                                        .map(Pair::getLeft)
+                                                                                        .toList())));
+        } catch (Exception e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        return response.thenAccept(r -> {
+                           statistics.record(r);
+                           checkBulkResponse(retryOps, r, isAcceptableError, successAction, failureAction);
+                       })
+                       .handle((v, e) -> e)
+                       .thenCompose(e -> {
+                           if (e == null) {
+                               return CompletableFuture.completedFuture(null);
+                           }
+                           Throwable cause = e instanceof CompletionException && e.getCause() != null ?
+                                             e.getCause() : e;
+                           statistics.record(cause);
+                           if (attempt >= maxAttempts || !isRetryableIndexFailure(cause)) {
+                               return CompletableFuture.failedFuture(asyncIndexFailure(operation, cause));
+                           }
+
+                           long delay = this.indexRetryConfig.getIntervalBiFunction().apply(attempt, null);
+                           LOGGER.warn("Failed to {} {} index {} (Attempt {} of {}), retrying in {} milliseconds: {}",
+                                       operation, this.name(), this.index, attempt, maxAttempts, delay,
+                                       cause.getMessage());
+                           return CompletableFuture.supplyAsync(
+                                                           () -> attemptBulkAsync(allItemOps, operation,
+                                                                                  isAcceptableError, successAction,
+                                                                                  failureAction, statistics,
+                                                                                  attempt + 1),
+                                                           CompletableFuture.delayedExecutor(delay,
+                                                                                             TimeUnit.MILLISECONDS))
+                                                   .thenCompose(Function.identity());
+                       });
+    }
+
+    /**
+     * Gets the asynchronous client used for asynchronous bulk operations
+     *
+     * @return Asynchronous client
+     */
+    ElasticsearchAsyncClient asyncClient() {
+        return this.asyncClient;
+    }
+
+    private static boolean isRetryableIndexFailure(Throwable e) {
+        return e instanceof IOException || e instanceof ElasticsearchException || e instanceof SearchException;
+    }
+
+    private SearchException asyncIndexFailure(String operation, Throwable cause) {
+        if (cause instanceof SearchException searchException) {
+            return searchException;
+        }
+        LOGGER.error("Unexpected error ({}) attempting to {} {} index {}: {}", cause.getClass().getSimpleName(),
+                     operation, this.name(), this.index, cause.getMessage());
+        return new SearchException(
+                String.format("Unexpected error attempting to %s %s index %s", operation, this.name(), this.index),
+                cause);
+    }
+
+    /**
+     * Converts the bulk operations into bulk results, marking any operations that were never attempted as failures
+     *
+     * @param allItemOps         Bulk operations
+     * @param notAttemptedReason Reason given for operations that were never attempted
+     * @param statistics         Statistics gathered while attempting the bulk operations
+     * @return Bulk results
+     */
+    private SearchIndexBulkResults<T> toBulkResults(
+            List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> allItemOps,
+            String notAttemptedReason, BulkStatistics statistics) {
         allItemOps.stream()
                   .filter(op -> isNull(op.getRight().getRight()))
                   .forEach(op -> op.getRight()
-                               .setRight(new SearchIndexBulkResult<>(false, op.getLeft(),
-                                                          "Index " + actionModifier + " was not attempted as preceding item(s) failed to index")));
+                                   .setRight(new SearchIndexBulkResult<>(false, op.getLeft(), notAttemptedReason)));
         return new SearchIndexBulkResults<>(
-                allItemOps.stream().map(Pair::getRight).map(Pair::getRight).collect(Collectors.toList()));
+                allItemOps.stream().map(Pair::getRight).map(Pair::getRight).collect(Collectors.toList()),
+                statistics.took, statistics.rejections);
+    }
+
+    /**
+     * Statistics gathered across all the attempts of a bulk operation
+     */
+    private static final class BulkStatistics {
+        private long took;
+        private int rejections;
+
+        /**
+         * Makes a bulk request recording its statistics
+         *
+         * @param request Bulk request
+         * @return Bulk response
+         * @throws IOException Thrown if the request fails
+         */
+        private BulkResponse record(BulkRequestCall request) throws IOException {
+            try {
+                return record(request.call());
+            } catch (ElasticsearchException e) {
+                record(e);
+                throw e;
+            }
+        }
+
+        private BulkResponse record(BulkResponse response) {
+            this.took += response.took();
+            this.rejections += (int) response.items().stream().filter(i -> i.status() == TOO_MANY_REQUESTS).count();
+            return response;
+        }
+
+        private void record(Throwable e) {
+            if (e instanceof ElasticsearchException elasticException && elasticException.status() == TOO_MANY_REQUESTS) {
+                this.rejections++;
+            }
+        }
+    }
+
+    /**
+     * A synchronous bulk request
+     */
+    @FunctionalInterface
+    private interface BulkRequestCall {
+        /**
+         * Makes the request
+         *
+         * @return Bulk response
+         * @throws IOException Thrown if the request fails
+         */
+        BulkResponse call() throws IOException;
     }
 
     private static <T> List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> determineRetryOps(
@@ -398,6 +712,7 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
         if (items.isEmpty()) {
             throw new SearchException("No bulk operations were generated");
         }
+        restoreInterruptedBulkIngestion();
 
         return items.stream()
                     .map(i -> {
@@ -417,6 +732,7 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
         if (StringUtils.isBlank(id)) {
             throw new SearchException("ID for document is null/empty which is not permitted");
         }
+        restoreInterruptedBulkIngestion();
 
         SearchUtils.retryIndexOperation(this, this.index, "Delete Document from", this.indexRetryConfig, () -> {
             try {
@@ -443,6 +759,7 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
         if (StringUtils.isBlank(id)) {
             throw new SearchException("Calculated ID for document is null/empty which is not permitted");
         }
+        restoreInterruptedBulkIngestion();
 
         SearchUtils.retryIndexOperation(this, this.index, "Delete Document Contents from", this.indexRetryConfig,
                                         () -> {
@@ -504,19 +821,18 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
     public SearchIndexBulkResults<T> bulkDeleteDocuments(Function<T, String> idProvider, Collection<T> items) {
         // Firstly build the bulk operations we want to send to ElasticSearch
         final List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> allItemOps =
-                prepareBulkOperations(idProvider, items, (item, id) -> new BulkOperation(
-                        DeleteOperation.of(d -> d.index(this.index)
-                                                 .id(id))));
+                prepareDeleteDocumentOperations(idProvider, items);
+        final BulkStatistics statistics = new BulkStatistics();
 
         SearchUtils.retryIndexOperation(this, this.index, "Bulk Delete Documents from", this.indexRetryConfig, () -> {
             final List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> retryOps =
                     determineRetryOps(allItemOps);
             try {
-                BulkResponse response = client.bulk(b -> b.index(this.index)
+                BulkResponse response = statistics.record(() -> client.bulk(b -> b.index(this.index)
                                                           .operations(retryOps.stream()
                                                                               .map(Pair::getRight)
                                                                               .map(Pair::getLeft)
-                                                                              .toList()));
+                                                                              .toList())));
                 checkBulkResponse(retryOps, response, i -> i.status() == HttpStatus.SC_NOT_FOUND, "Bulk Deleted",
                                   "Failed to bulk delete");
             } catch (IOException e) {
@@ -528,42 +844,49 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
         });
 
         // Update the index results for any operations that were unable to be tried
-        allItemOps.stream()
-                  .filter(op -> isNull(op.getRight().getRight()))
-                  .forEach(op -> op.getRight()
-                                   .setRight(new SearchIndexBulkResult<>(false, op.getLeft(),
-                                                                         "Deletion from index was not attempted as preceding item(s) failed to index")));
-        return new SearchIndexBulkResults<>(
-                allItemOps.stream().map(Pair::getRight).map(Pair::getRight).collect(Collectors.toList()));
+        return toBulkResults(allItemOps, "Deletion from index was not attempted as preceding item(s) failed to index",
+                             statistics);
     }
 
     @Override
-    public SearchIndexBulkResults<T> bulkDeleteContents(Function<T, String> idProvider, Collection<T> items) {
-        if (this.itemToDeleteScript == null) {
-            throw new SearchException(
-                    "This indexer implementation has not been configured to support deleting document contents.");
+    public CompletableFuture<SearchIndexBulkResults<T>> bulkDeleteDocumentsAsync(Function<T, String> idProvider,
+                                                                                 Collection<T> items) {
+        final List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> allItemOps;
+        try {
+            allItemOps = prepareDeleteDocumentOperations(idProvider, items);
+        } catch (SearchException e) {
+            return CompletableFuture.failedFuture(e);
         }
+        return bulkAsync(allItemOps, "Bulk Delete Documents from", i -> i.status() == HttpStatus.SC_NOT_FOUND,
+                         "Bulk Deleted", "Failed to bulk delete",
+                         "Deletion from index was not attempted as preceding item(s) failed to index");
+    }
+
+    private List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> prepareDeleteDocumentOperations(
+            Function<T, String> idProvider, Collection<T> items) {
+        return prepareBulkOperations(idProvider, items, (item, id) -> new BulkOperation(
+                DeleteOperation.of(d -> d.index(this.index)
+                                         .id(id))));
+    }
 
+    @Override
+    public SearchIndexBulkResults<T> bulkDeleteContents(Function<T, String> idProvider, Collection<T> items) {
         // Firstly build the bulk operations we want to send to ElasticSearch
         final List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> allItemOps =
-                prepareBulkOperations(idProvider, items, (item, id) -> new BulkOperation(
-                        UpdateOperation.of(u -> u.index(this.index)
-                                                 .id(id)
-                                                 .action(UpdateAction.of(
-                                                         a -> a.script(itemToDeleteScript.apply(item)))))));
-
+                prepareDeleteContentsOperations(idProvider, items);
+        final BulkStatistics statistics = new BulkStatistics();
 
         SearchUtils.retryIndexOperation(this, this.index, "Bulk Delete Document Contents from", this.indexRetryConfig,
                                         () -> {
                                             final List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>>
                                                     retryOps = determineRetryOps(allItemOps);
                                             try {
-                                                BulkResponse response =
-                                                        client.bulk(b -> b.index(this.index)
+                                                BulkResponse response = statistics.record(
+                                                        () -> client.bulk(b -> b.index(this.index)
                                                                           .operations(retryOps.stream()
                                                                                               .map(Pair::getRight)
                                                                                               .map(Pair::getLeft)
-                                                                                              .toList()));
+                                                                                              .toList())));
                                                 checkBulkResponse(retryOps, response,
                                                                   i -> i.status() == HttpStatus.SC_NOT_FOUND,
                                                                   "Bulk deleted content from",
@@ -578,13 +901,37 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
                                         });
 
         // Update the index results for any operations that were unable to be tried
-        allItemOps.stream()
-                  .filter(op -> isNull(op.getRight().getRight()))
-                  .forEach(op -> op.getRight()
-                                   .setRight(new SearchIndexBulkResult<>(false, op.getLeft(),
-                                                                         "Deletion of contents from index was not attempted as preceding item(s) failed to index")));
-        return new SearchIndexBulkResults<>(
-                allItemOps.stream().map(Pair::getRight).map(Pair::getRight).collect(Collectors.toList()));
+        return toBulkResults(allItemOps,
+                             "Deletion of contents from index was not attempted as preceding item(s) failed to index",
+                             statistics);
+    }
+
+    @Override
+    public CompletableFuture<SearchIndexBulkResults<T>> bulkDeleteContentsAsync(Function<T, String> idProvider,
+                                                                                Collection<T> items) {
+        final List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> allItemOps;
+        try {
+            allItemOps = prepareDeleteContentsOperations(idProvider, items);
+        } catch (SearchException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return bulkAsync(allItemOps, "Bulk Delete Document Contents from", i -> i.status() == HttpStatus.SC_NOT_FOUND,
+                         "Bulk deleted content from", "Failed to bulk delete content from",
+                         "Deletion of contents from index was not attempted as preceding item(s) failed to index");
+    }
+
+    private List<Pair<T, MutablePair<BulkOperation, SearchIndexBulkResult<T>>>> prepareDeleteContentsOperations(
+            Function<T, String> idProvider, Collection<T> items) {
+        if (this.itemToDeleteScript == null) {
+            throw new SearchException(
+                    "This indexer implementation has not been configured to support deleting document contents.");
+        }
+
+        return prepareBulkOperations(idProvider, items, (item, id) -> new BulkOperation(
+                UpdateOperation.of(u -> u.index(this.index)
+                                         .id(id)
+                                         .action(UpdateAction.of(
+                                                 a -> a.script(itemToDeleteScript.apply(item)))))));
     }
 
     @Override
@@ -600,15 +947,109 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
         }
 
         if (finished) {
-            ForcemergeResponse mergeResponse =
-                    SearchUtils.retryIndexOperation(this, this.index, "force merge", this.forceMergeRetryConfig,
-                                                    () -> this.client.indices()
-                                                                     .forcemerge(f -> f.index(this.index)
-                                                                                       .maxNumSegments(1L)));
-            if (!mergeResponse.shards().failures().isEmpty()) {
-                throw new SearchException(
-                        String.format("ElasticSearch reported shard failures while attempting to force merge index %s",
-                                      this.index));
+            // The force merge happens in the background so explicitly refresh to ensure everything indexed so far is
+            // visible to searches when we return
+            this.refreshIndex(this.index);
+            this.forceMergeIfDue();
+        }
+    }
+
+    /**
+     * Starts a force merge of the index, which runs as a background task in ElasticSearch rather than blocking the
+     * caller
+     * <p>
+     * Force merging is expensive so it is throttled, a force merge is not started if a previously started force merge
+     * is still running, or if one was started less than the minimum force merge interval ago.  If the status of the
+     * previous force merge cannot be determined it is assumed to have completed once the minimum force merge interval
+     * has elapsed since it was started, otherwise a transient failure to retrieve its status would prevent any further
+     * force merges.
+     * </p>
+     */
+    private synchronized void forceMergeIfDue() {
+        long now = System.currentTimeMillis();
+        if (this.forceMergeTask != null) {
+            Boolean complete = this.isTaskComplete(this.forceMergeTask);
+            if (complete == null && now - this.lastForceMergeAt >= this.minForceMergeInterval.toMillis()) {
+                LOGGER.warn(
+                        "Unable to determine status of force merge task {} for index {}, assuming it has completed as "
+                        + "it was started more than {} ago", this.forceMergeTask, this.index,
+                        this.minForceMergeInterval);
+                complete = true;
+            }
+            if (!Boolean.TRUE.equals(complete)) {
+                LOGGER.info("Not force merging index {} as previous force merge task {} is still running", this.index,
+                            this.forceMergeTask);
+                return;
+            }
+            this.forceMergeTask = null;
+        }
+        if (this.lastForceMergeAt > 0 && now - this.lastForceMergeAt < this.minForceMergeInterval.toMillis()) {
+            LOGGER.info("Not force merging index {} as it was last force merged less than {} ago", this.index,
+                        this.minForceMergeInterval);
+            return;
+        }
+        this.forceMergeTask = this.startForceMerge(this.index, 1L);
+        if (this.forceMergeTask != null) {
+            this.lastForceMergeAt = now;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first call switches the index to {@link ElasticIndexManager#BULK_INGESTION_SETTINGS} via
+     * {@link #applyBulkIngestionSettings(String)}, which durably records the original values of those settings so they
+     * can be restored once the final paired call to {@link #endBulkIngestion()} is made, even if this process
+     * terminates first.  Failing to change the settings is not considered fatal, indexing simply continues with the
+     * existing settings.
+     * </p>
+     */
+    @Override
+    public void beginBulkIngestion() {
+        synchronized (this.ingestionLock) {
+            if (this.bulkIngestions++ > 0) {
+                return;
+            }
+            // Applying bulk ingestion settings already takes care of any settings recorded by a previous bulk ingestion
+            this.checkedRecordedSettings = true;
+            this.originalSettings = this.applyBulkIngestionSettings(this.index);
+        }
+    }
+
+    @Override
+    public void endBulkIngestion() {
+        synchronized (this.ingestionLock) {
+            if (this.bulkIngestions == 0 || --this.bulkIngestions > 0) {
+                return;
+            }
+            if (this.originalSettings != null && this.restoreBulkIngestionSettings(this.index, this.originalSettings)) {
+                this.originalSettings = null;
+            }
+        }
+    }
+
+    /**
+     * Restores the index to any original settings recorded by a previous bulk ingestion that never completed, e.g.
+     * because the process performing it was killed, so that the index does not remain in bulk ingestion mode
+     * indefinitely
+     * <p>
+     * This is called the first time this indexer writes to the index, and only the first time, so it adds no overhead
+     * to subsequent writes.  If this indexer is itself in bulk ingestion mode at that point then nothing is restored,
+     * since any recorded settings are already being handled by {@link #beginBulkIngestion()}.  Failing to restore the
+     * settings is not considered fatal, indexing simply continues with the existing settings.
+     * </p>
+     */
+    void restoreInterruptedBulkIngestion() {
+        if (this.checkedRecordedSettings) {
+            return;
+        }
+        synchronized (this.ingestionLock) {
+            if (this.checkedRecordedSettings) {
+                return;
+            }
+            this.checkedRecordedSettings = true;
+            if (this.bulkIngestions == 0) {
+                this.restoreRecordedBulkIngestionSettings(this.index);
             }
         }
     }
@@ -657,6 +1098,8 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
         protected String password;
         /** Whether the indexer should be OpenSearch "compatible". */
         protected boolean makeOpenSearchCompatible;
+        /** The minimum interval between force merges. */
+        protected Duration minForceMergeInterval = DEFAULT_MIN_FORCE_MERGE_INTERVAL;
 
         /**
          * Sets the index upon which this indexer operates
@@ -826,6 +1269,18 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
             return this;
         }
 
+        /**
+         * Sets the minimum interval between force merges of the index, force merges are started when the indexer is
+         * flushed at the end of indexing
+         *
+         * @param interval Minimum interval
+         * @return Builder
+         */
+        public ElasticSearchIndexerBuilder<T, C, B> minForceMergeInterval(Duration interval) {
+            this.minForceMergeInterval = interval;
+            return this;
+        }
+
         @Override
         protected abstract B self();
 
@@ -852,7 +1307,7 @@ public class ElasticSearchIndexer<T> extends AbstractElasticClient implements Se
                                               this.maxRetryInterval, this.minIndexRetryInterval,
                                               this.maxIndexRetryInterval,
                                               this.username, this.password, this.elasticTlsCaCert,
-                                              this.makeOpenSearchCompatible);
+                                              this.makeOpenSearchCompatible, this.minForceMergeInterval);
         }
     }
 
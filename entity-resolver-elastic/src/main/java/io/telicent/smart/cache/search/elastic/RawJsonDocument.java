@@ -0,0 +1,330 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.elastic;
+
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpSerializable;
+import co.elastic.clients.json.jackson.JacksonJsonpGenerator;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import jakarta.json.stream.JsonGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A document whose JSON source is already serialized, allowing it to be indexed without first parsing it into, and then
+ * re-serializing it from, an object tree
+ * <p>
+ * When passed to an {@link ElasticSearchIndexer} the source bytes are written directly into the bulk request body.  Since
+ * the bulk API is newline delimited the source is first checked to be a single JSON object with no line breaks, a
+ * document that contains line breaks (e.g. pretty printed JSON), or trailing data after the root object, is instead
+ * parsed and re-serialized so that it cannot split into additional lines of the bulk request and break the whole
+ * request.  A malformed document is still written as-is, with any line breaks replaced by spaces, so that ElasticSearch
+ * rejects only that document as an indexing failure.
+ * </p>
+ */
+public final class RawJsonDocument implements JsonpSerializable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final byte[] source;
+    private final String id;
+    private Shape shape;
+
+    /**
+     * Creates a new raw JSON document
+     *
+     * @param source UTF-8 encoded JSON source of the document
+     * @param id     Document ID, may be {@code null} if the document does not have an ID
+     */
+    public RawJsonDocument(byte[] source, String id) {
+        this.source = Objects.requireNonNull(source, "Source cannot be null");
+        this.id = id;
+    }
+
+    /**
+     * Creates a raw JSON document extracting its ID from the given top level field of the source
+     * <p>
+     * This uses a streaming parser that stops as soon as the ID field has been read, so the rest of the document is not
+     * parsed.  If the ID field is not present, or its value is not a simple value, then the document has a
+     * {@code null} ID.
+     * </p>
+     *
+     * @param source  UTF-8 encoded JSON source of the document
+     * @param idField Top level field that holds the document ID
+     * @return Raw JSON document
+     * @throws IOException Thrown if the source is not a JSON object, or is malformed prior to the ID field
+     */
+    public static RawJsonDocument parse(byte[] source, String idField) throws IOException {
+        return new RawJsonDocument(source, extractId(source, idField));
+    }
+
+    private static String extractId(byte[] source, String idField) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(source)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Document source is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                boolean isId = idField.equals(parser.currentName());
+                JsonToken value = parser.nextToken();
+                if (value.isScalarValue()) {
+                    if (isId) {
+                        return value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Gets the document ID
+     *
+     * @return Document ID, may be {@code null}
+     */
+    public String id() {
+        return this.id;
+    }
+
+    /**
+     * Gets the UTF-8 encoded JSON source of the document
+     *
+     * @return Document source
+     */
+    public byte[] source() {
+        return this.source;
+    }
+
+    /**
+     * Gets the size of the document source in bytes
+     *
+     * @return Size in bytes
+     */
+    public int size() {
+        return this.source.length;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, JsonpMapper mapper) {
+        if (generator instanceof JacksonJsonpGenerator jackson) {
+            switch (shape()) {
+                case VERBATIM -> writeRaw(jackson, this.source);
+                case MALFORMED -> writeRaw(jackson, withoutLineBreaks(this.source));
+                default -> reserialize(generator, mapper);
+            }
+        } else {
+            // Not a generator we know how to write raw values to, so have to parse and copy the document
+            reserialize(generator, mapper);
+        }
+    }
+
+    private static void writeRaw(JacksonJsonpGenerator generator, byte[] source) {
+        try {
+            generator.jacksonGenerator().writeRawValue(new RawValue(source));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void reserialize(JsonGenerator generator, JsonpMapper mapper) {
+        JsonData.from(mapper.jsonProvider().createParser(new ByteArrayInputStream(this.source)), mapper)
+                .serialize(generator, mapper);
+    }
+
+    /**
+     * Determines, and caches, the shape of the document source which controls how it can be serialized
+     *
+     * @return Shape
+     */
+    Shape shape() {
+        Shape current = this.shape;
+        if (current == null) {
+            current = classify(this.source);
+            this.shape = current;
+        }
+        return current;
+    }
+
+    private static Shape classify(byte[] source) {
+        boolean lineBreaks = false;
+        for (byte b : source) {
+            if (b == '\n' || b == '\r') {
+                lineBreaks = true;
+                break;
+            }
+        }
+
+        // Tokenize, without building an object tree, to find where the root object ends
+        try (JsonParser parser = JSON_FACTORY.createParser(source)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Shape.MALFORMED;
+            }
+            parser.skipChildren();
+            if (parser.nextToken() != null) {
+                return Shape.REQUIRES_RESERIALIZATION;
+            }
+        } catch (IOException e) {
+            return Shape.MALFORMED;
+        }
+        return lineBreaks ? Shape.REQUIRES_RESERIALIZATION : Shape.VERBATIM;
+    }
+
+    private static byte[] withoutLineBreaks(byte[] source) {
+        byte[] copy = null;
+        for (int i = 0; i < source.length; i++) {
+            if (source[i] == '\n' || source[i] == '\r') {
+                if (copy == null) {
+                    copy = source.clone();
+                }
+                copy[i] = ' ';
+            }
+        }
+        return copy != null ? copy : source;
+    }
+
+    @Override
+    public String toString() {
+        return "RawJsonDocument(id=" + this.id + ", size=" + this.source.length + ")";
+    }
+
+    /**
+     * Presents UTF-8 encoded JSON as a raw value to a Jackson generator.  For byte oriented generators, which is what
+     * ElasticSearch uses for request bodies, the bytes are copied directly into the generators output without any
+     * decoding.
+     */
+    private static final class RawValue implements SerializableString {
+        private final byte[] utf8;
+        private String value;
+
+        private RawValue(byte[] utf8) {
+            this.utf8 = utf8;
+        }
+
+        @Override
+        public String getValue() {
+            if (this.value == null) {
+                this.value = new String(this.utf8, StandardCharsets.UTF_8);
+            }
+            return this.value;
+        }
+
+        @Override
+        public int charLength() {
+            return this.getValue().length();
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return this.utf8;
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (offset + this.utf8.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(this.utf8, 0, buffer, offset, this.utf8.length);
+            return this.utf8.length;
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            String chars = this.getValue();
+            if (offset + chars.length() > buffer.length) {
+                return -1;
+            }
+            chars.getChars(0, chars.length(), buffer, offset);
+            return chars.length();
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(this.utf8);
+            return this.utf8.length;
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            if (this.utf8.length > buffer.remaining()) {
+                return -1;
+            }
+            buffer.put(this.utf8);
+            return this.utf8.length;
+        }
+
+        // A raw value is never written as a quoted string
+
+        @Override
+        public char[] asQuotedChars() {
+            throw new UnsupportedOperationException("Raw JSON values cannot be quoted");
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            throw new UnsupportedOperationException("Raw JSON values cannot be quoted");
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            throw new UnsupportedOperationException("Raw JSON values cannot be quoted");
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            throw new UnsupportedOperationException("Raw JSON values cannot be quoted");
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) {
+            throw new UnsupportedOperationException("Raw JSON values cannot be quoted");
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) {
+            throw new UnsupportedOperationException("Raw JSON values cannot be quoted");
+        }
+    }
+
+    /**
+     * The shape of a document source, which determines how it is written into a bulk request
+     */
+    enum Shape {
+        /**
+         * A single JSON object with no line breaks, written verbatim
+         */
+        VERBATIM,
+        /**
+         * A JSON object containing line breaks, or followed by trailing data, that must be parsed and re-serialized
+         */
+        REQUIRES_RESERIALIZATION,
+        /**
+         * Malformed JSON, written verbatim with any line breaks replaced so ElasticSearch rejects only this document
+         */
+        MALFORMED
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.elastic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.telicent.smart.cache.search.model.QueryType;
+import io.telicent.smart.cache.search.options.SearchOptions;
+import io.telicent.smart.cache.search.options.SecurityOptions;
+import io.telicent.smart.cache.search.options.SortField;
+import io.telicent.smart.cache.search.options.TypeFilterOptions;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The state needed to resume a search from where a previous page of results ended, encoded as an opaque continuation
+ * token
+ * <p>
+ * Searches that page through results do so via an ElasticSearch point in time (PIT) and {@code search_after}, so
+ * resuming requires the PIT ID, the sort values of the last hit that was considered, and the offset of the next visible
+ * result.  A fingerprint of the query is also included so that a token is only ever used to resume the query that
+ * produced it.
+ * </p>
+ *
+ * @param fingerprint Query fingerprint, see {@link #fingerprint(QueryType, String, SearchOptions)}
+ * @param pitId       Point in time ID
+ * @param searchAfter Sort values of the last hit considered, empty if no hits have been considered yet
+ * @param nextOffset  1 based offset of the next result, once any results that the user cannot see are discounted
+ */
+record SearchContinuation(String fingerprint, String pitId, List<String> searchAfter, long nextOffset) {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String FINGERPRINT = "q";
+    private static final String PIT_ID = "pit";
+    private static final String SEARCH_AFTER = "after";
+    private static final String NEXT_OFFSET = "offset";
+
+    SearchContinuation {
+        Objects.requireNonNull(fingerprint, "Fingerprint cannot be null");
+        Objects.requireNonNull(pitId, "Point in time ID cannot be null");
+        searchAfter = List.copyOf(searchAfter);
+    }
+
+    /**
+     * Calculates the fingerprint for a query
+     * <p>
+     * The fingerprint covers the query and every search option that affects which results are found, the order they are
+     * found in, or which of them the user can see, since resuming with a continuation issued for a different
+     * combination of these would silently return the wrong page of results.  Options that only affect the content of
+     * results, or which page of them is returned, are not included.  The fingerprint is a SHA-256 hash of a canonical
+     * JSON representation of these, so tokens can't be made to match another query by accident.
+     * </p>
+     *
+     * @param type     Query type
+     * @param rawQuery Raw query
+     * @param options  Search options
+     * @return Fingerprint
+     */
+    static String fingerprint(QueryType type, String rawQuery, SearchOptions options) {
+        ObjectNode canonical = JSON.createObjectNode();
+        canonical.put("type", Objects.toString(type, null));
+        canonical.put("query", rawQuery);
+        if (options != null) {
+            TypeFilterOptions typeFilter = options.getTypeFilterOpts();
+            if (typeFilter != null && typeFilter.isEnabled()) {
+                canonical.putObject("typeFilter")
+                         .put("filter", typeFilter.getTypeFilter())
+                         .put("mode", Objects.toString(typeFilter.getTypeFilterMode(), null));
+            }
+            if (options.getSortOptions() != null) {
+                ArrayNode sort = canonical.putArray("sort");
+                for (SortField field : options.getSortOptions().getFields()) {
+                    sort.addObject()
+                        .put("field", field.getFieldName())
+                        .put("direction", Objects.toString(field.getDirection(), null));
+                }
+            }
+            if (options.getFieldOptions() != null) {
+                options.getFieldOptions().getFields().forEach(canonical.putArray("fields")::add);
+            }
+            SecurityOptions security = options.getSecurity();
+            if (security != null && security.isEnabled()) {
+                canonical.putObject("security")
+                         .put("user", security.getUsername())
+                         .put("attributes", Objects.toString(security.getAttributes(), null));
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(JSON.writeValueAsBytes(canonical)));
+        } catch (NoSuchAlgorithmException | IOException e) {
+            // Every JVM is required to support SHA-256, and we're serializing a tree we built ourselves
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encodes the continuation as an opaque token
+     *
+     * @return Continuation token
+     */
+    String encode() {
+        ObjectNode node = JSON.createObjectNode();
+        node.put(FINGERPRINT, this.fingerprint);
+        node.put(PIT_ID, this.pitId);
+        this.searchAfter.forEach(node.putArray(SEARCH_AFTER)::add);
+        node.put(NEXT_OFFSET, this.nextOffset);
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(JSON.writeValueAsBytes(node));
+        } catch (IOException e) {
+            // Can't happen as we're serializing a tree we built ourselves
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decodes a continuation token
+     *
+     * @param token Continuation token
+     * @return Continuation, or {@code null} if the token is blank or malformed
+     */
+    static SearchContinuation decode(String token) {
+        if (StringUtils.isBlank(token)) {
+            return null;
+        }
+        try {
+            JsonNode node = JSON.readTree(Base64.getUrlDecoder().decode(token));
+            if (node == null || !node.path(FINGERPRINT).isTextual() || !node.path(PIT_ID).isTextual() ||
+                !node.path(NEXT_OFFSET).canConvertToLong() || node.path(NEXT_OFFSET).asLong() < 1) {
+                return null;
+            }
+            List<String> searchAfter = new ArrayList<>();
+            node.path(SEARCH_AFTER).forEach(v -> searchAfter.add(v.asText()));
+            return new SearchContinuation(node.path(FINGERPRINT).asText(), node.path(PIT_ID).asText(), searchAfter,
+                                          node.path(NEXT_OFFSET).asLong());
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+}
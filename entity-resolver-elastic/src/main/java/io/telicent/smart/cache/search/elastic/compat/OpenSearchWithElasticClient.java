@@ -15,17 +15,34 @@
  */
 package io.telicent.smart.cache.search.elastic.compat;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.telicent.smart.cache.search.SearchException;
 import io.telicent.smart.cache.search.elastic.ElasticSearchClient;
+import io.telicent.smart.cache.search.security.LabelEvaluationCache;
 import io.telicent.smart.cache.search.security.RedactedDocumentsCache;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NStringEntity;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
  * A variant on the normal {@link ElasticSearchClient} that configures the ElasticSearch client to be "compatible", in
  * so far as possible, with OpenSearch servers
+ * <p>
+ * OpenSearch has its own API for opening and closing points in time, which requires OpenSearch 2.4 or later, so this
+ * client uses that rather than the ElasticSearch API.  Searches using a point in time are otherwise identical.
+ * </p>
  */
 public class OpenSearchWithElasticClient extends ElasticSearchClient {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenSearchWithElasticClient.class);
+
     /**
      * Creates a new OpenSearch backed search client that uses Elasticsearch Client APIs
      *
@@ -38,7 +55,49 @@ public class OpenSearchWithElasticClient extends ElasticSearchClient {
      */
     OpenSearchWithElasticClient(String host, int port, List<String> indices, String user, String password,
                                 RedactedDocumentsCache cache) {
-        super(host, port, indices, user, password, null, true, cache);
+        this(host, port, indices, user, password, cache, null);
+    }
+
+    /**
+     * Creates a new OpenSearch backed search client that uses Elasticsearch Client APIs
+     *
+     * @param host                 Host
+     * @param port                 Port
+     * @param indices              The indexes for searching.
+     * @param user                 User
+     * @param password             Password
+     * @param cache                Redacted documents cache
+     * @param labelEvaluationCache Label evaluation cache
+     */
+    OpenSearchWithElasticClient(String host, int port, List<String> indices, String user, String password,
+                                RedactedDocumentsCache cache, LabelEvaluationCache labelEvaluationCache) {
+        super(host, port, indices, user, password, null, true, cache, labelEvaluationCache);
+    }
+
+    @Override
+    protected String openPointInTime() throws IOException {
+        Request request =
+                new Request("POST", "/" + String.join(",", this.getIndices()) + "/_search/point_in_time");
+        request.addParameter("keep_alive", PIT_KEEP_ALIVE_DURATION);
+        Response response = this.lowLevelClient().performRequest(request);
+        String pitId = JSON.readTree(response.getEntity().getContent()).path("pit_id").asText(null);
+        if (StringUtils.isBlank(pitId)) {
+            throw new SearchException("OpenSearch did not return a point in time ID");
+        }
+        return pitId;
+    }
+
+    @Override
+    protected void closePointInTime(String pitId) {
+        try {
+            ObjectNode body = JSON.createObjectNode();
+            body.putArray("pit_id").add(pitId);
+            Request request = new Request("DELETE", "/_search/point_in_time");
+            request.setEntity(new NStringEntity(JSON.writeValueAsString(body), ContentType.APPLICATION_JSON));
+            this.lowLevelClient().performRequest(request);
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close point in time: {}", e.getMessage());
+        }
     }
 
     /**
@@ -62,7 +121,7 @@ public class OpenSearchWithElasticClient extends ElasticSearchClient {
         @Override
         public OpenSearchWithElasticClient build() {
             return new OpenSearchWithElasticClient(elasticHost, elasticPort, indices, username,
-                                                   password, redactedDocumentsCache);
+                                                   password, redactedDocumentsCache, labelEvaluationCache);
         }
     }
 }
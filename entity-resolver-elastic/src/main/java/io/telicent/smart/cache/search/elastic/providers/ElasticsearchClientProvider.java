@@ -21,6 +21,7 @@ import io.telicent.smart.cache.search.SearchException;
 import io.telicent.smart.cache.search.elastic.ElasticSearchClient;
 import io.telicent.smart.cache.search.elastic.compat.OpenSearchWithElasticClient;
 import io.telicent.smart.cache.search.providers.SearchClientProvider;
+import io.telicent.smart.cache.search.security.LabelEvaluationCache;
 import io.telicent.smart.cache.search.security.RedactedDocumentsCache;
 import io.telicent.smart.cache.search.security.RedactedDocumentsConfiguration;
 import org.apache.commons.lang3.StringUtils;
@@ -71,6 +72,40 @@ public class ElasticsearchClientProvider implements SearchClientProvider {
      */
     public static final String ENV_CANONICAL_CONFIG = "CANONICAL_CONFIG";
 
+    /**
+     * Environment variable indicating whether similarity requests should be resolved purely by querying, without
+     * temporarily indexing the input documents, unless matches within the input are requested
+     */
+    public static final String ENV_SIMILARITY_QUERY_ONLY = "SIMILARITY_QUERY_ONLY";
+
+    /**
+     * Environment variable specifying the maximum number of searches sent in a single multi-search request when
+     * resolving a batch of documents
+     */
+    public static final String ENV_SIMILARITY_MSEARCH_BATCH_SIZE = "SIMILARITY_MSEARCH_BATCH_SIZE";
+
+    /**
+     * Environment variable specifying the maximum number of asynchronous similarity resolutions in-flight at once
+     */
+    public static final String ENV_SIMILARITY_MAX_IN_FLIGHT = "SIMILARITY_MAX_IN_FLIGHT";
+
+    /**
+     * Environment variable specifying the interval, in seconds, at which cached entity resolution configuration is
+     * refreshed from the config indices, if not set, or zero, configuration is only refreshed when invalidated
+     */
+    public static final String ENV_CONFIG_REFRESH_SECONDS = "CONFIG_REFRESH_SECONDS";
+
+    /**
+     * Environment variable specifying the maximum number of similarity results held in the result cache, if not set, or
+     * zero, results are not cached
+     */
+    public static final String ENV_SIMILARITY_RESULT_CACHE_SIZE = "SIMILARITY_RESULT_CACHE_SIZE";
+
+    /**
+     * Environment variable specifying how long, in seconds, cached similarity results remain valid for
+     */
+    public static final String ENV_SIMILARITY_RESULT_CACHE_TTL_SECONDS = "SIMILARITY_RESULT_CACHE_TTL_SECONDS";
+
     @Override
     public Boolean supports() {
         return StringUtils.isNoneBlank(Configurator.get(ENV_ELASTIC_HOST), Configurator.get(ENV_ELASTIC_INDEX));
@@ -101,14 +136,18 @@ public class ElasticsearchClientProvider implements SearchClientProvider {
             if (cache != null) {
                 LOGGER.info("Using redacted documents cache {}", cache);
             }
+            LabelEvaluationCache evaluationCache = LabelEvaluationCache.tryCreateFromConfiguration();
+            if (evaluationCache != null) {
+                LOGGER.info("Using label evaluation cache {}", evaluationCache);
+            }
 
             if (openSearchCompatibility) {
                 LOGGER.info("Enabled OpenSearch compatibility mode");
                 return build(OpenSearchWithElasticClient.builder(), elasticUser, elasticPassword, elasticHost, port,
-                             elasticIndices, cache);
+                             elasticIndices, cache, evaluationCache);
             } else {
                 return build(ElasticSearchClient.builder(), elasticUser, elasticPassword, elasticHost, port,
-                             elasticIndices, cache);
+                             elasticIndices, cache, evaluationCache);
             }
         } catch (NumberFormatException e) {
             LOGGER.error("Bad ElasticSearch port configuration, expected a valid number but got {}", elasticPort);
@@ -119,13 +158,15 @@ public class ElasticsearchClientProvider implements SearchClientProvider {
 
     private static ElasticSearchClient build(ElasticSearchClient.ElasticSearchClientBuilder<?, ?> builder,
                                              String elasticUser, String elasticPassword, String elasticHost, int port,
-                                             List<String> elasticIndices, RedactedDocumentsCache cache) {
+                                             List<String> elasticIndices, RedactedDocumentsCache cache,
+                                             LabelEvaluationCache evaluationCache) {
         return builder.username(elasticUser)
                       .password(elasticPassword)
                       .host(elasticHost)
                       .port(port)
                       .indices(elasticIndices)
                       .redactedDocumentsCache(cache)
+                      .labelEvaluationCache(evaluationCache)
                       .build();
     }
 
@@ -158,6 +158,22 @@ public class DockerTestElasticSearchEntityResolverSimilarityMock extends MockEla
         wireMockServer.verify(1, postRequestedFor(urlEqualTo("/tests_similarity/_delete_by_query?refresh=true")));
     }
 
+    @Test(expectedExceptions = SearchException.class, expectedExceptionsMessageRegExp = "ElasticSearch reported error while attempting to Similarity multi-search.*")
+    public void test_failureWhenMultiSearching_viaElasticsearchException() {
+        // given
+        wireMockServer.stubFor(post(urlEqualTo("/_msearch?typed_keys=true"))
+                                       .atPriority(1)
+                                       .willReturn(
+                                               aResponse().withStatus(404)
+                                                          .withBody(
+                                                                  "{\"error\":{\"index_uuid\":\"_na_\",\"index\":\"missing\",\"resource.type\":\"index_or_alias\",\"resource.id\":\"missing\",\"type\":\"index_not_found_exception\",\"reason\":\"no such index [missing]\",\"root_cause\":[{\"index_uuid\":\"_na_\",\"index\":\"missing\",\"resource.type\":\"index_or_alias\",\"resource.id\":\"missing\",\"type\":\"index_not_found_exception\",\"reason\":\"no such index [missing]\"}]},\"status\":404}")
+                                       ));
+
+        // when
+        // then
+        client.findSimilar(List.of(document), 1, 0, false);
+    }
+
     @Test
     public void test_failureWhenDeletingTemporaryDocuments_doesntImpactResults() {
         // given
@@ -15,11 +15,16 @@
  */
 package io.telicent.smart.cache.entity.resolver.elastic;
 
+import co.elastic.clients.elasticsearch.core.search.Hit;
 import io.telicent.smart.cache.canonical.configuration.CanonicalTypeConfiguration;
+import io.telicent.smart.cache.entity.resolver.model.SimilarityResult;
+import io.telicent.smart.cache.search.model.Document;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.List;
+
 public class TestElasticSearchEntityResolver {
 
     public static final String HAPPY_STRING = """
@@ -88,13 +93,160 @@ public class TestElasticSearchEntityResolver {
         }
     }
 
+    @Test
+    public void test_requiresTemporaryIndexing_defaultMode() {
+        try (ElasticSearchEntityResolver resolver = new ElasticSearchEntityResolver("host", 0, "index")) {
+            // then
+            Assert.assertFalse(resolver.isQueryOnly());
+            Assert.assertTrue(resolver.requiresTemporaryIndexing(false));
+            Assert.assertTrue(resolver.requiresTemporaryIndexing(true));
+        } catch (Exception e) {
+            Assert.assertNull(e, "This should not occur");
+        }
+    }
+
+    @Test
+    public void test_requiresTemporaryIndexing_queryOnlyMode() {
+        try (ElasticSearchEntityResolver resolver = ElasticSearchEntityResolver.builder()
+                                                                               .host("host")
+                                                                               .port(9200)
+                                                                               .similarityIndex("index")
+                                                                               .queryOnly(true)
+                                                                               .build()) {
+            // then
+            Assert.assertTrue(resolver.isQueryOnly());
+            Assert.assertFalse(resolver.requiresTemporaryIndexing(false));
+            Assert.assertTrue(resolver.requiresTemporaryIndexing(true));
+        } catch (Exception e) {
+            Assert.assertNull(e, "This should not occur");
+        }
+    }
+
+    @Test
+    public void test_multiSearchBatchSize_configured() {
+        try (ElasticSearchEntityResolver resolver = ElasticSearchEntityResolver.builder()
+                                                                               .host("host")
+                                                                               .port(9200)
+                                                                               .similarityIndex("index")
+                                                                               .multiSearchBatchSize(25)
+                                                                               .build()) {
+            // then
+            Assert.assertEquals(resolver.getMultiSearchBatchSize(), 25);
+        } catch (Exception e) {
+            Assert.assertNull(e, "This should not occur");
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void test_multiSearchBatchSize_invalid() {
+        ElasticSearchEntityResolver.builder().host("host").port(9200).similarityIndex("index").multiSearchBatchSize(0)
+                                   .build();
+    }
+
     @Test
     public void test_elasticEntityResolverBuilder_toString() {
         // given
-        String expected = "ElasticSearchEntityResolver.ElasticEntityResolverBuilder(super=AbstractElasticClient.AbstractElasticClientBuilder(elasticHost=null, elasticPort=0, username=null, password=null, makeOpenSearchCompatible=false), similarityIndex=null)";
+        String expected = "ElasticSearchEntityResolver.ElasticEntityResolverBuilder(super=AbstractElasticClient.AbstractElasticClientBuilder(elasticHost=null, elasticPort=0, username=null, password=null, makeOpenSearchCompatible=false), similarityIndex=null, queryOnly=false, multiSearchBatchSize=100, maxInFlightRequests=64, resultCacheSize=0, resultCacheTtl=PT5M)";
         // when
         String actual = ElasticSearchEntityResolver.builder().toString();
         // then
         Assert.assertEquals(actual, expected);
     }
+
+    private static Document inputDocument() {
+        Document doc = new Document();
+        doc.setProperty("id", "input");
+        doc.setProperty("originalId", "original");
+        doc.setProperty("name", "Alice Smith");
+        return doc;
+    }
+
+    private static Hit<Document> hit(String id, double score) {
+        Document source = new Document();
+        source.setProperty("name", id);
+        return Hit.of(h -> h.id(id).index("canonical").score(score).source(source));
+    }
+
+    @Test
+    public void test_toSimilarityResult_selfIndexed_normalisesAgainstSelf() {
+        // given
+        List<Hit<Document>> hits = List.of(hit("input", 10.0), hit("strong", 8.0), hit("weak", 2.0));
+
+        // when
+        SimilarityResult result =
+                ElasticSearchEntityResolver.toSimilarityResult(inputDocument(), hits, 10, 0.5f, false, null);
+
+        // then
+        Assert.assertEquals(result.getIDSourceEntity(), "original");
+        Assert.assertEquals(result.getHits().length, 1);
+        Assert.assertEquals(result.getHits()[0].getId(), "strong");
+        Assert.assertEquals(result.getHits()[0].getScore(), 0.8, 0.0001);
+    }
+
+    @Test
+    public void test_toSimilarityResult_queryOnly_weakOnlyCandidateFilteredByMinScore() {
+        // given
+        List<Hit<Document>> hits = List.of(hit("weak", 0.3));
+
+        // when
+        SimilarityResult result =
+                ElasticSearchEntityResolver.toSimilarityResult(inputDocument(), hits, 10, 0.5f, false, 10.0);
+
+        // then
+        Assert.assertEquals(result.getHits().length, 0,
+                            "A weak best candidate must not be normalised into a perfect match");
+    }
+
+    @Test
+    public void test_toSimilarityResult_queryOnly_normalisesAgainstSelfScore() {
+        // given
+        List<Hit<Document>> hits = List.of(hit("strong", 7.5), hit("weak", 0.3));
+
+        // when
+        SimilarityResult result =
+                ElasticSearchEntityResolver.toSimilarityResult(inputDocument(), hits, 10, 0.5f, false, 10.0);
+
+        // then
+        Assert.assertEquals(result.getHits().length, 1);
+        Assert.assertEquals(result.getHits()[0].getId(), "strong");
+        Assert.assertEquals(result.getHits()[0].getScore(), 0.75, 0.0001);
+    }
+
+    @Test
+    public void test_toSimilarityResult_queryOnlyAndSelfIndexed_identicalScores() {
+        // given
+        List<Hit<Document>> indexed =
+                List.of(hit("input", 12.0), hit("strong", 9.0), hit("medium", 6.0), hit("weak", 1.5));
+        List<Hit<Document>> queried = List.of(hit("strong", 9.0), hit("medium", 6.0), hit("weak", 1.5));
+
+        // when
+        SimilarityResult selfIndexed =
+                ElasticSearchEntityResolver.toSimilarityResult(inputDocument(), indexed, 10, 0.4f, false, null);
+        SimilarityResult queryOnly =
+                ElasticSearchEntityResolver.toSimilarityResult(inputDocument(), queried, 10, 0.4f, false, 12.0);
+
+        // then
+        Assert.assertEquals(queryOnly.getIDSourceEntity(), selfIndexed.getIDSourceEntity());
+        Assert.assertEquals(queryOnly.getHits().length, 2);
+        Assert.assertEquals(queryOnly.getHits().length, selfIndexed.getHits().length);
+        for (int i = 0; i < queryOnly.getHits().length; i++) {
+            Assert.assertEquals(queryOnly.getHits()[i].getId(), selfIndexed.getHits()[i].getId());
+            Assert.assertEquals(queryOnly.getHits()[i].getScore(), selfIndexed.getHits()[i].getScore(), 0.0001);
+        }
+    }
+
+    @Test
+    public void test_toSimilarityResult_queryOnly_noSelfScore_returnsRawScores() {
+        // given
+        List<Hit<Document>> hits = List.of(hit("strong", 7.5), hit("weak", 0.3));
+
+        // when
+        SimilarityResult result =
+                ElasticSearchEntityResolver.toSimilarityResult(inputDocument(), hits, 10, 0.5f, false, 0.0);
+
+        // then
+        Assert.assertEquals(result.getHits().length, 1);
+        Assert.assertEquals(result.getHits()[0].getId(), "strong");
+        Assert.assertEquals(result.getHits()[0].getScore(), 7.5, 0.0001);
+    }
 }
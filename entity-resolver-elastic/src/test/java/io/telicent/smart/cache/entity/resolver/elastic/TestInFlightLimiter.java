@@ -0,0 +1,131 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class TestInFlightLimiter {
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void test_invalidLimit() {
+        new InFlightLimiter(0, Runnable::run);
+    }
+
+    @Test
+    public void test_submit_queuesBeyondLimit() throws ExecutionException, InterruptedException {
+        // given
+        InFlightLimiter limiter = new InFlightLimiter(2, Runnable::run);
+        List<CompletableFuture<Integer>> operations = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            CompletableFuture<Integer> operation = new CompletableFuture<>();
+            operations.add(operation);
+            results.add(limiter.submit(() -> operation));
+        }
+
+        // then
+        Assert.assertEquals(limiter.inFlight(), 2);
+        Assert.assertEquals(limiter.pending(), 3);
+
+        // and
+        for (int i = 0; i < 5; i++) {
+            operations.get(i).complete(i);
+            Assert.assertEquals(results.get(i).get(), Integer.valueOf(i));
+        }
+        Assert.assertEquals(limiter.inFlight(), 0);
+        Assert.assertEquals(limiter.pending(), 0);
+    }
+
+    @Test
+    public void test_submit_failuresReleasePermits() {
+        // given
+        InFlightLimiter limiter = new InFlightLimiter(1, Runnable::run);
+
+        // when
+        CompletableFuture<Object> failed = limiter.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<String> next = limiter.submit(() -> CompletableFuture.completedFuture("ok"));
+
+        // then
+        Assert.assertTrue(failed.isCompletedExceptionally());
+        Assert.assertEquals(next.join(), "ok");
+        Assert.assertEquals(limiter.inFlight(), 0);
+    }
+
+    @Test
+    public void test_submit_longQueueDrainsWithoutRecursion() throws InterruptedException {
+        // given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            InFlightLimiter limiter = new InFlightLimiter(1, executor);
+            CompletableFuture<Integer> blocker = new CompletableFuture<>();
+            List<CompletableFuture<Integer>> results = new ArrayList<>();
+            results.add(limiter.submit(() -> blocker));
+            for (int i = 1; i < 50_000; i++) {
+                int value = i;
+                results.add(limiter.submit(() -> CompletableFuture.completedFuture(value)));
+            }
+            Assert.assertEquals(limiter.pending(), 49_999);
+
+            // when
+            blocker.complete(0);
+
+            // then
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(results.get(i).join(), Integer.valueOf(i));
+            }
+            Assert.assertEquals(limiter.inFlight(), 0);
+            Assert.assertEquals(limiter.pending(), 0);
+        } finally {
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void test_submit_completesOnExecutor() throws InterruptedException {
+        // given
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "limiter-test"));
+        try {
+            InFlightLimiter limiter = new InFlightLimiter(1, executor);
+            CompletableFuture<String> operation = new CompletableFuture<>();
+            CompletableFuture<String> result = limiter.submit(() -> operation);
+            CompletableFuture<String> thread = result.thenApply(x -> Thread.currentThread().getName());
+
+            // when
+            operation.complete("done");
+
+            // then
+            Assert.assertEquals(thread.join(), "limiter-test");
+        } finally {
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+}
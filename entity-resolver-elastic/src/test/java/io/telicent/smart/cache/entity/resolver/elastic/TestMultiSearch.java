@@ -0,0 +1,255 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic;
+
+import co.elastic.clients.elasticsearch._types.ErrorCause;
+import co.elastic.clients.elasticsearch.core.MsearchRequest;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.RequestItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
+import io.telicent.smart.cache.search.SearchException;
+import io.telicent.smart.cache.search.model.Document;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+public class TestMultiSearch {
+
+    private static final String INDEX = "multi-search-test";
+    private static final int BATCH_SIZE = 2;
+
+    private ElasticSearchEntityResolver real;
+    private ElasticSearchEntityResolver resolver;
+    private List<Integer> chunkSizes;
+
+    @BeforeMethod
+    public void setup() {
+        // No requests are ever made to this address, every multi-search is answered by the test
+        this.real = ElasticSearchEntityResolver.builder()
+                                               .host("localhost")
+                                               .port(9200)
+                                               .similarityIndex(INDEX)
+                                               .multiSearchBatchSize(BATCH_SIZE)
+                                               .build();
+        this.resolver = spy(this.real);
+        this.chunkSizes = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterMethod
+    public void teardown() throws Exception {
+        this.real.close();
+    }
+
+    private static List<Document> inputs(String... names) {
+        List<Document> docs = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            Document doc = new Document();
+            doc.setProperty("id", "input-" + i);
+            doc.setProperty("name", names[i]);
+            docs.add(doc);
+        }
+        return docs;
+    }
+
+    /**
+     * Gets the name of the input document a search within a multi-search request was generated from
+     *
+     * @param search Search
+     * @return Name
+     */
+    private static String nameOf(RequestItem search) {
+        return search.body().query().bool().should().getFirst().match().query().stringValue();
+    }
+
+    private static MultiSearchResponseItem<Document> result(String name) {
+        Hit<Document> hit = Hit.of(h -> h.id(name).index(INDEX).score(1.0));
+        HitsMetadata<Document> hits = HitsMetadata.of(h -> h.hits(List.of(hit)));
+        MultiSearchItem<Document> item = new MultiSearchItem.Builder<Document>()
+                .took(1)
+                .timedOut(false)
+                .shards(s -> s.total(1).successful(1).failed(0))
+                .hits(hits)
+                .build();
+        return new MultiSearchResponseItem.Builder<Document>().result(item).build();
+    }
+
+    private static MultiSearchResponseItem<Document> failure() {
+        return new MultiSearchResponseItem.Builder<Document>()
+                .failure(ErrorCause.of(e -> e.type("search_phase_execution_exception").reason("All shards failed")))
+                .build();
+    }
+
+    /**
+     * Builds a multi-search response with a single hit, whose ID is the name of the input document, for each search in
+     * the request, failing the search for any input document with the given name
+     *
+     * @param request    Multi-search request
+     * @param failedName Name of input documents whose search fails, {@code null} if none fail
+     * @return Multi-search response
+     */
+    private MsearchResponse<Document> respond(MsearchRequest request, String failedName) {
+        this.chunkSizes.add(request.searches().size());
+        List<MultiSearchResponseItem<Document>> items = new ArrayList<>();
+        for (RequestItem search : request.searches()) {
+            String name = nameOf(search);
+            items.add(name.equals(failedName) ? failure() : result(name));
+        }
+        return new MsearchResponse.Builder<Document>().took(1).responses(items).build();
+    }
+
+    private static List<String> hitIds(List<List<Hit<Document>>> results) {
+        return results.stream().map(hits -> hits.getFirst().id()).toList();
+    }
+
+    @Test
+    public void givenMoreDocumentsThanBatchSize_whenMultiSearching_thenChunkedAndResultsInInputOrder()
+            throws Exception {
+        // Given
+        doAnswer(invocation -> respond(invocation.getArgument(0), null)).when(this.resolver)
+                                                                       .sendMultiSearch(any());
+
+        // When
+        List<List<Hit<Document>>> results =
+                this.resolver.multiSearch(inputs("Alice", "Bob", "Carol", "Dave", "Eve"), null, null);
+
+        // Then
+        Assert.assertEquals(this.chunkSizes, List.of(2, 2, 1));
+        Assert.assertEquals(hitIds(results), List.of("Alice", "Bob", "Carol", "Dave", "Eve"));
+        verify(this.resolver, times(3)).sendMultiSearch(any());
+    }
+
+    @Test
+    public void givenBatchSizeExactMultiple_whenMultiSearching_thenNoEmptyChunkSent() throws Exception {
+        // Given
+        doAnswer(invocation -> respond(invocation.getArgument(0), null)).when(this.resolver)
+                                                                       .sendMultiSearch(any());
+
+        // When
+        List<List<Hit<Document>>> results =
+                this.resolver.multiSearch(inputs("Alice", "Bob", "Carol", "Dave"), null, null);
+
+        // Then
+        Assert.assertEquals(this.chunkSizes, List.of(2, 2));
+        Assert.assertEquals(hitIds(results), List.of("Alice", "Bob", "Carol", "Dave"));
+    }
+
+    @Test
+    public void givenDuplicateDocuments_whenMultiSearching_thenEachDuplicateGetsItsOwnResult() throws Exception {
+        // Given
+        doAnswer(invocation -> respond(invocation.getArgument(0), null)).when(this.resolver)
+                                                                       .sendMultiSearch(any());
+
+        // When
+        List<List<Hit<Document>>> results =
+                this.resolver.multiSearch(inputs("Alice", "Alice", "Bob", "Alice", "Alice"), null, null);
+
+        // Then
+        Assert.assertEquals(this.chunkSizes, List.of(2, 2, 1));
+        Assert.assertEquals(hitIds(results), List.of("Alice", "Alice", "Bob", "Alice", "Alice"));
+    }
+
+    @Test
+    public void givenFailedSearchInLaterChunk_whenMultiSearching_thenFailureReportedForThatDocument()
+            throws Exception {
+        // Given
+        doAnswer(invocation -> respond(invocation.getArgument(0), "Dave")).when(this.resolver)
+                                                                         .sendMultiSearch(any());
+
+        // When
+        try {
+            this.resolver.multiSearch(inputs("Alice", "Bob", "Carol", "Dave", "Eve"), null, null);
+            Assert.fail("Expected the failed search to be reported");
+        } catch (SearchException e) {
+            // Then
+            Assert.assertTrue(e.getMessage().contains("Dave"), e.getMessage());
+            Assert.assertFalse(e.getMessage().contains("Carol"), e.getMessage());
+        }
+        Assert.assertEquals(this.chunkSizes, List.of(2, 2));
+    }
+
+    @Test
+    public void givenResponseWithMissingItems_whenMultiSearching_thenFails() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            MsearchResponse<Document> response = respond(invocation.getArgument(0), null);
+            return new MsearchResponse.Builder<Document>().took(1)
+                                                          .responses(response.responses().subList(0, 1))
+                                                          .build();
+        }).when(this.resolver).sendMultiSearch(any());
+
+        // When and Then
+        Assert.assertThrows(SearchException.class,
+                            () -> this.resolver.multiSearch(inputs("Alice", "Bob"), null, null));
+    }
+
+    @Test
+    public void givenLaterChunkCompletesFirst_whenMultiSearchingAsync_thenResultsInInputOrder() throws Exception {
+        // Given
+        List<MsearchRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<MsearchResponse<Document>>> responses =
+                List.of(new CompletableFuture<>(), new CompletableFuture<>(), new CompletableFuture<>());
+        doAnswer(invocation -> {
+            requests.add(invocation.getArgument(0));
+            return responses.get(requests.size() - 1);
+        }).when(this.resolver).sendMultiSearchAsync(any());
+        CompletableFuture<List<List<Hit<Document>>>> future =
+                this.resolver.multiSearchAsync(inputs("Alice", "Bob", "Alice", "Carol", "Dave"), null, null);
+        Assert.assertEquals(requests.size(), 3);
+
+        // When
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            responses.get(i).complete(respond(requests.get(i), null));
+        }
+
+        // Then
+        Assert.assertEquals(hitIds(future.get(5, TimeUnit.SECONDS)), List.of("Alice", "Bob", "Alice", "Carol", "Dave"));
+        Assert.assertEquals(this.chunkSizes, List.of(1, 2, 2));
+    }
+
+    @Test
+    public void givenFailedSearch_whenMultiSearchingAsync_thenFailureReportedForThatDocument() throws Exception {
+        // Given
+        doAnswer(invocation -> CompletableFuture.completedFuture(respond(invocation.getArgument(0), "Carol")))
+                .when(this.resolver)
+                .sendMultiSearchAsync(any());
+
+        // When
+        CompletableFuture<List<List<Hit<Document>>>> future =
+                this.resolver.multiSearchAsync(inputs("Alice", "Bob", "Carol", "Dave", "Eve"), null, null);
+
+        // Then
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("Expected the failed search to be reported");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SearchException);
+            Assert.assertTrue(e.getCause().getMessage().contains("Carol"), e.getCause().getMessage());
+        }
+    }
+}
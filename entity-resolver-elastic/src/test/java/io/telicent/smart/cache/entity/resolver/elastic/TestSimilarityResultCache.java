@@ -0,0 +1,212 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic;
+
+import io.telicent.smart.cache.entity.resolver.elastic.index.ConfigurationCache;
+import io.telicent.smart.cache.entity.resolver.model.SimilarityResult;
+import io.telicent.smart.cache.search.model.Document;
+import io.telicent.smart.cache.search.model.Hit;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestSimilarityResultCache {
+
+    private static final String TYPE = "models";
+    private static final String INDEX = "similarity";
+
+    private static SimilarityResultCache createCache(ConfigurationCache configuration) {
+        return new SimilarityResultCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), index -> "id-" + index,
+                                         configuration);
+    }
+
+    private static Document document(String id, String name, String dob) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("id", id);
+        properties.put("name", name);
+        properties.put("dob", dob);
+        return new Document(properties);
+    }
+
+    private static SimilarityResult result(String id) {
+        return new SimilarityResult(id, new Hit[]{new Hit("match", 0.9, new Document())});
+    }
+
+    @Test
+    public void test_keyFor_ignoresIdentifiersAndPropertyOrder() {
+        // given
+        SimilarityResultCache cache = createCache(new ConfigurationCache(List.of(TYPE)));
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("dob", "1970-01-01");
+        reordered.put("name", "Jon");
+        reordered.put("id", "b");
+        reordered.put("originalId", "b");
+
+        // when
+        SimilarityResultCache.Key a = cache.keyFor(document("a", "Jon", "1970-01-01"), "v1", 10, 0.5f, INDEX);
+        SimilarityResultCache.Key b = cache.keyFor(new Document(reordered), "v1", 10, 0.5f, INDEX);
+
+        // then
+        Assert.assertNotNull(a);
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.indexId(), "id-" + INDEX);
+    }
+
+    @Test
+    public void test_keyFor_differentInputs() {
+        // given
+        SimilarityResultCache cache = createCache(new ConfigurationCache(List.of(TYPE)));
+        Document doc = document("a", "Jon", "1970-01-01");
+
+        // when
+        SimilarityResultCache.Key key = cache.keyFor(doc, "v1", 10, 0.5f, INDEX);
+
+        // then
+        Assert.assertNotEquals(cache.keyFor(document("a", "Jonathan", "1970-01-01"), "v1", 10, 0.5f, INDEX), key);
+        Assert.assertNotEquals(cache.keyFor(doc, "v2:model", 10, 0.5f, INDEX), key);
+        Assert.assertNotEquals(cache.keyFor(doc, "v1", 5, 0.5f, INDEX), key);
+        Assert.assertNotEquals(cache.keyFor(doc, "v1", 10, 0.7f, INDEX), key);
+        Assert.assertNotEquals(cache.keyFor(doc, "v1", 10, 0.5f, "other"), key);
+    }
+
+    @Test
+    public void test_keyFor_missingIndex() {
+        // given
+        SimilarityResultCache cache =
+                new SimilarityResultCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), index -> null,
+                                          new ConfigurationCache(List.of(TYPE)));
+
+        // when
+        SimilarityResultCache.Key key = cache.keyFor(document("a", "Jon", "1970-01-01"), "v1", 10, 0.5f, INDEX);
+
+        // then
+        Assert.assertNull(key);
+        Assert.assertNull(cache.get(key, document("a", "Jon", "1970-01-01")));
+    }
+
+    @Test
+    public void test_get_put() {
+        // given
+        SimilarityResultCache cache = createCache(new ConfigurationCache(List.of(TYPE)));
+        Document doc = document("a", "Jon", "1970-01-01");
+        SimilarityResultCache.Key key = cache.keyFor(doc, "v1", 10, 0.5f, INDEX);
+        Assert.assertNull(cache.get(key, doc));
+
+        // when
+        cache.put(key, result("a"));
+        Document other = document("b", "Jon", "1970-01-01");
+        SimilarityResult cached = cache.get(cache.keyFor(other, "v1", 10, 0.5f, INDEX), other);
+
+        // then
+        Assert.assertNotNull(cached);
+        Assert.assertEquals(cached.getIDSourceEntity(), "b");
+        Assert.assertEquals(cached.getHits().length, 1);
+        Assert.assertEquals(cached.getHits()[0].getId(), "match");
+        Assert.assertEquals(cache.hitCount(), 1L);
+        Assert.assertEquals(cache.missCount(), 1L);
+    }
+
+    @Test
+    public void test_get_uncacheableCountsAsMiss() {
+        // given
+        SimilarityResultCache cache = createCache(new ConfigurationCache(List.of(TYPE)));
+
+        // when
+        SimilarityResult cached = cache.get(null, document("a", "Jon", "1970-01-01"));
+
+        // then
+        Assert.assertNull(cached);
+        Assert.assertEquals(cache.hitCount(), 0L);
+        Assert.assertEquals(cache.missCount(), 1L);
+    }
+
+    @Test
+    public void test_get_put_isolatedFromModifications() {
+        // given
+        SimilarityResultCache cache = createCache(new ConfigurationCache(List.of(TYPE)));
+        Document doc = document("a", "Jon", "1970-01-01");
+        SimilarityResultCache.Key key = cache.keyFor(doc, "v1", 10, 0.5f, INDEX);
+        SimilarityResult original =
+                new SimilarityResult("a", new Hit[]{new Hit("match", 0.9, document("match", "Jon", "1970-01-01"))});
+        cache.put(key, original);
+
+        // when
+        original.getHits()[0].getDocument().setProperty("name", "Modified");
+        SimilarityResult first = cache.get(key, doc);
+        first.getHits()[0].getDocument().setProperty("name", "Redacted");
+        first.getHits()[0].setScore(0.1);
+        SimilarityResult second = cache.get(key, doc);
+
+        // then
+        Assert.assertNotSame(second.getHits()[0], first.getHits()[0]);
+        Assert.assertEquals(second.getHits()[0].getDocument().getProperty("name"), "Jon");
+        Assert.assertEquals(second.getHits()[0].getScore(), 0.9);
+    }
+
+    @Test
+    public void test_configurationChange_invalidates() {
+        // given
+        ConfigurationCache configuration = new ConfigurationCache(List.of(TYPE));
+        SimilarityResultCache cache = createCache(configuration);
+        Document doc = document("a", "Jon", "1970-01-01");
+        SimilarityResultCache.Key before = cache.keyFor(doc, "v1", 10, 0.5f, INDEX);
+        cache.put(before, result("a"));
+        Assert.assertEquals(cache.size(), 1L);
+
+        // when
+        configuration.put(TYPE, "model", "value", true);
+
+        // then
+        Assert.assertEquals(cache.size(), 0L);
+        Assert.assertNotEquals(cache.keyFor(doc, "v1", 10, 0.5f, INDEX), before);
+    }
+
+    @Test
+    public void test_close_removesListener() {
+        // given
+        ConfigurationCache configuration = new ConfigurationCache(List.of(TYPE));
+        AtomicInteger lookups = new AtomicInteger();
+        SimilarityResultCache cache =
+                new SimilarityResultCache(100, Duration.ofMinutes(1), Duration.ofMinutes(1), index -> {
+                    lookups.incrementAndGet();
+                    return "id-" + index;
+                }, configuration);
+        Document doc = document("a", "Jon", "1970-01-01");
+        cache.keyFor(doc, "v1", 10, 0.5f, INDEX);
+        cache.keyFor(doc, "v1", 10, 0.5f, INDEX);
+        Assert.assertEquals(lookups.get(), 1);
+
+        // when
+        cache.close();
+        cache.put(cache.keyFor(doc, "v1", 10, 0.5f, INDEX), result("a"));
+        configuration.put(TYPE, "model", "value", true);
+
+        // then
+        Assert.assertEquals(lookups.get(), 2);
+        Assert.assertEquals(cache.size(), 1L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void test_create_badSize() {
+        new SimilarityResultCache(0, Duration.ofMinutes(1), Duration.ofMinutes(1), index -> index,
+                                  new ConfigurationCache(List.of(TYPE)));
+    }
+}
@@ -0,0 +1,279 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic.index;
+
+import io.telicent.smart.cache.canonical.configuration.Model;
+import io.telicent.smart.cache.canonical.configuration.Relation;
+import io.telicent.smart.cache.canonical.configuration.Scores;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestConfigurationCache {
+
+    private static final String TYPE = "models";
+
+    @Test
+    public void test_put_get() {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        // when
+        cache.put(TYPE, "a", "value", true);
+        // then
+        Assert.assertEquals(cache.get(TYPE, "a"), "value");
+        Assert.assertNull(cache.get(TYPE, "b"));
+        Assert.assertNull(cache.get("unknown", "a"));
+        Assert.assertTrue(cache.getVersion(TYPE, "a") > 0);
+        Assert.assertEquals(cache.getVersion(TYPE, "b"), -1L);
+    }
+
+    @Test
+    public void test_put_changesVersion() {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        cache.put(TYPE, "a", "value", true);
+        long before = cache.getVersion(TYPE, "a");
+        // when
+        cache.put(TYPE, "a", "updated", true);
+        // then
+        Assert.assertTrue(cache.getVersion(TYPE, "a") > before);
+    }
+
+    @Test
+    public void test_getAll_isSnapshot() {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        cache.put(TYPE, "a", "value", true);
+        Map<String, Object> snapshot = cache.getAll(TYPE);
+        // when
+        cache.put(TYPE, "b", "other", true);
+        // then
+        Assert.assertEquals(snapshot.size(), 1);
+        Assert.assertEquals(cache.getAll(TYPE).size(), 2);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void test_getAll_isUnmodifiable() {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        // when
+        // then
+        cache.getAll(TYPE).put("a", "value");
+    }
+
+    @Test
+    public void test_remove() {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        cache.put(TYPE, "a", "value", true);
+        // when
+        cache.remove(TYPE, "a");
+        // then
+        Assert.assertNull(cache.getEntry(TYPE, "a"));
+    }
+
+    @Test
+    public void test_loadIfNecessary_loadsOnce() {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        AtomicInteger loads = new AtomicInteger();
+        // when
+        cache.loadIfNecessary(type -> {
+            loads.incrementAndGet();
+            return Map.of("a", "value");
+        });
+        cache.loadIfNecessary(type -> {
+            loads.incrementAndGet();
+            return Map.of("a", "value");
+        });
+        // then
+        Assert.assertTrue(cache.isLoaded());
+        Assert.assertEquals(loads.get(), 1);
+        Assert.assertEquals(cache.get(TYPE, "a"), "value");
+    }
+
+    @Test
+    public void test_refresh_preservesVersionOfUnchangedEntries() {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        Map<String, Object> store = new HashMap<>(Map.of("a", "value", "b", "other"));
+        cache.refresh(type -> store);
+        long versionA = cache.getVersion(TYPE, "a");
+        long versionB = cache.getVersion(TYPE, "b");
+        // when
+        store.put("b", "changed");
+        cache.refresh(type -> store);
+        // then
+        Assert.assertEquals(cache.getVersion(TYPE, "a"), versionA);
+        Assert.assertTrue(cache.getVersion(TYPE, "b") > versionB);
+        Assert.assertEquals(cache.get(TYPE, "b"), "changed");
+    }
+
+    /**
+     * Loads freshly parsed configuration objects on every call, as loading from the backing store does
+     */
+    private static Map<String, Object> loadConfiguration(String type) {
+        return switch (type) {
+            case Model.TYPE -> Map.of("model", Model.loadFromString(
+                    "{\"id\":\"model\",\"index\":\"canonical\",\"relations\":[\"relation\"],\"scores\":\"scores\"}"));
+            case Relation.TYPE -> Map.of("relation", Relation.loadFromString(
+                    "{\"id\":\"relation\",\"weight\":5,\"fields\":[\"name\",\"dob\"]}"));
+            case Scores.TYPE -> Map.of("scores", Scores.loadFromString(
+                    "{\"id\":\"scores\",\"fieldScores\":{\"name\":0.8,\"dob\":0.6}}"));
+            default -> Map.of();
+        };
+    }
+
+    @Test
+    public void test_refresh_identicalStoreLeavesVersionUnchanged() {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(Model.TYPE, Relation.TYPE, Scores.TYPE));
+        cache.refresh(TestConfigurationCache::loadConfiguration);
+        long version = cache.getVersion();
+        AtomicInteger changes = new AtomicInteger();
+        cache.addListener(changes::incrementAndGet);
+        // when
+        cache.refresh(TestConfigurationCache::loadConfiguration);
+        // then
+        Assert.assertEquals(cache.getVersion(), version);
+        Assert.assertEquals(changes.get(), 0);
+    }
+
+    @Test
+    public void test_refresh_dropsDeletedStoreEntriesOnly() {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        cache.put(TYPE, "local", "value", false);
+        cache.put(TYPE, "stored", "value", true);
+        // when
+        cache.refresh(type -> Map.of());
+        // then
+        Assert.assertEquals(cache.get(TYPE, "local"), "value");
+        Assert.assertNull(cache.get(TYPE, "stored"));
+    }
+
+    @Test
+    public void test_refresh_failureRetainsExistingEntries() {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        cache.put(TYPE, "a", "value", true);
+        // when
+        try {
+            cache.refresh(type -> {
+                throw new RuntimeException("Store unavailable");
+            });
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        // then
+        Assert.assertEquals(cache.get(TYPE, "a"), "value");
+    }
+
+    @Test
+    public void test_clear() {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        cache.loadIfNecessary(type -> Map.of("a", "value"));
+        // when
+        cache.clear();
+        // then
+        Assert.assertTrue(cache.isLoaded());
+        Assert.assertTrue(cache.getAll(TYPE).isEmpty());
+    }
+
+    @Test
+    public void test_scheduleRefresh() throws InterruptedException {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        CountDownLatch latch = new CountDownLatch(2);
+        // when
+        cache.scheduleRefresh(type -> {
+            latch.countDown();
+            return Map.of("a", "value");
+        }, Duration.ofMillis(10));
+        try {
+            // then
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(cache.get(TYPE, "a"), "value");
+        } finally {
+            cache.cancelScheduledRefresh();
+        }
+    }
+
+    @Test
+    public void test_scheduleRefresh_continuesUntilAllRegistrationsClosed() throws InterruptedException {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        CountDownLatch second = new CountDownLatch(2);
+        ConfigurationCache.ScheduledRefresh firstRefresh =
+                cache.scheduleRefresh(type -> Map.of(), Duration.ofMillis(10));
+        ConfigurationCache.ScheduledRefresh secondRefresh = cache.scheduleRefresh(type -> {
+            second.countDown();
+            return Map.of("a", "value");
+        }, Duration.ofMillis(10));
+        try {
+            // when
+            firstRefresh.close();
+
+            // then
+            Assert.assertTrue(cache.isRefreshScheduled());
+            Assert.assertTrue(second.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(cache.get(TYPE, "a"), "value");
+
+            // and
+            secondRefresh.close();
+            Assert.assertFalse(cache.isRefreshScheduled());
+        } finally {
+            cache.cancelScheduledRefresh();
+        }
+    }
+
+    @Test
+    public void test_scheduleRefresh_closingActiveRegistrationSwitchesToRemainingLoader() throws InterruptedException {
+        // given
+        ConfigurationCache cache = new ConfigurationCache(List.of(TYPE));
+        CountDownLatch first = new CountDownLatch(2);
+        ConfigurationCache.ScheduledRefresh firstRefresh = cache.scheduleRefresh(type -> {
+            first.countDown();
+            return Map.of("a", "first");
+        }, Duration.ofMillis(10));
+        ConfigurationCache.ScheduledRefresh secondRefresh =
+                cache.scheduleRefresh(type -> Map.of("a", "second"), Duration.ofMillis(10));
+        try {
+            // when
+            secondRefresh.close();
+            secondRefresh.close();
+
+            // then
+            Assert.assertTrue(cache.isRefreshScheduled());
+            Assert.assertTrue(first.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(cache.get(TYPE, "a"), "first");
+
+            // and
+            firstRefresh.close();
+            Assert.assertFalse(cache.isRefreshScheduled());
+        } finally {
+            cache.cancelScheduledRefresh();
+        }
+    }
+}
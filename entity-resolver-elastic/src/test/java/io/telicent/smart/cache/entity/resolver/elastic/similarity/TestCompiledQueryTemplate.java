@@ -0,0 +1,177 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic.similarity;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import io.telicent.smart.cache.canonical.configuration.CanonicalTypeConfiguration;
+import io.telicent.smart.cache.canonical.configuration.CanonicalTypeConfigurationMap;
+import io.telicent.smart.cache.entity.resolver.elastic.index.CachedIndexMapper;
+import io.telicent.smart.cache.search.model.Document;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class TestCompiledQueryTemplate {
+
+    private static final String HAPPY_PATH = "src/test/resources/dynamic_config_sample.yml";
+    private static final CanonicalTypeConfigurationMap CONFIGS =
+            CanonicalTypeConfigurationMap.loadFromConfigFile(HAPPY_PATH);
+
+    @DataProvider(name = "fields")
+    public Object[][] fields() {
+        return CONFIGS.values()
+                      .stream()
+                      .flatMap(config -> config.fields.stream()
+                                                      .filter(field -> field.required && !field.exactMatch)
+                                                      .map(field -> new Object[] { config, field }))
+                      .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "fields")
+    public void test_generateSubQueries_matchesVisitor(CanonicalTypeConfiguration config,
+                                                       CanonicalTypeConfiguration.SimilarityField field) {
+        // given
+        Document doc = new Document();
+        doc.setProperty(field.name, "1");
+        CompiledQueryTemplate template = CompiledQueryTemplate.compile(config);
+        // when
+        List<Query> queries = template.generateSubQueries(doc);
+        // then
+        Assert.assertEquals(queries.size(), 1);
+        Assert.assertEquals(queries.get(0).toString(), expectedQuery(field, "1").toString());
+    }
+
+    @Test
+    public void test_generateSubQueries_exactMatch() {
+        // given
+        CanonicalTypeConfiguration config = CanonicalTypeConfiguration.loadFromString("""
+                type: test
+                index: test
+                fields:
+                  - name: name
+                    type: text
+                    required: true
+                    exactMatch: true
+                    boost: 2.0
+                """);
+        Document doc = new Document();
+        doc.setProperty("Name", "Smith");
+        // when
+        List<Query> queries = CompiledQueryTemplate.compile(config).generateSubQueries(doc);
+        // then
+        Assert.assertEquals(queries.size(), 1);
+        Assert.assertTrue(queries.get(0).isTerm());
+        Assert.assertEquals(queries.get(0).term().queryName(), "Name");
+        Assert.assertEquals(queries.get(0).term().field(), "name");
+        Assert.assertEquals(queries.get(0).term().boost(), 2.0F);
+    }
+
+    @Test
+    public void test_generateSubQueries_caseInsensitive() {
+        // given
+        CanonicalTypeConfiguration config = CONFIGS.get("TestAllTypesMaximum");
+        Document doc = new Document();
+        doc.setProperty("TEXT-FIELD", "Smith");
+        // when
+        List<Query> queries = CompiledQueryTemplate.compile(config).generateSubQueries(doc);
+        // then
+        Assert.assertEquals(queries.size(), 1);
+        Assert.assertEquals(queries.get(0).match().field(), "text-field");
+    }
+
+    @Test
+    public void test_generateSubQueries_ignoredAndUnknownFields() {
+        // given
+        CanonicalTypeConfiguration config = CONFIGS.get("TestAllTypesMaximum");
+        Document doc = new Document();
+        doc.setProperty("id", "1");
+        doc.setProperty("originalId", "1");
+        doc.setProperty(CanonicalTypeConfiguration.TYPE, "TestAllTypesMaximum");
+        doc.setProperty("unknown", "1");
+        // when
+        List<Query> queries = CompiledQueryTemplate.compile(config).generateSubQueries(doc);
+        // then
+        Assert.assertTrue(queries.isEmpty());
+    }
+
+    @Test
+    public void test_generateSubQueries_notRequired() {
+        // given
+        CanonicalTypeConfiguration config = CanonicalTypeConfiguration.loadFromString("""
+                type: test
+                index: test
+                fields:
+                  - name: name
+                    type: text
+                    required: false
+                  - name: NAME
+                    type: text
+                    required: true
+                """);
+        Document doc = new Document();
+        doc.setProperty("name", "Smith");
+        // when
+        List<Query> queries = CompiledQueryTemplate.compile(config).generateSubQueries(doc);
+        // then
+        Assert.assertTrue(queries.isEmpty());
+    }
+
+    @Test
+    public void test_getTemplate_cachedUntilConfigChanges() {
+        // given
+        CachedIndexMapper.load(HAPPY_PATH);
+        CompiledQueryTemplate first = DynamicSimilarityQueryGenerator.getTemplate("TestAllTypesMinimum");
+        // when
+        CompiledQueryTemplate second = DynamicSimilarityQueryGenerator.getTemplate("TestAllTypesMinimum");
+        CachedIndexMapper.getCache()
+                         .put(CanonicalTypeConfiguration.TYPE, "TestAllTypesMinimum",
+                              CONFIGS.get("TestAllTypesMaximum"), false);
+        CompiledQueryTemplate third = DynamicSimilarityQueryGenerator.getTemplate("TestAllTypesMinimum");
+        // then
+        Assert.assertNotNull(first);
+        Assert.assertSame(second, first);
+        Assert.assertNotSame(third, first);
+        CachedIndexMapper.load(HAPPY_PATH);
+    }
+
+    @Test
+    public void test_getTemplate_missing() {
+        // given
+        // when
+        CompiledQueryTemplate template = DynamicSimilarityQueryGenerator.getTemplate("missing");
+        // then
+        Assert.assertNull(template);
+    }
+
+    @Test
+    public void test_getTemplate_override() {
+        // given
+        CanonicalTypeConfiguration config = CONFIGS.get("TestAllTypesMaximum");
+        // when
+        CompiledQueryTemplate first = DynamicSimilarityQueryGenerator.getTemplate(config);
+        CompiledQueryTemplate second = DynamicSimilarityQueryGenerator.getTemplate(config);
+        // then
+        Assert.assertSame(second, first);
+    }
+
+    private static Query expectedQuery(CanonicalTypeConfiguration.SimilarityField field, Object value) {
+        SimilarityQueryVisitor visitor = new SimilarityQueryVisitor();
+        field.accept(visitor, value);
+        return visitor.getQuery();
+    }
+}
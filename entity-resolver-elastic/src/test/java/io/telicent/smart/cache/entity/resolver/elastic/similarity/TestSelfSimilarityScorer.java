@@ -0,0 +1,116 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.entity.resolver.elastic.similarity;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.DistanceFeatureQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.termvectors.FieldStatistics;
+import co.elastic.clients.elasticsearch.core.termvectors.Term;
+import co.elastic.clients.elasticsearch.core.termvectors.TermVector;
+import co.elastic.clients.json.JsonData;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestSelfSimilarityScorer {
+
+    private static final Query NAME = Query.of(q -> q.match(m -> m.field("name").boost(2f).query("Alice Smith")));
+    private static final Query ID = Query.of(q -> q.term(t -> t.field("id").value("abc")));
+    private static final Query BORN = Query.of(q -> q.distanceFeature(
+            DistanceFeatureQuery.of(d -> d.field("born").boost(3f).origin(JsonData.of("2000-01-01"))
+                                          .pivot(JsonData.of("1d")))));
+
+    private static Query similarityQuery(Query... clauses) {
+        return Query.of(q -> q.bool(b -> b.should(List.of(clauses))));
+    }
+
+    private static TermVector termVector(long sumTtf, Map<String, Term> terms) {
+        FieldStatistics statistics = FieldStatistics.of(f -> f.docCount(9).sumDocFreq(9).sumTtf(sumTtf));
+        return TermVector.of(t -> t.fieldStatistics(statistics).terms(terms));
+    }
+
+    private static Term term(int termFreq, int docFreq) {
+        return Term.of(t -> t.termFreq(termFreq).docFreq(docFreq));
+    }
+
+    @Test
+    public void test_termFields_onlyTermBasedClauses() {
+        // given
+        Query query = similarityQuery(NAME, ID, BORN);
+
+        // when
+        Map<String, String> fields = SelfSimilarityScorer.termFields(query);
+
+        // then
+        Assert.assertEquals(fields, Map.of("name", "Alice Smith", "id", "abc"));
+    }
+
+    @Test
+    public void test_selfScore_textField_bm25AsIfIndexed() {
+        // given
+        // 9 documents with an average length of 2 so, once the input is included, the input is of average length
+        Map<String, TermVector> termVectors =
+                Map.of("name", termVector(18, Map.of("alice", term(1, 1), "smith", term(1, 4))));
+
+        // when
+        double score = SelfSimilarityScorer.selfScore(similarityQuery(NAME), termVectors);
+
+        // then
+        double alice = Math.log(1 + (10 - 2 + 0.5) / (2 + 0.5));
+        double smith = Math.log(1 + (10 - 5 + 0.5) / (5 + 0.5));
+        Assert.assertEquals(score, 2 * (alice + smith), 0.0001);
+    }
+
+    @Test
+    public void test_selfScore_keywordField_noLengthNormalisation() {
+        // given
+        Map<String, TermVector> termVectors = Map.of("id", termVector(-1, Map.of("abc", term(1, 0))));
+
+        // when
+        double score = SelfSimilarityScorer.selfScore(similarityQuery(ID), termVectors);
+
+        // then
+        Assert.assertEquals(score, Math.log(1 + (10 - 1 + 0.5) / (1 + 0.5)), 0.0001);
+    }
+
+    @Test
+    public void test_selfScore_nonTermClausesScoreBoost() {
+        // given
+        Query query = similarityQuery(NAME, BORN);
+
+        // when
+        double score = SelfSimilarityScorer.selfScore(query, Map.of());
+
+        // then
+        Assert.assertEquals(score, 3.0, 0.0001);
+    }
+
+    @Test
+    public void test_termScore_perPosition_repeatedTermsMatchedPerOccurrence() {
+        // given
+        TermVector termVector = termVector(18, Map.of("alice", term(2, 1)));
+
+        // when
+        double perTerm = SelfSimilarityScorer.termScore(1.0, termVector, false);
+        double perPosition = SelfSimilarityScorer.termScore(1.0, termVector, true);
+
+        // then
+        Assert.assertTrue(perTerm > 0);
+        Assert.assertEquals(perPosition, 2 * perTerm, 0.0001);
+    }
+}
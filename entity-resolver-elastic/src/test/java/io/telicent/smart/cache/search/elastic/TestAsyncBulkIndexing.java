@@ -0,0 +1,196 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.elastic;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.ErrorCause;
+import co.elastic.clients.elasticsearch._types.ShardStatistics;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
+import io.telicent.smart.cache.search.SearchException;
+import io.telicent.smart.cache.search.model.SearchIndexBulkResult;
+import io.telicent.smart.cache.search.model.SearchIndexBulkResults;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.mockito.Mockito.*;
+
+public class TestAsyncBulkIndexing {
+
+    private static final String INDEX = "async-bulk-test";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Function<Map<String, Object>, String> ID_PROVIDER = m -> (String) m.get("id");
+
+    private ElasticSearchIndexer<Map<String, Object>> real;
+    private ElasticSearchIndexer<Map<String, Object>> indexer;
+    private ElasticsearchAsyncClient asyncClient;
+
+    @BeforeMethod
+    public void setup() {
+        // No requests are ever made to this address, every request is made via the mocked asynchronous client
+        this.real = ElasticSearchIndexer.<Map<String, Object>>create()
+                                        .index(INDEX)
+                                        .usingOverwrites()
+                                        .maxRetries(MAX_ATTEMPTS)
+                                        .withMinimumRetryInterval(Duration.ofMillis(1), Duration.ofMillis(1))
+                                        .withMaximumRetryInterval(Duration.ofMillis(10), Duration.ofMillis(10))
+                                        .host("localhost")
+                                        .port(9200)
+                                        .build();
+        this.indexer = spy(this.real);
+        this.asyncClient = mock(ElasticsearchAsyncClient.class);
+        doReturn(this.asyncClient).when(this.indexer).asyncClient();
+        doNothing().when(this.indexer).restoreInterruptedBulkIngestion();
+    }
+
+    @AfterMethod
+    public void teardown() throws Exception {
+        this.real.close();
+    }
+
+    private static List<Map<String, Object>> batch(String... ids) {
+        return List.of(ids).stream().map(id -> Map.<String, Object>of("id", id, "name", "Name " + id)).toList();
+    }
+
+    private static List<String> ids(BulkRequest request) {
+        return request.operations().stream().map(o -> o.index().id()).toList();
+    }
+
+    private static BulkResponse response(BulkRequest request, int status) {
+        return response(ids(request), status);
+    }
+
+    /**
+     * Builds a bulk response where every item has the given status
+     *
+     * @param ids    IDs of the items, in request order
+     * @param status HTTP status for every item, anything other than {@code 201} is reported as an error
+     * @return Bulk response
+     */
+    private static BulkResponse response(List<String> ids, int status) {
+        List<BulkResponseItem> items = ids.stream().map(id -> BulkResponseItem.of(i -> {
+            i.operationType(OperationType.Index).index(INDEX).id(id).status(status);
+            if (status == 201) {
+                i.shards(ShardStatistics.of(s -> s.total(1).successful(1).failed(0)));
+            } else {
+                i.error(ErrorCause.of(e -> e.type("es_rejected_execution_exception").reason("Rejected")));
+            }
+            return i;
+        })).toList();
+        return BulkResponse.of(b -> b.errors(status != 201).took(5).items(items));
+    }
+
+    private static List<String> itemIds(SearchIndexBulkResults<Map<String, Object>> results) {
+        return results.getResults().stream().map(SearchIndexBulkResult::getItem).map(ID_PROVIDER).toList();
+    }
+
+    @Test
+    public void givenTransientFailure_whenBulkIndexingAsync_thenRetriedAndSucceeds() throws Exception {
+        // Given
+        when(this.asyncClient.bulk(any(BulkRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("Connection reset")))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        response(invocation.getArgument(0), 201)));
+
+        // When
+        SearchIndexBulkResults<Map<String, Object>> results =
+                this.indexer.bulkIndexAsync(ID_PROVIDER, batch("a", "b")).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertEquals(results.getSuccessfulCount(), 2);
+        Assert.assertEquals(results.getFailureCount(), 0);
+        verify(this.asyncClient, times(2)).bulk(any(BulkRequest.class));
+    }
+
+    @Test
+    public void givenRejectedBatch_whenBulkIndexingAsync_thenRetriedAndRejectionsReported() throws Exception {
+        // Given
+        when(this.asyncClient.bulk(any(BulkRequest.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        response(invocation.getArgument(0), 429)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        response(invocation.getArgument(0), 201)));
+
+        // When
+        SearchIndexBulkResults<Map<String, Object>> results =
+                this.indexer.bulkIndexAsync(ID_PROVIDER, batch("a", "b")).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertEquals(results.getSuccessfulCount(), 2);
+        Assert.assertEquals(results.getRejections(), 2);
+        Assert.assertEquals(results.getTook(), 10L);
+        verify(this.asyncClient, times(2)).bulk(any(BulkRequest.class));
+    }
+
+    @Test
+    public void givenPersistentFailure_whenBulkIndexingAsync_thenFailsOnceRetriesExhausted() throws Exception {
+        // Given
+        when(this.asyncClient.bulk(any(BulkRequest.class)))
+                .thenAnswer(invocation -> CompletableFuture.failedFuture(new IOException("Connection refused")));
+
+        // When
+        CompletableFuture<SearchIndexBulkResults<Map<String, Object>>> future =
+                this.indexer.bulkIndexAsync(ID_PROVIDER, batch("a", "b"));
+
+        // Then
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("Expected bulk indexing to fail once retries were exhausted");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SearchException);
+        }
+        verify(this.asyncClient, times(MAX_ATTEMPTS)).bulk(any(BulkRequest.class));
+    }
+
+    @Test
+    public void givenLaterBatchFinishesFirst_whenBulkIndexingAsync_thenEachBatchCompletesWithItsOwnResults()
+            throws Exception {
+        // Given
+        CompletableFuture<BulkResponse> firstResponse = new CompletableFuture<>();
+        CompletableFuture<BulkResponse> secondResponse = new CompletableFuture<>();
+        when(this.asyncClient.bulk(any(BulkRequest.class))).thenReturn(firstResponse, secondResponse);
+        CompletableFuture<SearchIndexBulkResults<Map<String, Object>>> first =
+                this.indexer.bulkIndexAsync(ID_PROVIDER, batch("a", "b"));
+        CompletableFuture<SearchIndexBulkResults<Map<String, Object>>> second =
+                this.indexer.bulkIndexAsync(ID_PROVIDER, batch("c", "d", "e"));
+
+        // When
+        secondResponse.complete(response(List.of("c", "d", "e"), 201));
+
+        // Then
+        Assert.assertEquals(itemIds(second.get(5, TimeUnit.SECONDS)), List.of("c", "d", "e"));
+        Assert.assertFalse(first.isDone());
+
+        // And
+        firstResponse.complete(response(List.of("a", "b"), 201));
+        SearchIndexBulkResults<Map<String, Object>> firstResults = first.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(itemIds(firstResults), List.of("a", "b"));
+        Assert.assertEquals(firstResults.getSuccessfulCount(), 2);
+    }
+}
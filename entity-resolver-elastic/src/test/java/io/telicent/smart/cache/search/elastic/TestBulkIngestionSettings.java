@@ -0,0 +1,317 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.elastic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+public class TestBulkIngestionSettings {
+
+    private static final String INDEX = "bulk-ingestion-test";
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private ElasticSearchIndexer<Map<String, Object>> real;
+    private ElasticSearchIndexer<Map<String, Object>> indexer;
+    /**
+     * Explicitly configured settings of the fake index, settings using their defaults are absent
+     */
+    private Map<String, String> settings;
+    private ObjectNode meta;
+    private Boolean settingsUpdatable;
+
+    @BeforeMethod
+    public void setup() {
+        this.settings = new HashMap<>(Map.of("index.refresh_interval", "5s", "index.number_of_replicas", "2"));
+        this.meta = JSON.createObjectNode();
+        this.settingsUpdatable = true;
+
+        // No requests are ever made to this address, every request the bulk ingestion logic makes is stubbed against
+        // our fake index
+        this.real = ElasticSearchIndexer.<Map<String, Object>>create()
+                                        .index(INDEX)
+                                        .usingOverwrites()
+                                        .host("localhost")
+                                        .port(9200)
+                                        .build();
+        this.indexer = spy(this.real);
+        setupStubsFor(this.indexer);
+    }
+
+    /**
+     * Stubs all the requests the bulk ingestion logic makes to operate against our fake index
+     *
+     * @param indexer Indexer spy
+     */
+    private void setupStubsFor(ElasticSearchIndexer<Map<String, Object>> indexer) {
+        doAnswer(invocation -> {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String key : invocation.<Collection<String>>getArgument(1)) {
+                values.put(key, this.settings.get(key));
+            }
+            return values;
+        }).when(indexer).getIndexSettings(eq(INDEX), anyCollection());
+        doAnswer(invocation -> {
+            if (!Boolean.TRUE.equals(this.settingsUpdatable)) {
+                return this.settingsUpdatable;
+            }
+            invocation.<Map<String, String>>getArgument(1).forEach((key, value) -> {
+                if (value == null) {
+                    this.settings.remove(key);
+                } else {
+                    this.settings.put(key, value);
+                }
+            });
+            return true;
+        }).when(indexer).updateIndexSettings(eq(INDEX), anyMap());
+        doAnswer(invocation -> this.meta.deepCopy()).when(indexer).getIndexMeta(INDEX);
+        doAnswer(invocation -> {
+            this.meta = invocation.<ObjectNode>getArgument(1).deepCopy();
+            return true;
+        }).when(indexer).updateIndexMeta(eq(INDEX), any());
+        doReturn(true).when(indexer).refreshIndex(INDEX);
+    }
+
+    @AfterMethod
+    public void teardown() throws Exception {
+        this.real.close();
+    }
+
+    private boolean hasRecordedOriginalSettings() {
+        return this.meta.has(ElasticIndexManager.BULK_INGESTION_ORIGINAL_SETTINGS_META);
+    }
+
+    @Test
+    public void givenIndex_whenBeginningBulkIngestion_thenBulkSettingsAppliedAndOriginalsRecorded() {
+        // Given and When
+        this.indexer.beginBulkIngestion();
+
+        // Then
+        Assert.assertEquals(this.settings, ElasticIndexManager.BULK_INGESTION_SETTINGS);
+        Assert.assertTrue(hasRecordedOriginalSettings());
+        ObjectNode recorded = (ObjectNode) this.meta.get(ElasticIndexManager.BULK_INGESTION_ORIGINAL_SETTINGS_META);
+        Assert.assertEquals(recorded.get("index.refresh_interval").asText(), "5s");
+        Assert.assertEquals(recorded.get("index.number_of_replicas").asText(), "2");
+        Assert.assertTrue(recorded.get("index.translog.durability").isNull());
+    }
+
+    @Test
+    public void givenBulkIngestion_whenEnding_thenOriginalSettingsRestoredAndRecordRemoved() {
+        // Given
+        Map<String, String> original = Map.copyOf(this.settings);
+        this.indexer.beginBulkIngestion();
+
+        // When
+        this.indexer.endBulkIngestion();
+
+        // Then
+        Assert.assertEquals(this.settings, original);
+        Assert.assertFalse(hasRecordedOriginalSettings());
+        verify(this.indexer).refreshIndex(INDEX);
+    }
+
+    @Test
+    public void givenNestedBulkIngestions_whenEnding_thenOnlyFinalEndRestores() {
+        // Given
+        Map<String, String> original = Map.copyOf(this.settings);
+        this.indexer.beginBulkIngestion();
+        this.indexer.beginBulkIngestion();
+
+        // When
+        this.indexer.endBulkIngestion();
+
+        // Then
+        Assert.assertEquals(this.settings, ElasticIndexManager.BULK_INGESTION_SETTINGS);
+        Assert.assertTrue(hasRecordedOriginalSettings());
+
+        // And
+        this.indexer.endBulkIngestion();
+        Assert.assertEquals(this.settings, original);
+        Assert.assertFalse(hasRecordedOriginalSettings());
+        verify(this.indexer, times(2)).updateIndexSettings(eq(INDEX), anyMap());
+    }
+
+    @Test
+    public void givenNoBulkIngestion_whenEnding_thenNothingChanged() {
+        // Given
+        Map<String, String> original = Map.copyOf(this.settings);
+
+        // When
+        this.indexer.endBulkIngestion();
+        this.indexer.beginBulkIngestion();
+        this.indexer.endBulkIngestion();
+
+        // Then
+        Assert.assertEquals(this.settings, original);
+        verify(this.indexer, times(2)).updateIndexSettings(eq(INDEX), anyMap());
+    }
+
+    @Test
+    public void givenRecordLeftByCrashedBulkIngestion_whenBulkIngesting_thenRecordedOriginalsRestored() {
+        // Given
+        this.indexer.beginBulkIngestion();
+        // Simulate the process terminating, a new indexer has no knowledge of the previous bulk ingestion beyond what
+        // is recorded in the index
+        this.indexer = spy(this.real);
+        setupStubsFor(this.indexer);
+
+        // When
+        this.indexer.beginBulkIngestion();
+        this.indexer.endBulkIngestion();
+
+        // Then
+        Assert.assertEquals(this.settings, Map.of("index.refresh_interval", "5s", "index.number_of_replicas", "2"));
+        Assert.assertFalse(hasRecordedOriginalSettings());
+    }
+
+    /**
+     * Simulates a bulk ingestion by another indexer that was killed before it completed, leaving the bulk ingestion
+     * settings in place and the original settings recorded in the index metadata
+     */
+    private void crashedBulkIngestion() {
+        ElasticSearchIndexer<Map<String, Object>> crashed = spy(this.real);
+        setupStubsFor(crashed);
+        crashed.beginBulkIngestion();
+    }
+
+    @Test
+    public void givenRecordLeftByCrashedBulkIngestion_whenFirstTouchingIndex_thenRecordedOriginalsRestored() {
+        // Given
+        crashedBulkIngestion();
+        Assert.assertEquals(this.settings, ElasticIndexManager.BULK_INGESTION_SETTINGS);
+
+        // When
+        this.indexer.restoreInterruptedBulkIngestion();
+
+        // Then
+        Assert.assertEquals(this.settings, Map.of("index.refresh_interval", "5s", "index.number_of_replicas", "2"));
+        Assert.assertFalse(hasRecordedOriginalSettings());
+        verify(this.indexer).refreshIndex(INDEX);
+    }
+
+    @Test
+    public void givenIndexAlreadyTouched_whenTouchingAgain_thenRecordNotCheckedAgain() {
+        // Given
+        this.indexer.restoreInterruptedBulkIngestion();
+        crashedBulkIngestion();
+
+        // When
+        this.indexer.restoreInterruptedBulkIngestion();
+
+        // Then
+        Assert.assertEquals(this.settings, ElasticIndexManager.BULK_INGESTION_SETTINGS);
+        Assert.assertTrue(hasRecordedOriginalSettings());
+        verify(this.indexer, times(1)).getIndexMeta(INDEX);
+        verify(this.indexer, never()).updateIndexSettings(eq(INDEX), anyMap());
+    }
+
+    @Test
+    public void givenOwnBulkIngestion_whenFirstTouchingIndex_thenBulkSettingsRetained() {
+        // Given
+        this.indexer.beginBulkIngestion();
+
+        // When
+        this.indexer.restoreInterruptedBulkIngestion();
+
+        // Then
+        Assert.assertEquals(this.settings, ElasticIndexManager.BULK_INGESTION_SETTINGS);
+        Assert.assertTrue(hasRecordedOriginalSettings());
+
+        // And
+        this.indexer.endBulkIngestion();
+        Assert.assertEquals(this.settings, Map.of("index.refresh_interval", "5s", "index.number_of_replicas", "2"));
+    }
+
+    @Test
+    public void givenNoRecord_whenFirstTouchingIndex_thenNothingChanged() {
+        // Given
+        Map<String, String> original = Map.copyOf(this.settings);
+
+        // When
+        this.indexer.restoreInterruptedBulkIngestion();
+
+        // Then
+        Assert.assertEquals(this.settings, original);
+        verify(this.indexer, never()).updateIndexSettings(eq(INDEX), anyMap());
+        verify(this.indexer, never()).refreshIndex(INDEX);
+    }
+
+    @Test
+    public void givenBulkSettingsLeftWithoutRecord_whenBulkIngesting_thenSettingsResetToDefaults() {
+        // Given
+        this.settings = new HashMap<>(ElasticIndexManager.BULK_INGESTION_SETTINGS);
+
+        // When
+        this.indexer.beginBulkIngestion();
+        this.indexer.endBulkIngestion();
+
+        // Then
+        Assert.assertTrue(this.settings.isEmpty());
+        Assert.assertFalse(hasRecordedOriginalSettings());
+    }
+
+    @Test
+    public void givenSettingsCannotBeUpdated_whenBeginningBulkIngestion_thenRecordRemoved() {
+        // Given
+        this.settingsUpdatable = false;
+
+        // When
+        this.indexer.beginBulkIngestion();
+
+        // Then
+        Assert.assertFalse(hasRecordedOriginalSettings());
+
+        // And
+        this.indexer.endBulkIngestion();
+        verify(this.indexer, times(1)).updateIndexSettings(eq(INDEX), anyMap());
+    }
+
+    @Test
+    public void givenBulkIngestionSettings_whenDeterminingOriginalSettings_thenDefaultsUsed() {
+        // Given
+        Map<String, String> current = new LinkedHashMap<>(ElasticIndexManager.BULK_INGESTION_SETTINGS);
+
+        // When
+        Map<String, String> original = AbstractElasticClient.originalSettings(current);
+
+        // Then
+        Assert.assertEquals(original.keySet(), ElasticIndexManager.BULK_INGESTION_SETTINGS.keySet());
+        Assert.assertTrue(original.values().stream().allMatch(v -> v == null));
+    }
+
+    @Test
+    public void givenOtherSettings_whenDeterminingOriginalSettings_thenUnchanged() {
+        // Given
+        Map<String, String> current = new LinkedHashMap<>(ElasticIndexManager.BULK_INGESTION_SETTINGS);
+        current.put("index.refresh_interval", "1s");
+
+        // When
+        Map<String, String> original = AbstractElasticClient.originalSettings(current);
+
+        // Then
+        Assert.assertEquals(original, current);
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.elastic;
+
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import jakarta.json.stream.JsonGenerator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class TestRawJsonDocument {
+
+    private static final String SOURCE =
+            "{\"nested\":{\"id\":\"wrong\"},\"names\":[\"a\",{\"id\":\"also-wrong\"}],\"id\":\"expected\",\"name\":\"café\"}";
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String serialize(Object value) {
+        JacksonJsonpMapper mapper = new JacksonJsonpMapper();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = mapper.jsonProvider().createGenerator(output)) {
+            mapper.serialize(value, generator);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void givenDocument_whenParsing_thenOnlyTopLevelIdIsUsed() throws IOException {
+        // Given
+        byte[] source = bytes(SOURCE);
+
+        // When
+        RawJsonDocument document = RawJsonDocument.parse(source, "id");
+
+        // Then
+        Assert.assertEquals(document.id(), "expected");
+        Assert.assertSame(document.source(), source);
+        Assert.assertEquals(document.size(), source.length);
+    }
+
+    @Test
+    public void givenNumericId_whenParsing_thenIdIsText() throws IOException {
+        // Given and When
+        RawJsonDocument document = RawJsonDocument.parse(bytes("{\"id\":1234}"), "id");
+
+        // Then
+        Assert.assertEquals(document.id(), "1234");
+    }
+
+    @Test
+    public void givenNoId_whenParsing_thenIdIsNull() throws IOException {
+        // Given and When
+        RawJsonDocument document = RawJsonDocument.parse(bytes("{\"other\":{\"id\":\"nested\"},\"id\":[1]}"), "id");
+
+        // Then
+        Assert.assertNull(document.id());
+    }
+
+    @Test
+    public void givenMalformedDocumentAfterId_whenParsing_thenParsingStopsAtId() throws IOException {
+        // Given and When
+        RawJsonDocument document = RawJsonDocument.parse(bytes("{\"id\":\"a\", this is not JSON"), "id");
+
+        // Then
+        Assert.assertEquals(document.id(), "a");
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void givenNonObject_whenParsing_thenFails() throws IOException {
+        // Given, When and Then
+        RawJsonDocument.parse(bytes("[1, 2, 3]"), "id");
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void givenMalformedDocument_whenParsing_thenFails() throws IOException {
+        // Given, When and Then
+        RawJsonDocument.parse(bytes("{\"name\": nope"), "id");
+    }
+
+    @Test
+    public void givenDocument_whenSerializing_thenSourceIsWrittenVerbatim() throws IOException {
+        // Given
+        RawJsonDocument document = RawJsonDocument.parse(bytes(SOURCE), "id");
+
+        // When
+        String json = serialize(document);
+
+        // Then
+        Assert.assertEquals(json, SOURCE);
+    }
+
+    @Test
+    public void givenMultiLineDocument_whenSerializing_thenSerializedOnSingleLine() throws IOException {
+        // Given
+        String source = "{\n  \"id\" : \"expected\",\r\n  \"names\" : [ \"a\", \"b\" ]\n}\n";
+        RawJsonDocument document = RawJsonDocument.parse(bytes(source), "id");
+
+        // When
+        String json = serialize(document);
+
+        // Then
+        Assert.assertEquals(document.shape(), RawJsonDocument.Shape.REQUIRES_RESERIALIZATION);
+        Assert.assertFalse(json.contains("\n"));
+        Assert.assertFalse(json.contains("\r"));
+        Assert.assertEquals(json, "{\"id\":\"expected\",\"names\":[\"a\",\"b\"]}");
+    }
+
+    @Test
+    public void givenTrailingData_whenSerializing_thenOnlyRootObjectSerialized() throws IOException {
+        // Given
+        RawJsonDocument document = RawJsonDocument.parse(bytes("{\"id\":\"a\"} {\"id\":\"b\"}"), "id");
+
+        // When
+        String json = serialize(document);
+
+        // Then
+        Assert.assertEquals(document.shape(), RawJsonDocument.Shape.REQUIRES_RESERIALIZATION);
+        Assert.assertEquals(json, "{\"id\":\"a\"}");
+    }
+
+    @Test
+    public void givenMalformedMultiLineDocument_whenSerializing_thenWrittenOnSingleLine() throws IOException {
+        // Given
+        RawJsonDocument document = RawJsonDocument.parse(bytes("{\"id\":\"a\",\n\"name\": nope\n"), "id");
+
+        // When
+        String json = serialize(document);
+
+        // Then
+        Assert.assertEquals(document.shape(), RawJsonDocument.Shape.MALFORMED);
+        Assert.assertEquals(json, "{\"id\":\"a\", \"name\": nope ");
+    }
+
+    @Test
+    public void givenSingleLineDocument_whenClassifying_thenVerbatim() throws IOException {
+        // Given and When
+        RawJsonDocument document = RawJsonDocument.parse(bytes(SOURCE), "id");
+
+        // Then
+        Assert.assertEquals(document.shape(), RawJsonDocument.Shape.VERBATIM);
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.elastic;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class TestResolveIndexEntry {
+
+    @Test
+    public void givenResultsKeyedByIndex_whenResolvingIndex_thenEntryReturned() {
+        // Given
+        Map<String, String> results = Map.of("canonical", "a", "other", "b");
+
+        // When
+        String entry = AbstractElasticClient.resolveIndexEntry(results, "canonical");
+
+        // Then
+        Assert.assertEquals(entry, "a");
+    }
+
+    @Test
+    public void givenResultsForSingleAliasedIndex_whenResolvingAlias_thenAliasedIndexEntryReturned() {
+        // Given
+        Map<String, String> results = Map.of("canonical-v2", "a");
+
+        // When
+        String entry = AbstractElasticClient.resolveIndexEntry(results, "canonical");
+
+        // Then
+        Assert.assertEquals(entry, "a");
+    }
+
+    @Test
+    public void givenResultsForSeveralOtherIndices_whenResolvingAlias_thenNull() {
+        // Given
+        Map<String, String> results = Map.of("canonical-v1", "a", "canonical-v2", "b");
+
+        // When
+        String entry = AbstractElasticClient.resolveIndexEntry(results, "canonical");
+
+        // Then
+        Assert.assertNull(entry);
+    }
+
+    @Test
+    public void givenNoResults_whenResolvingIndex_thenNull() {
+        // Given, When and Then
+        Assert.assertNull(AbstractElasticClient.resolveIndexEntry(Collections.emptyMap(), "canonical"));
+        Assert.assertNull(AbstractElasticClient.resolveIndexEntry(null, "canonical"));
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.elastic;
+
+import io.telicent.jena.abac.AttributeValueSet;
+import io.telicent.smart.cache.search.model.QueryType;
+import io.telicent.smart.cache.search.model.TypeFilterMode;
+import io.telicent.smart.cache.search.options.FieldOptions;
+import io.telicent.smart.cache.search.options.SearchOptions;
+import io.telicent.smart.cache.search.options.SecurityOptions;
+import io.telicent.smart.cache.search.options.SortOptions;
+import io.telicent.smart.cache.search.options.TypeFilterOptions;
+import org.apache.jena.atlas.lib.CacheFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class TestSearchContinuation {
+
+    @Test
+    public void givenContinuation_whenEncodingAndDecoding_thenRoundTrips() {
+        // Given
+        String fingerprint = SearchContinuation.fingerprint(QueryType.QUERY, "dog OR cat", SearchOptions.defaults());
+        SearchContinuation continuation = new SearchContinuation(fingerprint, "pit-id", List.of("1.2345", "17"), 101);
+
+        // When
+        SearchContinuation decoded = SearchContinuation.decode(continuation.encode());
+
+        // Then
+        Assert.assertEquals(decoded, continuation);
+    }
+
+    @Test
+    public void givenContinuationWithNoSearchAfter_whenEncodingAndDecoding_thenRoundTrips() {
+        // Given
+        SearchContinuation continuation = new SearchContinuation("abc", "pit-id", List.of(), 1);
+
+        // When
+        SearchContinuation decoded = SearchContinuation.decode(continuation.encode());
+
+        // Then
+        Assert.assertEquals(decoded, continuation);
+        Assert.assertTrue(decoded.searchAfter().isEmpty());
+    }
+
+    @Test
+    public void givenContinuation_whenEncoding_thenTokenIsUrlSafe() {
+        // Given
+        SearchContinuation continuation =
+                new SearchContinuation("abc", "a+very/long==pit?id&with=odd~chars", List.of("x/y+z"), 5);
+
+        // When
+        String token = continuation.encode();
+
+        // Then
+        Assert.assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    public void givenDifferentQueries_whenFingerprinting_thenFingerprintsDiffer() {
+        // Given and When
+        String a = SearchContinuation.fingerprint(QueryType.QUERY, "dog", SearchOptions.defaults());
+        String b = SearchContinuation.fingerprint(QueryType.TERM, "dog", SearchOptions.defaults());
+        String c = SearchContinuation.fingerprint(QueryType.QUERY, "cat", SearchOptions.defaults());
+
+        // Then
+        Assert.assertEquals(a, SearchContinuation.fingerprint(QueryType.QUERY, "dog", SearchOptions.defaults()));
+        Assert.assertNotEquals(a, b);
+        Assert.assertNotEquals(a, c);
+    }
+
+    @Test
+    public void givenQuery_whenFingerprinting_thenSha256Hex() {
+        // Given and When
+        String fingerprint = SearchContinuation.fingerprint(QueryType.QUERY, "dog", SearchOptions.defaults());
+
+        // Then
+        Assert.assertTrue(fingerprint.matches("[0-9a-f]{64}"), fingerprint);
+    }
+
+    @Test
+    public void givenDifferentResultAffectingOptions_whenFingerprinting_thenFingerprintsDiffer() {
+        // Given
+        SearchOptions defaults = SearchOptions.defaults();
+        List<SearchOptions> variations = List.of(
+                SearchOptions.create().withTypeFiltering(new TypeFilterOptions("Person", TypeFilterMode.ANY)).build(),
+                SearchOptions.create()
+                             .withTypeFiltering(new TypeFilterOptions("Person", TypeFilterMode.ENTITY))
+                             .build(),
+                SearchOptions.create().withSorting(SortOptions.parse("<start")).build(),
+                SearchOptions.create().withSorting(SortOptions.parse(">start")).build(),
+                SearchOptions.create().withFields(FieldOptions.parse("name^2")).build(),
+                SearchOptions.create().withFields(FieldOptions.parse("name^3")).build(),
+                SearchOptions.create()
+                             .withSecurity(new SecurityOptions("alice", AttributeValueSet.EMPTY, null,
+                                                               CacheFactory.createNullCache()))
+                             .build(),
+                SearchOptions.create()
+                             .withSecurity(new SecurityOptions("bob", AttributeValueSet.EMPTY, null,
+                                                               CacheFactory.createNullCache()))
+                             .build());
+
+        // When
+        Set<String> fingerprints = new HashSet<>();
+        fingerprints.add(SearchContinuation.fingerprint(QueryType.QUERY, "dog", defaults));
+        variations.forEach(o -> fingerprints.add(SearchContinuation.fingerprint(QueryType.QUERY, "dog", o)));
+
+        // Then
+        Assert.assertEquals(fingerprints.size(), variations.size() + 1);
+    }
+
+    @Test
+    public void givenOptionsDifferingOnlyInPaging_whenFingerprinting_thenFingerprintsMatch() {
+        // Given
+        SearchOptions first = SearchOptions.create().limit(10).offset(1).build();
+        SearchOptions later = SearchOptions.create().limit(25).offset(11).continueFrom("token").build();
+
+        // When and Then
+        Assert.assertEquals(SearchContinuation.fingerprint(QueryType.QUERY, "dog", first),
+                            SearchContinuation.fingerprint(QueryType.QUERY, "dog", later));
+    }
+
+    @Test
+    public void givenMalformedTokens_whenDecoding_thenNull() {
+        // Given, When and Then
+        Assert.assertNull(SearchContinuation.decode(null));
+        Assert.assertNull(SearchContinuation.decode(""));
+        Assert.assertNull(SearchContinuation.decode("not base64!"));
+        Assert.assertNull(SearchContinuation.decode(encode("not json")));
+        Assert.assertNull(SearchContinuation.decode(encode("[]")));
+        Assert.assertNull(SearchContinuation.decode(encode("{\"q\":\"abc\",\"offset\":1}")));
+        Assert.assertNull(SearchContinuation.decode(encode("{\"q\":\"abc\",\"pit\":\"id\",\"offset\":0}")));
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ *   Copyright (c) Telicent Ltd.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package io.telicent.smart.cache.search.elastic;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Script;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermsQuery;
+import co.elastic.clients.json.JsonData;
+import io.telicent.jena.abac.AttributeValueSet;
+import io.telicent.jena.abac.attributes.AttributeValue;
+import io.telicent.jena.abac.attributes.ValueTerm;
+import io.telicent.smart.cache.entity.sinks.converters.DefaultOutputFields;
+import io.telicent.smart.cache.search.elastic.utils.PainlessScriptBuilder;
+import io.telicent.smart.cache.search.security.SecureSearchContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestSecurityPreFiltering {
+
+    private static final Query QUERY = Query.of(q -> q.matchAll(m -> m));
+    private static final String REMOVE_REQUIREMENTS =
+            "ctx._source.remove('" + DefaultOutputFields.SECURITY_REQUIREMENTS + "');";
+
+    private static SecureSearchContext contextFor(AttributeValueSet attributes) {
+        return SecureSearchContext.create().userAttributes(attributes).withoutEvaluationCache().build();
+    }
+
+    private static Script updateScript() {
+        PainlessScriptBuilder builder = new PainlessScriptBuilder();
+        builder.addParameter("name", JsonData.of("Test"));
+        return builder.asScript();
+    }
+
+    @Test
+    public void givenUserSatisfyingAllKnownRequirements_whenPreFiltering_thenQueryUnchanged() {
+        // Given
+        SecureSearchContext context =
+                contextFor(AttributeValueSet.of(AttributeValue.of("clearance", ValueTerm.value("S"))));
+
+        // When
+        Query filtered = ElasticSearchClient.withSecurityPreFilter(QUERY, context, List.of("clearance=S"));
+
+        // Then
+        Assert.assertSame(filtered, QUERY);
+    }
+
+    @Test
+    public void givenNoKnownRequirements_whenPreFiltering_thenQueryUnchanged() {
+        // Given
+        SecureSearchContext context = contextFor(AttributeValueSet.EMPTY);
+
+        // When
+        Query filtered = ElasticSearchClient.withSecurityPreFilter(QUERY, context, List.of());
+
+        // Then
+        Assert.assertSame(filtered, QUERY);
+    }
+
+    @Test
+    public void givenUnsatisfiedKnownRequirements_whenPreFiltering_thenExcludedViaMustNot() {
+        // Given
+        SecureSearchContext context =
+                contextFor(AttributeValueSet.of(AttributeValue.of("clearance", ValueTerm.value("S"))));
+
+        // When
+        Query filtered = ElasticSearchClient.withSecurityPreFilter(QUERY, context,
+                                                                   List.of("clearance=S", "clearance=TS",
+                                                                           "nationality=UK"));
+
+        // Then
+        Assert.assertTrue(filtered.isBool());
+        Assert.assertEquals(filtered.bool().must(), List.of(QUERY));
+        Assert.assertEquals(filtered.bool().mustNot().size(), 1);
+        TermsQuery excluded = filtered.bool().mustNot().get(0).terms();
+        Assert.assertEquals(excluded.field(), DefaultOutputFields.SECURITY_REQUIREMENTS);
+        Assert.assertEquals(excluded.terms().value().stream().map(FieldValue::stringValue).toList(),
+                            List.of("clearance=TS", "nationality=UK"));
+    }
+
+    @Test
+    public void givenMalformedKnownRequirement_whenPreFiltering_thenNeverExcluded() {
+        // Given
+        SecureSearchContext context = contextFor(AttributeValueSet.EMPTY);
+
+        // When
+        Query filtered = ElasticSearchClient.withSecurityPreFilter(QUERY, context, List.of("(clearance=S"));
+
+        // Then
+        Assert.assertSame(filtered, QUERY);
+    }
+
+    @Test
+    public void givenDocumentWithSecurityLabels_whenPreparingUpdateScript_thenRequirementsCleared() {
+        // Given
+        Script script = updateScript();
+        Map<String, Object> document = Map.of("uri", "https://example.org/id", DefaultOutputFields.SECURITY_LABELS,
+                                              Map.of(DefaultOutputFields.SECURITY_LABELS_SUB_FIELD_DEFAULTS,
+                                                     "clearance=S"));
+
+        // When
+        Script prepared = ElasticSearchIndexer.withSecurityRequirements(script, document);
+
+        // Then
+        Assert.assertNotSame(prepared, script);
+        Assert.assertTrue(prepared.inline().source().startsWith(script.inline().source()));
+        Assert.assertTrue(prepared.inline().source().contains(REMOVE_REQUIREMENTS));
+        Assert.assertEquals(prepared.inline().params().keySet(), script.inline().params().keySet());
+        Assert.assertEquals(prepared.inline().lang(), script.inline().lang());
+    }
+
+    @Test
+    public void givenDocumentWithoutSecurityLabels_whenPreparingUpdateScript_thenScriptUnchanged() {
+        // Given
+        Script script = updateScript();
+
+        // When
+        Script prepared =
+                ElasticSearchIndexer.withSecurityRequirements(script, Map.of("uri", "https://example.org/id"));
+
+        // Then
+        Assert.assertSame(prepared, script);
+    }
+
+    @Test
+    public void givenNonMapDocument_whenPreparingUpdateScript_thenScriptUnchanged() {
+        // Given
+        Script script = updateScript();
+
+        // When
+        Script prepared = ElasticSearchIndexer.withSecurityRequirements(script, "not a map");
+
+        // Then
+        Assert.assertSame(prepared, script);
+    }
+
+    /**
+     * Builds a partial document as produced by upsertable map conversion, where fine-grained security labels are nested
+     * within the output map for a group of data rather than at the top level of the document
+     *
+     * @return Partial document
+     */
+    private static Map<String, Object> nestedLabelsPartialDocument() {
+        return Map.of("uri", "https://example.org/id", "literals",
+                      Map.of("name", "Secret Name", DefaultOutputFields.SECURITY_LABELS,
+                             Map.of("name", "clearance=S")));
+    }
+
+    /**
+     * Merges a partial document into an existing document in the same way an upsert does for top level fields
+     *
+     * @param existing Existing document
+     * @param partial  Partial document
+     * @return Merged document
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> merge(Map<String, Object> existing, Object partial) {
+        Map<String, Object> merged = new LinkedHashMap<>(existing);
+        merged.putAll((Map<String, Object>) partial);
+        return merged;
+    }
+
+    /**
+     * Determines whether a pre-filtered query excludes a document based upon its security requirements
+     *
+     * @param query    Pre-filtered query
+     * @param document Document
+     * @return True if excluded, false otherwise
+     */
+    private static boolean excludes(Query query, Map<String, Object> document) {
+        if (!query.isBool()) {
+            return false;
+        }
+        Object requirements = document.get(DefaultOutputFields.SECURITY_REQUIREMENTS);
+        if (!(requirements instanceof Collection<?> values)) {
+            return false;
+        }
+        return query.bool()
+                    .mustNot()
+                    .stream()
+                    .flatMap(q -> q.terms().terms().value().stream())
+                    .map(FieldValue::stringValue)
+                    .anyMatch(values::contains);
+    }
+
+    @Test
+    public void givenPartialDocumentWithNestedLabels_whenPreparing_thenRequirementsCleared() {
+        // Given
+        Map<String, Object> partial = nestedLabelsPartialDocument();
+
+        // When
+        Object prepared = ElasticSearchIndexer.withSecurityRequirements(partial, true);
+
+        // Then
+        Assert.assertTrue(prepared instanceof Map<?, ?>);
+        Assert.assertEquals(((Map<?, ?>) prepared).get(DefaultOutputFields.SECURITY_REQUIREMENTS), List.of());
+    }
+
+    @Test
+    public void givenPartialDocumentWithoutLabels_whenPreparing_thenDocumentUnchanged() {
+        // Given
+        Map<String, Object> partial = Map.of("uri", "https://example.org/id", "literals", Map.of("name", "Name"));
+
+        // When and Then
+        Assert.assertSame(ElasticSearchIndexer.withSecurityRequirements(partial, true), partial);
+    }
+
+    @Test
+    public void givenDocumentWithNestedLabels_whenPreparingUpdateScript_thenRequirementsRemoved() {
+        // Given
+        Script script = updateScript();
+
+        // When
+        Script prepared = ElasticSearchIndexer.withSecurityRequirements(script, nestedLabelsPartialDocument());
+
+        // Then
+        Assert.assertTrue(prepared.inline().source().contains(REMOVE_REQUIREMENTS));
+    }
+
+    @Test
+    public void givenLabelsNestedInLists_whenCheckingForLabels_thenFound() {
+        // Given
+        Map<String, Object> document = Map.of("literals", Map.of("name", List.of(
+                Map.of("value", "Name", DefaultOutputFields.SECURITY_LABELS, Map.of("name", "clearance=S")))));
+
+        // When and Then
+        Assert.assertTrue(ElasticSearchIndexer.hasSecurityLabels(document));
+        Assert.assertFalse(ElasticSearchIndexer.hasSecurityLabels(Map.of("literals", List.of(Map.of("a", "b")))));
+        Assert.assertFalse(ElasticSearchIndexer.hasSecurityLabels("not a map"));
+    }
+
+    @Test
+    public void givenNestedLabelPartialUpsert_whenSearchingWithPreFilter_thenDocumentStillVisible() {
+        // Given
+        // An existing document that was previously indexed with document level labels the user doesn't satisfy
+        Map<String, Object> existing = new LinkedHashMap<>();
+        existing.put("uri", "https://example.org/id");
+        existing.put(DefaultOutputFields.SECURITY_LABELS,
+                     Map.of(DefaultOutputFields.SECURITY_LABELS_SUB_FIELD_DEFAULTS, "clearance=TS"));
+        existing.put(DefaultOutputFields.SECURITY_REQUIREMENTS, List.of("clearance=TS"));
+        SecureSearchContext context =
+                contextFor(AttributeValueSet.of(AttributeValue.of("clearance", ValueTerm.value("S"))));
+        Query before = ElasticSearchClient.withSecurityPreFilter(QUERY, context, List.of("clearance=TS"));
+        Assert.assertTrue(excludes(before, existing));
+
+        // When
+        // A partial upsert adds fine-grained labels, within a nested map, that may grant the user visibility
+        Map<String, Object> upserted =
+                merge(existing, ElasticSearchIndexer.withSecurityRequirements(nestedLabelsPartialDocument(), true));
+        Query filtered = ElasticSearchClient.withSecurityPreFilter(QUERY, context, List.of("clearance=TS"));
+
+        // Then
+        // The stale requirements are cleared so the pre-filter no longer hides the document, leaving full security
+        // filtering to decide what the user can see
+        Assert.assertTrue(filtered.isBool());
+        Assert.assertEquals(upserted.get(DefaultOutputFields.SECURITY_REQUIREMENTS), List.of());
+        Assert.assertFalse(excludes(filtered, upserted));
+    }
+}